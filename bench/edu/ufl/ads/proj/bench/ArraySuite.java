@@ -0,0 +1,136 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * The arrayrbtree engine against the rbtree engine behind the same EventCounter. The suite prints the heap taken per
+ * event, measured as in BPlusTreeSuite, the time the collector spent while the counter was initialized from arrays
+ * and during the churn benchmark, and the pause of a full collection with the counter live, which traces every RBNode
+ * of the rbtree engine but only the few arrays of the arrayrbtree engine.
+ * count, increase and next are measured as in EngineSuite, churn inserts a new id next to an event and deletes it
+ * again, which allocates a node of the rbtree engine and reuses a free slot of the arrayrbtree engine.
+ * An engine whose estimated heap does not fit is skipped, run with -sizes 100000000 and -Xmx3g for the arrayrbtree
+ * engine at 10^8 ids.
+ */
+public class ArraySuite implements Suite {
+    private static final String[] ENGINES = {"arrayrbtree", "rbtree"};
+    /**
+     * Rough heap taken per event by each engine, with room for the collector
+     */
+    private static final int[] ESTIMATED_BYTES = {32, 64};
+
+    @Override
+    public String name(){
+        return "array";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 43);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        int[] keys = new int[size];
+        int[] values = new int[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = KeyDistribution.key(i);
+            values[i] = SortedInputReader.value(i);
+        }
+        for(int e = 0; e < ENGINES.length; e++){
+            String engine = ENGINES[e];
+            long before = usedHeap();
+            if((long) size * ESTIMATED_BYTES[e] > Runtime.getRuntime().maxMemory() - before){
+                System.out.println(String.format(Locale.ROOT, "# array.memory %s size=%d skipped, heap too small",
+                        engine, size));
+                continue;
+            }
+            EventCounter counter = new EventCounter(CounterEngine.create(engine));
+            long gc = gcMillis();
+            counter.initialize(keys, values);
+            long buildGc = gcMillis() - gc;
+            long after = usedHeap();
+            long start = System.nanoTime();
+            System.gc();
+            double fullGc = (System.nanoTime() - start) / 1e6;
+            runner.run("array.count", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.count(id);
+                }
+            });
+            runner.run("array.increase", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.increase(id, 1);
+                }
+            });
+            runner.run("array.next", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    Event event = counter.next(id);
+                    return event != null ? event.getCount() : 0;
+                }
+            });
+            gc = gcMillis();
+            runner.run("array.churn", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.increase(id + 1, 1) + counter.reduce(id + 1, 1);
+                }
+            });
+            long churnGc = gcMillis() - gc;
+            System.out.println(String.format(Locale.ROOT,
+                    "# array.memory %s size=%d bytes/event=%.1f build.gc.ms=%d full.gc.ms=%.1f churn.gc.ms=%d",
+                    engine, size, (double) (after - before) / Math.max(1, size), buildGc, fullGc, churnGc));
+            counter.initialize(new int[0], new int[0]);
+        }
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return Time spent by all collectors so far, in milliseconds
+     */
+    private static long gcMillis(){
+        long millis = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, collector.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * Applies one operation per id
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
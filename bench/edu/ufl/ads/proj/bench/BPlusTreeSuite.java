@@ -0,0 +1,101 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.engine.BPlusTreeEngine;
+
+import java.io.BufferedReader;
+import java.util.Locale;
+
+/**
+ * The B+ tree engine against the red black tree behind the same EventCounter API: count, increase, inrange and next
+ * on counters of size ids. The suite also prints the heap taken by each counter, measured as the used heap after a
+ * full collection before and after the counter is initialized.
+ */
+public class BPlusTreeSuite implements Suite {
+    /**
+     * Number of ids covered by one inrange query
+     */
+    private static final int RANGE = 64;
+
+    @Override
+    public String name(){
+        return "btree";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 31);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        run(runner, "rbtree", distribution, size, ids, new EventCounter());
+        run(runner, "bplustree", distribution, size, ids, new EventCounter(new BPlusTreeEngine()));
+    }
+
+    private static void run(BenchmarkRunner runner, String structure, KeyDistribution distribution, int size,
+                            int[] ids, EventCounter counter) throws Exception {
+        long before = usedHeap();
+        counter.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        long after = usedHeap();
+        System.out.println(String.format(Locale.ROOT, "# btree.memory %s size=%d bytes/event=%.1f",
+                structure, size, (double) (after - before) / Math.max(1, size)));
+        runner.run("btree.count", structure, distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.count(id);
+            }
+        });
+        runner.run("btree.increase", structure, distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.increase(id, 1);
+            }
+        });
+        runner.run("btree.inrange", structure, distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.inrange(id, id + 2 * RANGE);
+            }
+        });
+        runner.run("btree.next", structure, distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                Event event = counter.next(id);
+                return event != null ? event.getCount() : 0;
+            }
+        });
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Applies one operation per id
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
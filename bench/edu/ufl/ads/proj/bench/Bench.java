@@ -0,0 +1,27 @@
+package edu.ufl.ads.proj.bench;
+
+/**
+ * A measured workload. setup() prepares the state of one iteration and is not measured, run() performs
+ * operations() operations and is measured.
+ */
+public abstract class Bench {
+
+    /**
+     * Prepares a fresh state for the next iteration
+     * @throws Exception when the setup fails
+     */
+    public void setup() throws Exception {
+    }
+
+    /**
+     * Performs the measured operations
+     * @return Any value computed from the results, so the JIT can not drop the work
+     * @throws Exception when the workload fails
+     */
+    public abstract long run() throws Exception;
+
+    /**
+     * @return Number of operations done by one run()
+     */
+    public abstract long operations();
+}
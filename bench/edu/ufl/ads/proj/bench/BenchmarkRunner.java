@@ -0,0 +1,74 @@
+package edu.ufl.ads.proj.bench;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Runs a Bench for a number of warmup and measured iterations and prints one result row:
+ * throughput in ops/s (average over the measured iterations) and allocation in bytes per operation,
+ * measured with the per thread allocation counter of the JVM.
+ * Only allocations of the benchmark thread are counted.
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int iterations;
+    private final PrintStream out;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private long blackhole;
+
+    public BenchmarkRunner(int warmupIterations, int iterations, PrintStream out){
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.out = out;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threadBean = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    public void printHeader(){
+        out.println(String.format(Locale.ROOT, "%-32s %-12s %-10s %10s %14s %12s",
+                "benchmark", "structure", "keys", "size", "ops/s", "B/op"));
+    }
+
+    /**
+     * Runs the benchmark and prints its result row
+     * @param name Name of the benchmark
+     * @param structure Name of the data structure measured
+     * @param distribution Key distribution
+     * @param size Size of the structure
+     * @param bench The workload
+     * @throws Exception when the workload fails
+     */
+    public void run(String name, String structure, KeyDistribution distribution, int size, Bench bench) throws Exception {
+        for(int i = 0; i < warmupIterations; i++){
+            bench.setup();
+            blackhole += bench.run();
+        }
+        long nanos = 0;
+        long bytes = 0;
+        for(int i = 0; i < iterations; i++){
+            bench.setup();
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            blackhole += bench.run();
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - allocated;
+        }
+        double operations = (double) bench.operations() * iterations;
+        out.println(String.format(Locale.ROOT, "%-32s %-12s %-10s %10d %14.0f %12s",
+                name, structure, distribution.name().toLowerCase(Locale.ROOT), size,
+                operations / (nanos / 1e9),
+                threadBean == null ? "n/a" : String.format(Locale.ROOT, "%.1f", bytes / operations)));
+    }
+
+    private long allocatedBytes(){
+        return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return Accumulated results of the benchmarks, printing it keeps the work observable
+     */
+    public long getBlackhole(){
+        return blackhole;
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ufl.ads.proj.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line entry point of the benchmarks, run with make bench (from src).
+ * Options:
+ *  -suites name,...    suites to run (default all)
+ *  -sizes n,...        sizes of the structures (default 1000,10000,100000,1000000; 10^8 needs -Xmx of several GB)
+ *  -keys d,...         key distributions: sequential, uniform, zipf (default all)
+ *  -warmup n           warmup iterations (default 3)
+ *  -iterations n       measured iterations (default 5)
+ */
+public class Benchmarks {
+
+    private static final Suite[] SUITES = {
+            new RBTreeSuite(),
+            new EventCounterSuite(),
+            new PipelineSuite(),
+            new WalkSuite(),
+            new LogSuite(),
+            new SnapshotSuite(),
+            new CopyOnWriteSuite(),
+            new BPlusTreeSuite(),
+            new EngineSuite(),
+            new PrimitiveSuite(),
+            new StringSuite(),
+            new MetricsSuite(),
+            new CacheSuite(),
+            new ShardSuite(),
+            new BlockSuite(),
+            new ArraySuite(),
+    };
+
+    public static void main(String[] args) throws Exception {
+        List<Suite> suites = new ArrayList<>(Arrays.asList(SUITES));
+        int[] sizes = {1000, 10000, 100000, 1000000};
+        List<KeyDistribution> distributions = new ArrayList<>(Arrays.asList(KeyDistribution.values()));
+        int warmup = 3;
+        int iterations = 5;
+        for(int i = 0; i + 1 < args.length; i += 2){
+            String value = args[i + 1];
+            switch(args[i]){
+                case "-suites":
+                    suites.clear();
+                    for(String name : value.split(","))
+                        suites.add(suite(name));
+                    break;
+                case "-sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-keys":
+                    distributions.clear();
+                    for(String name : value.split(","))
+                        distributions.add(KeyDistribution.valueOf(name.toUpperCase(Locale.ROOT)));
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, System.out);
+        runner.printHeader();
+        for(Suite suite : suites)
+            for(int size : sizes)
+                for(KeyDistribution distribution : distributions)
+                    suite.run(runner, size, distribution);
+        if(runner.getBlackhole() == 42)
+            System.out.println();
+    }
+
+    private static Suite suite(String name){
+        for(Suite suite : SUITES)
+            if(suite.name().equals(name))
+                return suite;
+        throw new IllegalArgumentException("Unknown suite: " + name);
+    }
+}
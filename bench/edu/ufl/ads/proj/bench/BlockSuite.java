@@ -0,0 +1,147 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.rbtree.BlockRBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+
+import java.util.Locale;
+
+/**
+ * Range queries of the BlockRBTree against the RBTree of EventCounter: inrange over 64 ids and over half of the ids,
+ * both answered from subtree sums with one descent per end, and the maximum count of 1024 ids, which scans the
+ * range pair by pair (RangeReducer.MAX). Run with -sizes 10000000 for the 10^7 ids of the comparison.
+ * The suite also prints the heap taken by each structure, measured as in BPlusTreeSuite.
+ */
+public class BlockSuite implements Suite {
+    /**
+     * Number of ids covered by one short inrange query
+     */
+    private static final int RANGE = 64;
+    /**
+     * Number of ids covered by one scan
+     */
+    private static final int SCAN = 1024;
+    /**
+     * Number of scans per run
+     */
+    private static final int SCANS = 1 << 14;
+
+    /**
+     * The range queries of a structure used by the suite
+     */
+    private interface Ranges {
+        long inrange(int id1, int id2);
+        long max(int id1, int id2);
+    }
+
+    @Override
+    public String name(){
+        return "block";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 41);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        int[] keys = new int[size];
+        int[] values = new int[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = KeyDistribution.key(i);
+            values[i] = SortedInputReader.value(i);
+        }
+
+        long before = usedHeap();
+        EventCounter counter = new EventCounter();
+        counter.initialize(keys, values);
+        memory("rbtree", size, before);
+        run(runner, "rbtree", distribution, size, ids, new Ranges(){
+            @Override
+            public long inrange(int id1, int id2){
+                return counter.inrange(id1, id2);
+            }
+            @Override
+            public long max(int id1, int id2){
+                return counter.aggregate(id1, id2, RangeReducer.MAX);
+            }
+        });
+        counter.initialize(new int[0], new int[0]);
+
+        before = usedHeap();
+        BlockRBTree tree = new BlockRBTree();
+        tree.initialize(keys, values);
+        memory("blockrbtree", size, before);
+        run(runner, "blockrbtree", distribution, size, ids, new Ranges(){
+            @Override
+            public long inrange(int id1, int id2){
+                return tree.inrange(id1, id2);
+            }
+            @Override
+            public long max(int id1, int id2){
+                return tree.reduce(id1, id2, RangeReducer.MAX);
+            }
+        });
+    }
+
+    private static void run(BenchmarkRunner runner, String structure, KeyDistribution distribution, int size,
+                            int[] ids, Ranges ranges) throws Exception {
+        runner.run("block.inrange", structure, distribution, size, new Operations(ids, ids.length){
+            @Override
+            long apply(int id){
+                return ranges.inrange(id, id + 2 * RANGE);
+            }
+        });
+        runner.run("block.inrange.half", structure, distribution, size, new Operations(ids, ids.length){
+            @Override
+            long apply(int id){
+                return ranges.inrange(id, id + size);
+            }
+        });
+        runner.run("block.max", structure, distribution, size, new Operations(ids, SCANS){
+            @Override
+            long apply(int id){
+                return ranges.max(id, id + 2 * SCAN);
+            }
+        });
+    }
+
+    private static void memory(String structure, int size, long before){
+        System.out.println(String.format(Locale.ROOT, "# block.memory %s size=%d bytes/event=%.1f",
+                structure, size, (double) (usedHeap() - before) / Math.max(1, size)));
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Applies one operation per id for the first operations ids
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+        private final int operations;
+
+        Operations(int[] ids, int operations){
+            this.ids = ids;
+            this.operations = operations;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int i = 0; i < operations; i++)
+                result += apply(ids[i]);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return operations;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+
+import java.io.BufferedReader;
+import java.util.Locale;
+
+/**
+ * count, increase and reduce of an EventCounter without and with a HotKeyCache of CAPACITY ids. The zipf keys
+ * mostly hit the cache, the sequential and uniform keys mostly miss it and measure what a miss costs.
+ * reduce takes back the increase of the run before, so no event is deleted.
+ */
+public class CacheSuite implements Suite {
+    private static final int CAPACITY = 1 << 12;
+
+    @Override
+    public String name(){
+        return "cache";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 37);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        //Both counters are measured one after the other for each operation, so that the drift of the machine over
+        //the run does not favour one of them
+        String[] structures = {"nocache", "cache"};
+        EventCounter[] counters = new EventCounter[structures.length];
+        for(int s = 0; s < structures.length; s++){
+            counters[s] = new EventCounter(structures[s].equals("cache") ? CAPACITY : 0);
+            counters[s].initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        }
+        for(int s = 0; s < structures.length; s++){
+            EventCounter counter = counters[s];
+            runner.run("cache.count", structures[s], distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.count(id);
+                }
+            });
+        }
+        for(int s = 0; s < structures.length; s++){
+            EventCounter counter = counters[s];
+            runner.run("cache.increase", structures[s], distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.increase(id, 1);
+                }
+            });
+        }
+        for(int s = 0; s < structures.length; s++){
+            EventCounter counter = counters[s];
+            runner.run("cache.reduce", structures[s], distribution, size, new Operations(ids){
+                @Override
+                public void setup(){
+                    for(int id : ids)
+                        counter.increase(id, 1);
+                }
+                @Override
+                long apply(int id){
+                    return counter.reduce(id, 1);
+                }
+            });
+        }
+        for(EventCounter counter : counters)
+            if(counter.getCache() != null)
+                System.out.println(String.format(Locale.ROOT, "# cache.hits %s size=%d hits=%d misses=%d evictions=%d bypasses=%d",
+                        distribution, size, counter.getCache().hits(), counter.getCache().misses(),
+                        counter.getCache().evictions(), counter.getCache().bypasses()));
+    }
+
+    /**
+     * Applies one operation per id
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.ConcurrentEventCounter;
+import edu.ufl.ads.proj.event.SnapshotEventCounter;
+import edu.ufl.ads.proj.rbtree.PersistentRBTree;
+
+import java.io.BufferedReader;
+import java.util.Locale;
+
+/**
+ * Read throughput while another thread keeps increasing counts: count and inrange of the lock free
+ * SnapshotEventCounter against the mutable RBTree behind a StampedLock (ConcurrentEventCounter with one stripe) and
+ * striped over the processors. The writer runs for the whole measurement and is stopped after each benchmark.
+ * The suite also prints how many nodes an increase copies and how many it shares with the previous version.
+ * On a single processor the writer and the reader take turns, which measures the cost of the reads racing the writes
+ * rather than parallel reads.
+ */
+public class CopyOnWriteSuite implements Suite {
+    /**
+     * Number of ids covered by one inrange query
+     */
+    private static final int RANGE = 128;
+
+    /**
+     * The operations of a counter used by the suite
+     */
+    private interface Counter {
+        int increase(int id, int count);
+        int count(int id);
+        long inrange(int id1, int id2);
+    }
+
+    @Override
+    public String name(){
+        return "cow";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 23);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        int[] writes = distribution.indexes(size, RBTreeSuite.LOOKUPS, 29);
+        for(int i = 0; i < writes.length; i++)
+            writes[i] = KeyDistribution.key(writes[i]);
+
+        SnapshotEventCounter snapshot = new SnapshotEventCounter();
+        snapshot.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        sharing(snapshot, writes, size);
+        run(runner, "snapshot", distribution, size, ids, writes,
+                new Counter(){
+                    @Override
+                    public int increase(int id, int count){
+                        return snapshot.increase(id, count);
+                    }
+                    @Override
+                    public int count(int id){
+                        return snapshot.count(id);
+                    }
+                    @Override
+                    public long inrange(int id1, int id2){
+                        return snapshot.inrange(id1, id2);
+                    }
+                });
+        run(runner, "locked", distribution, size, ids, writes, concurrent(size, 1));
+        run(runner, "striped", distribution, size, ids, writes,
+                concurrent(size, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static Counter concurrent(int size, int stripes) throws Exception {
+        ConcurrentEventCounter counter = new ConcurrentEventCounter(stripes);
+        counter.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        return new Counter(){
+            @Override
+            public int increase(int id, int count){
+                return counter.increase(id, count);
+            }
+            @Override
+            public int count(int id){
+                return counter.count(id);
+            }
+            @Override
+            public long inrange(int id1, int id2){
+                return counter.inrange(id1, id2);
+            }
+        };
+    }
+
+    private static void run(BenchmarkRunner runner, String structure, KeyDistribution distribution, int size,
+                            int[] ids, int[] writes, Counter counter) throws Exception {
+        Writer writer = new Writer(counter, writes);
+        writer.start();
+        try {
+            runner.run("cow.count", structure, distribution, size, new Reads(ids){
+                @Override
+                long apply(int id){
+                    return counter.count(id);
+                }
+            });
+            runner.run("cow.inrange", structure, distribution, size, new Reads(ids){
+                @Override
+                long apply(int id){
+                    return counter.inrange(id, id + 2 * RANGE);
+                }
+            });
+        } finally {
+            writer.finish();
+        }
+    }
+
+    /**
+     * Prints the average number of nodes copied by an increase and the share of the tree it leaves untouched
+     */
+    private static void sharing(SnapshotEventCounter counter, int[] writes, int size){
+        long copied = 0;
+        long shared = 0;
+        for(int id : writes){
+            counter.increase(id, 1);
+            PersistentRBTree version = counter.version();
+            copied += version.copiedNodes();
+            shared += version.sharedNodes();
+        }
+        System.out.println(String.format(Locale.ROOT, "# cow.sharing size=%d copied/increase=%.1f shared=%.4f%%",
+                size, (double) copied / writes.length, 100.0 * shared / (copied + shared)));
+    }
+
+    /**
+     * Thread increasing the counts of the write stream in a loop until finished
+     */
+    private static class Writer extends Thread {
+        private final Counter counter;
+        private final int[] ids;
+        private volatile boolean running = true;
+
+        Writer(Counter counter, int[] ids){
+            super("cow-writer");
+            this.counter = counter;
+            this.ids = ids;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run(){
+            while(running)
+                for(int i = 0; i < ids.length && running; i++)
+                    counter.increase(ids[i], 1);
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+
+    /**
+     * Applies one read per id
+     */
+    private abstract static class Reads extends Bench {
+        private final int[] ids;
+
+        Reads(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+
+import java.io.BufferedReader;
+
+/**
+ * count, increase, inrange and next of an EventCounter on each CounterEngine, the choices of bbst -engine.
+ */
+public class EngineSuite implements Suite {
+    private static final String[] ENGINES = {"rbtree", "arrayrbtree", "generic", "treemap", "bplustree", "blockrbtree"};
+    /**
+     * Number of ids covered by one inrange query
+     */
+    private static final int RANGE = 64;
+
+    @Override
+    public String name(){
+        return "engine";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 37);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        for(String engine : ENGINES){
+            EventCounter counter = new EventCounter(CounterEngine.create(engine));
+            counter.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+            runner.run("engine.count", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.count(id);
+                }
+            });
+            runner.run("engine.increase", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.increase(id, 1);
+                }
+            });
+            runner.run("engine.inrange", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return counter.inrange(id, id + 2 * RANGE);
+                }
+            });
+            runner.run("engine.next", engine, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    Event event = counter.next(id);
+                    return event != null ? event.getCount() : 0;
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies one operation per id
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
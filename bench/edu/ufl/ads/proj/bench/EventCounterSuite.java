@@ -0,0 +1,153 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.EventCounter;
+
+import java.io.BufferedReader;
+import java.util.Arrays;
+
+/**
+ * increase, reduce, inrange, next and previous of EventCounter on a counter initialized with size ids.
+ */
+public class EventCounterSuite implements Suite {
+    /**
+     * Number of ids covered by one inrange query
+     */
+    private static final int RANGE = 64;
+
+    @Override
+    public String name(){
+        return "counter";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 11);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        EventCounter counter = initialized(size);
+        runner.run("counter.increase", "int", distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.increase(id, 1);
+            }
+        });
+        runner.run("counter.inrange", "int", distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.inrange(id, id + 2 * RANGE);
+            }
+        });
+        runner.run("counter.next", "int", distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                Event event = counter.next(id);
+                return event != null ? event.getCount() : 0;
+            }
+        });
+        runner.run("counter.previous", "int", distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                Event event = counter.previous(id);
+                return event != null ? event.getCount() : 0;
+            }
+        });
+        runner.run("counter.reduce", "int", distribution, size, new Operations(ids){
+            @Override
+            long apply(int id){
+                return counter.reduce(id, 1);
+            }
+        });
+        //A batch of the sorted distinct ids of the first size/8 operations, once with present ids and once with new ids
+        int[] batch = Arrays.stream(ids, 0, Math.max(1, Math.min(ids.length, size / 8))).sorted().distinct().toArray();
+        int[] newIds = Arrays.stream(batch).map(id -> id + 1).toArray();
+        int[] counts = new int[batch.length];
+        Arrays.fill(counts, 1);
+        runner.run("counter.increaseLoop", "int", distribution, size, new Batch(size, batch.length){
+            @Override
+            public long run(){
+                for(int i = 0; i < batch.length; i++)
+                    counter.increase(batch[i], counts[i]);
+                return counter.count(batch[0]);
+            }
+        });
+        runner.run("counter.increaseBatch", "int", distribution, size, new Batch(size, batch.length){
+            @Override
+            public long run(){
+                counter.increaseBatch(batch, counts);
+                return counter.count(batch[0]);
+            }
+        });
+        runner.run("counter.insertLoop", "int", distribution, size, new Batch(size, batch.length){
+            @Override
+            public long run(){
+                for(int i = 0; i < newIds.length; i++)
+                    fresh.increase(newIds[i], counts[i]);
+                return fresh.count(newIds[0]);
+            }
+        });
+        runner.run("counter.insertBatch", "int", distribution, size, new Batch(size, batch.length){
+            @Override
+            public long run(){
+                fresh.increaseBatch(newIds, counts);
+                return fresh.count(newIds[0]);
+            }
+        });
+    }
+
+    static EventCounter initialized(int size) throws Exception {
+        EventCounter counter = new EventCounter();
+        counter.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        return counter;
+    }
+
+    /**
+     * Applies a batch of increases, fresh is a newly initialized counter for every iteration
+     */
+    private abstract static class Batch extends Bench {
+        private final int size;
+        private final int length;
+        EventCounter fresh;
+
+        Batch(int size, int length){
+            this.size = size;
+            this.length = length;
+        }
+
+        @Override
+        public void setup() throws Exception {
+            fresh = initialized(size);
+        }
+
+        @Override
+        public long operations(){
+            return length;
+        }
+    }
+
+    /**
+     * Applies one operation per id of the stream
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
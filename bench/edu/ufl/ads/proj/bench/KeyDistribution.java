@@ -0,0 +1,114 @@
+package edu.ufl.ads.proj.bench;
+
+import java.util.Random;
+
+/**
+ * Order in which a benchmark visits the keys of a tree of a given size.
+ * The keys of a tree of size n are 0, 2, ..., 2(n-1), so odd keys are always misses.
+ */
+public enum KeyDistribution {
+    /**
+     * Ascending keys, wrapping around after the largest
+     */
+    SEQUENTIAL,
+    /**
+     * Every key equally likely
+     */
+    UNIFORM,
+    /**
+     * Zipf with exponent 0.99 over the keys, the hot keys are scattered over the key space
+     */
+    ZIPF;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * @param index Index of a key, in [0, n)
+     * @return The key with the given index
+     */
+    public static int key(int index){
+        return index << 1;
+    }
+
+    /**
+     * Returns the indexes of the keys visited by count operations on a tree of size n
+     * @param n Size of the tree
+     * @param count Number of operations
+     * @param seed Seed of the random generator
+     * @return Indexes of keys, in [0, n)
+     */
+    public int[] indexes(int n, int count, long seed){
+        int[] indexes = new int[count];
+        Random random = new Random(seed);
+        switch(this){
+            case SEQUENTIAL:
+                for(int i = 0; i < count; i++)
+                    indexes[i] = i % n;
+                break;
+            case UNIFORM:
+                for(int i = 0; i < count; i++)
+                    indexes[i] = random.nextInt(n);
+                break;
+            case ZIPF:
+                ZipfSampler sampler = new ZipfSampler(n, ZIPF_EXPONENT);
+                Permutation scatter = new Permutation(n, seed);
+                for(int i = 0; i < count; i++)
+                    indexes[i] = scatter.apply(sampler.sample(random) - 1);
+                break;
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the order in which all n keys are inserted (or deleted), a permutation of [0, n).
+     * Zipf has no meaning for visiting every key once and uses the uniform order.
+     * @param n Number of keys
+     * @param seed Seed of the random generator
+     * @return Permutation of [0, n)
+     */
+    public Permutation order(int n, long seed){
+        return new Permutation(n, seed, this != SEQUENTIAL);
+    }
+
+    /**
+     * Pseudo random permutation of [0, n) computed on the fly, without a table of n ints:
+     * a bijection of [0, 2^k) (odd multiplication and xor shift) applied until the result falls in [0, n).
+     */
+    public static class Permutation {
+        private final int n;
+        private final boolean shuffle;
+        private final int mask;
+        private final int shift;
+        private final int multiplier;
+
+        public Permutation(int n, long seed){
+            this(n, seed, true);
+        }
+
+        /**
+         * @param shuffle false for the identity permutation
+         */
+        public Permutation(int n, long seed, boolean shuffle){
+            this.n = n;
+            this.shuffle = shuffle;
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n - 1));
+            this.mask = (int) ((1L << bits) - 1);
+            this.shift = (bits + 1) / 2;
+            this.multiplier = new Random(seed).nextInt() | 1;
+        }
+
+        /**
+         * @param i Index in [0, n)
+         * @return The image of i, in [0, n)
+         */
+        public int apply(int i){
+            if(!shuffle)
+                return i;
+            do {
+                i = (i * multiplier) & mask;
+                i ^= i >>> shift;
+            } while(i >= n);
+            return i;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.LoggedEventCounter;
+import edu.ufl.ads.proj.event.OperationLog;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Overhead of the operation log on increase: the plain counter against a LoggedEventCounter committing a group of
+ * GROUP operations at a time (about what bbst commits per 64KB chunk of commands) with each Sync policy.
+ * Sync.ALWAYS forces every operation to the disk, so it runs a shorter stream of operations.
+ */
+public class LogSuite implements Suite {
+    private static final int GROUP = 4096;
+    private static final int ALWAYS_OPERATIONS = 4096;
+
+    @Override
+    public String name(){
+        return "log";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 19);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        EventCounter counter = EventCounterSuite.initialized(size);
+        runner.run("log.increase", "no log", distribution, size, new Increases(ids){
+            @Override
+            long apply(int id){
+                return counter.increase(id, 1);
+            }
+        });
+        Path dir = Files.createTempDirectory("oplog");
+        try {
+            for(OperationLog.Sync sync : OperationLog.Sync.values()){
+                int[] stream = sync == OperationLog.Sync.ALWAYS ? Arrays.copyOf(ids, Math.min(ids.length, ALWAYS_OPERATIONS)) : ids;
+                Path path = dir.resolve(sync.name());
+                LoggedEventCounter logged = new LoggedEventCounter(path, sync);
+                logged.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+                logged.recover();
+                runner.run("log.increase", sync.name().toLowerCase(), distribution, size, new Increases(stream){
+                    @Override
+                    long apply(int id){
+                        return logged.increase(id, 1);
+                    }
+                    @Override
+                    void commit() throws Exception {
+                        logged.commit();
+                    }
+                });
+                logged.close();
+                Files.delete(path);
+            }
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Applies one increase per id, committing after every GROUP increases
+     */
+    private abstract static class Increases extends Bench {
+        private final int[] ids;
+
+        Increases(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        void commit() throws Exception {
+        }
+
+        @Override
+        public long run() throws Exception {
+            long result = 0;
+            for(int i = 0; i < ids.length; i++){
+                result += apply(ids[i]);
+                if(i % GROUP == GROUP - 1)
+                    commit();
+            }
+            commit();
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.engine.RBTreeEngine;
+import edu.ufl.ads.proj.event.metrics.MeteredCounterEngine;
+
+import java.io.BufferedReader;
+
+/**
+ * Overhead of the operation metrics: count and increase of an EventCounter, of one on a MeteredCounterEngine
+ * recording them and of one on a MeteredCounterEngine whose metrics are disabled.
+ */
+public class MetricsSuite implements Suite {
+    private static final String[] STRUCTURES = {"plain", "metered", "disabled"};
+
+    @Override
+    public String name(){
+        return "metrics";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 37);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        for(String structure : STRUCTURES){
+            EventCounter measured;
+            if(structure.equals("plain"))
+                measured = new EventCounter();
+            else {
+                MeteredCounterEngine metered = new MeteredCounterEngine(new RBTreeEngine());
+                metered.getMetrics().setEnabled(structure.equals("metered"));
+                measured = new EventCounter(metered);
+            }
+            measured.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+            runner.run("metrics.count", structure, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return measured.count(id);
+                }
+            });
+            runner.run("metrics.increase", structure, distribution, size, new Operations(ids){
+                @Override
+                long apply(int id){
+                    return measured.increase(id, 1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies one operation per id
+     */
+    private abstract static class Operations extends Bench {
+        private final int[] ids;
+
+        Operations(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
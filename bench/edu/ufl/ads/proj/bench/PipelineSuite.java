@@ -0,0 +1,50 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.CommandPipeline;
+import edu.ufl.ads.proj.event.EventCounter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The bbst command stream through CommandPipeline: a mix of increase, reduce, count, next, previous and inrange
+ * commands is fed in 64KB chunks, as bbst reads them from stdin, and the results are written to a discarding stream.
+ */
+public class PipelineSuite implements Suite {
+    private static final int CHUNK = 1 << 16;
+    private static final String[] COMMANDS = {"increase %d 3", "reduce %d 1", "count %d", "next %d", "previous %d"};
+
+    @Override
+    public String name(){
+        return "pipeline";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 13);
+        ByteArrayOutputStream commands = new ByteArrayOutputStream(ids.length * 16);
+        for(int i = 0; i < ids.length; i++){
+            int id = KeyDistribution.key(ids[i]);
+            String command = i % 6 == 5 ? "inrange " + id + " " + (id + 128)
+                    : String.format(COMMANDS[i % 6], id);
+            commands.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        byte[] input = commands.toByteArray();
+        EventCounter counter = EventCounterSuite.initialized(size);
+        runner.run("pipeline.commands", "int", distribution, size, new Bench(){
+            @Override
+            public long run() throws Exception {
+                CommandPipeline pipeline = new CommandPipeline(counter, OutputStream.nullOutputStream());
+                for(int off = 0; off < input.length; off += CHUNK)
+                    pipeline.feed(input, off, Math.min(CHUNK, input.length - off));
+                pipeline.finish();
+                return input.length;
+            }
+            @Override
+            public long operations(){
+                return ids.length;
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.rbtree.primitive.IntIntRBTree;
+import edu.ufl.ads.proj.rbtree.primitive.LongLongRBTree;
+
+import java.io.BufferedReader;
+
+/**
+ * insert, findNode and next of the generic RBTree with Integer keys and values against its IntInt and LongLong
+ * primitive specializations, which hold the same keys unboxed. insert only runs for the sequential and uniform orders.
+ */
+public class PrimitiveSuite implements Suite {
+    @Override
+    public String name(){
+        return "primitive";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        KeyDistribution.Permutation order = distribution.order(size, 42);
+        int[] keys = distribution.indexes(size, RBTreeSuite.LOOKUPS, 7);
+        for(int i = 0; i < keys.length; i++)
+            keys[i] = KeyDistribution.key(keys[i]);
+        if(distribution != KeyDistribution.ZIPF){
+            runner.run("primitive.insert", "generic", distribution, size, new Inserts(size){
+                edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> tree;
+                @Override
+                public void setup(){
+                    tree = RBTreeSuite.newGenericTree();
+                }
+                @Override
+                public long run() throws Exception {
+                    for(int i = 0; i < size; i++)
+                        tree.insert(KeyDistribution.key(order.apply(i)), i);
+                    return tree.maxDepth();
+                }
+            });
+            runner.run("primitive.insert", "intint", distribution, size, new Inserts(size){
+                IntIntRBTree tree;
+                @Override
+                public void setup(){
+                    tree = new IntIntRBTree();
+                }
+                @Override
+                public long run() throws Exception {
+                    for(int i = 0; i < size; i++)
+                        tree.insert(KeyDistribution.key(order.apply(i)), i);
+                    return tree.maxDepth();
+                }
+            });
+            runner.run("primitive.insert", "longlong", distribution, size, new Inserts(size){
+                LongLongRBTree tree;
+                @Override
+                public void setup(){
+                    tree = new LongLongRBTree();
+                }
+                @Override
+                public long run() throws Exception {
+                    for(int i = 0; i < size; i++)
+                        tree.insert(KeyDistribution.key(order.apply(i)), i);
+                    return tree.maxDepth();
+                }
+            });
+        }
+        edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> genericTree = RBTreeSuite.genericInitialized(size);
+        IntIntRBTree intTree = new IntIntRBTree();
+        intTree.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        LongLongRBTree longTree = new LongLongRBTree();
+        longTree.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        runner.run("primitive.findNode", "generic", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                return genericTree.findNode(key).getValue();
+            }
+        });
+        runner.run("primitive.findNode", "intint", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                return intTree.findNode(key).getValue();
+            }
+        });
+        runner.run("primitive.findNode", "longlong", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                return longTree.findNode(key).getValue();
+            }
+        });
+        runner.run("primitive.next", "generic", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                edu.ufl.ads.proj.rbtree.generic.RBNode<Integer, Integer> node = genericTree.next(key);
+                return node.isInternalNode() ? node.getValue() : 0;
+            }
+        });
+        runner.run("primitive.next", "intint", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                IntIntRBTree.Node node = intTree.next(key);
+                return node.isInternalNode() ? node.getValue() : 0;
+            }
+        });
+        runner.run("primitive.next", "longlong", distribution, size, new Lookups(keys){
+            @Override
+            long apply(int key){
+                LongLongRBTree.Node node = longTree.next(key);
+                return node.isInternalNode() ? node.getValue() : 0;
+            }
+        });
+    }
+
+    /**
+     * Inserts every key once into an empty tree
+     */
+    private abstract static class Inserts extends Bench {
+        final int size;
+
+        Inserts(int size){
+            this.size = size;
+        }
+
+        @Override
+        public long operations(){
+            return size;
+        }
+    }
+
+    /**
+     * Applies one lookup per key
+     */
+    private abstract static class Lookups extends Bench {
+        private final int[] keys;
+
+        Lookups(int[] keys){
+            this.keys = keys;
+        }
+
+        abstract long apply(int key);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int key : keys)
+                result += apply(key);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return keys.length;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.rbtree.DuplicateKeyException;
+import edu.ufl.ads.proj.rbtree.RBTree;
+
+import java.io.BufferedReader;
+
+/**
+ * insert, findNode, delete and initialize of the int RBTree and of the generic RBTree with Integer keys and values.
+ * initializeParallel builds the same trees from sorted arrays with the fork-join bulk build.
+ * insert, delete and initialize visit every key once, so they only run for the sequential and uniform orders.
+ */
+public class RBTreeSuite implements Suite {
+    /**
+     * Number of lookups of one findNode run
+     */
+    static final int LOOKUPS = 1 << 20;
+
+    @Override
+    public String name(){
+        return "rbtree";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        KeyDistribution.Permutation order = distribution.order(size, 42);
+        int[] lookups = distribution.indexes(size, LOOKUPS, 7);
+        if(distribution != KeyDistribution.ZIPF){
+            runner.run("insert", "int", distribution, size, new IntBench(size){
+                @Override
+                public void setup(){
+                    tree = new RBTree();
+                }
+                @Override
+                public long run() throws DuplicateKeyException {
+                    for(int i = 0; i < size; i++)
+                        tree.insert(KeyDistribution.key(order.apply(i)), i);
+                    return tree.size();
+                }
+            });
+            runner.run("delete", "int", distribution, size, new IntBench(size){
+                @Override
+                public long run(){
+                    for(int i = 0; i < size; i++)
+                        tree.delete(KeyDistribution.key(order.apply(i)));
+                    return tree.size();
+                }
+            });
+            runner.run("initialize", "int", distribution, size, new IntBench(size){
+                @Override
+                public long run() throws Exception {
+                    tree = initialized(size);
+                    return tree.size();
+                }
+                @Override
+                public void setup(){
+                    tree = null;
+                }
+            });
+            int[] keys = new int[size];
+            int[] values = new int[size];
+            for(int i = 0; i < size; i++){
+                keys[i] = KeyDistribution.key(i);
+                values[i] = SortedInputReader.value(i);
+            }
+            runner.run("initializeParallel", "int", distribution, size, new IntBench(size){
+                @Override
+                public long run(){
+                    tree = new RBTree();
+                    tree.initialize(keys, values);
+                    return tree.size();
+                }
+                @Override
+                public void setup(){
+                    tree = null;
+                }
+            });
+            runner.run("insert", "generic", distribution, size, new GenericBench(size){
+                @Override
+                public void setup(){
+                    tree = newGenericTree();
+                }
+                @Override
+                public long run() throws Exception {
+                    for(int i = 0; i < size; i++)
+                        tree.insert(KeyDistribution.key(order.apply(i)), i);
+                    return 0;
+                }
+            });
+            runner.run("delete", "generic", distribution, size, new GenericBench(size){
+                @Override
+                public long run(){
+                    for(int i = 0; i < size; i++)
+                        tree.delete(KeyDistribution.key(order.apply(i)));
+                    return 0;
+                }
+            });
+            runner.run("initialize", "generic", distribution, size, new GenericBench(size){
+                @Override
+                public long run() throws Exception {
+                    tree = genericInitialized(size);
+                    return 0;
+                }
+                @Override
+                public void setup(){
+                    tree = null;
+                }
+            });
+            Integer[] boxedKeys = new Integer[size];
+            Integer[] boxedValues = new Integer[size];
+            for(int i = 0; i < size; i++){
+                boxedKeys[i] = keys[i];
+                boxedValues[i] = values[i];
+            }
+            runner.run("initializeParallel", "generic", distribution, size, new GenericBench(size){
+                @Override
+                public long run(){
+                    tree = newGenericTree();
+                    tree.initialize(boxedKeys, boxedValues);
+                    return 0;
+                }
+                @Override
+                public void setup(){
+                    tree = null;
+                }
+            });
+        }
+        RBTree intTree = initialized(size);
+        runner.run("findNode", "int", distribution, size, new Bench(){
+            @Override
+            public long run(){
+                long sum = 0;
+                for(int index : lookups)
+                    sum += intTree.findNode(KeyDistribution.key(index)).getValue();
+                return sum;
+            }
+            @Override
+            public long operations(){
+                return lookups.length;
+            }
+        });
+        edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> genericTree = genericInitialized(size);
+        runner.run("findNode", "generic", distribution, size, new Bench(){
+            @Override
+            public long run(){
+                long sum = 0;
+                for(int index : lookups)
+                    sum += genericTree.findNode(KeyDistribution.key(index)).getValue();
+                return sum;
+            }
+            @Override
+            public long operations(){
+                return lookups.length;
+            }
+        });
+    }
+
+    static RBTree initialized(int size) throws Exception {
+        RBTree tree = new RBTree();
+        tree.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        return tree;
+    }
+
+    static edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> newGenericTree(){
+        return edu.ufl.ads.proj.rbtree.generic.RBTree.natural(Integer::valueOf, Integer::valueOf);
+    }
+
+    static edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> genericInitialized(int size) throws Exception {
+        edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> tree = newGenericTree();
+        tree.initialize(new BufferedReader(new SortedInputReader(size), 1 << 16), size);
+        return tree;
+    }
+
+    /**
+     * Runs over all keys of an int tree, by default on a freshly initialized tree
+     */
+    private abstract static class IntBench extends Bench {
+        final int size;
+        RBTree tree;
+
+        IntBench(int size){
+            this.size = size;
+        }
+
+        @Override
+        public void setup() throws Exception {
+            tree = initialized(size);
+        }
+
+        @Override
+        public long operations(){
+            return size;
+        }
+    }
+
+    /**
+     * Runs over all keys of a generic tree, by default on a freshly initialized tree
+     */
+    private abstract static class GenericBench extends Bench {
+        final int size;
+        edu.ufl.ads.proj.rbtree.generic.RBTree<Integer, Integer> tree;
+
+        GenericBench(int size){
+            this.size = size;
+        }
+
+        @Override
+        public void setup() throws Exception {
+            tree = genericInitialized(size);
+        }
+
+        @Override
+        public long operations(){
+            return size;
+        }
+    }
+}
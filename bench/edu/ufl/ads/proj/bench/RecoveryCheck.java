@@ -0,0 +1,187 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.LoggedEventCounter;
+import edu.ufl.ads.proj.event.OperationLog;
+import edu.ufl.ads.proj.rbtree.io.AsciiKeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.BinaryKeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.SnapshotMark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Crash check of the operation log and snapshot compaction, run with make recovery (from src).
+ * A child process logs a stream of operations with Sync.ALWAYS, writes a snapshot in the background, logs a second
+ * stream while the snapshot is written and reports once the snapshot is moved in place. It is killed there, before
+ * any commit compacted the log, so the snapshot lies next to the full log. The check then restarts from the snapshot
+ * like bbst snapshot-file -wal log and compares every id with a reference counter which applied both streams once.
+ * A second restart after a synchronous snapshot checks that nothing is replayed from the compacted log.
+ * Both snapshot formats are checked. The process exits with status 1 on the first failed check.
+ * Options:
+ *  -ids n              number of ids (default 65536)
+ *  -operations n       operations of each stream (default 100000)
+ */
+public class RecoveryCheck {
+    private static final String WRITTEN = "snapshot written";
+
+    private int ids = 1 << 16;
+    private int operations = 100000;
+
+    public static void main(String[] args) throws Exception {
+        RecoveryCheck check = new RecoveryCheck();
+        if(args.length == 5 && args[0].equals("-crash")){
+            check.ids = Integer.parseInt(args[3]);
+            check.operations = Integer.parseInt(args[4]);
+            check.crash(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        for(int i = 0; i + 1 < args.length; i += 2){
+            int value = Integer.parseInt(args[i + 1]);
+            switch(args[i]){
+                case "-ids":
+                    check.ids = value;
+                    break;
+                case "-operations":
+                    check.operations = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        try {
+            check.recover("snapshot.txt");
+            check.recover("snapshot.bin");
+        } catch (IllegalStateException e) {
+            System.out.println("FAILED: " + e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs in the child process: logs both streams around a background snapshot and waits to be killed once the
+     * snapshot is moved in place
+     */
+    private void crash(Path log, Path snapshot) throws Exception {
+        LoggedEventCounter counter = new LoggedEventCounter(log, OperationLog.Sync.ALWAYS);
+        initialize(counter);
+        counter.recover();
+        apply(counter, 1);
+        CompletableFuture<Integer> written = counter.snapshotInBackground(snapshot);
+        //Every record is forced as it is appended, without the commit which would compact the log
+        apply(counter, 2);
+        written.join();
+        System.out.println(WRITTEN);
+        System.out.flush();
+        Thread.sleep(Long.MAX_VALUE);
+    }
+
+    private void recover(String snapshotName) throws Exception {
+        Path dir = Files.createTempDirectory("recovery");
+        try {
+            Path log = dir.resolve("log");
+            Path snapshot = dir.resolve(snapshotName);
+            Process child = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), RecoveryCheck.class.getName(), "-crash",
+                    log.toString(), snapshot.toString(), Integer.toString(ids), Integer.toString(operations))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line = out.readLine();
+                check(WRITTEN.equals(line), "child process reported %s", line);
+            } finally {
+                child.destroyForcibly();
+                child.waitFor();
+            }
+            check(SnapshotMark.read(snapshot) == operations, "snapshot mark is %d instead of %d",
+                    SnapshotMark.read(snapshot), operations);
+            check(Files.size(log) == 16 + 2L * operations * 13, "log of %d bytes was compacted", Files.size(log));
+
+            EventCounter reference = new EventCounter();
+            initialize(reference);
+            apply(reference, 1);
+            apply(reference, 2);
+
+            long replayed;
+            try (LoggedEventCounter counter = restart(log, snapshot)) {
+                replayed = counter.recover(snapshot);
+                compare(counter, reference);
+                check(replayed == operations, "%d operations replayed instead of %d", replayed, operations);
+                counter.snapshot(snapshot);
+            }
+            try (LoggedEventCounter counter = restart(log, snapshot)) {
+                long again = counter.recover(snapshot);
+                compare(counter, reference);
+                check(again == 0, "%d operations replayed after the compaction", again);
+            }
+            System.out.printf(Locale.ROOT, "%s: %d operations replayed after the crash, %d events match%n",
+                    snapshotName, replayed, reference.size());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Opens the log and initializes the counter from the snapshot, like bbst snapshot-file -wal log
+     */
+    private static LoggedEventCounter restart(Path log, Path snapshot) throws IOException {
+        LoggedEventCounter counter = new LoggedEventCounter(log, OperationLog.Sync.GROUP);
+        if(snapshot.toString().endsWith(".bin")){
+            try (BinaryKeyValueSource source = BinaryKeyValueSource.open(snapshot)) {
+                counter.initialize(source, source.size());
+            }
+        } else {
+            try (AsciiKeyValueSource source = AsciiKeyValueSource.open(snapshot)) {
+                counter.initialize(source, source.readCount());
+            }
+        }
+        return counter;
+    }
+
+    private void initialize(EventCounter counter){
+        int[] keys = new int[ids];
+        int[] counts = new int[ids];
+        for(int i = 0; i < ids; i++){
+            keys[i] = i * 2;
+            counts[i] = 1;
+        }
+        counter.initialize(keys, counts);
+    }
+
+    /**
+     * Applies the stream of operations of the seed, the increases also add ids between the initial ones
+     */
+    private void apply(EventCounter counter, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        for(int n = 0; n < operations; n++){
+            int id = random.nextInt(2 * ids);
+            int count = 1 + random.nextInt(3);
+            if(random.nextBoolean())
+                counter.increase(id, count);
+            else counter.reduce(id, count);
+        }
+    }
+
+    private void compare(EventCounter counter, EventCounter reference){
+        check(counter.size() == reference.size(), "size is %d instead of %d", counter.size(), reference.size());
+        for(int id = 0; id < 2 * ids; id++)
+            check(counter.count(id) == reference.count(id), "id %d has count %d instead of %d",
+                    id, counter.count(id), reference.count(id));
+    }
+
+    private static void check(boolean condition, String format, Object... args){
+        if(!condition)
+            throw new IllegalStateException(String.format(Locale.ROOT, format, args));
+    }
+}
@@ -0,0 +1,74 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.CommandServer;
+import edu.ufl.ads.proj.event.EventCounter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loopback check of the CommandServer, run with make server (from src).
+ * A client sends snapshot commands between its updates, which must be answered as invalid commands without writing
+ * the file, while the updates and counts around them are executed. The process exits with status 1 on the first
+ * failed check.
+ */
+public class ServerCheck {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("server");
+        Path file = dir.resolve("x");
+        EventCounter counter = new EventCounter();
+        PrintStream log = new PrintStream(OutputStream.nullOutputStream());
+        CommandServer server = new CommandServer(counter, out -> out, log,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        thread.start();
+        try {
+            List<String> results = new ArrayList<>();
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+                String commands = "increase 5 2\nsnapshot " + file + "\nsnapshot " + file + " background\ncount 5\nquit\n";
+                client.getOutputStream().write(commands.getBytes(StandardCharsets.UTF_8));
+                BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                for(String line = in.readLine(); line != null; line = in.readLine())
+                    results.add(line);
+            }
+            List<String> expected = List.of("2", "Invalid Command: snapshot " + file,
+                    "Invalid Command: snapshot " + file + " background", "2");
+            check(results.equals(expected), "results %s instead of %s", results, expected);
+            check(!Files.exists(file), "snapshot %s written by a client", file);
+            System.out.printf(Locale.ROOT, "server: OK, snapshot from a client rejected, %d results%n", results.size());
+        } catch (IllegalStateException e) {
+            System.out.println("FAILED: " + e);
+            System.exit(1);
+        } finally {
+            server.close();
+            thread.join();
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static void check(boolean condition, String format, Object... args){
+        if(!condition)
+            throw new IllegalStateException(String.format(Locale.ROOT, format, args));
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.ShardedEventCounter;
+
+import java.util.Locale;
+
+/**
+ * Scalability of ShardedEventCounter from 1 to 32 shards against EventCounter: increase streams queued by
+ * producer threads, each thread increasing its part of the ids and waiting at the end until its updates are applied,
+ * and inrange over half of the ids, which crosses the shard boundaries.
+ * The number of producer threads is half the processors for every number of shards, so only the shards vary.
+ * On a single processor the producers and the workers take turns, which measures the cost of the queues and of
+ * waking the workers rather than parallel updates.
+ */
+public class ShardSuite implements Suite {
+    private static final int[] SHARDS = {1, 2, 4, 8, 16, 32};
+    private static final int PRODUCERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /**
+     * Number of inrange queries per run, each is a round trip to the workers
+     */
+    private static final int RANGES = 1 << 14;
+
+    @Override
+    public String name(){
+        return "shard";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 37);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        int[] keys = new int[size];
+        int[] counts = new int[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = KeyDistribution.key(i);
+            counts[i] = 1;
+        }
+        System.out.println(String.format(Locale.ROOT, "# shard.threads producers=%d processors=%d",
+                PRODUCERS, Runtime.getRuntime().availableProcessors()));
+
+        EventCounter single = new EventCounter();
+        single.initialize(keys, counts);
+        runner.run("shard.increase", "eventcounter", distribution, size, new Operations(ids, ids.length){
+            @Override
+            public long run(){
+                for(int id : ids)
+                    single.increase(id, 1);
+                return single.size();
+            }
+        });
+        runner.run("shard.inrange", "eventcounter", distribution, size, new Operations(ids, RANGES){
+            @Override
+            public long run(){
+                long sum = 0;
+                for(int i = 0; i < RANGES; i++)
+                    sum += single.inrange(ids[i], ids[i] + size);
+                return sum;
+            }
+        });
+
+        for(int shards : SHARDS){
+            ShardedEventCounter counter = new ShardedEventCounter(shards);
+            counter.initialize(keys, counts);
+            String structure = "shards-" + shards;
+            runner.run("shard.increase", structure, distribution, size, new Operations(ids, ids.length){
+                @Override
+                public long run() throws InterruptedException {
+                    Thread[] producers = new Thread[PRODUCERS];
+                    for(int t = 0; t < PRODUCERS; t++){
+                        int from = (int) ((long) ids.length * t / PRODUCERS);
+                        int to = (int) ((long) ids.length * (t + 1) / PRODUCERS);
+                        producers[t] = new Thread(() -> {
+                            ShardedEventCounter.Producer producer = counter.producer();
+                            for(int i = from; i < to; i++)
+                                producer.increase(ids[i], 1);
+                            producer.close();
+                        }, "shard-producer-" + t);
+                        producers[t].start();
+                    }
+                    for(Thread producer : producers)
+                        producer.join();
+                    return shards;
+                }
+            });
+            ShardedEventCounter.Producer producer = counter.producer();
+            runner.run("shard.inrange", structure, distribution, size, new Operations(ids, RANGES){
+                @Override
+                public long run(){
+                    long sum = 0;
+                    for(int i = 0; i < RANGES; i++)
+                        sum += producer.inrange(ids[i], ids[i] + size);
+                    return sum;
+                }
+            });
+            producer.close();
+            counter.close();
+        }
+    }
+
+    /**
+     * Workload over the id stream doing a fixed number of operations
+     */
+    private abstract static class Operations extends Bench {
+        final int[] ids;
+        private final int operations;
+
+        Operations(int[] ids, int operations){
+            this.ids = ids;
+            this.operations = operations;
+        }
+
+        @Override
+        public long operations(){
+            return operations;
+        }
+    }
+}
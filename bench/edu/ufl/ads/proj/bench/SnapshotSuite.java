@@ -0,0 +1,83 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.EventCounter;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Snapshot of a counter of size events to a text and a binary file, against writing and forcing the same number of
+ * bytes as the text snapshot with plain 4MB channel writes, which bounds what the disk allows.
+ */
+public class SnapshotSuite implements Suite {
+
+    @Override
+    public String name(){
+        return "snapshot";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        if(distribution != KeyDistribution.SEQUENTIAL)
+            return;
+        EventCounter counter = EventCounterSuite.initialized(size);
+        Path dir = Files.createTempDirectory("snapshot");
+        Path text = dir.resolve("snapshot.txt");
+        Path binary = dir.resolve("snapshot.bin");
+        Path raw = dir.resolve("raw");
+        try {
+            runner.run("snapshot.text", "int", distribution, size, new Pairs(size){
+                @Override
+                public long run() throws Exception {
+                    return counter.snapshot(text);
+                }
+            });
+            runner.run("snapshot.binary", "int", distribution, size, new Pairs(size){
+                @Override
+                public long run() throws Exception {
+                    return counter.snapshot(binary);
+                }
+            });
+            long bytes = Files.size(text);
+            runner.run("snapshot.rawWrite", "bytes", distribution, size, new Pairs(size){
+                @Override
+                public long run() throws Exception {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 22);
+                    try (FileChannel channel = FileChannel.open(raw, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                        for(long written = 0; written < bytes; ){
+                            buffer.clear().limit((int) Math.min(buffer.capacity(), bytes - written));
+                            written += channel.write(buffer);
+                        }
+                        channel.force(true);
+                    }
+                    return bytes;
+                }
+            });
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(raw);
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Writes size pairs
+     */
+    private abstract static class Pairs extends Bench {
+        private final int size;
+
+        Pairs(int size){
+            this.size = size;
+        }
+
+        @Override
+        public long operations(){
+            return size;
+        }
+    }
+}
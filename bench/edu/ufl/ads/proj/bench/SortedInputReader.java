@@ -0,0 +1,60 @@
+package edu.ufl.ads.proj.bench;
+
+import java.io.Reader;
+
+/**
+ * Reader producing the sorted "key value" lines RBTree.initialize consumes for the keys of KeyDistribution,
+ * generated on the fly so that 10^8 lines need no memory.
+ * The value of the key with index i is i % 100 + 1.
+ */
+public class SortedInputReader extends Reader {
+    private final int size;
+    private int index;
+    private final char[] line = new char[24];
+    private int linePosition;
+    private int lineLength;
+
+    /**
+     * @param size Number of lines
+     */
+    public SortedInputReader(int size){
+        this.size = size;
+    }
+
+    /**
+     * @param index Index of a key
+     * @return The value of the key in the generated input
+     */
+    public static int value(int index){
+        return index % 100 + 1;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length){
+        int read = 0;
+        while(read < length){
+            if(linePosition == lineLength){
+                if(index == size)
+                    break;
+                fillLine();
+            }
+            int n = Math.min(length - read, lineLength - linePosition);
+            System.arraycopy(line, linePosition, buffer, offset + read, n);
+            linePosition += n;
+            read += n;
+        }
+        return read == 0 && length > 0 ? -1 : read;
+    }
+
+    private void fillLine(){
+        String text = KeyDistribution.key(index) + " " + value(index) + "\n";
+        text.getChars(0, text.length(), line, 0);
+        lineLength = text.length();
+        linePosition = 0;
+        index++;
+    }
+
+    @Override
+    public void close(){
+    }
+}
@@ -0,0 +1,384 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.ConcurrentEventCounter;
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.ShardedEventCounter;
+import edu.ufl.ads.proj.rbtree.io.ArrayKeyValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-threaded stress check of the thread safe counters, run with make stress (from src).
+ * Writer threads increase and reduce the ids they own, which are spread over all the stripes, and all of them
+ * increase a set of shared hot ids, while reader threads run the optimistic count, next and previous and inrange.
+ * Each writer keeps the counts of its ids in a reference array and compares the result of every update with it.
+ * The readers check that the counts of the hot ids never decrease and that next and previous move in the right
+ * direction. Once all threads are done the red black properties of every stripe are verified and every id is
+ * compared with the reference. The process exits with status 1 on the first failed check.
+ * The same workload is then run on a ShardedEventCounter, every thread through its own producer. Its updates return
+ * no count, so a writer instead checks the count of every 64th id it updates, which its own producer must already
+ * see.
+ * Options:
+ *  -writers n          writer threads (default 4)
+ *  -readers n          reader threads (default 2)
+ *  -stripes n          stripes of the concurrent counter (default 8)
+ *  -shards n           shards of the sharded counter (default 4)
+ *  -ids n              number of ids (default 65536)
+ *  -operations n       updates per writer (default 1000000)
+ */
+public class StressCheck {
+    private int writers = 4;
+    private int readers = 2;
+    private int stripes = 8;
+    private int shards = 4;
+    private int ids = 1 << 16;
+    private int operations = 1000000;
+    /**
+     * Distance between two consecutive ids, so that the ids cover the whole range of the stripes
+     */
+    private int step;
+
+    public static void main(String[] args) throws Exception {
+        StressCheck check = new StressCheck();
+        for(int i = 0; i + 1 < args.length; i += 2){
+            int value = Integer.parseInt(args[i + 1]);
+            switch(args[i]){
+                case "-writers":
+                    check.writers = value;
+                    break;
+                case "-readers":
+                    check.readers = value;
+                    break;
+                case "-stripes":
+                    check.stripes = value;
+                    break;
+                case "-shards":
+                    check.shards = value;
+                    break;
+                case "-ids":
+                    check.ids = value;
+                    break;
+                case "-operations":
+                    check.operations = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        check.step = Integer.MAX_VALUE / check.ids;
+        try {
+            check.concurrent();
+            check.sharded();
+        } catch (IllegalStateException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @param i Index of an id
+     * @return The id
+     */
+    private int id(int i){
+        return i * step;
+    }
+
+    /**
+     * Ids of index i with i % (writers + 1) == w are owned by writer w, the ones with i % (writers + 1) == writers
+     * are the hot ids
+     */
+    private boolean isHot(int i){
+        return i % (writers + 1) == writers;
+    }
+
+    private void concurrent() throws Exception {
+        ConcurrentEventCounter counter = new ConcurrentEventCounter(stripes);
+        int[] keys = new int[ids];
+        int[] counts = new int[ids];
+        for(int i = 0; i < ids; i++){
+            keys[i] = id(i);
+            counts[i] = 1;
+        }
+        counter.initialize(new ArrayKeyValueSource(keys, counts), ids);
+        //reference[i] is the count of id(i), each writer only changes the entries of its ids
+        int[] reference = counts.clone();
+        int[] hotIncrements = new int[writers];
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        Thread.UncaughtExceptionHandler handler = (thread, e) -> {
+            synchronized(failures){
+                failures.add(e);
+            }
+            done.set(true);
+        };
+
+        for(int w = 0; w < writers; w++){
+            int writer = w;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(writer);
+                await(start);
+                for(int n = 0; n < operations && !done.get(); n++){
+                    int i = random.nextInt(ids);
+                    int count = 1 + random.nextInt(3);
+                    if(isHot(i)){
+                        counter.increase(id(i), 1);
+                        hotIncrements[writer]++;
+                        continue;
+                    }
+                    //The id of the same index in the part of the writer
+                    i = i - i % (writers + 1) + writer;
+                    if(i >= ids)
+                        continue;
+                    int expected;
+                    int result;
+                    if(random.nextBoolean()){
+                        expected = reference[i] + count;
+                        result = counter.increase(id(i), count);
+                    } else {
+                        expected = Math.max(reference[i] - count, 0);
+                        result = counter.reduce(id(i), count);
+                    }
+                    reference[i] = expected;
+                    check(result == expected, "update of id %d returned %d instead of %d", id(i), result, expected);
+                }
+            }, "writer-" + w));
+        }
+        for(int r = 0; r < readers; r++){
+            int reader = r;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(1000 + reader);
+                int[] lastSeen = new int[ids];
+                await(start);
+                while(!done.get()){
+                    int i = random.nextInt(ids);
+                    if(isHot(i)){
+                        int count = counter.count(id(i));
+                        check(count >= lastSeen[i], "count of hot id %d went from %d to %d", id(i), lastSeen[i], count);
+                        lastSeen[i] = count;
+                    }
+                    Event next = counter.next(id(i));
+                    check(next == null || (next.getId() > id(i) && next.getCount() > 0),
+                            "next of %d returned %s", id(i), next);
+                    Event previous = counter.previous(id(i));
+                    check(previous == null || (previous.getId() < id(i) && previous.getCount() > 0),
+                            "previous of %d returned %s", id(i), previous);
+                    long sum = counter.inrange(id(i), id(Math.min(ids - 1, i + 64)));
+                    check(sum >= 0, "inrange from %d returned %d", id(i), sum);
+                }
+            }, "reader-" + r));
+        }
+
+        long begin = System.nanoTime();
+        for(Thread thread : threads){
+            thread.setUncaughtExceptionHandler(handler);
+            thread.start();
+        }
+        start.countDown();
+        for(int w = 0; w < writers; w++)
+            threads.get(w).join();
+        done.set(true);
+        for(Thread thread : threads)
+            thread.join();
+        if(!failures.isEmpty())
+            fail(failures.get(0));
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        check(counter.verify(), "red black properties or stripe bounds violated");
+        int hot = 0;
+        for(int increments : hotIncrements)
+            hot += increments;
+        long total = 0;
+        int events = 0;
+        for(int i = 0; i < ids; i++){
+            int expected = reference[i];
+            if(isHot(i))
+                expected = 0;
+            total += expected;
+            if(expected > 0)
+                events++;
+            if(!isHot(i))
+                check(counter.count(id(i)) == expected, "id %d has count %d instead of %d",
+                        id(i), counter.count(id(i)), expected);
+        }
+        //The hot ids start at 1 and only increase, their total is checked at once
+        long hotTotal = 0;
+        int hotIds = 0;
+        for(int i = 0; i < ids; i++)
+            if(isHot(i)){
+                hotTotal += counter.count(id(i));
+                hotIds++;
+            }
+        check(hotTotal == hotIds + hot, "hot ids total %d instead of %d", hotTotal, hotIds + (long) hot);
+        long sum = counter.inrange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        check(sum == total + hotTotal, "inrange of all ids is %d instead of %d", sum, total + hotTotal);
+        int walked = 0;
+        for(Event event = counter.next(Integer.MIN_VALUE); event != null; event = counter.next(event.getId()))
+            walked++;
+        check(walked == events + hotIds, "next walks %d events instead of %d", walked, events + hotIds);
+
+        System.out.println(String.format(Locale.ROOT,
+                "concurrent: OK, %d writers x %d updates, %d readers, %d stripes, %d ids, %.2f s",
+                writers, operations, readers, counter.getStripes(), ids, seconds));
+    }
+
+    private void sharded() throws Exception {
+        ShardedEventCounter counter = new ShardedEventCounter(shards);
+        int[] keys = new int[ids];
+        int[] counts = new int[ids];
+        for(int i = 0; i < ids; i++){
+            keys[i] = id(i);
+            counts[i] = 1;
+        }
+        counter.initialize(keys, counts);
+        int[] reference = counts.clone();
+        int[] hotIncrements = new int[writers];
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        Thread.UncaughtExceptionHandler handler = (thread, e) -> {
+            synchronized(failures){
+                failures.add(e);
+            }
+            done.set(true);
+        };
+
+        for(int w = 0; w < writers; w++){
+            int writer = w;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(writer);
+                await(start);
+                try (ShardedEventCounter.Producer producer = counter.producer()) {
+                    for(int n = 0; n < operations && !done.get(); n++){
+                        int i = random.nextInt(ids);
+                        int count = 1 + random.nextInt(3);
+                        if(isHot(i)){
+                            producer.increase(id(i), 1);
+                            hotIncrements[writer]++;
+                            continue;
+                        }
+                        i = i - i % (writers + 1) + writer;
+                        if(i >= ids)
+                            continue;
+                        if(random.nextBoolean()){
+                            reference[i] += count;
+                            producer.increase(id(i), count);
+                        } else {
+                            reference[i] = Math.max(reference[i] - count, 0);
+                            producer.reduce(id(i), count);
+                        }
+                        //A query sees the updates queued before it by the same producer
+                        if(n % 64 == 0){
+                            int result = producer.count(id(i));
+                            check(result == reference[i], "id %d has count %d instead of %d",
+                                    id(i), result, reference[i]);
+                        }
+                    }
+                }
+            }, "writer-" + w));
+        }
+        for(int r = 0; r < readers; r++){
+            int reader = r;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(1000 + reader);
+                int[] lastSeen = new int[ids];
+                await(start);
+                try (ShardedEventCounter.Producer producer = counter.producer()) {
+                    while(!done.get()){
+                        int i = random.nextInt(ids);
+                        if(isHot(i)){
+                            int count = producer.count(id(i));
+                            check(count >= lastSeen[i], "count of hot id %d went from %d to %d",
+                                    id(i), lastSeen[i], count);
+                            lastSeen[i] = count;
+                        }
+                        Event next = producer.next(id(i));
+                        check(next == null || (next.getId() > id(i) && next.getCount() > 0),
+                                "next of %d returned %s", id(i), next);
+                        Event previous = producer.previous(id(i));
+                        check(previous == null || (previous.getId() < id(i) && previous.getCount() > 0),
+                                "previous of %d returned %s", id(i), previous);
+                        long sum = producer.inrange(id(i), id(Math.min(ids - 1, i + 64)));
+                        check(sum >= 0, "inrange from %d returned %d", id(i), sum);
+                    }
+                }
+            }, "reader-" + r));
+        }
+
+        long begin = System.nanoTime();
+        for(Thread thread : threads){
+            thread.setUncaughtExceptionHandler(handler);
+            thread.start();
+        }
+        start.countDown();
+        for(int w = 0; w < writers; w++)
+            threads.get(w).join();
+        done.set(true);
+        for(Thread thread : threads)
+            thread.join();
+        if(!failures.isEmpty())
+            fail(failures.get(0));
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        //The writers closed their producers, so all their updates are applied
+        try (ShardedEventCounter.Producer producer = counter.producer()) {
+            check(producer.verify(), "red black properties or shard bounds violated");
+            int hot = 0;
+            for(int increments : hotIncrements)
+                hot += increments;
+            long total = 0;
+            long hotTotal = 0;
+            int events = 0;
+            int hotIds = 0;
+            for(int i = 0; i < ids; i++){
+                int count = producer.count(id(i));
+                if(isHot(i)){
+                    hotTotal += count;
+                    hotIds++;
+                    continue;
+                }
+                check(count == reference[i], "id %d has count %d instead of %d", id(i), count, reference[i]);
+                total += count;
+                if(count > 0)
+                    events++;
+            }
+            check(hotTotal == hotIds + hot, "hot ids total %d instead of %d", hotTotal, hotIds + (long) hot);
+            check(producer.size() == events + hotIds, "size is %d instead of %d", producer.size(), events + hotIds);
+            long sum = producer.inrange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            check(sum == total + hotTotal, "inrange of all ids is %d instead of %d", sum, total + hotTotal);
+            int walked = 0;
+            for(Event event = producer.next(Integer.MIN_VALUE); event != null; event = producer.next(event.getId()))
+                walked++;
+            check(walked == events + hotIds, "next walks %d events instead of %d", walked, events + hotIds);
+        }
+        counter.close();
+
+        System.out.println(String.format(Locale.ROOT,
+                "sharded: OK, %d writers x %d updates, %d readers, %d shards, %d ids, %.2f s",
+                writers, operations, readers, counter.getShards(), ids, seconds));
+    }
+
+    private static void await(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void check(boolean condition, String format, Object... args){
+        if(!condition)
+            throw new IllegalStateException(String.format(Locale.ROOT, format, args));
+    }
+
+    private static void fail(Throwable failure){
+        System.out.println("FAILED: " + failure);
+        System.exit(1);
+    }
+}
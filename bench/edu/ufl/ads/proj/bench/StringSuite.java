@@ -0,0 +1,92 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.rbtree.generic.KeyPrefix;
+import edu.ufl.ads.proj.rbtree.generic.RBNode;
+import edu.ufl.ads.proj.rbtree.generic.RBTree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * insert and findNode of the generic RBTree with String keys, in natural order against the same order with the
+ * cached KeyPrefix.STRING prefixes. The hex keys are hashed ids of 8 hex digits, which mostly differ in their first
+ * 4 chars. The path keys share the prefix "/events/", so every prefix ties and the prefix only costs.
+ * insert only runs for the sequential and uniform orders.
+ */
+public class StringSuite implements Suite {
+    @Override
+    public String name(){
+        return "string";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        KeyDistribution.Permutation order = distribution.order(size, 42);
+        int[] lookups = distribution.indexes(size, RBTreeSuite.LOOKUPS, 7);
+        String[] hex = new String[size];
+        String[] path = new String[size];
+        for(int i = 0; i < size; i++){
+            int key = KeyDistribution.key(i);
+            hex[i] = String.format("%08x", key * 0x9E3779B9);
+            path[i] = String.format("/events/%010d", key);
+        }
+        run(runner, size, distribution, order, lookups, "hex", hex);
+        run(runner, size, distribution, order, lookups, "path", path);
+    }
+
+    private void run(BenchmarkRunner runner, int size, KeyDistribution distribution, KeyDistribution.Permutation order,
+                     int[] lookups, String shape, String[] keys) throws Exception {
+        String[] lookupKeys = new String[lookups.length];
+        for(int i = 0; i < lookups.length; i++)
+            lookupKeys[i] = keys[lookups[i]];
+        String[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        Integer[] values = new Integer[size];
+        for(int i = 0; i < size; i++)
+            values[i] = SortedInputReader.value(i);
+        for(String structure : new String[]{"natural", "prefix"}){
+            if(distribution != KeyDistribution.ZIPF){
+                runner.run("string.insert." + shape, structure, distribution, size, new Bench(){
+                    RBTree<String, Integer> tree;
+                    @Override
+                    public void setup(){
+                        tree = newTree(structure);
+                    }
+                    @Override
+                    public long run() throws Exception {
+                        for(int i = 0; i < size; i++)
+                            tree.insert(keys[order.apply(i)], values[i]);
+                        return tree.maxDepth();
+                    }
+                    @Override
+                    public long operations(){
+                        return size;
+                    }
+                });
+            }
+            RBTree<String, Integer> tree = newTree(structure);
+            tree.initialize(sorted, values);
+            runner.run("string.findNode." + shape, structure, distribution, size, new Bench(){
+                @Override
+                public long run(){
+                    long sum = 0;
+                    for(String key : lookupKeys){
+                        RBNode<String, Integer> node = tree.findNode(key);
+                        sum += node.getValue();
+                    }
+                    return sum;
+                }
+                @Override
+                public long operations(){
+                    return lookupKeys.length;
+                }
+            });
+        }
+    }
+
+    private static RBTree<String, Integer> newTree(String structure){
+        if(structure.equals("prefix"))
+            return new RBTree<>(Comparator.naturalOrder(), KeyPrefix.STRING, key -> key, Integer::valueOf);
+        return RBTree.natural(key -> key, Integer::valueOf);
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ufl.ads.proj.bench;
+
+/**
+ * A group of benchmarks which is run for every size and key distribution
+ */
+public interface Suite {
+    /**
+     * @return Name used to select the suite on the command line
+     */
+    String name();
+
+    /**
+     * Runs the benchmarks of the suite
+     * @param runner Runner which measures and reports
+     * @param size Number of keys in the structures
+     * @param distribution Order in which the keys are visited
+     * @throws Exception when a benchmark fails
+     */
+    void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception;
+}
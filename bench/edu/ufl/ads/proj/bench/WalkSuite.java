@@ -0,0 +1,193 @@
+package edu.ufl.ads.proj.bench;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.rbtree.RBNode;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The iterative tree walks against the recursive walks they replaced: count and next of EventCounter against the
+ * recursive findNode and next, and a wide inrange summed node by node with RBTree.Walk against the recursive in-order
+ * scan of the range. counter.inrange answers the same wide ranges from the subtree sums.
+ * walk.reduceMax finds the greatest count of a quarter of the ids with one worker and with the common pool.
+ * walk.ids lists the ids of a wide range by calling next per id, and with the sequential and parallel range streams.
+ * The recursive walks are kept here as they were in RBTree and EventCounter.
+ */
+public class WalkSuite implements Suite {
+    /**
+     * Number of ids covered by one wide inrange query
+     */
+    private static final int WIDE_RANGE = 1 << 16;
+    /**
+     * Number of wide inrange queries of one run
+     */
+    private static final int WIDE_QUERIES = 256;
+
+    @Override
+    public String name(){
+        return "walk";
+    }
+
+    @Override
+    public void run(BenchmarkRunner runner, int size, KeyDistribution distribution) throws Exception {
+        int[] ids = distribution.indexes(size, RBTreeSuite.LOOKUPS, 17);
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = KeyDistribution.key(ids[i]);
+        int[] starts = Arrays.copyOf(ids, Math.min(ids.length, WIDE_QUERIES));
+        EventCounter counter = EventCounterSuite.initialized(size);
+        RBTree tree = RBTreeSuite.initialized(size);
+        runner.run("walk.count", "iterative", distribution, size, new Lookups(ids){
+            @Override
+            long apply(int id){
+                return counter.count(id);
+            }
+        });
+        runner.run("walk.count", "recursive", distribution, size, new Lookups(ids){
+            @Override
+            long apply(int id){
+                RBNode node = findNode(tree.getRoot(), id);
+                return node.isInternalNode() ? node.getValue() : 0;
+            }
+        });
+        runner.run("walk.next", "iterative", distribution, size, new Lookups(ids){
+            @Override
+            long apply(int id){
+                Event event = counter.next(id);
+                return event != null ? event.getCount() : 0;
+            }
+        });
+        runner.run("walk.next", "recursive", distribution, size, new Lookups(ids){
+            @Override
+            long apply(int id){
+                RBNode root = tree.getRoot();
+                RBNode node = next(id, root.getKey() > id ? root : null, root);
+                return node != null ? node.getValue() : 0;
+            }
+        });
+        runner.run("walk.inrangeScan", "iterative", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                long sum = 0;
+                int last = id + WIDE_RANGE;
+                RBTree.Walk walk = tree.walk(id);
+                for(RBNode node = walk.next(); node.isInternalNode() && node.getKey() <= last; node = walk.next())
+                    sum += node.getValue();
+                return sum;
+            }
+        });
+        runner.run("walk.inrangeScan", "recursive", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                return inrange(tree.getRoot(), id, id + WIDE_RANGE);
+            }
+        });
+        runner.run("walk.ids", "next", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                long sum = 0;
+                for(Event event = counter.next(id - 1); event != null && event.getId() <= id + WIDE_RANGE; event = counter.next(event.getId()))
+                    sum += event.getId();
+                return sum;
+            }
+        });
+        runner.run("walk.ids", "stream", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                return counter.ids(id, id + WIDE_RANGE).asLongStream().sum();
+            }
+        });
+        runner.run("walk.ids", "parallel", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                return tree.nodes(id, id + WIDE_RANGE, true).mapToLong(RBNode::getKey).sum();
+            }
+        });
+        //A quarter of the keys per query, reduced by a single worker and by the common pool
+        int quarter = KeyDistribution.key(size / 4);
+        int[] quarterStarts = Arrays.copyOf(starts, Math.min(starts.length, 8));
+        ForkJoinPool single = new ForkJoinPool(1);
+        runner.run("walk.reduceMax", "1 worker", distribution, size, new Lookups(quarterStarts){
+            @Override
+            long apply(int id){
+                return tree.reduce(id, id + quarter, RangeReducer.MAX, single);
+            }
+        });
+        runner.run("walk.reduceMax", "common pool", distribution, size, new Lookups(quarterStarts){
+            @Override
+            long apply(int id){
+                return tree.reduce(id, id + quarter, RangeReducer.MAX, ForkJoinPool.commonPool());
+            }
+        });
+        runner.run("walk.inrange", "sums", distribution, size, new Lookups(starts){
+            @Override
+            long apply(int id){
+                return counter.inrange(id, id + WIDE_RANGE);
+            }
+        });
+    }
+
+    private static RBNode findNode(RBNode currNode, int key){
+        if(currNode.isExternalNode())
+            return currNode;
+        if(key == currNode.getKey())
+            return currNode;
+        else if(key > currNode.getKey())
+            return findNode(currNode.getRightChild(), key);
+        else return findNode(currNode.getLeftChild(), key);
+    }
+
+    private static RBNode next(int id, RBNode currMinNode, RBNode node){
+        if(node.isExternalNode())
+            return currMinNode;
+        if(node.getKey() > id){
+            if(currMinNode == null || node.getKey() < currMinNode.getKey())
+                currMinNode = node;
+        }
+        if(id < node.getKey())
+            return next(id, currMinNode, node.getLeftChild());
+        else return next(id, currMinNode, node.getRightChild());
+    }
+
+    private static long inrange(RBNode node, int id1, int id2){
+        if(node.isExternalNode())
+            return 0;
+        long sum = 0;
+        if(id1 < node.getKey())
+            sum += inrange(node.getLeftChild(), id1, id2);
+        if(id1 <= node.getKey() && node.getKey() <= id2)
+            sum += node.getValue();
+        if(id2 > node.getKey())
+            sum += inrange(node.getRightChild(), id1, id2);
+        return sum;
+    }
+
+    /**
+     * Applies one query per id
+     */
+    private abstract static class Lookups extends Bench {
+        private final int[] ids;
+
+        Lookups(int[] ids){
+            this.ids = ids;
+        }
+
+        abstract long apply(int id);
+
+        @Override
+        public long run(){
+            long result = 0;
+            for(int id : ids)
+                result += apply(id);
+            return result;
+        }
+
+        @Override
+        public long operations(){
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.ufl.ads.proj.bench;
+
+import java.util.Random;
+
+/**
+ * Samples ranks 1..n with probability proportional to 1/rank^exponent, using rejection-inversion
+ * (W. Hormann, G. Derflinger: Rejection-inversion to generate variates from monotone discrete distributions).
+ * Unlike a cumulative table this needs O(1) memory, so it works for 10^8 ranks.
+ */
+public class ZipfSampler {
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    public ZipfSampler(int n, double exponent){
+        this.n = n;
+        this.exponent = exponent;
+        hIntegralX1 = hIntegral(1.5) - 1;
+        hIntegralN = hIntegral(n + 0.5);
+        s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @param random Source of randomness
+     * @return A rank in [1, n]
+     */
+    public int sample(Random random){
+        while(true){
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if(k < 1)
+                k = 1;
+            else if(k > n)
+                k = n;
+            if(k - x <= s || u >= hIntegral(k + 0.5) - h(k))
+                return k;
+        }
+    }
+
+    private double h(double x){
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x){
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x){
+        double t = x * (1 - exponent);
+        if(t < -1)
+            t = -1;
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * @return log(1+x)/x, computed accurately near 0
+     */
+    private static double helper1(double x){
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1 / 3.0 - 0.25 * x));
+    }
+
+    /**
+     * @return (exp(x)-1)/x, computed accurately near 0
+     */
+    private static double helper2(double x){
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1 / 3.0) * (1 + 0.25 * x));
+    }
+}
@@ -1,59 +1,209 @@
+import edu.ufl.ads.proj.event.CommandPipeline;
+import edu.ufl.ads.proj.event.CommandServer;
 import edu.ufl.ads.proj.event.EventCounter;
+import edu.ufl.ads.proj.event.LoggedEventCounter;
+import edu.ufl.ads.proj.event.OperationLog;
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+import edu.ufl.ads.proj.event.engine.MappedRBTreeEngine;
+import edu.ufl.ads.proj.event.metrics.EventCounterMetrics;
+import edu.ufl.ads.proj.event.metrics.MeteredCounterEngine;
+import edu.ufl.ads.proj.rbtree.io.AsciiKeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.BinaryKeyValueSource;
 
+import javax.management.JMException;
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
 
 public class bbst {
     public static void main(String[] args) {
-        if(args.length < 1) {
+        String filename = null;
+        String storeFile = null;
+        String logFile = null;
+        String engineName = null;
+        OperationLog.Sync sync = OperationLog.Sync.GROUP;
+        boolean metrics = false;
+        int cacheCapacity = 0;
+        InetSocketAddress listen = null;
+        boolean valid = true;
+        for(int i = 0; i < args.length && valid; i++) {
+            if(args[i].equals("-wal") && i + 1 < args.length)
+                logFile = args[++i];
+            else if(args[i].equals("-sync") && i + 1 < args.length) {
+                try {
+                    sync = OperationLog.Sync.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException x) {
+                    valid = false;
+                }
+            }
+            else if(args[i].equals("-engine") && i + 1 < args.length)
+                engineName = args[++i];
+            else if(args[i].equals("-cache") && i + 1 < args.length) {
+                try {
+                    cacheCapacity = Integer.parseInt(args[++i]);
+                    valid = cacheCapacity > 0 && cacheCapacity <= 1 << 30;
+                } catch (NumberFormatException x) {
+                    valid = false;
+                }
+            }
+            else if(args[i].equals("-listen") && i + 1 < args.length) {
+                //[host:]port, the loopback address when no host is given
+                String address = args[++i];
+                int colon = address.lastIndexOf(':');
+                try {
+                    int port = Integer.parseInt(address.substring(colon + 1));
+                    listen = colon < 0 ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                            : new InetSocketAddress(address.substring(0, colon), port);
+                } catch (IllegalArgumentException x) {
+                    valid = false;
+                }
+            }
+            else if(args[i].equals("-metrics"))
+                metrics = true;
+            else if(filename == null)
+                filename = args[i];
+            else if(storeFile == null)
+                storeFile = args[i];
+            else valid = false;
+        }
+        //The store file is durable by itself and is its own engine, the operation log works with any in memory engine.
+        //The cache holds the nodes of the red black tree of the rbtree engine, the other engines have no cache
+        CounterEngine engine = null;
+        if(valid && storeFile == null) {
+            try {
+                engine = CounterEngine.create(engineName != null ? engineName : "rbtree", cacheCapacity);
+            } catch (IllegalArgumentException x) {
+                valid = false;
+            }
+        }
+        if(!valid || filename == null || (storeFile != null && (logFile != null || engineName != null || cacheCapacity > 0))) {
             System.out.println("Invalid input");
-            System.out.println("$java bbst file-name");
+            System.out.println("$java bbst file-name [tree-store-file] [-metrics]");
+            System.out.println("$java bbst file-name [-engine rbtree|arrayrbtree|generic|treemap|bplustree|blockrbtree] "
+                    + "[-wal log-file [-sync none|group|always]] [-cache capacity] [-metrics]");
+            System.out.println("-cache only with the rbtree engine");
+            System.out.println("any of the above [-listen [host:]port] to serve the commands over TCP");
             System.exit(1);
         }
-        String filename = args[0];
-        EventCounter em = new EventCounter();
+        MappedRBTreeEngine store = null;
+        if(storeFile != null) {
+            //The tree is kept in the store file, which is only initialized from the input file when it is empty
+            try {
+                engine = store = new MappedRBTreeEngine(Paths.get(storeFile));
+            } catch (IOException x) {
+                System.out.println("Failed to open tree store: " + storeFile);
+                System.exit(1);
+            }
+        }
+        //With -metrics the operations are recorded for the stats command and the EventCounter MXBean
+        if(metrics) {
+            MeteredCounterEngine metered = new MeteredCounterEngine(engine);
+            try {
+                EventCounterMetrics.register(metered, EventCounterMetrics.DEFAULT_NAME);
+            } catch (JMException x) {
+                System.err.println("Failed to register metrics MXBean: " + x.getMessage());
+            }
+            engine = metered;
+        }
+        EventCounter counter = new EventCounter(engine);
+        LoggedEventCounter logged = null;
+        if(logFile != null) {
+            try {
+                counter = logged = new LoggedEventCounter(Paths.get(logFile), sync, engine);
+            } catch (IOException x) {
+                System.out.println("Failed to open operation log: " + logFile);
+                System.exit(1);
+            }
+        }
         //Initializing the tree
-        String line = "";
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            line = reader.readLine();
-            int n = Integer.parseInt(line);
-            em.initialize(reader, n);
+        if(store == null || store.size() == 0) try {
+            //A .bin input holds the sorted pairs as little endian ints, any other file is the text format
+            //The pairs are read in chunks, from which the tree is built in parallel
+            if(filename.endsWith(".bin")) {
+                try (BinaryKeyValueSource source = BinaryKeyValueSource.open(Paths.get(filename))) {
+                    counter.initialize(source, source.size());
+                }
+            } else {
+                try (AsciiKeyValueSource source = AsciiKeyValueSource.open(Paths.get(filename))) {
+                    counter.initialize(source, source.readCount());
+                }
+            }
         } catch (IOException x) {
             System.out.println("File Not Found");
             System.exit(1);
         } catch(NumberFormatException e){
+            //Reported as before the loaders read the file in chunks, with the first line of the file
+            String line = "";
+            try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+                line = reader.readLine();
+            } catch (IOException x) {
+                //The message is printed without the line
+            }
             System.out.println("Failed to parse Number in command: "+ line);
             System.exit(1);
         }
-        try(BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))){
-            do{
-                line = reader.readLine();
-                String[] command = line.split(" ");
-                if(command.length == 3 && command[0].startsWith("increase")){
-                    em.increase(Integer.parseInt(command[1]), Integer.parseInt(command[2]));
-                } else if(command.length == 3 && command[0].startsWith("reduce")){
-                    em.reduce(Integer.parseInt(command[1]), Integer.parseInt(command[2]));
-                } else if(command.length == 3 && command[0].startsWith("inrange")){
-                    em.inrange(Integer.parseInt(command[1]), Integer.parseInt(command[2]));
-                } else if(command.length == 2 && command[0].startsWith("count")){
-                    em.count(Integer.parseInt(command[1]));
-                } else if(command.length == 2 && command[0].startsWith("next")){
-                    em.next(Integer.parseInt(command[1]));
-                } else if(command.length == 2 && command[0].startsWith("previous")){
-                    em.previous(Integer.parseInt(command[1]));
-                } else if(command.length == 1 && command[0].startsWith("quit")) {
-                    System.exit(0);
-                } else if(command.length == 1 && command[0].startsWith("verify")) {
-                    em.verify();
-                }
-                else System.out.println("Invalid Command: "+ line);
-
-            }while(true);
-        } catch(NumberFormatException e){
-            System.out.println("Failed to parse Number in command: "+ line);
+        //The changes logged by a previous run are replayed on the initialized tree, except the ones already in it when
+        //the input is a snapshot
+        if(logged != null) try {
+            logged.recover(Paths.get(filename));
+        } catch (IOException x) {
+            System.out.println("Failed to recover operation log: " + logFile);
+            System.exit(1);
+        }
+        //With -listen the commands of every client connection are served instead of the standard input,
+        //until the process is stopped
+        if(listen != null) {
+            CommandServer server = null;
+            CountDownLatch closed = new CountDownLatch(1);
+            try {
+                server = new CommandServer(counter, logged != null ? logged::committing : out -> out, System.err, listen);
+                System.err.println("Listening on " + server.getAddress());
+                CommandServer stopped = server;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    //The store and the log are closed by main once the server stopped
+                    stopped.close();
+                    try {
+                        closed.await();
+                    } catch (InterruptedException x) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+                server.run();
+                if(store != null)
+                    store.close();
+                if(logged != null)
+                    logged.close();
+            } catch (IOException x) {
+                System.out.println(server == null ? "Failed to listen on " + listen : "Server failed: " + x.getMessage());
+                valid = false;
+            } finally {
+                closed.countDown();
+            }
+            if(!valid)
+                System.exit(1);
+            return;
+        }
+        //The commands are read in large chunks and the results are written in bulk after each chunk.
+        //With an operation log the changes of a chunk are committed in one group before its results are written.
+        CommandPipeline pipeline = new CommandPipeline(counter, logged != null ? logged.committing(System.out) : System.out);
+        byte[] buffer = new byte[1 << 16];
+        try {
+            boolean running = true;
+            int read;
+            while(running && (read = System.in.read(buffer)) >= 0){
+                running = pipeline.feed(buffer, 0, read);
+                pipeline.flush();
+            }
+            pipeline.finish();
+            if(store != null)
+                store.close();
+            if(logged != null)
+                logged.close();
         } catch (IOException e){
             System.out.println("Failed to read Input Stream");
         }
-
-
     }
 }
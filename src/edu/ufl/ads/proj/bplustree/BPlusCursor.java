@@ -0,0 +1,156 @@
+package edu.ufl.ads.proj.bplustree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Bidirectional cursor over the pairs of a BPlusTree in sorted order.
+ * A seek positions the cursor with one root to leaf descent, after which next() and prev() move within the leaf
+ * arrays and follow the leaf links at their ends, i.e. O(1) per step.
+ * Once the cursor moves past either end it is no longer valid until the next seek.
+ * The tree must not be modified while the cursor is in use.
+ */
+public class BPlusCursor {
+    private final BPlusTree tree;
+    private BPlusTree.Leaf leaf;
+    private int index;
+
+    BPlusCursor(BPlusTree tree){
+        this.tree = tree;
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key greater than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekCeiling(int key){
+        BPlusTree.Leaf found = tree.leaf(key);
+        return position(found, BPlusTree.lowerBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekHigher(int key){
+        BPlusTree.Leaf found = tree.leaf(key);
+        return position(found, BPlusTree.upperBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key lesser than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekFloor(int key){
+        BPlusTree.Leaf found = tree.leaf(key);
+        return positionBefore(found, BPlusTree.upperBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekLower(int key){
+        BPlusTree.Leaf found = tree.leaf(key);
+        return positionBefore(found, BPlusTree.lowerBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key
+     * @return true if the tree is not empty
+     */
+    public boolean seekFirst(){
+        return position(tree.first(), 0);
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key
+     * @return true if the tree is not empty
+     */
+    public boolean seekLast(){
+        BPlusTree.Leaf found = tree.last();
+        return positionBefore(found, found.count);
+    }
+
+    /**
+     * Positions the cursor at index i of the leaf, moving to the next leaf when i is past its end
+     */
+    private boolean position(BPlusTree.Leaf found, int i){
+        if(i == found.count){
+            found = found.next;
+            i = 0;
+        }
+        leaf = found;
+        index = i;
+        return isValid();
+    }
+
+    /**
+     * Positions the cursor before index i of the leaf, moving to the previous leaf when i is at its start
+     */
+    private boolean positionBefore(BPlusTree.Leaf found, int i){
+        if(i == 0){
+            found = found.prev;
+            i = found != null ? found.count : 0;
+        }
+        leaf = found;
+        index = i - 1;
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the next pair in sorted order
+     * Complexity = O(1)
+     * @return true if the cursor is at a pair after the move
+     */
+    public boolean next(){
+        if(isValid())
+            position(leaf, index + 1);
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the previous pair in sorted order
+     * Complexity = O(1)
+     * @return true if the cursor is at a pair after the move
+     */
+    public boolean prev(){
+        if(isValid())
+            positionBefore(leaf, index);
+        return isValid();
+    }
+
+    /**
+     * @return true if the cursor is positioned at a pair
+     */
+    public boolean isValid(){
+        return leaf != null && index >= 0 && index < leaf.count;
+    }
+
+    /**
+     * @return Key of the pair at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int key(){
+        if(!isValid())
+            throw new NoSuchElementException();
+        return leaf.keys[index];
+    }
+
+    /**
+     * @return Value of the pair at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int value(){
+        if(!isValid())
+            throw new NoSuchElementException();
+        return leaf.values[index];
+    }
+}
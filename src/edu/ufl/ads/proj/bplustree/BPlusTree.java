@@ -0,0 +1,726 @@
+package edu.ufl.ads.proj.bplustree;
+
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * B+ tree with integer key and value types, the cache friendly counterpart of RBTree.
+ * The pairs are kept sorted in leaves of up to LEAF_CAPACITY keys and values held in int arrays, the leaves being
+ * linked in both directions for range scans. Inner nodes hold up to INNER_CAPACITY children with the separating keys
+ * in an int array, so a lookup of 10^8 keys visits 5 levels and searches each node within a few cache lines,
+ * instead of following about 27 RBNode pointers across the heap.
+ * Every inner node keeps the sum of the values under each child, so that inrange costs one descent per end of the
+ * range like the subtree sums of RBTree.
+ * All nodes but the root are at least half full, and all leaves are at the same depth.
+ */
+public class BPlusTree {
+    /**
+     * Number of keys of a full leaf, two 256 byte arrays
+     */
+    static final int LEAF_CAPACITY = 64;
+    /**
+     * Number of children of a full inner node
+     */
+    static final int INNER_CAPACITY = 64;
+    private static final int LEAF_MIN = LEAF_CAPACITY / 2;
+    private static final int INNER_MIN = INNER_CAPACITY / 2;
+
+    abstract static class Node {
+        /**
+         * Number of keys of a leaf, number of children of an inner node
+         */
+        int count;
+    }
+
+    static final class Leaf extends Node {
+        final int[] keys = new int[LEAF_CAPACITY];
+        final int[] values = new int[LEAF_CAPACITY];
+        Leaf prev;
+        Leaf next;
+    }
+
+    static final class Inner extends Node {
+        /**
+         * keys[i] is the least key under children[i + 1], count - 1 keys are used
+         */
+        final int[] keys = new int[INNER_CAPACITY - 1];
+        final Node[] children = new Node[INNER_CAPACITY];
+        /**
+         * sums[i] is the sum of the values under children[i]
+         */
+        final long[] sums = new long[INNER_CAPACITY];
+    }
+
+    private Node root = new Leaf();
+    /**
+     * Number of levels, the leaves are at level height - 1
+     */
+    private int height = 1;
+    private int size;
+    /**
+     * Inner nodes and child slots of the last descent, used to update the sums and to split or merge the nodes
+     */
+    private Inner[] path = new Inner[8];
+    private int[] slots = new int[8];
+
+    /**
+     * Returns the number of key-value pairs in the tree
+     * @return Number of key-value pairs
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Returns the number of levels of the tree
+     * @return Number of nodes on the path from the root to any leaf
+     */
+    public int height(){
+        return height;
+    }
+
+    /**
+     * Builds the tree from sorted arrays of keys and values, replacing its content. The leaves are filled bottom up
+     * and the keys are spread evenly over them, so every node is full but the ones of the last group of each level.
+     * Complexity = O(n)
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param values values[i] is the value of keys[i]
+     */
+    public void bulkLoad(int[] keys, int[] values){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        int n = keys.length;
+        size = n;
+        height = 1;
+        if(n == 0){
+            root = new Leaf();
+            return;
+        }
+        int leaves = (n + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[leaves];
+        int[] least = new int[leaves];
+        long[] sums = new long[leaves];
+        Leaf prev = null;
+        for(int i = 0, from = 0; i < leaves; i++){
+            int to = from + n / leaves + (i < n % leaves ? 1 : 0);
+            Leaf leaf = new Leaf();
+            leaf.count = to - from;
+            System.arraycopy(keys, from, leaf.keys, 0, leaf.count);
+            System.arraycopy(values, from, leaf.values, 0, leaf.count);
+            long sum = 0;
+            for(int j = from; j < to; j++)
+                sum += values[j];
+            leaf.prev = prev;
+            if(prev != null)
+                prev.next = leaf;
+            prev = leaf;
+            level[i] = leaf;
+            least[i] = keys[from];
+            sums[i] = sum;
+            from = to;
+        }
+        while(level.length > 1){
+            int m = level.length;
+            int parents = (m + INNER_CAPACITY - 1) / INNER_CAPACITY;
+            Node[] upper = new Node[parents];
+            int[] upperLeast = new int[parents];
+            long[] upperSums = new long[parents];
+            for(int i = 0, from = 0; i < parents; i++){
+                int to = from + m / parents + (i < m % parents ? 1 : 0);
+                Inner inner = new Inner();
+                inner.count = to - from;
+                System.arraycopy(level, from, inner.children, 0, inner.count);
+                System.arraycopy(sums, from, inner.sums, 0, inner.count);
+                System.arraycopy(least, from + 1, inner.keys, 0, inner.count - 1);
+                long sum = 0;
+                for(int j = from; j < to; j++)
+                    sum += sums[j];
+                upper[i] = inner;
+                upperLeast[i] = least[from];
+                upperSums[i] = sum;
+                from = to;
+            }
+            level = upper;
+            least = upperLeast;
+            sums = upperSums;
+            height++;
+        }
+        root = level[0];
+        ensurePath();
+    }
+
+    /**
+     * Returns the value of the key
+     * Complexity = O(lg (n))
+     * @param key Key to be searched
+     * @param absent Value returned when the key is not present
+     * @return Value of the key, absent if it is not present
+     */
+    public int get(int key, int absent){
+        Leaf leaf = leaf(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return i >= 0 ? leaf.values[i] : absent;
+    }
+
+    /**
+     * Returns whether the key is in the tree
+     * @param key Key to be searched
+     * @return true if the key is present
+     */
+    public boolean contains(int key){
+        Leaf leaf = leaf(key);
+        return Arrays.binarySearch(leaf.keys, 0, leaf.count, key) >= 0;
+    }
+
+    /**
+     * Adds delta to the value of the key, inserting the key with value delta if it is not present
+     * Complexity = O(lg (n))
+     * @param key Key to be updated
+     * @param delta Amount added to the value
+     * @return The value of the key after the update
+     */
+    public int addTo(int key, int delta){
+        Leaf leaf = descend(key);
+        addToPath(delta);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if(i >= 0)
+            return leaf.values[i] += delta;
+        insert(leaf, -i - 1, key, delta);
+        size++;
+        return delta;
+    }
+
+    /**
+     * Subtracts delta from the value of the key, removing the key when the value drops to zero or below
+     * Complexity = O(lg (n))
+     * @param key Key to be updated
+     * @param delta Amount subtracted from the value
+     * @return The value of the key after the update, 0 if it was removed or not present
+     */
+    public int subtractOrRemove(int key, int delta){
+        Leaf leaf = descend(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if(i < 0)
+            return 0;
+        int value = leaf.values[i] - delta;
+        if(value > 0){
+            addToPath(-delta);
+            leaf.values[i] = value;
+            return value;
+        }
+        addToPath(-leaf.values[i]);
+        delete(leaf, i);
+        return 0;
+    }
+
+    /**
+     * Removes the key from the tree
+     * Complexity = O(lg (n))
+     * @param key Key to be removed
+     * @return true if the key was present
+     */
+    public boolean remove(int key){
+        Leaf leaf = descend(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if(i < 0)
+            return false;
+        addToPath(-leaf.values[i]);
+        delete(leaf, i);
+        return true;
+    }
+
+    /**
+     * Returns the sum of values of all the keys which are in range [key1, key2] (inclusive) using the sums of the
+     * inner nodes
+     * Complexity = O(lg (n))
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2]
+     */
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        return sumAtMost(key2) - (key1 == Integer.MIN_VALUE ? 0 : sumAtMost(key1 - 1));
+    }
+
+    /**
+     * @return Sum of the values of the keys lesser than or equal to key
+     */
+    private long sumAtMost(int key){
+        long sum = 0;
+        Node node = root;
+        for(int level = 1; level < height; level++){
+            Inner inner = (Inner) node;
+            int slot = childIndex(inner, key);
+            for(int i = 0; i < slot; i++)
+                sum += inner.sums[i];
+            node = inner.children[slot];
+        }
+        Leaf leaf = (Leaf) node;
+        for(int i = 0; i < leaf.count && leaf.keys[i] <= key; i++)
+            sum += leaf.values[i];
+        return sum;
+    }
+
+    /**
+     * Returns the aggregate of the pairs with keys in range [key1, key2] (inclusive). RangeReducer.SUM is answered
+     * from the sums of the inner nodes, any other reducer scans the leaves of the range array by array.
+     * Complexity = O(lg (n) + k) for k pairs in the range, O(lg (n)) for the sum
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param reducer Aggregate to compute
+     * @return Aggregate of the range
+     */
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        if(reducer == RangeReducer.SUM)
+            return inrange(key1, key2);
+        long result = reducer.identity();
+        if(key1 > key2)
+            return result;
+        Leaf leaf = leaf(key1);
+        int i = lowerBound(leaf, key1);
+        for(; leaf != null; leaf = leaf.next, i = 0){
+            for(; i < leaf.count; i++){
+                if(leaf.keys[i] > key2)
+                    return result;
+                result = reducer.accumulate(result, leaf.keys[i], leaf.values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the pairs in increasing order of keys, positioned nowhere until the first seek
+     * @return A new cursor
+     */
+    public BPlusCursor cursor(){
+        return new BPlusCursor(this);
+    }
+
+    /**
+     * Returns the keys in range [key1, key2] (inclusive) in increasing order, read from the linked leaves.
+     * The tree must not be modified while the stream is consumed.
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Stream of the keys in the range
+     */
+    public IntStream keys(int key1, int key2){
+        BPlusCursor cursor = cursor();
+        cursor.seekCeiling(key1);
+        return StreamSupport.intStream(new Spliterators.AbstractIntSpliterator(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL){
+            @Override
+            public boolean tryAdvance(IntConsumer action){
+                if(!cursor.isValid() || cursor.key() > key2)
+                    return false;
+                action.accept(cursor.key());
+                cursor.next();
+                return true;
+            }
+
+            @Override
+            public Comparator<? super Integer> getComparator(){
+                return null;
+            }
+        }, false);
+    }
+
+    /**
+     * Copies all pairs in increasing order of keys into the arrays, one leaf at a time
+     * Complexity = O(n)
+     * @param keys Array receiving the keys, of length at least size()
+     * @param values Array receiving the values, of length at least size()
+     */
+    public void collect(int[] keys, int[] values){
+        int n = 0;
+        for(Leaf leaf = first(); leaf != null; leaf = leaf.next){
+            System.arraycopy(leaf.keys, 0, keys, n, leaf.count);
+            System.arraycopy(leaf.values, 0, values, n, leaf.count);
+            n += leaf.count;
+        }
+    }
+
+    /**
+     * Returns the leftmost leaf
+     */
+    Leaf first(){
+        Node node = root;
+        for(int level = 1; level < height; level++)
+            node = ((Inner) node).children[0];
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the rightmost leaf
+     */
+    Leaf last(){
+        Node node = root;
+        for(int level = 1; level < height; level++){
+            Inner inner = (Inner) node;
+            node = inner.children[inner.count - 1];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the leaf where the key is or would be inserted
+     */
+    Leaf leaf(int key){
+        Node node = root;
+        for(int level = 1; level < height; level++){
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the leaf where the key is or would be inserted, recording the path to it
+     */
+    private Leaf descend(int key){
+        Node node = root;
+        for(int level = 0; level < height - 1; level++){
+            Inner inner = (Inner) node;
+            int slot = childIndex(inner, key);
+            path[level] = inner;
+            slots[level] = slot;
+            node = inner.children[slot];
+        }
+        return (Leaf) node;
+    }
+
+    private void addToPath(long delta){
+        for(int level = 0; level < height - 1; level++)
+            path[level].sums[slots[level]] += delta;
+    }
+
+    /**
+     * @return Index of the child of the inner node whose keys range holds the key
+     */
+    private static int childIndex(Inner inner, int key){
+        int i = Arrays.binarySearch(inner.keys, 0, inner.count - 1, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * @return Index of the first key of the leaf greater than or equal to the key, count if there is none
+     */
+    static int lowerBound(Leaf leaf, int key){
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * @return Index of the first key of the leaf greater than the key, count if there is none
+     */
+    static int upperBound(Leaf leaf, int key){
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Inserts the pair at index i of the leaf found by the last descent, splitting the leaf when it is full
+     */
+    private void insert(Leaf leaf, int i, int key, int value){
+        if(leaf.count < LEAF_CAPACITY){
+            insertPair(leaf, i, key, value);
+            return;
+        }
+        Leaf right = new Leaf();
+        int mid = LEAF_CAPACITY / 2;
+        right.count = LEAF_CAPACITY - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.count);
+        leaf.count = mid;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if(leaf.next != null)
+            leaf.next.prev = right;
+        leaf.next = right;
+        if(i <= mid)
+            insertPair(leaf, i, key, value);
+        else insertPair(right, i - mid, key, value);
+        insertChild(height - 2, right.keys[0], right, sum(right));
+    }
+
+    private static void insertPair(Leaf leaf, int i, int key, int value){
+        System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.count - i);
+        System.arraycopy(leaf.values, i, leaf.values, i + 1, leaf.count - i);
+        leaf.keys[i] = key;
+        leaf.values[i] = value;
+        leaf.count++;
+    }
+
+    /**
+     * Inserts the new right sibling of the node at the given level of the path into its parent, splitting the
+     * ancestors which are full and growing a new root when the root splits.
+     * The sum of the split node in its parent still includes the values moved to its sibling.
+     * @param level Level of the parent in the path, -1 when the split node is the root
+     * @param separator Least key under the new sibling
+     * @param sibling The new right sibling
+     * @param siblingSum Sum of the values under the new sibling
+     */
+    private void insertChild(int level, int separator, Node sibling, long siblingSum){
+        for(; level >= 0; level--){
+            Inner parent = path[level];
+            int slot = slots[level];
+            parent.sums[slot] -= siblingSum;
+            if(parent.count < INNER_CAPACITY){
+                insertChild(parent, slot + 1, separator, sibling, siblingSum);
+                return;
+            }
+            Inner right = new Inner();
+            int mid = INNER_CAPACITY / 2;
+            int promoted = parent.keys[mid - 1];
+            right.count = INNER_CAPACITY - mid;
+            System.arraycopy(parent.keys, mid, right.keys, 0, right.count - 1);
+            System.arraycopy(parent.children, mid, right.children, 0, right.count);
+            System.arraycopy(parent.sums, mid, right.sums, 0, right.count);
+            Arrays.fill(parent.children, mid, INNER_CAPACITY, null);
+            parent.count = mid;
+            if(slot + 1 <= mid)
+                insertChild(parent, slot + 1, separator, sibling, siblingSum);
+            else insertChild(right, slot + 1 - mid, separator, sibling, siblingSum);
+            separator = promoted;
+            sibling = right;
+            siblingSum = sum(right);
+        }
+        Inner newRoot = new Inner();
+        newRoot.count = 2;
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = sibling;
+        newRoot.sums[0] = sum(root);
+        newRoot.sums[1] = siblingSum;
+        root = newRoot;
+        height++;
+        ensurePath();
+    }
+
+    private static void insertChild(Inner inner, int i, int separator, Node child, long sum){
+        System.arraycopy(inner.keys, i - 1, inner.keys, i, inner.count - i);
+        System.arraycopy(inner.children, i, inner.children, i + 1, inner.count - i);
+        System.arraycopy(inner.sums, i, inner.sums, i + 1, inner.count - i);
+        inner.keys[i - 1] = separator;
+        inner.children[i] = child;
+        inner.sums[i] = sum;
+        inner.count++;
+    }
+
+    private static void removeChild(Inner inner, int i){
+        System.arraycopy(inner.keys, i, inner.keys, i - 1, inner.count - 1 - i);
+        System.arraycopy(inner.children, i + 1, inner.children, i, inner.count - 1 - i);
+        System.arraycopy(inner.sums, i + 1, inner.sums, i, inner.count - 1 - i);
+        inner.count--;
+        inner.children[inner.count] = null;
+    }
+
+    /**
+     * Removes the pair at index i of the leaf found by the last descent, whose sums are already updated, then borrows
+     * from or merges with a sibling the nodes left less than half full
+     */
+    private void delete(Leaf leaf, int i){
+        System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.count - 1 - i);
+        System.arraycopy(leaf.values, i + 1, leaf.values, i, leaf.count - 1 - i);
+        leaf.count--;
+        size--;
+        if(height == 1 || leaf.count >= LEAF_MIN)
+            return;
+        int level = height - 2;
+        Inner parent = path[level];
+        int slot = slots[level];
+        if(slot > 0 && parent.children[slot - 1].count > LEAF_MIN){
+            //Borrow the greatest pair of the left sibling
+            Leaf left = (Leaf) parent.children[slot - 1];
+            left.count--;
+            insertPair(leaf, 0, left.keys[left.count], left.values[left.count]);
+            parent.keys[slot - 1] = leaf.keys[0];
+            parent.sums[slot - 1] -= leaf.values[0];
+            parent.sums[slot] += leaf.values[0];
+            return;
+        }
+        if(slot + 1 < parent.count && parent.children[slot + 1].count > LEAF_MIN){
+            //Borrow the least pair of the right sibling
+            Leaf right = (Leaf) parent.children[slot + 1];
+            int key = right.keys[0];
+            int value = right.values[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            System.arraycopy(right.values, 1, right.values, 0, right.count - 1);
+            right.count--;
+            leaf.keys[leaf.count] = key;
+            leaf.values[leaf.count] = value;
+            leaf.count++;
+            parent.keys[slot] = right.keys[0];
+            parent.sums[slot + 1] -= value;
+            parent.sums[slot] += value;
+            return;
+        }
+        //Merge with a sibling, the right one of the pair disappears
+        if(slot > 0)
+            slot--;
+        Leaf left = (Leaf) parent.children[slot];
+        Leaf right = (Leaf) parent.children[slot + 1];
+        System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+        System.arraycopy(right.values, 0, left.values, left.count, right.count);
+        left.count += right.count;
+        left.next = right.next;
+        if(right.next != null)
+            right.next.prev = left;
+        parent.sums[slot] += parent.sums[slot + 1];
+        removeChild(parent, slot + 1);
+        rebalance(level);
+    }
+
+    /**
+     * Fixes the inner node at the given level of the path after it lost a child
+     */
+    private void rebalance(int level){
+        for(; level > 0; level--){
+            Inner node = path[level];
+            if(node.count >= INNER_MIN)
+                return;
+            Inner parent = path[level - 1];
+            int slot = slots[level - 1];
+            if(slot > 0 && parent.children[slot - 1].count > INNER_MIN){
+                //Rotate the last child of the left sibling through the parent
+                Inner left = (Inner) parent.children[slot - 1];
+                long moved = left.sums[left.count - 1];
+                System.arraycopy(node.keys, 0, node.keys, 1, node.count - 1);
+                System.arraycopy(node.children, 0, node.children, 1, node.count);
+                System.arraycopy(node.sums, 0, node.sums, 1, node.count);
+                node.keys[0] = parent.keys[slot - 1];
+                node.children[0] = left.children[left.count - 1];
+                node.sums[0] = moved;
+                node.count++;
+                parent.keys[slot - 1] = left.keys[left.count - 2];
+                left.count--;
+                left.children[left.count] = null;
+                parent.sums[slot - 1] -= moved;
+                parent.sums[slot] += moved;
+                return;
+            }
+            if(slot + 1 < parent.count && parent.children[slot + 1].count > INNER_MIN){
+                //Rotate the first child of the right sibling through the parent
+                Inner right = (Inner) parent.children[slot + 1];
+                long moved = right.sums[0];
+                node.keys[node.count - 1] = parent.keys[slot];
+                node.children[node.count] = right.children[0];
+                node.sums[node.count] = moved;
+                node.count++;
+                parent.keys[slot] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0, right.count - 2);
+                System.arraycopy(right.children, 1, right.children, 0, right.count - 1);
+                System.arraycopy(right.sums, 1, right.sums, 0, right.count - 1);
+                right.count--;
+                right.children[right.count] = null;
+                parent.sums[slot + 1] -= moved;
+                parent.sums[slot] += moved;
+                return;
+            }
+            //Merge with a sibling, pulling down their separator
+            if(slot > 0)
+                slot--;
+            Inner left = (Inner) parent.children[slot];
+            Inner right = (Inner) parent.children[slot + 1];
+            left.keys[left.count - 1] = parent.keys[slot];
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count - 1);
+            System.arraycopy(right.children, 0, left.children, left.count, right.count);
+            System.arraycopy(right.sums, 0, left.sums, left.count, right.count);
+            left.count += right.count;
+            parent.sums[slot] += parent.sums[slot + 1];
+            removeChild(parent, slot + 1);
+        }
+        if(height > 1 && root.count == 1){
+            root = ((Inner) root).children[0];
+            height--;
+        }
+    }
+
+    private void ensurePath(){
+        if(path.length < height){
+            path = Arrays.copyOf(path, height * 2);
+            slots = Arrays.copyOf(slots, height * 2);
+        }
+    }
+
+    /**
+     * @return Sum of the values under the node
+     */
+    private static long sum(Node node){
+        long sum = 0;
+        if(node instanceof Leaf){
+            Leaf leaf = (Leaf) node;
+            for(int i = 0; i < leaf.count; i++)
+                sum += leaf.values[i];
+        } else {
+            Inner inner = (Inner) node;
+            for(int i = 0; i < inner.count; i++)
+                sum += inner.sums[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Utility method to verify the properties of the B+ tree: the keys are sorted and separated by the keys of the
+     * inner nodes, every node but the root is at least half full, all leaves are at the same depth, the sums of the
+     * inner nodes match the values, the leaves are linked in order and the size matches
+     * @return true if all the properties hold, otherwise false
+     */
+    public boolean verify(){
+        Leaf[] previous = new Leaf[1];
+        long[] count = new long[1];
+        if(verify(root, 1, Long.MIN_VALUE, Long.MAX_VALUE, previous, count) == Long.MIN_VALUE)
+            return false;
+        return count[0] == size && (previous[0] == null || previous[0].next == null);
+    }
+
+    /**
+     * @return The sum of the values under the node, whose keys must be in [low, high), Long.MIN_VALUE if a property
+     * does not hold
+     */
+    private long verify(Node node, int depth, long low, long high, Leaf[] previous, long[] count){
+        boolean isRoot = node == root;
+        if(depth == height){
+            if(!(node instanceof Leaf))
+                return Long.MIN_VALUE;
+            Leaf leaf = (Leaf) node;
+            if(!isRoot && leaf.count < LEAF_MIN || leaf.count > LEAF_CAPACITY)
+                return Long.MIN_VALUE;
+            long sum = 0;
+            for(int i = 0; i < leaf.count; i++){
+                if(leaf.keys[i] < low || leaf.keys[i] >= high || i > 0 && leaf.keys[i] <= leaf.keys[i - 1])
+                    return Long.MIN_VALUE;
+                sum += leaf.values[i];
+            }
+            if(leaf.prev != previous[0] || previous[0] != null && previous[0].next != leaf)
+                return Long.MIN_VALUE;
+            previous[0] = leaf;
+            count[0] += leaf.count;
+            return sum;
+        }
+        if(!(node instanceof Inner))
+            return Long.MIN_VALUE;
+        Inner inner = (Inner) node;
+        if((isRoot ? inner.count < 2 : inner.count < INNER_MIN) || inner.count > INNER_CAPACITY)
+            return Long.MIN_VALUE;
+        long sum = 0;
+        for(int i = 0; i < inner.count; i++){
+            long childLow = i == 0 ? low : inner.keys[i - 1];
+            long childHigh = i == inner.count - 1 ? high : inner.keys[i];
+            if(childLow >= childHigh)
+                return Long.MIN_VALUE;
+            long childSum = verify(inner.children[i], depth + 1, childLow, childHigh, previous, count);
+            if(childSum == Long.MIN_VALUE || childSum != inner.sums[i])
+                return Long.MIN_VALUE;
+            sum += childSum;
+        }
+        return sum;
+    }
+}
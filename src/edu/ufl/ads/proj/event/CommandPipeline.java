@@ -0,0 +1,452 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.event.metrics.LatencyHistogram;
+import edu.ufl.ads.proj.event.metrics.MeteredCounterEngine;
+import edu.ufl.ads.proj.event.metrics.OperationMetrics;
+import edu.ufl.ads.proj.rbtree.RBTree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Executes the bbst commands on an EventCounter from a stream of bytes, which is fed in chunks of any size.
+ * The commands are parsed in place from the bytes of the chunk, a line split between two chunks is kept until the
+ * rest of it arrives. The results are formatted into one reusable output buffer which is written out by flush(),
+ * or when it is full, instead of one println per command.
+ * The commands are read exactly as bbst did with readLine and split(" "): a line ends at \n, \r or \r\n, the tokens
+ * are separated by single spaces, trailing spaces are ignored and a command only needs to start with its name.
+ * A quit command, or a number which can not be parsed, stops the pipeline and the rest of the input is ignored.
+ * "snapshot file" writes a snapshot of the counter (see EventCounter.snapshot) and prints the number of events in it,
+ * "snapshot file background" writes it in a background thread, finish() waits for these snapshots to be written.
+ * A pipeline built without snapshots answers a snapshot command as an invalid command and writes no file, as for the
+ * clients of a CommandServer.
+ * "stats" prints the size and the depth of the tree with the rotations and color fixing steps of a red black tree
+ * and the hits, misses, evictions and bypasses of the HotKeyCache, followed by one line of counts and latencies in
+ * nanoseconds per operation when the engine of the counter is a MeteredCounterEngine.
+ */
+public class CommandPipeline {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] INCREASE = ascii("increase");
+    private static final byte[] REDUCE = ascii("reduce");
+    private static final byte[] INRANGE = ascii("inrange");
+    private static final byte[] COUNT = ascii("count");
+    private static final byte[] NEXT = ascii("next");
+    private static final byte[] PREVIOUS = ascii("previous");
+    private static final byte[] QUIT = ascii("quit");
+    private static final byte[] VERIFY = ascii("verify");
+    private static final byte[] SNAPSHOT = ascii("snapshot");
+    private static final byte[] BACKGROUND = ascii("background");
+    private static final byte[] STATS = ascii("stats");
+    private static final byte[] SNAPSHOT_FAILED = ascii("Failed to write snapshot: ");
+    private static final byte[] INVALID_COMMAND = ascii("Invalid Command: ");
+    private static final byte[] PARSE_FAILED = ascii("Failed to parse Number in command: ");
+    private static final byte[] NO_EVENT = ascii("0 0");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] LINE_SEPARATOR = ascii(System.lineSeparator());
+
+    private final EventCounter counter;
+    private final OutputStream out;
+    private final byte[] output;
+    private int outputLength;
+    /**
+     * Start of the line which did not end in the last chunk
+     */
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+    /**
+     * The last chunk ended with \r, a \n starting the next chunk belongs to the same line end
+     */
+    private boolean skipLineFeed;
+    private boolean stopped;
+    /**
+     * Number of lines executed
+     */
+    private long commands;
+    /**
+     * Bounds of the first three tokens of the current line and the number of tokens of the line
+     */
+    private final int[] tokenStart = new int[3];
+    private final int[] tokenEnd = new int[3];
+    private int tokens;
+    private final byte[] digits = new byte[20];
+    /**
+     * Snapshots being written in the background and their files
+     */
+    private final List<CompletableFuture<Integer>> snapshots = new ArrayList<>();
+    private final List<String> snapshotFiles = new ArrayList<>();
+    /**
+     * The snapshot command is executed, otherwise it is invalid
+     */
+    private final boolean snapshotsAllowed;
+
+    /**
+     * @param counter Counter on which the commands are executed
+     * @param out Stream to which the results are written
+     */
+    public CommandPipeline(EventCounter counter, OutputStream out){
+        this(counter, out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param counter Counter on which the commands are executed
+     * @param out Stream to which the results are written
+     * @param bufferSize Size of the output buffer in bytes
+     */
+    public CommandPipeline(EventCounter counter, OutputStream out, int bufferSize){
+        this(counter, out, bufferSize, true);
+    }
+
+    /**
+     * @param counter Counter on which the commands are executed
+     * @param out Stream to which the results are written
+     * @param bufferSize Size of the output buffer in bytes
+     * @param snapshotsAllowed false to reject the snapshot command, which writes any file the process can write
+     */
+    public CommandPipeline(EventCounter counter, OutputStream out, int bufferSize, boolean snapshotsAllowed){
+        if(bufferSize < 64)
+            throw new IllegalArgumentException("Output buffer too small: " + bufferSize);
+        this.counter = counter;
+        this.out = out;
+        this.output = new byte[bufferSize];
+        this.snapshotsAllowed = snapshotsAllowed;
+    }
+
+    /**
+     * Executes all the complete lines of the chunk, an incomplete last line is kept until the next chunk
+     * @param chunk Bytes of the input
+     * @param off Offset of the first byte in chunk
+     * @param len Number of bytes
+     * @return false once the pipeline is stopped by quit or a malformed number, true otherwise
+     * @throws IOException when writing the results fails
+     */
+    public boolean feed(byte[] chunk, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+        if(skipLineFeed && i < end){
+            if(chunk[i] == '\n')
+                i++;
+            skipLineFeed = false;
+        }
+        int lineStart = i;
+        while(i < end && !stopped){
+            byte b = chunk[i];
+            if(b != '\n' && b != '\r'){
+                i++;
+                continue;
+            }
+            if(pendingLength > 0){
+                append(chunk, lineStart, i);
+                execute(pending, 0, pendingLength);
+                pendingLength = 0;
+            } else execute(chunk, lineStart, i);
+            i++;
+            if(b == '\r'){
+                if(i == end)
+                    skipLineFeed = true;
+                else if(chunk[i] == '\n')
+                    i++;
+            }
+            lineStart = i;
+        }
+        if(!stopped && lineStart < end)
+            append(chunk, lineStart, end);
+        return !stopped;
+    }
+
+    /**
+     * Executes the last line if the input did not end with a line end and writes out all results
+     * @return false if the pipeline was stopped by quit or a malformed number, true otherwise
+     * @throws IOException when writing the results fails
+     */
+    public boolean finish() throws IOException {
+        if(!stopped && pendingLength > 0){
+            execute(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+        for(int i = 0; i < snapshots.size(); i++){
+            try {
+                snapshots.get(i).join();
+            } catch (CompletionException e) {
+                writeSnapshotFailed(snapshotFiles.get(i));
+            }
+        }
+        snapshots.clear();
+        snapshotFiles.clear();
+        flush();
+        return !stopped;
+    }
+
+    /**
+     * @return Number of command lines executed, including the invalid ones
+     */
+    public long getCommands(){
+        return commands;
+    }
+
+    /**
+     * Writes out the results in the output buffer
+     * @throws IOException when writing fails
+     */
+    public void flush() throws IOException {
+        if(outputLength > 0){
+            out.write(output, 0, outputLength);
+            outputLength = 0;
+        }
+        out.flush();
+    }
+
+    private void append(byte[] bytes, int start, int end){
+        int length = end - start;
+        if(pendingLength + length > pending.length){
+            byte[] grown = new byte[Math.max(pending.length * 2, pendingLength + length)];
+            System.arraycopy(pending, 0, grown, 0, pendingLength);
+            pending = grown;
+        }
+        System.arraycopy(bytes, start, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    /**
+     * Executes the command in line[start..end) and writes its result
+     */
+    private void execute(byte[] line, int start, int end) throws IOException {
+        commands++;
+        tokenize(line, start, end);
+        try {
+            if(tokens == 3 && startsWith(line, INCREASE)){
+                int id = parseInt(line, 1);
+                writeLong(counter.increase(id, parseInt(line, 2)));
+            } else if(tokens == 3 && startsWith(line, REDUCE)){
+                int id = parseInt(line, 1);
+                writeLong(counter.reduce(id, parseInt(line, 2)));
+            } else if(tokens == 3 && startsWith(line, INRANGE)){
+                int id1 = parseInt(line, 1);
+                writeLong(counter.inrange(id1, parseInt(line, 2)));
+            } else if(tokens == 2 && startsWith(line, COUNT)){
+                writeLong(counter.count(parseInt(line, 1)));
+            } else if(tokens == 2 && startsWith(line, NEXT)){
+                writeEvent(counter.next(parseInt(line, 1)));
+            } else if(tokens == 2 && startsWith(line, PREVIOUS)){
+                writeEvent(counter.previous(parseInt(line, 1)));
+            } else if(tokens == 1 && startsWith(line, QUIT)){
+                stopped = true;
+                return;
+            } else if(tokens == 1 && startsWith(line, VERIFY)){
+                byte[] valid = counter.verify() ? TRUE : FALSE;
+                write(valid, 0, valid.length);
+                write((byte) ' ');
+                writeLong(counter.maxDepth());
+            } else if(tokens == 1 && startsWith(line, STATS)){
+                writeStats();
+            } else if(snapshotsAllowed && (tokens == 2 || (tokens == 3 && tokenEquals(line, 2, BACKGROUND)))
+                    && startsWith(line, SNAPSHOT)){
+                String file = new String(line, tokenStart[1], tokenEnd[1] - tokenStart[1], StandardCharsets.UTF_8);
+                int size;
+                try {
+                    if(tokens == 3){
+                        snapshots.add(counter.snapshotInBackground(Paths.get(file)));
+                        snapshotFiles.add(file);
+                        size = counter.size();
+                    } else size = counter.snapshot(Paths.get(file));
+                } catch (IOException | RuntimeException e) {
+                    writeSnapshotFailed(file);
+                    return;
+                }
+                writeLong(size);
+            } else {
+                write(INVALID_COMMAND, 0, INVALID_COMMAND.length);
+                write(line, start, end);
+            }
+        } catch(NumberFormatException x){
+            write(PARSE_FAILED, 0, PARSE_FAILED.length);
+            write(line, start, end);
+            stopped = true;
+        }
+        write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * Splits line[start..end) at every space like String.split(" "), which drops the trailing empty tokens
+     */
+    private void tokenize(byte[] line, int start, int end){
+        int last = end;
+        while(last > start && line[last - 1] == ' ')
+            last--;
+        if(last == start){
+            //An empty line is one empty token, a line of spaces has no tokens
+            tokens = end == start ? 1 : 0;
+            tokenStart[0] = tokenEnd[0] = start;
+            return;
+        }
+        tokens = 0;
+        int tokenFrom = start;
+        for(int i = start; i <= last; i++){
+            if(i == last || line[i] == ' '){
+                if(tokens < 3){
+                    tokenStart[tokens] = tokenFrom;
+                    tokenEnd[tokens] = i;
+                }
+                tokens++;
+                tokenFrom = i + 1;
+            }
+        }
+    }
+
+    /**
+     * @return true if the first token starts with the prefix
+     */
+    private boolean startsWith(byte[] line, byte[] prefix){
+        int start = tokenStart[0];
+        if(tokenEnd[0] - start < prefix.length)
+            return false;
+        for(int i = 0; i < prefix.length; i++)
+            if(line[start + i] != prefix[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return true if the token is the given word
+     */
+    private boolean tokenEquals(byte[] line, int token, byte[] word){
+        int start = tokenStart[token];
+        if(tokenEnd[token] - start != word.length)
+            return false;
+        for(int i = 0; i < word.length; i++)
+            if(line[start + i] != word[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Writes the result of the stats command without its last line separator
+     */
+    private void writeStats() throws IOException {
+        StringBuilder stats = new StringBuilder();
+        stats.append("size ").append(counter.size()).append(" maxDepth ").append(counter.maxDepth());
+        RBTree.Statistics statistics = counter.statistics();
+        if(statistics != null)
+            stats.append(" rotations ").append(statistics.getRotations())
+                    .append(" insertFixups ").append(statistics.getInsertFixups())
+                    .append(" deleteFixups ").append(statistics.getDeleteFixups());
+        HotKeyCache cache = counter.getCache();
+        if(cache != null)
+            stats.append(" cacheSize ").append(cache.size())
+                    .append(" cacheHits ").append(cache.hits())
+                    .append(" cacheMisses ").append(cache.misses())
+                    .append(" cacheEvictions ").append(cache.evictions())
+                    .append(" cacheBypasses ").append(cache.bypasses());
+        if(counter.getEngine() instanceof MeteredCounterEngine){
+            OperationMetrics metrics = ((MeteredCounterEngine) counter.getEngine()).getMetrics();
+            for(OperationMetrics.Operation operation : OperationMetrics.Operation.values()){
+                LatencyHistogram histogram = metrics.histogram(operation);
+                stats.append(System.lineSeparator()).append(operation.command())
+                        .append(" count ").append(histogram.count())
+                        .append(" mean ").append(histogram.mean())
+                        .append(" p50 ").append(histogram.percentile(0.5))
+                        .append(" p99 ").append(histogram.percentile(0.99))
+                        .append(" max ").append(histogram.max());
+            }
+        }
+        byte[] bytes = ascii(stats.toString());
+        write(bytes, 0, bytes.length);
+    }
+
+    private void writeSnapshotFailed(String file) throws IOException {
+        write(SNAPSHOT_FAILED, 0, SNAPSHOT_FAILED.length);
+        byte[] name = file.getBytes(StandardCharsets.UTF_8);
+        write(name, 0, name.length);
+        write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * Parses the token like Integer.parseInt: an optional sign followed by decimal digits
+     * @throws NumberFormatException when the token is not a number in the int range
+     */
+    private int parseInt(byte[] line, int token){
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = false;
+        if(i < end && (line[i] == '-' || line[i] == '+')){
+            negative = line[i] == '-';
+            i++;
+        }
+        if(i == end)
+            throw new NumberFormatException();
+        //Accumulate as a negative number, which can hold Integer.MIN_VALUE
+        int result = 0;
+        for(; i < end; i++){
+            int digit = line[i] - '0';
+            if(digit < 0 || digit > 9 || result < (Integer.MIN_VALUE + digit) / 10)
+                throw new NumberFormatException();
+            result = result * 10 - digit;
+        }
+        if(negative)
+            return result;
+        if(result == Integer.MIN_VALUE)
+            throw new NumberFormatException();
+        return -result;
+    }
+
+    private void writeEvent(Event event) throws IOException {
+        if(event == null){
+            write(NO_EVENT, 0, NO_EVENT.length);
+            return;
+        }
+        writeLong(event.getId());
+        write((byte) ' ');
+        writeLong(event.getCount());
+    }
+
+    private void writeLong(long value) throws IOException {
+        if(outputLength + 21 > output.length)
+            writeOutput();
+        if(value < 0)
+            output[outputLength++] = '-';
+        else value = -value;
+        //Digits of the negated value, which can hold Long.MIN_VALUE
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' - value % 10);
+            value /= 10;
+        } while(value != 0);
+        while(n > 0)
+            output[outputLength++] = digits[--n];
+    }
+
+    private void write(byte b) throws IOException {
+        if(outputLength == output.length)
+            writeOutput();
+        output[outputLength++] = b;
+    }
+
+    private void write(byte[] bytes, int start, int end) throws IOException {
+        int length = end - start;
+        if(outputLength + length > output.length){
+            writeOutput();
+            if(length > output.length){
+                out.write(bytes, start, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, start, output, outputLength, length);
+        outputLength += length;
+    }
+
+    private void writeOutput() throws IOException {
+        out.write(output, 0, outputLength);
+        outputLength = 0;
+    }
+
+    private static byte[] ascii(String s){
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
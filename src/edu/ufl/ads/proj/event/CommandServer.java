@@ -0,0 +1,246 @@
+package edu.ufl.ads.proj.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * TCP server executing the bbst commands of its clients on one EventCounter. Every connection has its own
+ * CommandPipeline, so a client sends the commands exactly as bbst reads them from the standard input, may send many
+ * of them without waiting for the results, and receives the results in the order of its commands.
+ * One selector thread serves all the connections: each readable connection is read once (up to BUFFER_SIZE bytes)
+ * per round, all the complete commands of the read are executed, and their results are sent with one write. The
+ * counter is only used by that thread, so the commands of different clients are serialized without any lock and
+ * any EventCounter can be served, e.g. a LoggedEventCounter or one on a MeteredCounterEngine.
+ * The clients get every bbst command except snapshot, which would let them write any file the server can write and
+ * compact the operation log, so it is answered as an invalid command.
+ * A client which does not read its results is not read from until they are sent, so the results waiting for a
+ * client stay within a few buffers.
+ * quit, a malformed number or the end of the input of a client closes its connection once its results are sent, and
+ * the number of commands, bytes and the commands per second of the connection are printed to the log.
+ * A command failing with an exception closes the connection of its client, whose results are not sent, and the
+ * failure is printed to the log while the other clients are served on.
+ */
+public class CommandServer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final EventCounter counter;
+    private final UnaryOperator<OutputStream> output;
+    private final PrintStream log;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private volatile boolean running = true;
+
+    /**
+     * Opens the server socket, the server accepts connections once run is called
+     * @param counter Counter on which the commands are executed
+     * @param output Wraps the stream of the results of a connection, e.g. LoggedEventCounter.committing
+     * @param log Stream to which the connections are reported
+     * @param address Address to listen on, a port of 0 picks a free port
+     * @throws IOException when the socket can not be bound
+     */
+    public CommandServer(EventCounter counter, UnaryOperator<OutputStream> output, PrintStream log,
+                         SocketAddress address) throws IOException {
+        this.counter = counter;
+        this.output = output;
+        this.log = log;
+        this.selector = Selector.open();
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The address the server listens on
+     * @throws IOException when the socket is closed
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Serves the clients until the server is closed, then closes their connections
+     * @throws IOException when the selector or the server socket fails
+     */
+    public void run() throws IOException {
+        try {
+            while(running){
+                selector.select();
+                for(SelectionKey key : selector.selectedKeys()){
+                    if(!key.isValid())
+                        continue;
+                    if(key.isAcceptable())
+                        accept();
+                    else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if(key.isWritable())
+                                connection.send();
+                            if(key.isValid() && key.isReadable())
+                                connection.receive();
+                        } catch (IOException | RuntimeException e) {
+                            //The client is gone or one of its commands failed, e.g. the UncheckedIOException of a
+                            //LoggedEventCounter which could not log it, the other clients are served on
+                            connection.close(e);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (ClosedSelectorException e) {
+            //Closed while selecting
+        } finally {
+            List<Connection> connections = new ArrayList<>();
+            if(selector.isOpen())
+                for(SelectionKey key : selector.keys())
+                    //A closed connection keeps its cancelled key until the next select
+                    if(key.isValid() && key.attachment() instanceof Connection)
+                        connections.add((Connection) key.attachment());
+            for(Connection connection : connections)
+                connection.close(null);
+            server.close();
+            selector.close();
+        }
+    }
+
+    /**
+     * Stops run, may be called from any thread
+     */
+    @Override
+    public void close(){
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if(channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * State of one client: the bytes read, the pipeline executing its commands and the results not sent yet
+     */
+    private final class Connection extends OutputStream {
+        private final SocketChannel channel;
+        private final String name;
+        private final CommandPipeline pipeline;
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        /**
+         * Results not sent yet, in write mode
+         */
+        private ByteBuffer results = ByteBuffer.allocate(BUFFER_SIZE);
+        private SelectionKey key;
+        /**
+         * The client will send no more commands, the connection is closed once the results are sent
+         */
+        private boolean finished;
+        private final long start = System.nanoTime();
+        private long bytesIn;
+        private long bytesOut;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.name = String.valueOf(channel.getRemoteAddress());
+            this.pipeline = new CommandPipeline(counter, output.apply(this), BUFFER_SIZE, false);
+        }
+
+        /**
+         * Reads once from the client, executes the complete commands read and sends their results
+         */
+        void receive() throws IOException {
+            input.clear();
+            int read = channel.read(input);
+            if(read < 0){
+                pipeline.finish();
+                finished = true;
+            } else if(read > 0){
+                bytesIn += read;
+                if(!pipeline.feed(input.array(), 0, read)){
+                    pipeline.finish();
+                    finished = true;
+                } else pipeline.flush();
+            }
+            send();
+        }
+
+        /**
+         * Writes the pending results, reading from the client is suspended while they do not fit in the socket
+         */
+        void send() throws IOException {
+            if(results.position() > 0){
+                results.flip();
+                bytesOut += channel.write(results);
+                results.compact();
+            }
+            if(results.position() > 0)
+                key.interestOps(SelectionKey.OP_WRITE);
+            else if(finished)
+                close(null);
+            else key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Appends results of the pipeline to the pending results
+         */
+        @Override
+        public void write(byte[] b, int off, int len){
+            if(results.remaining() < len){
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(results.capacity() * 2, results.position() + len));
+                results.flip();
+                grown.put(results);
+                results = grown;
+            }
+            results.put(b, off, len);
+        }
+
+        @Override
+        public void write(int b){
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        /**
+         * Closes the connection and reports it
+         * @param failure Failure closing the connection, null when it ends normally
+         */
+        void close(Exception failure){
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //Nothing more to send
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long commands = pipeline.getCommands();
+            log.println(String.format(Locale.ROOT,
+                    "%s: %d commands in %.3f s, %.0f commands/s, %d bytes in, %d bytes out%s",
+                    name, commands, seconds, commands / seconds, bytesIn, bytesOut,
+                    failure instanceof IOException ? ", closed: " + failure.getMessage()
+                            : failure != null ? ", failed: " + failure : ""));
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.rbtree.RBNode;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.LineKeyValueSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread safe event counter, the id space is partitioned in ranges (stripes) each having its own red black tree
+ * guarded by its own StampedLock. Updates of ids in different stripes run in parallel, count, next and previous
+ * descend the tree under an optimistic read and only take the read lock when a writer interfered.
+ * inrange is linearizable per stripe: the part of the range in each stripe is summed under the read lock of the stripe.
+ * Unlike EventCounter the operations return their result instead of printing it.
+ */
+public class ConcurrentEventCounter {
+    /**
+     * A descent longer than this can only happen on an inconsistent view of a tree
+     */
+    private static final int MAX_DESCENT = 128;
+
+    private final int maxStripes;
+    /**
+     * lowerBounds[i] is the least id of stripe i, lowerBounds[0] is Integer.MIN_VALUE
+     */
+    private int[] lowerBounds;
+    private RBTree[] trees;
+    private StampedLock[] locks;
+
+    /**
+     * Creates an empty counter, whose stripes split the non negative ids evenly
+     * @param stripes Number of stripes
+     */
+    public ConcurrentEventCounter(int stripes){
+        if(stripes < 1)
+            throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+        this.maxStripes = stripes;
+        int[] bounds = new int[stripes];
+        bounds[0] = Integer.MIN_VALUE;
+        for(int i = 1; i < stripes; i++)
+            bounds[i] = (int) ((long) Integer.MAX_VALUE * i / stripes);
+        createStripes(bounds);
+    }
+
+    public ConcurrentEventCounter(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    private void createStripes(int[] bounds){
+        RBTree[] newTrees = new RBTree[bounds.length];
+        StampedLock[] newLocks = new StampedLock[bounds.length];
+        for(int i = 0; i < bounds.length; i++){
+            newTrees[i] = new RBTree();
+            newLocks[i] = new StampedLock();
+        }
+        lowerBounds = bounds;
+        trees = newTrees;
+        locks = newLocks;
+    }
+
+    /**
+     * Initialize the event counter, by reading the eventId and count from the reader.
+     * The sorted input is split in equal parts, one for each stripe, so the stripes follow the distribution of the ids.
+     * Must not be called concurrently with other operations.
+     * Complexity: O(n)
+     * @param reader Reader to read the input key-value pair
+     * @param size Number of key value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(BufferedReader reader, int size) throws IOException {
+        initialize(new LineKeyValueSource(reader), size);
+    }
+
+    /**
+     * Initialize the event counter, by reading the eventId and count pairs from the source, see
+     * initialize(BufferedReader, int)
+     * @param source Source of the input key-value pairs
+     * @param size Number of key value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size) throws IOException {
+        if(size == 0){
+            //Like every engine the counter is replaced, by one empty stripe
+            createStripes(new int[]{Integer.MIN_VALUE});
+            return;
+        }
+        int stripes = Math.min(maxStripes, size);
+        int[] bounds = new int[stripes];
+        createStripes(bounds);
+        for(int i = 0; i < stripes; i++){
+            int part = size / stripes + (i < size % stripes ? 1 : 0);
+            trees[i].initialize(source, part);
+            bounds[i] = trees[i].select(0).getKey();
+        }
+        bounds[0] = Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return Number of stripes
+     */
+    public int getStripes(){
+        return trees.length;
+    }
+
+    /**
+     * Returns the stripe of the id
+     * @param id Id of an event
+     * @return Index of the last stripe whose lower bound is <= id
+     */
+    private int stripe(int id){
+        int i = Arrays.binarySearch(lowerBounds, id);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Increase the count of id by given count, inserting the id if it is not present
+     * @param id Id of the event
+     * @param count The value by which the counter needs to be incremented.
+     * @return The count of the event after the increase
+     */
+    public int increase(int id, int count){
+        int i = stripe(id);
+        StampedLock lock = locks[i];
+        long stamp = lock.writeLock();
+        try {
+            return trees[i].addTo(id, count);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Increase the counts of a batch of ids, like increase for each id. The part of the batch in each stripe is merged
+     * into its tree under one write lock (see RBTree.mergeAll), so the batch is atomic per stripe.
+     * @param ids Ids of the events sorted in increasing order without duplicates
+     * @param counts counts[i] is added to the count of ids[i]
+     */
+    public void increaseBatch(int[] ids, int[] counts){
+        int from = 0;
+        while(from < ids.length){
+            int i = stripe(ids[from]);
+            int to;
+            if(i + 1 < trees.length){
+                //The batch is sorted, so the ids of the stripe are the ones before the lower bound of the next stripe
+                to = Arrays.binarySearch(ids, from, ids.length, lowerBounds[i + 1]);
+                if(to < 0)
+                    to = -to - 1;
+            } else to = ids.length;
+            StampedLock lock = locks[i];
+            long stamp = lock.writeLock();
+            try {
+                trees[i].mergeAll(ids, counts, from, to);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Reduce the count of id by given count, removing the event if its count drops to 0 or below
+     * @param id Id of the event
+     * @param count The value by which the counter needs to be decreased
+     * @return The count of the event after the reduction, 0 if it was removed or not present
+     */
+    public int reduce(int id, int count){
+        int i = stripe(id);
+        StampedLock lock = locks[i];
+        long stamp = lock.writeLock();
+        try {
+            return trees[i].subtractOrRemove(id, count);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the count of the given id
+     * @param id Id of the event
+     * @return The count of the event, 0 if it is not present
+     */
+    public int count(int id){
+        int i = stripe(id);
+        StampedLock lock = locks[i];
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0){
+            //Every link followed is validated before it is dereferenced, as a writer may be changing the tree
+            RBNode curr = trees[i].getRoot();
+            for(int steps = 0; steps < MAX_DESCENT && lock.validate(stamp); steps++){
+                if(curr.isExternalNode())
+                    return 0;
+                int key = curr.getKey();
+                if(key == id){
+                    int value = curr.getValue();
+                    if(lock.validate(stamp))
+                        return value;
+                    break;
+                }
+                curr = id < key ? curr.getLeftChild() : curr.getRightChild();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            RBNode node = trees[i].findNode(id);
+            return node.isInternalNode() ? node.getValue() : 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the event with the least id greater than the given id
+     * @param id Id for which we need to find next
+     * @return The next event, null if there is no such event
+     */
+    public Event next(int id){
+        for(int i = stripe(id); i < trees.length; i++){
+            Event event = nearest(i, id, true);
+            if(event != null)
+                return event;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the event with the greatest id lesser than the given id
+     * @param id Id for which we need to find previous
+     * @return The previous event, null if there is no such event
+     */
+    public Event previous(int id){
+        for(int i = stripe(id); i >= 0; i--){
+            Event event = nearest(i, id, false);
+            if(event != null)
+                return event;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the next or previous event of the id within one stripe
+     * @param i Index of the stripe
+     * @param id Id for which we need to find next or previous
+     * @param next true to find next, false to find previous
+     * @return The event found, null if the stripe has no such event
+     */
+    private Event nearest(int i, int id, boolean next){
+        StampedLock lock = locks[i];
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0){
+            RBNode found = null;
+            RBNode curr = trees[i].getRoot();
+            for(int steps = 0; steps < MAX_DESCENT && lock.validate(stamp); steps++){
+                if(curr.isExternalNode()){
+                    if(found == null)
+                        return null;
+                    Event event = new Event(found.getKey(), found.getValue());
+                    if(lock.validate(stamp))
+                        return event;
+                    break;
+                }
+                int key = curr.getKey();
+                if(next ? key > id : key < id){
+                    found = curr;
+                    curr = next ? curr.getLeftChild() : curr.getRightChild();
+                } else curr = next ? curr.getRightChild() : curr.getLeftChild();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            RBNode found = next ? trees[i].next(id) : trees[i].previous(id);
+            return found.isExternalNode() ? null : new Event(found.getKey(), found.getValue());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the sum of counts of all the ids in range [id1, id2] (inclusive).
+     * The stripes covering the range are summed one after the other, each under its read lock.
+     * Complexity = O(k lg (n)) where k is the number of stripes covering the range
+     * @param id1 Id1
+     * @param id2 Id2
+     * @return Sum of the counts in range [id1, id2]
+     */
+    public long inrange(int id1, int id2){
+        if(id1 > id2)
+            return 0;
+        long sum = 0;
+        int last = stripe(id2);
+        for(int i = stripe(id1); i <= last; i++){
+            long stamp = locks[i].readLock();
+            try {
+                sum += trees[i].inrange(id1, id2);
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the aggregate of the events with ids in range [id1, id2] (inclusive), see EventCounter.aggregate.
+     * The stripes covering the range are reduced one after the other, each under its read lock, so writers of the
+     * other stripes continue meanwhile. The results of the stripes are combined in id order.
+     * @param id1 Id1
+     * @param id2 Id2
+     * @param reducer Aggregate of the counts to compute
+     * @return Aggregate of the range
+     */
+    public long aggregate(int id1, int id2, RangeReducer reducer){
+        long result = reducer.identity();
+        if(id1 > id2)
+            return result;
+        int last = stripe(id2);
+        for(int i = stripe(id1); i <= last; i++){
+            long stamp = locks[i].readLock();
+            try {
+                result = reducer.combine(result, trees[i].reduce(id1, id2, reducer));
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifies the red black properties of every stripe and that every id is in the range of its stripe
+     * @return true if all the properties hold, otherwise false
+     */
+    public boolean verify(){
+        for(int i = 0; i < trees.length; i++){
+            long stamp = locks[i].readLock();
+            try {
+                RBTree tree = trees[i];
+                if(!tree.verifyRBProperties())
+                    return false;
+                if(tree.size() > 0){
+                    if(tree.select(0).getKey() < lowerBounds[i])
+                        return false;
+                    if(i + 1 < trees.length && tree.select(tree.size() - 1).getKey() >= lowerBounds[i + 1])
+                        return false;
+                }
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the maximum depth over the trees of all stripes
+     * @return Maximum depth of the stripes
+     */
+    public int maxDepth(){
+        int depth = 0;
+        for(int i = 0; i < trees.length; i++){
+            long stamp = locks[i].readLock();
+            try {
+                depth = Math.max(depth, trees[i].maxDepth());
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.ufl.ads.proj.event;
+
+/**
+ * Immutable id and count pair of an event, as returned by the next and previous queries
+ */
+public final class Event {
+    private final int id;
+    private final int count;
+
+    public Event(int id, int count){
+        this.id = id;
+        this.count = count;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The id and count separated by a space, which is how bbst prints an event
+     */
+    @Override
+    public String toString() {
+        return id + " " + count;
+    }
+}
@@ -1,13 +1,20 @@
 package edu.ufl.ads.proj.event;
 
-import edu.ufl.ads.proj.rbtree.DuplicateKeyException;
-import edu.ufl.ads.proj.rbtree.RBNode;
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+import edu.ufl.ads.proj.event.engine.RBTreeEngine;
 import edu.ufl.ads.proj.rbtree.RBTree;
-
-
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.LineKeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.SnapshotWriter;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Created by hsitas444 on 3/17/2016.
@@ -15,11 +22,45 @@ import java.io.IOException;
 
 /**
  * EventCounter class that implements the functionality given in the project
+ * The operations return their results, bbst (see CommandPipeline) prints them.
+ * The events are kept in a CounterEngine, by default the red black tree of RBTreeEngine. The results are the same
+ * whatever the engine, maxDepth and verify are the ones of the engine.
  */
 public class EventCounter {
-    private RBTree rbTree;
+    private final CounterEngine engine;
+
     public EventCounter(){
-        rbTree = new RBTree();
+        this(new RBTreeEngine());
+    }
+
+    /**
+     * Creates an event counter on a red black tree caching the nodes of up to cacheCapacity recently used ids
+     * @param cacheCapacity Capacity of the HotKeyCache, 0 for no cache
+     */
+    public EventCounter(int cacheCapacity){
+        this(new RBTreeEngine(cacheCapacity));
+    }
+
+    /**
+     * Creates an empty event counter on the engine
+     * @param engine Empty engine holding the events
+     */
+    public EventCounter(CounterEngine engine){
+        this.engine = engine;
+    }
+
+    /**
+     * @return The engine holding the events
+     */
+    public CounterEngine getEngine(){
+        return engine;
+    }
+
+    /**
+     * @return The cache of the nodes of recently used ids, null if the engine has none
+     */
+    public HotKeyCache getCache(){
+        return engine.cache();
     }
 
     /**
@@ -30,191 +71,250 @@ public class EventCounter {
      * @throws IOException, when read error occurs
      */
     public void initialize(BufferedReader reader, int size)throws IOException{
-        rbTree.initialize(reader, size);
+        engine.load(new LineKeyValueSource(reader), size);
     }
 
     /**
-     * Increase the count value of id by given count, if it is present otherwise insert and print
-     * the current value of count and print the current count value of the event for the given Id.
+     * Initialize the event counter, by reading the eventId and count pairs from the source
+     * Complexity: O(n)
+     * @param source Source of the input key-value pairs
+     * @param size Number of key value pairs
+     * @throws IOException, when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size)throws IOException{
+        engine.load(source, size);
+    }
+
+    /**
+     * Initialize the event counter from sorted arrays of eventIds and counts, the red black tree is built in parallel
+     * Complexity: O(n)
+     * @param ids Event ids sorted in increasing order
+     * @param counts counts[i] is the count of ids[i]
+     */
+    public void initialize(int[] ids, int[] counts){
+        engine.bulkLoad(ids, counts);
+    }
+
+    /**
+     * Increase the count value of id by given count, if it is present otherwise insert it with the given count
      * @param id Id of the event
      * @param count The value by which the counter needs to be incremented.
+     * @return The count of the event after the increase
      */
-    public void increase(int id, int count){
-        RBNode rbNode;
-        try{
-            rbNode = rbTree.insert(id, count);
-        } catch (DuplicateKeyException e){
-            //If the exception is thrown that means that there is already a node with the given key
-            //we increase the value by count for the node.
-            rbNode = e.getDuplicate();
-            rbNode.setValue(count + rbNode.getValue());
-        }
-        System.out.println(rbNode.getValue());
+    public int increase(int id, int count){
+        return engine.addTo(id, count);
     }
 
     /**
-     * Reduce the counter of given Id by count and print the current value, if the count reduces to <=0 remove the
-     * event with id from red black tree. If the node is removed print 0.
+     * Increase the counts of a batch of ids, like increase for each id. The red black tree applies the ids in one
+     * pass (see RBTree.mergeAll) instead of one search from the root per id.
+     * @param ids Ids of the events sorted in increasing order without duplicates
+     * @param counts counts[i] is added to the count of ids[i]
+     */
+    public void increaseBatch(int[] ids, int[] counts){
+        engine.addAll(ids, counts);
+    }
+
+    /**
+     * Reduce the counter of given Id by count, if the count reduces to <=0 remove the event with id from red black tree.
      * @param id Id of the event
      * @param count The value by which the counter needs to be decreased
+     * @return The count of the event after the reduction, 0 if the event was removed or not present
      */
-    public void reduce(int id, int count){
-        RBNode rbNode = rbTree.findNode(id);
-        if(rbNode.isInternalNode()) {
-            int newCount = rbNode.getValue() - count;
-            if(newCount <= 0){
-                //If the node value is less than or equal to zero delete it from tree
-                rbTree.delete(rbNode);
-                System.out.println("0");
-            } else {
-                rbNode.setValue(newCount);
-                System.out.println(newCount);
-            }
-        } else {
-            //Node not found
-            System.out.println("0");
-        }
+    public int reduce(int id, int count){
+        return engine.subtractOrRemove(id, count);
+    }
+
+    /**
+     * Returns whether the red black properties are satisfied
+     * @return true if all the properties of the red black tree (or the invariants of the engine) hold, otherwise false
+     */
+    public boolean verify(){
+        return engine.verify();
     }
 
     /**
-     * Prints whether the red black properties are satisfied and also prints the maxDepth of tree
+     * Returns the maxDepth of the tree
+     * @return The number of nodes in the longest path from the root to a leaf
      */
-    public void verify(){
-        System.out.println(rbTree.verifyRBProperties() + " " + rbTree.maxDepth());
+    public int maxDepth(){
+        return engine.maxDepth();
     }
 
     /**
-     * Print the count of the given Id, if the event with given id is not found print 0
+     * Returns the count of the given Id
      * @param id Id of the given event
+     * @return The count of the event, 0 if the event with given id is not found
      */
-    public void count(int id){
-        RBNode rbNode = rbTree.findNode(id);
-        if(rbNode.isInternalNode()) {
-            System.out.println(rbNode.getValue());
-        } else {
-            //Node not found
-            System.out.println("0");
-        }
+    public int count(int id){
+        return engine.get(id);
     }
 
     /**
-     * Print the sum of count values of all the ids which are in range [id1, id2] (inclusive)
+     * Returns the sum of count values of all the ids which are in range [id1, id2] (inclusive)
+     * Complexity = O(lg (n)), using the subtree sums kept in the red black tree
      * @param id1 Id1
      * @param id2 Id2
+     * @return Sum of the counts in range [id1, id2]
      */
-    public void inrange(int id1, int id2){
-        System.out.println(inrange(id1, id2, rbTree.getRoot()));
+    public long inrange(int id1, int id2){
+        return engine.inrange(id1, id2);
     }
 
     /**
-     * Recursive function to find out sum of count values of all the ids which are in range [id1, id2] (inclusive)
-     * Complexity = O(lg (n) +s) where s is the number of nodes between id1 and id2
+     * Returns the aggregate of the events with ids in range [id1, id2] (inclusive), e.g. RangeReducer.MAX for the
+     * greatest count in the range. Large ranges of reducers other than sum and count are aggregated in parallel,
+     * see RBTree.reduce
+     * Complexity = O(lg (n) + k) for k events in the range, O(lg (n)) for sum and count
      * @param id1 Id1
      * @param id2 Id2
-     * @param node Root of the subtree
-     * @return Sum of count values of ids in range [id1, id2] of sub-tree rooted at node
-     */
-    private long inrange(int id1, int id2, RBNode node){
-        if(node.isExternalNode())
-            return 0;
-        long count=0;
-        //If the node.key > id1, that means that left child may contain nodes with id > id1
-        if(node.getKey() > id1)
-            count += inrange(id1,id2,node.getLeftChild());
-        if(id1 <= node.getKey() && node.getKey() <= id2) {
-            count += node.getValue();
-        }
-        //If the node.key < id2, that means that right child may contain nodes with id < id2
-        if(node.getKey() < id2)
-            count += inrange(id1,id2,node.getRightChild());
-
-        //Even though this recursion may appear to be O(n) {T(n) = 2T(n) + O(1)}, it is not O(n)
-        //As for most of the cases either one of the top or bottom if conditions fail.
-        return count;
-
+     * @param reducer Aggregate of the counts to compute
+     * @return Aggregate of the range
+     */
+    public long aggregate(int id1, int id2, RangeReducer reducer){
+        return engine.reduce(id1, id2, reducer);
     }
 
     /**
-     * Prints the Id and count of the event such that Id of the event is greater than the given id and least of all such Ids
-     * Prints 0 0, if no such event is found
+     * Returns the event such that Id of the event is greater than the given id and least of all such Ids
      * Complexity = O(lg (n))
      * @param id Id for which we need to next
+     * @return The next event, null if no such event is found
      */
-    public void next(int id){
-        RBNode minNode;
-        if(rbTree.getRoot().isInternalNode()) {
-            minNode = next(id, rbTree.getRoot().getKey() > id ? rbTree.getRoot() : null, rbTree.getRoot());
-            if(minNode!= null && minNode.isInternalNode()) {
-                System.out.println(minNode.getKey() + " " + minNode.getValue());
-                return;
-            }
-        }System.out.println("0 0");
+    public Event next(int id){
+        return engine.next(id);
     }
 
     /**
-     * Return the RBNode such that key of the node is the least and greater than the id
+     * Returns the event such that Id of the event is lesser than the given id and greatest of all such Ids
      * Complexity = O(lg (n))
-     * @param id Id for which we need to find next
-     * @param currMinNode Current minimum Node
-     * @param node Root of the subtree where we want to find the minNode
-     * @return The RBNode such that key of the node is the least and greater than the id, null if no such RBNode exists
-     */
-    private RBNode next(int id, RBNode currMinNode, RBNode node){
-        //If we have reached the leaf or external node return
-        if(node.isExternalNode())
-            return currMinNode;
-        if(node.getKey()>id){
-            //update the currMinNode if the node.key is less than currMinNode.key
-            if(currMinNode == null)
-                currMinNode = node;
-            else if(node.getKey() < currMinNode.getKey())
-                currMinNode = node;
+     * @param id Id for which we need to find previous
+     * @return The previous event, null if no such event is found
+     */
+    public Event previous(int id){
+        return engine.previous(id);
+    }
+
+    /**
+     * Returns the events with ids in range [id1, id2] (inclusive) in increasing order of ids.
+     * The first event is found with one descent and the rest by following the tree, so the stream costs
+     * O(lg (n) + k) for k events instead of one next call per event. A parallel stream splits the range by rank.
+     * The counter must not be modified while the stream is consumed.
+     * @param id1 Id1
+     * @param id2 Id2
+     * @return Stream of the events in range [id1, id2]
+     */
+    public Stream<Event> events(int id1, int id2){
+        return engine.events(id1, id2);
+    }
+
+    /**
+     * Returns the ids of the events in range [id1, id2] (inclusive) in increasing order, see events(int, int)
+     * @param id1 Id1
+     * @param id2 Id2
+     * @return Stream of the ids in range [id1, id2]
+     */
+    public IntStream ids(int id1, int id2){
+        return engine.keys(id1, id2);
+    }
+
+    /**
+     * Returns the number of events
+     * @return Number of events in the counter
+     */
+    public int size(){
+        return engine.size();
+    }
+
+    /**
+     * Returns the rotations and color fixing steps of the red black tree, see RBTree.statistics
+     * @return The counters of the tree, null if the engine does not keep the events in a red black tree
+     */
+    public RBTree.Statistics statistics(){
+        return engine.statistics();
+    }
+
+    /**
+     * Writes all events sorted by id to a snapshot file, in the binary input format for a .bin file and in the text
+     * input format otherwise, so that the counter can be initialized from it again (see SnapshotWriter)
+     * Complexity: O(n)
+     * @param path Path of the snapshot file
+     * @return Number of events written
+     * @throws IOException when write error occurs
+     */
+    public int snapshot(Path path) throws IOException {
+        return snapshot(path, 0);
+    }
+
+    /**
+     * Writes a snapshot like snapshot(Path) which ends with the mark of the operation log it covers (see SnapshotMark)
+     * @param path Path of the snapshot file
+     * @param mark Number of logged operations the counter holds
+     * @return Number of events written
+     * @throws IOException when write error occurs
+     */
+    protected int snapshot(Path path, long mark) throws IOException {
+        int size = size();
+        try (SnapshotWriter writer = SnapshotWriter.create(path, size, mark)) {
+            writeEvents(writer);
         }
-        if(id < node.getKey()) //We only go the left if id is strictly less than node.key because we want to find node.key > id
-            return next(id,currMinNode,node.getLeftChild());
-        else return next(id,currMinNode,node.getRightChild());
+        return size;
+    }
 
+    /**
+     * Writes a snapshot like snapshot(Path) in a background thread. The events are first copied into arrays, which
+     * is a consistent copy of the counter at the time of the call, so the counter can be changed while the copy is
+     * being written.
+     * Complexity: O(n) before returning, the writing runs in the background
+     * @param path Path of the snapshot file
+     * @return Future completed with the number of events once the snapshot is on the disk
+     */
+    public CompletableFuture<Integer> snapshotInBackground(Path path){
+        return snapshotInBackground(path, 0);
     }
 
     /**
-     * Prints the Id and count of the event such that Id of the event is lesser than the given id and greatest of all such Ids
-     * Prints 0 0, if no such event is found
-     * Complexity = O(lg (n))
-     * @param id Id for which we need to find previous
+     * Writes a snapshot like snapshotInBackground(Path) which ends with the mark of the operation log it covers
+     * @param path Path of the snapshot file
+     * @param mark Number of logged operations the counter holds
+     * @return Future completed with the number of events once the snapshot is on the disk
      */
-    public void previous(int id){
-        RBNode maxNode;
-        if(rbTree.getRoot().isInternalNode()) {
-            maxNode = previous(id, rbTree.getRoot().getKey() < id ? rbTree.getRoot() : null, rbTree.getRoot());
-            if(maxNode!= null && maxNode.isInternalNode()) {
-                System.out.println(maxNode.getKey() + " " + maxNode.getValue());
+    protected CompletableFuture<Integer> snapshotInBackground(Path path, long mark){
+        int size = size();
+        int[] ids = new int[size];
+        int[] counts = new int[size];
+        engine.collect(ids, counts);
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread writer = new Thread(() -> {
+            try (SnapshotWriter snapshot = SnapshotWriter.create(path, size, mark)) {
+                snapshot.write(ids, counts, 0, size);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
                 return;
             }
-        }System.out.println("0 0");
+            future.complete(size);
+        }, "snapshot-writer");
+        writer.start();
+        return future;
     }
 
-
     /**
-     * Return the RBNode such that key of the node is the greatest and lesser than the id
-     * Complexity = O(lg (n))
-     * @param id Id for which we need to find next
-     * @param currMaxNode Current maximum Node
-     * @param node Root of the subtree where we want to find the minNode
-     * @return The RBNode such that key of the node is the greatest and lesser than the id, null if no such RBNode exists
-     */
-    private RBNode previous(int id, RBNode currMaxNode, RBNode node){
-        if(node.isExternalNode())
-            return currMaxNode;
-        if(node.getKey()<id){
-            if(currMaxNode == null)
-                currMaxNode = node;
-            else if(node.getKey() > currMaxNode.getKey())
-                currMaxNode = node;
+     * Writes all events sorted by id to the snapshot
+     * @param writer Snapshot writer
+     * @throws IOException when write error occurs
+     */
+    private void writeEvents(SnapshotWriter writer) throws IOException {
+        try {
+            engine.scan(Integer.MIN_VALUE, Integer.MAX_VALUE, (id, count) -> {
+                try {
+                    writer.write(id, count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        if(id > node.getKey())
-            return previous(id,currMaxNode,node.getRightChild());
-        else return previous(id,currMaxNode,node.getLeftChild());
-
     }
 
-}
+}
\ No newline at end of file
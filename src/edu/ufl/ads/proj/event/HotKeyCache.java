@@ -0,0 +1,252 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.rbtree.RBNode;
+
+import java.util.Arrays;
+
+/**
+ * Small cache of the nodes of recently used ids, which lets EventCounter skip the descent of the red black tree for
+ * the few ids receiving most of the operations.
+ * The ids are kept in an int array with open addressing: an id is looked for in the WINDOW slots of the window its
+ * hash selects, which share a cache line, so a slot can be emptied without breaking the probe sequence of other ids.
+ * A miss compares the id with all the slots of its window, the window is small because a miss comes before a
+ * descent of the tree and must add little to it. When the window of a new id is full
+ * one of its ids is evicted with the CLOCK policy: a hit marks the slot referenced, the eviction clears the marks
+ * from a rotating start in the window until it finds a slot which was not referenced since the last sweep.
+ * Only one miss out of ADMISSION is admitted into the cache. An id used often is admitted after a few misses, while
+ * ids used once rarely evict it, and the misses of a workload without hot ids seldom pay for storing a node.
+ * The hit rate is measured over epochs of EPOCH probes. While it is below 1 / MIN_HIT_RATIO the cache is bypassed:
+ * skip() lets one lookup out of SAMPLE probe the cache and the others go straight to the tree as if there was no
+ * cache, so a workload without hot ids pays one counter and branch per lookup, and the sampled probes notice when hot
+ * ids come back. A skipped lookup may change a cached id, which is fine as the node stays the same, but the counter
+ * must remove every id it deletes, and put replaces the node of an id which is already cached.
+ * A node stays in the tree with the same key until it is deleted, the counter removes the ids it deletes and clears
+ * the cache when it builds the tree again. Not thread safe, like EventCounter.
+ */
+public class HotKeyCache {
+    /**
+     * Number of slots an id can be stored in
+     */
+    private static final int WINDOW = 4;
+    /**
+     * One miss out of ADMISSION is admitted, a power of two
+     */
+    private static final int ADMISSION = 8;
+    /**
+     * Number of probes over which the hit rate is measured
+     */
+    private static final int EPOCH = 1 << 12;
+    /**
+     * The cache is bypassed while less than one probe out of MIN_HIT_RATIO hits
+     */
+    private static final int MIN_HIT_RATIO = 8;
+    /**
+     * One lookup out of SAMPLE probes the bypassed cache, a power of two
+     */
+    private static final int SAMPLE = 16;
+
+    private final int[] keys;
+    private final RBNode[] nodes;
+    private final boolean[] referenced;
+    private final int mask;
+    private int hand;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long bypasses;
+    private boolean bypass;
+    private int epochProbes;
+    private int epochHits;
+
+    /**
+     * @param capacity Maximum number of ids, rounded up to a power of two of at least WINDOW
+     */
+    public HotKeyCache(int capacity){
+        if(capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Cache capacity out of range: " + capacity);
+        int slots = Math.max(WINDOW, Integer.highestOneBit(capacity - 1) << 1);
+        keys = new int[slots];
+        nodes = new RBNode[slots];
+        referenced = new boolean[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Tells whether a lookup skips the cache, which it does while the cache is bypassed unless it is one of the
+     * samples. A lookup which does not skip the cache calls get.
+     * Complexity = O(1)
+     * @return true if the lookup must go to the tree without probing the cache
+     */
+    public boolean skip(){
+        return bypass && (++bypasses & (SAMPLE - 1)) != 0;
+    }
+
+    /**
+     * Returns the cached node of the id and marks it referenced
+     * Complexity = O(1)
+     * @param key Id
+     * @return The node of the id, null if the id is not cached
+     */
+    public RBNode get(int key){
+        if(++epochProbes == EPOCH)
+            endEpoch();
+        int home = home(key);
+        for(int i = 0; i < WINDOW; i++){
+            int slot = home + i;
+            if(keys[slot] == key && nodes[slot] != null){
+                if(!referenced[slot])
+                    referenced[slot] = true;
+                hits++;
+                epochHits++;
+                return nodes[slot];
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Offers the node of an id after get returned null for it, the node is cached for one miss out of ADMISSION
+     * Complexity = O(1)
+     * @param key Id
+     * @param node Node of the id in the tree
+     */
+    public void offer(int key, RBNode node){
+        if((misses & (ADMISSION - 1)) == 0)
+            put(key, node);
+    }
+
+    /**
+     * Caches the node of an id, evicting an id of the window when it is full
+     * Complexity = O(1)
+     * @param key Id
+     * @param node Node of the id in the tree
+     */
+    public void put(int key, RBNode node){
+        int home = home(key);
+        int empty = -1;
+        for(int i = 0; i < WINDOW; i++){
+            int slot = home + i;
+            if(nodes[slot] == null){
+                if(empty < 0)
+                    empty = slot;
+            } else if(keys[slot] == key){
+                nodes[slot] = node;
+                return;
+            }
+        }
+        if(empty >= 0){
+            store(empty, key, node);
+            size++;
+            return;
+        }
+        //Every slot is found unreferenced within two sweeps of the window
+        int start = hand++;
+        for(int i = 0; ; i++){
+            int slot = home + ((start + i) & (WINDOW - 1));
+            if(referenced[slot])
+                referenced[slot] = false;
+            else {
+                store(slot, key, node);
+                evictions++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the id, when its node is deleted from the tree
+     * Complexity = O(1)
+     * @param key Id
+     */
+    public void remove(int key){
+        int home = home(key);
+        for(int i = 0; i < WINDOW; i++){
+            int slot = home + i;
+            if(keys[slot] == key && nodes[slot] != null){
+                nodes[slot] = null;
+                size--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all ids, when the tree is built again. The hit, miss and eviction counts are kept.
+     */
+    public void clear(){
+        Arrays.fill(nodes, null);
+        Arrays.fill(referenced, false);
+        size = 0;
+    }
+
+    /**
+     * @return Number of cached ids
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return Maximum number of cached ids
+     */
+    public int capacity(){
+        return nodes.length;
+    }
+
+    /**
+     * @return true while the hit rate is too low for the cache to pay off
+     */
+    public boolean isBypassed(){
+        return bypass;
+    }
+
+    /**
+     * @return Number of lookups which found the id
+     */
+    public long hits(){
+        return hits;
+    }
+
+    /**
+     * @return Number of lookups which probed the cache and did not find the id
+     */
+    public long misses(){
+        return misses;
+    }
+
+    /**
+     * @return Number of ids evicted to make room for another
+     */
+    public long evictions(){
+        return evictions;
+    }
+
+    /**
+     * @return Number of lookups which skipped the cache, or probed it as a sample, while it was bypassed
+     */
+    public long bypasses(){
+        return bypasses;
+    }
+
+    private void endEpoch(){
+        bypass = epochHits * MIN_HIT_RATIO < EPOCH;
+        epochProbes = 0;
+        epochHits = 0;
+    }
+
+    private void store(int slot, int key, RBNode node){
+        keys[slot] = key;
+        nodes[slot] = node;
+        referenced[slot] = false;
+    }
+
+    /**
+     * @return First slot of the window of the id, a multiple of WINDOW
+     */
+    private int home(int key){
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask & -WINDOW;
+    }
+}
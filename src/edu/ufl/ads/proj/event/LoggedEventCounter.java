@@ -0,0 +1,209 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+import edu.ufl.ads.proj.event.engine.RBTreeEngine;
+import edu.ufl.ads.proj.rbtree.io.SnapshotMark;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * EventCounter which records every increase and reduce in an OperationLog, so that the changes made since the
+ * counter was initialized survive a crash. To recover, the counter is initialized from the same input again (or from
+ * the latest snapshot, see below) and recover(Path) replays the log on top of it.
+ * The records are group committed: they are only written (and forced, see OperationLog.Sync) by commit(), which
+ * committing(OutputStream) calls before any result reaches the output, so that no result is seen before the
+ * operation which produced it is in the log.
+ * A snapshot compacts the log: once the snapshot is on the disk the records of the operations it contains are dropped,
+ * so a restart initializes the counter from the latest snapshot and replays only the operations which followed it.
+ * The snapshot ends with the mark of the log it covers, so a crash after the snapshot was moved in place but before
+ * the log was compacted does not apply these operations twice: recovery skips the records before the mark.
+ */
+public class LoggedEventCounter extends EventCounter implements Closeable {
+    private final OperationLog log;
+    /**
+     * Snapshot being written in the background and the length of the log it covers
+     */
+    private CompletableFuture<Integer> pendingSnapshot;
+    private long pendingMark;
+
+    /**
+     * Opens the log, recover(Path) must be called once the counter is initialized
+     * @param path Path of the log file
+     * @param sync When the records are forced to the disk
+     * @throws IOException when the log can not be opened
+     */
+    public LoggedEventCounter(Path path, OperationLog.Sync sync) throws IOException {
+        this(path, sync, new RBTreeEngine());
+    }
+
+    /**
+     * Opens the log like LoggedEventCounter(Path, Sync) for a counter on the given engine, see EventCounter(CounterEngine)
+     * @param path Path of the log file
+     * @param sync When the records are forced to the disk
+     * @param engine Empty engine holding the events
+     * @throws IOException when the log can not be opened
+     */
+    public LoggedEventCounter(Path path, OperationLog.Sync sync, CounterEngine engine) throws IOException {
+        super(engine);
+        log = OperationLog.open(path, sync);
+    }
+
+    /**
+     * Replays the operations of the log on a counter initialized from input which holds none of them, the initial
+     * input or arrays, after which the new operations are appended
+     * Complexity: O(m lg (n)) for m operations in the log
+     * @return Number of operations replayed
+     * @throws IOException when the log can not be read, or was compacted by a snapshot
+     */
+    public long recover() throws IOException {
+        return recover(0);
+    }
+
+    /**
+     * Replays the operations of the log which are not in the input the counter was initialized from, that is the
+     * operations after the mark of a snapshot (see SnapshotMark) or all of them for any other input
+     * Complexity: O(m lg (n)) for m operations in the log
+     * @param input File the counter was initialized from
+     * @return Number of operations replayed
+     * @throws IOException when the input or the log can not be read, or the log was compacted past the input
+     */
+    public long recover(Path input) throws IOException {
+        return recover(SnapshotMark.read(input));
+    }
+
+    private long recover(long mark) throws IOException {
+        return log.replay((operation, id, count) -> {
+            if(operation == OperationLog.INCREASE)
+                super.increase(id, count);
+            else super.reduce(id, count);
+        }, mark);
+    }
+
+    @Override
+    public int increase(int id, int count){
+        int result = super.increase(id, count);
+        append(OperationLog.INCREASE, id, count);
+        return result;
+    }
+
+    /**
+     * The batch is logged as one increase per id
+     */
+    @Override
+    public void increaseBatch(int[] ids, int[] counts){
+        super.increaseBatch(ids, counts);
+        for(int i = 0; i < ids.length; i++)
+            append(OperationLog.INCREASE, ids[i], counts[i]);
+    }
+
+    @Override
+    public int reduce(int id, int count){
+        int result = super.reduce(id, count);
+        append(OperationLog.REDUCE, id, count);
+        return result;
+    }
+
+    private void append(byte operation, int id, int count){
+        try {
+            log.append(operation, id, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the operations logged since the last commit to the log file
+     * @throws IOException when write error occurs
+     */
+    public void commit() throws IOException {
+        log.commit();
+        compactIfWritten(false);
+    }
+
+    /**
+     * Writes the snapshot with the mark of the log and drops all records from the log
+     */
+    @Override
+    public int snapshot(Path path) throws IOException {
+        compactIfWritten(true);
+        long mark = log.mark();
+        int size = super.snapshot(path, mark);
+        log.compact(mark);
+        return size;
+    }
+
+    /**
+     * The snapshot holds the mark of the log at the copy of the events. The records up to the mark are dropped from
+     * the log by the first commit after the snapshot is on the disk
+     */
+    @Override
+    public CompletableFuture<Integer> snapshotInBackground(Path path){
+        try {
+            compactIfWritten(true);
+            pendingMark = log.mark();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        pendingSnapshot = super.snapshotInBackground(path, pendingMark);
+        return pendingSnapshot;
+    }
+
+    /**
+     * Compacts the log up to the pending snapshot once it is written
+     * @param wait true to wait for the snapshot to be written
+     */
+    private void compactIfWritten(boolean wait) throws IOException {
+        if(pendingSnapshot == null || (!wait && !pendingSnapshot.isDone()))
+            return;
+        CompletableFuture<Integer> snapshot = pendingSnapshot;
+        pendingSnapshot = null;
+        try {
+            snapshot.join();
+        } catch (CompletionException e) {
+            //The snapshot failed, the log keeps the records
+            return;
+        }
+        log.compact(pendingMark);
+    }
+
+    /**
+     * Returns a stream which commits the log before anything is written to out
+     * @param out Stream receiving the results of the operations
+     * @return Committing stream
+     */
+    public OutputStream committing(OutputStream out){
+        return new FilterOutputStream(out){
+            @Override
+            public void write(int b) throws IOException {
+                commit();
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                commit();
+                out.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Commits the log and closes it
+     * @throws IOException when write error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            compactIfWritten(true);
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package edu.ufl.ads.proj.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the operations which changed an EventCounter, used to recover the changes after a crash.
+ * The file starts with a 16 byte header (magic number, version and base) followed by fixed size records:
+ * the operation (1 byte), the id and the count (little endian ints) and the CRC32 of these 9 bytes.
+ * Records are numbered from the first operation ever logged, the base is the number of the first record in the file,
+ * i.e. the number of records dropped by compaction. A snapshot stores the number of the first record it does not
+ * hold (see mark()), so replaying the log on top of a snapshot skips the records it already holds even when the log
+ * was not compacted yet. The 8 byte header of version 1 logs (without the base) is still read.
+ * Records are appended to a buffer and written out by commit(), so that a group of operations costs one write and,
+ * depending on the Sync policy, one fsync. A crash can leave a torn record at the end of the file, replay() stops at
+ * the first record whose checksum does not match and cuts the file there.
+ */
+public class OperationLog implements Closeable {
+    /**
+     * When the committed records are forced to the disk
+     */
+    public enum Sync {
+        /**
+         * commit() only writes the records to the file, they survive a crash of the process but not of the system
+         */
+        NONE,
+        /**
+         * commit() writes the records and forces them to the disk, one fsync per group of records
+         */
+        GROUP,
+        /**
+         * Every record is written and forced to the disk as it is appended
+         */
+        ALWAYS
+    }
+
+    public static final byte INCREASE = 1;
+    public static final byte REDUCE = 2;
+
+    private static final int MAGIC = 0x45564C47;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    /**
+     * Header of a version 1 log, which has no base
+     */
+    private static final int HEADER_SIZE_V1 = 8;
+    static final int RECORD_SIZE = 13;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Receives the operations read by replay()
+     */
+    public interface Operation {
+        void apply(byte operation, int id, int count);
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private final Sync sync;
+    /**
+     * Position of the first record in the file and the number of this record
+     */
+    private long start;
+    private long base;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE - BUFFER_SIZE % RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private boolean replayed;
+
+    private OperationLog(Path path, FileChannel channel, Sync sync, long start, long base){
+        this.path = path;
+        this.channel = channel;
+        this.sync = sync;
+        this.start = start;
+        this.base = base;
+    }
+
+    /**
+     * Opens the log file, creating it with its header if it does not exist.
+     * replay() must be called before the first append, to read the existing records and find the end of the log.
+     * @param path Path of the log file
+     * @param sync When the records are forced to the disk
+     * @return The opened log
+     * @throws IOException when the file can not be opened or is not an operation log
+     */
+    public static OperationLog open(Path path, Sync sync) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long start = HEADER_SIZE;
+        long base = 0;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+            header.flip();
+            //A new log, or one whose creation was cut short by a crash, holds no records
+            if(header.remaining() < HEADER_SIZE_V1 || (header.getInt(4) == VERSION && header.remaining() < HEADER_SIZE)){
+                channel.truncate(0);
+                writeHeader(channel, 0);
+                channel.force(true);
+            } else if(header.getInt(0) != MAGIC)
+                throw new IOException("Not an operation log: " + path);
+            else if(header.getInt(4) == 1)
+                start = HEADER_SIZE_V1;
+            else if(header.getInt(4) == VERSION)
+                base = header.getLong(8);
+            else throw new IOException("Unknown version of operation log: " + path);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new OperationLog(path, channel, sync, start, base);
+    }
+
+    private static void writeHeader(FileChannel channel, long base) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(base).flip();
+        while(header.hasRemaining())
+            channel.write(header, header.position());
+    }
+
+    /**
+     * Reads all the records of the log in order and passes them to the given operation, like replay(Operation, long)
+     * for a counter which holds none of the logged operations
+     * @param operation Receiver of the records
+     * @return Number of records passed to the operation
+     * @throws IOException when read error occurs or the log was compacted
+     */
+    public long replay(Operation operation) throws IOException {
+        return replay(operation, 0);
+    }
+
+    /**
+     * Reads the records of the log in order and passes the ones from the given mark on to the operation. The log is
+     * cut after the last valid record, where the following appends go.
+     * @param operation Receiver of the records
+     * @param mark Number of operations the counter already holds, the mark of the snapshot it was initialized from
+     * @return Number of records passed to the operation
+     * @throws IOException when read error occurs, or the log was compacted past the mark so that the records between
+     * the mark and the start of the log are lost
+     */
+    public long replay(Operation operation, long mark) throws IOException {
+        if(mark < base)
+            throw new IOException("Operation log " + path + " starts at operation " + base + ", after the "
+                    + mark + " operations of the snapshot");
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = start;
+        long number = base;
+        long records = 0;
+        boolean valid = true;
+        while(valid){
+            in.clear();
+            int read = 0;
+            while(in.hasRemaining() && (read = channel.read(in, position + in.position())) >= 0);
+            in.flip();
+            if(in.remaining() < RECORD_SIZE)
+                break;
+            while(in.remaining() >= RECORD_SIZE){
+                byte op = in.get(in.position());
+                int id = in.getInt(in.position() + 1);
+                int count = in.getInt(in.position() + 5);
+                crc.reset();
+                crc.update(in.slice(in.position(), 9));
+                if((int) crc.getValue() != in.getInt(in.position() + 9) || (op != INCREASE && op != REDUCE)){
+                    valid = false;
+                    break;
+                }
+                if(number >= mark){
+                    operation.apply(op, id, count);
+                    records++;
+                }
+                in.position(in.position() + RECORD_SIZE);
+                position += RECORD_SIZE;
+                number++;
+            }
+            if(read < 0)
+                break;
+        }
+        if(channel.size() > position){
+            //Drop the torn or corrupt tail, so that the next records follow the last valid one
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        replayed = true;
+        //The snapshot holds records which the log lost (only possible with Sync.NONE), the next records are
+        //numbered after the snapshot
+        if(number < mark)
+            compact(mark);
+        return records;
+    }
+
+    /**
+     * Appends a record to the log, it is durable once commit() returns (at once with Sync.ALWAYS)
+     * @param operation INCREASE or REDUCE
+     * @param id Id of the event
+     * @param count Count of the operation
+     * @throws IOException when write error occurs
+     */
+    public void append(byte operation, int id, int count) throws IOException {
+        if(!replayed)
+            throw new IllegalStateException("replay() must be called before appending");
+        if(buffer.remaining() < RECORD_SIZE)
+            write();
+        int start = buffer.position();
+        buffer.put(operation).putInt(id).putInt(count);
+        crc.reset();
+        crc.update(buffer.slice(start, 9));
+        buffer.putInt((int) crc.getValue());
+        if(sync == Sync.ALWAYS)
+            commit();
+    }
+
+    /**
+     * Writes the appended records to the file and forces them to the disk unless the policy is Sync.NONE
+     * @throws IOException when write error occurs
+     */
+    public void commit() throws IOException {
+        if(buffer.position() == 0)
+            return;
+        write();
+        if(sync != Sync.NONE)
+            channel.force(false);
+    }
+
+    /**
+     * Commits the appended records and returns the number of the next record, which marks the end of the operations
+     * applied so far. A snapshot of the counter stores the mark, see replay(Operation, long).
+     * @return Number of operations logged so far, including the ones dropped by compaction
+     * @throws IOException when write error occurs
+     */
+    public long mark() throws IOException {
+        commit();
+        return base + (channel.position() - start) / RECORD_SIZE;
+    }
+
+    /**
+     * Drops the records before the mark, once the operations up to the mark are in a snapshot.
+     * The records after the mark are copied to a new log file, whose base is the mark, which then replaces the log,
+     * so a crash keeps either the old or the new log. The directory is forced after the rename, so that the old log can not come back after
+     * a crash of the system once compact() returned.
+     * @param mark Number of operations returned by mark()
+     * @throws IOException when write error occurs
+     */
+    public void compact(long mark) throws IOException {
+        if(mark < base)
+            throw new IllegalArgumentException("Mark " + mark + " before the start of the log " + base);
+        commit();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(compacted, mark);
+            compacted.position(HEADER_SIZE);
+            long end = channel.position();
+            for(long position = Math.min(end, start + (mark - base) * RECORD_SIZE); position < end; )
+                position += channel.transferTo(position, end - position, compacted);
+            compacted.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(path);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        start = HEADER_SIZE;
+        base = mark;
+    }
+
+    /**
+     * Forces the directory holding the file to the disk, which makes a rename into it durable
+     * @param file File whose directory is forced
+     * @throws IOException when the directory can not be forced
+     */
+    private static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Commits the appended records and closes the log
+     * @throws IOException when write error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(replayed)
+                commit();
+        } finally {
+            channel.close();
+        }
+    }
+}
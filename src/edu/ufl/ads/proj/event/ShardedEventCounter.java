@@ -0,0 +1,580 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.rbtree.RBNode;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event counter whose id space is partitioned in ranges (shards), each having its own red black tree owned by a
+ * worker thread. No lock guards the trees: a thread uses the counter through a Producer, which has a single producer
+ * single consumer queue to the worker of every shard, and a tree is only read and changed by its worker. Updates of
+ * different shards run in parallel, and each tree is as deep as its part of the ids only.
+ * increase and reduce are queued without waiting for the worker and are published in batches of BATCH commands
+ * (or by flush), so a worker is woken up once per batch rather than once per command. The queries wait for the
+ * result of the worker and see the updates queued before them by the same producer.
+ * next and previous continue in the following or preceding shards when the shard of the id has no such event.
+ * inrange sends the range to the workers of all the shards it covers before waiting for any of them, and sums their
+ * results. Like ConcurrentEventCounter.inrange, a query over several shards is linearizable per shard.
+ * Unlike EventCounter the updates do not return the new count.
+ */
+public class ShardedEventCounter implements AutoCloseable {
+    /**
+     * Number of updates queued by a producer for a shard before they are published to its worker
+     */
+    private static final int BATCH = 64;
+    /**
+     * Number of commands a queue can hold, a power of two
+     */
+    private static final int QUEUE_CAPACITY = 1 << 12;
+    /**
+     * Number of times an idle worker or a waiting producer spins before parking, none on a single processor where
+     * the spinning thread only delays the one it waits for
+     */
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 8 : 0;
+
+    //Commands of the queues
+    private static final int INCREASE = 0;
+    private static final int REDUCE = 1;
+    private static final int COUNT = 2;
+    private static final int NEXT = 3;
+    private static final int PREVIOUS = 4;
+    private static final int INRANGE = 5;
+    private static final int SIZE = 6;
+    private static final int MAX_DEPTH = 7;
+    private static final int VERIFY = 8;
+
+    /**
+     * lowerBounds[i] is the least id of shard i, lowerBounds[0] is Integer.MIN_VALUE
+     */
+    private final int[] lowerBounds;
+    private final Shard[] shards;
+    private boolean started;
+
+    /**
+     * Creates an empty counter, whose shards split the non negative ids evenly. The worker threads are started by
+     * the first call of producer.
+     * @param shards Number of shards
+     */
+    public ShardedEventCounter(int shards){
+        if(shards < 1)
+            throw new IllegalArgumentException("Number of shards must be positive: " + shards);
+        lowerBounds = new int[shards];
+        lowerBounds[0] = Integer.MIN_VALUE;
+        for(int i = 1; i < shards; i++)
+            lowerBounds[i] = (int) ((long) Integer.MAX_VALUE * i / shards);
+        this.shards = new Shard[shards];
+        for(int i = 0; i < shards; i++)
+            this.shards[i] = new Shard(i);
+    }
+
+    /**
+     * Initialize the event counter, by reading the eventId and count pairs from the source, see
+     * initialize(int[], int[])
+     * @param source Source of the input key-value pairs
+     * @param size Number of key value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size) throws IOException {
+        int[] ids = new int[size];
+        int[] counts = new int[size];
+        for(int i = 0; i < size; i++){
+            source.read();
+            ids[i] = source.key();
+            counts[i] = source.value();
+        }
+        initialize(ids, counts);
+    }
+
+    /**
+     * Initialize the event counter from sorted arrays of eventIds and counts. The ids are split in equal parts, one
+     * for each shard, so the shards follow the distribution of the ids; with fewer ids than shards the bounds are
+     * kept. Must be called before the first producer.
+     * Complexity: O(n)
+     * @param ids Event ids sorted in increasing order
+     * @param counts counts[i] is the count of ids[i]
+     */
+    public synchronized void initialize(int[] ids, int[] counts){
+        if(started)
+            throw new IllegalStateException("Counter initialized after its workers started");
+        int n = shards.length;
+        if(ids.length >= n)
+            for(int i = 1; i < n; i++)
+                lowerBounds[i] = ids[(int) ((long) ids.length * i / n)];
+        int from = 0;
+        for(int i = 0; i < n; i++){
+            int to = ids.length;
+            if(i + 1 < n){
+                to = Arrays.binarySearch(ids, from, ids.length, lowerBounds[i + 1]);
+                if(to < 0)
+                    to = -to - 1;
+            }
+            shards[i].tree.initialize(Arrays.copyOfRange(ids, from, to), Arrays.copyOfRange(counts, from, to));
+            from = to;
+        }
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int getShards(){
+        return shards.length;
+    }
+
+    /**
+     * Creates a producer, through which one thread at a time uses the counter. Starts the workers on the first call.
+     * @return A new producer
+     */
+    public synchronized Producer producer(){
+        if(!started){
+            for(Shard shard : shards)
+                shard.start();
+            started = true;
+        }
+        return new Producer();
+    }
+
+    /**
+     * Stops the workers once they have applied the commands published to them, the producers must be closed first.
+     * When interrupted while waiting for a worker, returns without waiting for the remaining ones and keeps the
+     * interrupt status of the thread set; the workers still stop on their own.
+     */
+    @Override
+    public synchronized void close(){
+        if(!started)
+            return;
+        for(Shard shard : shards)
+            shard.running = false;
+        for(Shard shard : shards)
+            LockSupport.unpark(shard);
+        try {
+            for(Shard shard : shards)
+                shard.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the shard of the id
+     * @param id Id of an event
+     * @return Index of the last shard whose lower bound is <= id
+     */
+    private int shard(int id){
+        int i = Arrays.binarySearch(lowerBounds, id);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Handle of one thread on the counter, with one queue to every shard. A producer must not be used by two threads
+     * at the same time, and the updates it queued are only applied in order with the updates of other producers
+     * once they are published, by a query, by flush or when BATCH of them are queued for a shard.
+     */
+    public final class Producer implements AutoCloseable {
+        private final Channel[] channels = new Channel[shards.length];
+
+        private Producer(){
+            for(int i = 0; i < shards.length; i++){
+                channels[i] = new Channel();
+                shards[i].register(channels[i]);
+            }
+        }
+
+        /**
+         * Queues an increase of the count of id by given count, the event is inserted if it is not present
+         * @param id Id of the event
+         * @param count The value by which the counter needs to be incremented.
+         */
+        public void increase(int id, int count){
+            Channel channel = channels[shard(id)];
+            channel.put(INCREASE, id, count);
+            if(channel.unpublished() >= BATCH)
+                channel.publish();
+        }
+
+        /**
+         * Queues a reduction of the count of id by given count, the event is removed if its count drops to 0 or below
+         * @param id Id of the event
+         * @param count The value by which the counter needs to be decreased
+         */
+        public void reduce(int id, int count){
+            Channel channel = channels[shard(id)];
+            channel.put(REDUCE, id, count);
+            if(channel.unpublished() >= BATCH)
+                channel.publish();
+        }
+
+        /**
+         * Publishes the queued updates to the workers, without waiting for them to be applied
+         */
+        public void flush(){
+            for(Channel channel : channels)
+                channel.publish();
+        }
+
+        /**
+         * Returns the count of the given id
+         * @param id Id of the event
+         * @return The count of the event, 0 if it is not present
+         */
+        public int count(int id){
+            Channel channel = channels[shard(id)];
+            return (int) channel.await(channel.request(COUNT, id, 0));
+        }
+
+        /**
+         * Returns the event with the least id greater than the given id, from the shard of the id or the following ones
+         * @param id Id for which we need to find next
+         * @return The next event, null if there is no such event
+         */
+        public Event next(int id){
+            for(int i = shard(id); i < channels.length; i++){
+                Channel channel = channels[i];
+                channel.await(channel.request(NEXT, id, 0));
+                if(channel.found)
+                    return new Event(channel.foundId, (int) channel.result);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the event with the greatest id lesser than the given id, from the shard of the id or the preceding
+         * ones
+         * @param id Id for which we need to find previous
+         * @return The previous event, null if there is no such event
+         */
+        public Event previous(int id){
+            for(int i = shard(id); i >= 0; i--){
+                Channel channel = channels[i];
+                channel.await(channel.request(PREVIOUS, id, 0));
+                if(channel.found)
+                    return new Event(channel.foundId, (int) channel.result);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the sum of counts of all the ids in range [id1, id2] (inclusive). The shards covering the range sum
+         * their part in parallel.
+         * Complexity = O(lg (n)) per shard covering the range
+         * @param id1 Id1
+         * @param id2 Id2
+         * @return Sum of the counts in range [id1, id2]
+         */
+        public long inrange(int id1, int id2){
+            if(id1 > id2)
+                return 0;
+            int first = shard(id1);
+            int last = shard(id2);
+            //Every tree only holds the ids of its shard, so each worker is sent the whole range
+            for(int i = first; i <= last; i++)
+                channels[i].request(INRANGE, id1, id2);
+            long sum = 0;
+            for(int i = first; i <= last; i++)
+                sum += channels[i].await(channels[i].requests);
+            return sum;
+        }
+
+        /**
+         * @return Number of events in all the shards
+         */
+        public int size(){
+            long size = 0;
+            for(long result : all(SIZE))
+                size += result;
+            return (int) size;
+        }
+
+        /**
+         * @return Maximum depth of the trees of the shards
+         */
+        public int maxDepth(){
+            long depth = 0;
+            for(long result : all(MAX_DEPTH))
+                depth = Math.max(depth, result);
+            return (int) depth;
+        }
+
+        /**
+         * Verifies the red black properties of every shard and that every id is in the range of its shard
+         * @return true if all the properties hold, otherwise false
+         */
+        public boolean verify(){
+            for(long result : all(VERIFY))
+                if(result == 0)
+                    return false;
+            return true;
+        }
+
+        /**
+         * Publishes the queued updates, waits until the workers have applied them and removes the queues of the
+         * producer from the shards
+         */
+        @Override
+        public void close(){
+            all(SIZE);
+            for(int i = 0; i < shards.length; i++)
+                shards[i].unregister(channels[i]);
+        }
+
+        /**
+         * Sends a command to every shard and waits for all the results
+         */
+        private long[] all(int command){
+            for(Channel channel : channels)
+                channel.request(command, 0, 0);
+            long[] results = new long[channels.length];
+            for(int i = 0; i < channels.length; i++)
+                results[i] = channels[i].await(channels[i].requests);
+            return results;
+        }
+    }
+
+    /**
+     * Bounded single producer single consumer queue of commands from a producer to the worker of a shard, with the
+     * result of the last query of the producer. A command is COMMAND_INTS ints of a ring buffer. The producer writes
+     * commands after the published tail and makes them visible with one volatile write of the tail, the worker
+     * applies the commands up to the tail and frees them with one volatile write of the head.
+     */
+    private static final class Channel {
+        private static final int COMMAND_INTS = 3;
+
+        private final int[] commands = new int[QUEUE_CAPACITY * COMMAND_INTS];
+        //Written by the worker
+        private volatile long head;
+        private long result;
+        private int foundId;
+        private boolean found;
+        private volatile int replies;
+        //Written by the producer
+        private volatile long tail;
+        private long next;
+        private long cachedHead;
+        private int requests;
+        private volatile boolean waiting;
+        private Thread waiter;
+        /**
+         * Worker of the shard, set when the channel is registered
+         */
+        private Shard shard;
+
+        /**
+         * Writes a command after the last one, waiting for the worker while the queue is full
+         */
+        void put(int command, int a, int b){
+            if(next - cachedHead == QUEUE_CAPACITY){
+                publish();
+                while(next - (cachedHead = head) == QUEUE_CAPACITY)
+                    Thread.yield();
+            }
+            int i = (int) (next & (QUEUE_CAPACITY - 1)) * COMMAND_INTS;
+            commands[i] = command;
+            commands[i + 1] = a;
+            commands[i + 2] = b;
+            next++;
+        }
+
+        int unpublished(){
+            return (int) (next - tail);
+        }
+
+        /**
+         * Makes the written commands visible to the worker, waking it up if it sleeps
+         */
+        void publish(){
+            if(next != tail){
+                tail = next;
+                shard.wake();
+            }
+        }
+
+        /**
+         * Queues and publishes a query
+         * @return Number of replies the channel has once the query is answered
+         */
+        int request(int command, int a, int b){
+            put(command, a, b);
+            publish();
+            return ++requests;
+        }
+
+        /**
+         * Waits for a reply of the worker, spinning shortly before parking
+         * @return Result of the query
+         */
+        long await(int expected){
+            for(int spins = 0; replies != expected; spins++){
+                if(spins < SPINS)
+                    Thread.onSpinWait();
+                else {
+                    waiter = Thread.currentThread();
+                    waiting = true;
+                    //The worker reads waiting after writing replies, so one of the two sees the other
+                    if(replies != expected)
+                        LockSupport.park(this);
+                    waiting = false;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Answers the query being applied, called by the worker
+         */
+        void reply(long value, int id, boolean present){
+            result = value;
+            foundId = id;
+            found = present;
+            replies++;
+            if(waiting)
+                LockSupport.unpark(waiter);
+        }
+
+        void reply(long value){
+            reply(value, 0, false);
+        }
+    }
+
+    /**
+     * Worker thread owning the tree of a shard, applying the commands of the queues of all the producers
+     */
+    private final class Shard extends Thread {
+        private final int index;
+        private final RBTree tree = new RBTree();
+        /**
+         * Queues of the producers, replaced by a new array when a producer is created or closed
+         */
+        private volatile Channel[] channels = new Channel[0];
+        private volatile boolean running = true;
+        private volatile boolean sleeping;
+
+        Shard(int index){
+            super("shard-" + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        synchronized void register(Channel channel){
+            channel.shard = this;
+            Channel[] registered = Arrays.copyOf(channels, channels.length + 1);
+            registered[registered.length - 1] = channel;
+            channels = registered;
+        }
+
+        synchronized void unregister(Channel channel){
+            Channel[] registered = new Channel[channels.length - 1];
+            int n = 0;
+            for(Channel c : channels)
+                if(c != channel)
+                    registered[n++] = c;
+            channels = registered;
+        }
+
+        /**
+         * Wakes the worker up if it sleeps, called by a producer after publishing
+         */
+        void wake(){
+            if(sleeping)
+                LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run(){
+            int idle = 0;
+            while(running){
+                if(drain() > 0)
+                    idle = 0;
+                else if(++idle < SPINS)
+                    Thread.onSpinWait();
+                else {
+                    sleeping = true;
+                    //A producer reads sleeping after publishing, so either it wakes the worker or the worker sees
+                    //the commands
+                    if(running && !pending())
+                        LockSupport.park(this);
+                    sleeping = false;
+                    idle = 0;
+                }
+            }
+            drain();
+        }
+
+        /**
+         * Applies the published commands of all the queues
+         * @return Number of commands applied
+         */
+        private int drain(){
+            int applied = 0;
+            for(Channel channel : channels){
+                long head = channel.head;
+                long tail = channel.tail;
+                for(long i = head; i < tail; i++){
+                    int c = (int) (i & (QUEUE_CAPACITY - 1)) * Channel.COMMAND_INTS;
+                    apply(channel, channel.commands[c], channel.commands[c + 1], channel.commands[c + 2]);
+                }
+                if(tail != head){
+                    channel.head = tail;
+                    applied += (int) (tail - head);
+                }
+            }
+            return applied;
+        }
+
+        private boolean pending(){
+            for(Channel channel : channels)
+                if(channel.head != channel.tail)
+                    return true;
+            return false;
+        }
+
+        private void apply(Channel channel, int command, int a, int b){
+            switch(command){
+                case INCREASE:
+                    tree.addTo(a, b);
+                    break;
+                case REDUCE:
+                    tree.subtractOrRemove(a, b);
+                    break;
+                case COUNT: {
+                    RBNode node = tree.findNode(a);
+                    channel.reply(node.isInternalNode() ? node.getValue() : 0);
+                    break;
+                }
+                case NEXT:
+                case PREVIOUS: {
+                    RBNode node = command == NEXT ? tree.next(a) : tree.previous(a);
+                    if(node.isInternalNode())
+                        channel.reply(node.getValue(), node.getKey(), true);
+                    else channel.reply(0);
+                    break;
+                }
+                case INRANGE:
+                    channel.reply(tree.inrange(a, b));
+                    break;
+                case SIZE:
+                    channel.reply(tree.size());
+                    break;
+                case MAX_DEPTH:
+                    channel.reply(tree.maxDepth());
+                    break;
+                case VERIFY:
+                    channel.reply(verify() ? 1 : 0);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command: " + command);
+            }
+        }
+
+        private boolean verify(){
+            if(!tree.verifyRBProperties())
+                return false;
+            if(tree.size() == 0)
+                return true;
+            return tree.first().getKey() >= lowerBounds[index]
+                    && (index + 1 == lowerBounds.length || tree.last().getKey() < lowerBounds[index + 1]);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.ufl.ads.proj.event;
+
+import edu.ufl.ads.proj.event.engine.PersistentRBTreeEngine;
+import edu.ufl.ads.proj.rbtree.PersistentRBTree;
+import edu.ufl.ads.proj.rbtree.io.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event counter whose events are kept in a PersistentRBTreeEngine, so any number of threads can read the counter
+ * without locking while other threads change it (see PersistentRBTreeEngine).
+ * The range streams are views of one version, so unlike EventCounter the counter can be changed while they are
+ * consumed, and a snapshot writes one version as it is, without copying the events first.
+ */
+public class SnapshotEventCounter extends EventCounter {
+    private final PersistentRBTreeEngine engine;
+
+    public SnapshotEventCounter(){
+        this(new PersistentRBTreeEngine());
+    }
+
+    private SnapshotEventCounter(PersistentRBTreeEngine engine){
+        super(engine);
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the current version of the tree, a snapshot of the counter which can be read without locking
+     * @return Current version
+     */
+    public PersistentRBTree version(){
+        return engine.version();
+    }
+
+    /**
+     * The snapshot is written from one version, the counter can be changed meanwhile
+     */
+    @Override
+    public int snapshot(Path path) throws IOException {
+        return write(engine.version(), path);
+    }
+
+    /**
+     * The current version is written as it is by the background thread, there is no need to copy the events first
+     * Complexity: O(1) before returning, the writing runs in the background
+     */
+    @Override
+    public CompletableFuture<Integer> snapshotInBackground(Path path){
+        PersistentRBTree version = engine.version();
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread writer = new Thread(() -> {
+            try {
+                future.complete(write(version, path));
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, "snapshot-writer");
+        writer.start();
+        return future;
+    }
+
+    private static int write(PersistentRBTree version, Path path) throws IOException {
+        try (SnapshotWriter writer = SnapshotWriter.create(path, version.size())) {
+            PersistentRBTreeEngine.scan(version, Integer.MIN_VALUE, Integer.MAX_VALUE, (id, count) -> {
+                try {
+                    writer.write(id, count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return version.size();
+    }
+}
@@ -0,0 +1,16 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.rbtree.ArrayRBTree;
+
+/**
+ * CounterEngine on an ArrayRBTree, whose nodes are records in pages of int arrays instead of RBNode objects, for
+ * counters too large for the heap taken by the RBTree of RBTreeEngine. The arrays hold no references, so a
+ * collection does not trace the events. The tree keeps no subtree sums, inrange takes O(lg(n) + s) instead of
+ * the O(lg(n)) of RBTreeEngine.
+ */
+public class ArrayRBTreeEngine extends IndexedRBTreeEngine {
+
+    public ArrayRBTreeEngine(){
+        super(new ArrayRBTree());
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.bplustree.BPlusCursor;
+import edu.ufl.ads.proj.bplustree.BPlusTree;
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * CounterEngine on the BPlusTree, for large counters where the lookups are bound by cache misses. maxDepth is the
+ * height of the tree and verify checks the B+ tree properties.
+ */
+public class BPlusTreeEngine implements CounterEngine {
+    private final BPlusTree tree = new BPlusTree();
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        tree.bulkLoad(keys, values);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        return tree.addTo(key, delta);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        return tree.subtractOrRemove(key, delta);
+    }
+
+    @Override
+    public int get(int key){
+        return tree.get(key, 0);
+    }
+
+    @Override
+    public Event next(int key){
+        BPlusCursor cursor = tree.cursor();
+        return cursor.seekHigher(key) ? new Event(cursor.key(), cursor.value()) : null;
+    }
+
+    @Override
+    public Event previous(int key){
+        BPlusCursor cursor = tree.cursor();
+        return cursor.seekLower(key) ? new Event(cursor.key(), cursor.value()) : null;
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        return tree.inrange(key1, key2);
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        BPlusCursor cursor = tree.cursor();
+        for(boolean valid = cursor.seekCeiling(key1); valid && cursor.key() <= key2; valid = cursor.next())
+            visitor.visit(cursor.key(), cursor.value());
+    }
+
+    @Override
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        return tree.reduce(key1, key2, reducer);
+    }
+
+    /**
+     * The pairs are read from the linked leaves, the stream does not split
+     */
+    @Override
+    public Stream<Event> events(int key1, int key2){
+        BPlusCursor cursor = tree.cursor();
+        cursor.seekCeiling(key1);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Event>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL){
+            @Override
+            public boolean tryAdvance(Consumer<? super Event> action){
+                if(!cursor.isValid() || cursor.key() > key2)
+                    return false;
+                action.accept(new Event(cursor.key(), cursor.value()));
+                cursor.next();
+                return true;
+            }
+        }, false);
+    }
+
+    @Override
+    public IntStream keys(int key1, int key2){
+        return tree.keys(key1, key2);
+    }
+
+    @Override
+    public void collect(int[] keys, int[] values){
+        tree.collect(keys, values);
+    }
+
+    @Override
+    public int size(){
+        return tree.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return tree.height();
+    }
+
+    @Override
+    public boolean verify(){
+        return tree.verify();
+    }
+}
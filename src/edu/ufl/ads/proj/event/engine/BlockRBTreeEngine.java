@@ -0,0 +1,85 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.rbtree.BlockCursor;
+import edu.ufl.ads.proj.rbtree.BlockRBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+
+/**
+ * CounterEngine on the BlockRBTree, maxDepth counts the blocks on the longest path of the tree
+ */
+public class BlockRBTreeEngine implements CounterEngine {
+    private final BlockRBTree tree = new BlockRBTree();
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        tree.initialize(keys, values);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        return tree.addTo(key, delta);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        return tree.subtractOrRemove(key, delta);
+    }
+
+    @Override
+    public int get(int key){
+        return tree.get(key, 0);
+    }
+
+    @Override
+    public Event next(int key){
+        BlockCursor cursor = tree.cursor();
+        return cursor.seekHigher(key) ? new Event(cursor.key(), cursor.value()) : null;
+    }
+
+    @Override
+    public Event previous(int key){
+        BlockCursor cursor = tree.cursor();
+        return cursor.seekLower(key) ? new Event(cursor.key(), cursor.value()) : null;
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        return tree.inrange(key1, key2);
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        BlockCursor cursor = tree.cursor();
+        for(boolean valid = cursor.seekCeiling(key1); valid && cursor.key() <= key2; valid = cursor.next())
+            visitor.visit(cursor.key(), cursor.value());
+    }
+
+    /**
+     * The pairs of a block are reduced by a loop over its arrays
+     */
+    @Override
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        return tree.reduce(key1, key2, reducer);
+    }
+
+    @Override
+    public void collect(int[] keys, int[] values){
+        tree.collect(keys, values);
+    }
+
+    @Override
+    public int size(){
+        return tree.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return tree.maxDepth();
+    }
+
+    @Override
+    public boolean verify(){
+        return tree.verify();
+    }
+}
@@ -0,0 +1,234 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.HotKeyCache;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Ordered int to int map on which EventCounter keeps its events, so that the structure holding the events can
+ * be chosen per deployment (see bbst -engine) and benchmarked behind the same counter.
+ * The operations are the ones the counter needs: add to a value inserting the key, remove the key once its value
+ * is not positive, the strict neighbours of a key, the sum of a key range and the build from sorted arrays.
+ * The default methods build the other operations of the counter on these, an engine overrides them when its
+ * structure does better, e.g. RBTreeEngine reduces a range with the subtree aggregates of its tree.
+ * An engine is not thread safe unless it says so.
+ */
+public interface CounterEngine {
+
+    /**
+     * Receives the pairs of a scan in increasing order of keys
+     */
+    interface Visitor {
+        void visit(int key, int value);
+    }
+
+    /**
+     * Replaces the content of the engine with the sorted pairs
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param values values[i] is the value of keys[i]
+     */
+    void bulkLoad(int[] keys, int[] values);
+
+    /**
+     * Replaces the content of the engine with the sorted pairs read from the source, by default through arrays
+     * holding all of them, see bulkLoad
+     * @param source Source of the pairs sorted by key
+     * @param size Number of pairs
+     * @throws IOException when read error occurs
+     */
+    default void load(KeyValueSource source, int size) throws IOException {
+        int[] keys = new int[size];
+        int[] values = new int[size];
+        source.read(keys, values);
+        bulkLoad(keys, values);
+    }
+
+    /**
+     * Adds delta to the value of the key, inserting the key with value delta if it is not present
+     * @param key Key to be updated
+     * @param delta Amount added to the value
+     * @return The value of the key after the update
+     */
+    int addTo(int key, int delta);
+
+    /**
+     * Adds deltas[i] to the value of keys[i] for every i, by default with one addTo per key
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param deltas deltas[i] is added to the value of keys[i]
+     */
+    default void addAll(int[] keys, int[] deltas){
+        for(int i = 0; i < keys.length; i++)
+            addTo(keys[i], deltas[i]);
+    }
+
+    /**
+     * Subtracts delta from the value of the key, removing the key when the value drops to zero or below
+     * @param key Key to be updated
+     * @param delta Amount subtracted from the value
+     * @return The value of the key after the update, 0 if it was removed or not present
+     */
+    int subtractOrRemove(int key, int delta);
+
+    /**
+     * @param key Key to be searched
+     * @return Value of the key, 0 if it is not present
+     */
+    int get(int key);
+
+    /**
+     * @param key Key for which we need to find next
+     * @return The pair with the least key greater than the key, null if there is none
+     */
+    Event next(int key);
+
+    /**
+     * @param key Key for which we need to find previous
+     * @return The pair with the greatest key lesser than the key, null if there is none
+     */
+    Event previous(int key);
+
+    /**
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2] (inclusive)
+     */
+    long inrange(int key1, int key2);
+
+    /**
+     * Passes the pairs with keys in range [key1, key2] (inclusive) to the visitor in increasing order of keys
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param visitor Receiver of the pairs
+     */
+    void scan(int key1, int key2, Visitor visitor);
+
+    /**
+     * Returns the aggregate of the pairs with keys in range [key1, key2] (inclusive), by default inrange for the
+     * sum and a scan of the range for the other reducers
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param reducer Aggregate to compute
+     * @return Aggregate of the range
+     */
+    default long reduce(int key1, int key2, RangeReducer reducer){
+        if(reducer == RangeReducer.SUM)
+            return inrange(key1, key2);
+        long[] result = {reducer.identity()};
+        scan(key1, key2, (key, value) -> result[0] = reducer.accumulate(result[0], key, value));
+        return result[0];
+    }
+
+    /**
+     * Returns the pairs with keys in range [key1, key2] (inclusive) in increasing order of keys, by default
+     * collected with scan before the stream is consumed
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Stream of the pairs of the range
+     */
+    default Stream<Event> events(int key1, int key2){
+        Stream.Builder<Event> events = Stream.builder();
+        scan(key1, key2, (key, value) -> events.add(new Event(key, value)));
+        return events.build();
+    }
+
+    /**
+     * Returns the keys in range [key1, key2] (inclusive) in increasing order, see events
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Stream of the keys of the range
+     */
+    default IntStream keys(int key1, int key2){
+        IntStream.Builder keys = IntStream.builder();
+        scan(key1, key2, (key, value) -> keys.add(key));
+        return keys.build();
+    }
+
+    /**
+     * Copies all pairs in increasing order of keys into the arrays, by default with a scan of all keys
+     * @param keys Array receiving the keys, of length size()
+     * @param values Array receiving the values, of length size()
+     */
+    default void collect(int[] keys, int[] values){
+        int[] n = new int[1];
+        scan(Integer.MIN_VALUE, Integer.MAX_VALUE, (key, value) -> {
+            keys[n[0]] = key;
+            values[n[0]] = value;
+            n[0]++;
+        });
+    }
+
+    /**
+     * @return Number of pairs
+     */
+    int size();
+
+    /**
+     * @return The number of nodes on the longest path from the root to a leaf, 0 when the structure does not tell
+     */
+    int maxDepth();
+
+    /**
+     * @return true if the invariants of the structure hold
+     */
+    boolean verify();
+
+    /**
+     * @return The rotations and color fixing steps of the red black tree of the engine, null if it has none
+     */
+    default RBTree.Statistics statistics(){
+        return null;
+    }
+
+    /**
+     * @return The cache of the nodes of recently used keys, null if the engine has none
+     */
+    default HotKeyCache cache(){
+        return null;
+    }
+
+    /**
+     * Creates an empty engine by name: rbtree, arrayrbtree, generic, treemap, bplustree or blockrbtree
+     * @param name Name of the engine
+     * @return The new engine
+     * @throws IllegalArgumentException when there is no engine with the name
+     */
+    static CounterEngine create(String name){
+        return create(name, 0);
+    }
+
+    /**
+     * Creates an empty engine by name, see create(String). Only the rbtree engine has a HotKeyCache.
+     * @param name Name of the engine
+     * @param cacheCapacity Capacity of the HotKeyCache, 0 for no cache
+     * @return The new engine
+     * @throws IllegalArgumentException when there is no engine with the name, or a cache is asked for another engine
+     */
+    static CounterEngine create(String name, int cacheCapacity){
+        String engine = name.toLowerCase(Locale.ROOT);
+        if(cacheCapacity > 0 && !engine.equals("rbtree"))
+            throw new IllegalArgumentException("Engine without cache: " + name);
+        switch(engine){
+            case "rbtree":
+                return new RBTreeEngine(cacheCapacity);
+            case "arrayrbtree":
+                return new ArrayRBTreeEngine();
+            case "generic":
+                return new GenericRBTreeEngine();
+            case "treemap":
+                return new TreeMapEngine();
+            case "bplustree":
+                return new BPlusTreeEngine();
+            case "blockrbtree":
+                return new BlockRBTreeEngine();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+}
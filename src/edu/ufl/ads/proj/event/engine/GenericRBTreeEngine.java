@@ -0,0 +1,116 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.rbtree.generic.RBNode;
+import edu.ufl.ads.proj.rbtree.generic.RBTree;
+
+/**
+ * CounterEngine on the generic RBTree with boxed Integer keys and values.
+ * The generic tree keeps no size and no subtree sums, the size is counted here and inrange visits the keys of the
+ * range one by one.
+ */
+public class GenericRBTreeEngine implements CounterEngine {
+    private final RBTree<Integer, Integer> tree = RBTree.natural(Integer::valueOf, Integer::valueOf);
+    private int size;
+    /**
+     * Set by add, tells addTo that the key was present
+     */
+    private boolean merged;
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        Integer[] boxedKeys = new Integer[keys.length];
+        Integer[] boxedValues = new Integer[values.length];
+        for(int i = 0; i < keys.length; i++){
+            boxedKeys[i] = keys[i];
+            boxedValues[i] = values[i];
+        }
+        tree.initialize(boxedKeys, boxedValues);
+        size = keys.length;
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        merged = false;
+        RBNode<Integer, Integer> node = tree.merge(key, delta, this::add);
+        if(!merged)
+            size++;
+        return node.getValue();
+    }
+
+    /**
+     * Remapping of addTo, only called when the key is present
+     */
+    private Integer add(Integer value, Integer delta){
+        merged = true;
+        return value + delta;
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        RBNode<Integer, Integer> node = tree.findNode(key);
+        if(node.isExternalNode())
+            return 0;
+        int value = node.getValue() - delta;
+        if(value > 0){
+            node.setValue(value);
+            return value;
+        }
+        tree.delete(node);
+        size--;
+        return 0;
+    }
+
+    @Override
+    public int get(int key){
+        RBNode<Integer, Integer> node = tree.findNode(key);
+        return node.isInternalNode() ? node.getValue() : 0;
+    }
+
+    @Override
+    public Event next(int key){
+        return event(tree.next(key));
+    }
+
+    @Override
+    public Event previous(int key){
+        return event(tree.previous(key));
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        long[] sum = new long[1];
+        scan(key1, key2, (key, value) -> sum[0] += value);
+        return sum[0];
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        if(key1 > key2)
+            return;
+        RBNode<Integer, Integer> node = tree.findNode(key1);
+        if(node.isExternalNode())
+            node = tree.next(key1);
+        for(; node.isInternalNode() && node.getKey() <= key2; node = tree.successor(node))
+            visitor.visit(node.getKey(), node.getValue());
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public int maxDepth(){
+        return tree.maxDepth();
+    }
+
+    @Override
+    public boolean verify(){
+        return tree.verifyRBProperties();
+    }
+
+    private static Event event(RBNode<Integer, Integer> node){
+        return node.isInternalNode() ? new Event(node.getKey(), node.getValue()) : null;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.rbtree.IndexedRBTree;
+import edu.ufl.ads.proj.rbtree.io.ArrayKeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * CounterEngine on an IndexedRBTree, whose nodes are slots of an array or of a mapped file instead of RBNode objects.
+ * The indexed trees keep no subtree aggregates, so a range is summed node by node with successor through the parent
+ * links of the tree, in O(lg(n) + s) for s pairs in the range.
+ */
+public class IndexedRBTreeEngine implements CounterEngine {
+    private final IndexedRBTree tree;
+
+    /**
+     * @param tree Tree holding the pairs
+     */
+    public IndexedRBTreeEngine(IndexedRBTree tree){
+        this.tree = tree;
+    }
+
+    /**
+     * The tree is filled slot by slot, so the arrays are read in order instead of being built in parallel
+     */
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        try {
+            tree.initialize(new ArrayKeyValueSource(keys, values), keys.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The pairs are read from the source straight into the slots of the tree
+     */
+    @Override
+    public void load(KeyValueSource source, int size) throws IOException {
+        tree.initialize(source, size);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        return tree.addTo(key, delta);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        return tree.subtractOrRemove(key, delta);
+    }
+
+    @Override
+    public int get(int key){
+        int node = tree.findNode(key);
+        return node != IndexedRBTree.NIL ? tree.getValue(node) : 0;
+    }
+
+    @Override
+    public Event next(int key){
+        return event(tree.next(key));
+    }
+
+    @Override
+    public Event previous(int key){
+        return event(tree.previous(key));
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        return tree.inrange(key1, key2);
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        if(key1 > key2)
+            return;
+        for(int node = ceiling(key1); node != IndexedRBTree.NIL && tree.getKey(node) <= key2; node = tree.successor(node))
+            visitor.visit(tree.getKey(node), tree.getValue(node));
+    }
+
+    /**
+     * The stream follows successor as it is consumed and does not split
+     */
+    @Override
+    public Stream<Event> events(int key1, int key2){
+        return nodes(key1, key2).mapToObj(this::event);
+    }
+
+    @Override
+    public IntStream keys(int key1, int key2){
+        return nodes(key1, key2).map(tree::getKey);
+    }
+
+    private IntStream nodes(int key1, int key2){
+        return IntStream.iterate(ceiling(key1), node -> node != IndexedRBTree.NIL && tree.getKey(node) <= key2,
+                tree::successor);
+    }
+
+    @Override
+    public int size(){
+        return tree.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return tree.maxDepth();
+    }
+
+    @Override
+    public boolean verify(){
+        return tree.verifyRBProperties();
+    }
+
+    private int ceiling(int key){
+        int node = tree.findNode(key);
+        return node != IndexedRBTree.NIL ? node : tree.next(key);
+    }
+
+    private Event event(int node){
+        return node != IndexedRBTree.NIL ? new Event(tree.getKey(node), tree.getValue(node)) : null;
+    }
+
+}
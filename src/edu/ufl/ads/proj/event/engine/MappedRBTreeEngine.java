@@ -0,0 +1,40 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.rbtree.MappedRBTree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * CounterEngine whose red black tree is kept in a memory mapped file (see MappedRBTree), so that a restarted process
+ * can serve the commands right away from the existing file instead of initializing the tree again.
+ * The mapped tree keeps no subtree aggregates, so a range is summed node by node with successor through the parent
+ * links of the tree, in O(lg(n) + s) for s pairs in the range.
+ */
+public class MappedRBTreeEngine extends IndexedRBTreeEngine implements Closeable {
+    private final MappedRBTree tree;
+
+    /**
+     * Opens the tree stored in the given file, an empty one is created if the file does not exist
+     * @param store Path of the tree store file
+     * @throws IOException when the file can not be opened
+     */
+    public MappedRBTreeEngine(Path store) throws IOException {
+        this(MappedRBTree.open(store));
+    }
+
+    private MappedRBTreeEngine(MappedRBTree tree){
+        super(tree);
+        this.tree = tree;
+    }
+
+    /**
+     * Writes all changes to the disk and closes the store
+     * @throws IOException when the store can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        tree.close();
+    }
+}
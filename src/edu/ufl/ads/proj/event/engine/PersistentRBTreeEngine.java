@@ -0,0 +1,157 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.rbtree.PersistentRBTree;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Thread safe CounterEngine on a PersistentRBTree. Every change publishes a new version of the tree with one compare
+ * and set of the current version, so any number of threads can read the engine without locking while other threads
+ * change it: a read works on the version current when it started, which never changes.
+ * Writers racing on the same version retry their change on the newer version.
+ * The range streams are views of one version, so the engine can be changed while they are consumed.
+ */
+public class PersistentRBTreeEngine implements CounterEngine {
+    private final AtomicReference<PersistentRBTree> current = new AtomicReference<>(PersistentRBTree.EMPTY);
+
+    /**
+     * Returns the current version of the tree, a snapshot of the engine which can be read without locking
+     * @return Current version
+     */
+    public PersistentRBTree version(){
+        return current.get();
+    }
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        current.set(PersistentRBTree.build(keys, values));
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        PersistentRBTree version, updated;
+        do {
+            version = current.get();
+            updated = version.addTo(key, delta);
+        } while(!current.compareAndSet(version, updated));
+        return updated.updatedValue();
+    }
+
+    /**
+     * The whole batch is applied to one version and published with one compare and set, so it is atomic
+     */
+    @Override
+    public void addAll(int[] keys, int[] deltas){
+        PersistentRBTree version, updated;
+        do {
+            version = current.get();
+            updated = version;
+            for(int i = 0; i < keys.length; i++)
+                updated = updated.addTo(keys[i], deltas[i]);
+        } while(!current.compareAndSet(version, updated));
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        PersistentRBTree version, updated;
+        do {
+            version = current.get();
+            updated = version.subtractOrRemove(key, delta);
+        } while(!current.compareAndSet(version, updated));
+        return updated.updatedValue();
+    }
+
+    @Override
+    public int get(int key){
+        PersistentRBTree.Node node = current.get().findNode(key);
+        return node != null ? node.getValue() : 0;
+    }
+
+    @Override
+    public Event next(int key){
+        return event(current.get().next(key));
+    }
+
+    @Override
+    public Event previous(int key){
+        return event(current.get().previous(key));
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        return current.get().inrange(key1, key2);
+    }
+
+    /**
+     * The pairs are walked in one version
+     */
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        scan(current.get(), key1, key2, visitor);
+    }
+
+    /**
+     * Passes the pairs of the version with keys in range [key1, key2] (inclusive) to the visitor in increasing order
+     * @param version Version of the tree
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param visitor Receiver of the pairs
+     */
+    public static void scan(PersistentRBTree version, int key1, int key2, Visitor visitor){
+        if(key1 > key2)
+            return;
+        PersistentRBTree.Walk walk = version.walk(key1);
+        for(PersistentRBTree.Node node = walk.next(); node != null && node.getKey() <= key2; node = walk.next())
+            visitor.visit(node.getKey(), node.getValue());
+    }
+
+    @Override
+    public Stream<Event> events(int key1, int key2){
+        return nodes(key1, key2).map(PersistentRBTreeEngine::event);
+    }
+
+    @Override
+    public IntStream keys(int key1, int key2){
+        return nodes(key1, key2).mapToInt(PersistentRBTree.Node::getKey);
+    }
+
+    private Stream<PersistentRBTree.Node> nodes(int key1, int key2){
+        PersistentRBTree.Walk walk = current.get().walk(key1);
+        return Stream.iterate(walk.next(), node -> node != null && node.getKey() <= key2, node -> walk.next());
+    }
+
+    /**
+     * The pairs are copied from one version, up to the length of the arrays
+     */
+    @Override
+    public void collect(int[] keys, int[] values){
+        PersistentRBTree.Walk walk = current.get().walk(Integer.MIN_VALUE);
+        int i = 0;
+        for(PersistentRBTree.Node node = walk.next(); node != null && i < keys.length; node = walk.next(), i++){
+            keys[i] = node.getKey();
+            values[i] = node.getValue();
+        }
+    }
+
+    @Override
+    public int size(){
+        return current.get().size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return current.get().maxDepth();
+    }
+
+    @Override
+    public boolean verify(){
+        return current.get().verifyRBProperties();
+    }
+
+    private static Event event(PersistentRBTree.Node node){
+        return node != null ? new Event(node.getKey(), node.getValue()) : null;
+    }
+}
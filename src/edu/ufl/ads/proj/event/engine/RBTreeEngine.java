@@ -0,0 +1,207 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.HotKeyCache;
+import edu.ufl.ads.proj.rbtree.RBNode;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * CounterEngine on the int RBTree, the default engine of EventCounter.
+ * With a cache, get, addTo and subtractOrRemove look the node of the key up in a HotKeyCache before descending the
+ * tree. While the cache is bypassed they take the same path as without a cache for the lookups it skips, see
+ * HotKeyCache.skip. The range operations use the subtree aggregates and the walks of the tree.
+ */
+public class RBTreeEngine implements CounterEngine {
+    private final RBTree tree = new RBTree();
+    private final HotKeyCache cache;
+
+    public RBTreeEngine(){
+        this(0);
+    }
+
+    /**
+     * Creates an engine caching the nodes of up to cacheCapacity recently used keys
+     * @param cacheCapacity Capacity of the HotKeyCache, 0 for no cache
+     */
+    public RBTreeEngine(int cacheCapacity){
+        cache = cacheCapacity > 0 ? new HotKeyCache(cacheCapacity) : null;
+    }
+
+    /**
+     * The tree is built in parallel from the arrays, see RBTree.initialize(int[], int[])
+     */
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        clearCache();
+        tree.initialize(keys, values);
+    }
+
+    /**
+     * The pairs are read in chunks, see RBTree.initialize(KeyValueSource, int)
+     */
+    @Override
+    public void load(KeyValueSource source, int size) throws IOException {
+        clearCache();
+        tree.initialize(source, size);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        if(cache == null || cache.skip())
+            return tree.addTo(key, delta);
+        RBNode node = cache.get(key);
+        if(node != null){
+            node.setValue(node.getValue() + delta);
+            return node.getValue();
+        }
+        node = tree.addToNode(key, delta);
+        cache.offer(key, node);
+        return node.getValue();
+    }
+
+    /**
+     * The keys are applied to the tree in one pass, see RBTree.mergeAll. A large batch builds the tree again, so the
+     * cache is cleared.
+     */
+    @Override
+    public void addAll(int[] keys, int[] deltas){
+        clearCache();
+        tree.mergeAll(keys, deltas);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        if(cache == null)
+            return tree.subtractOrRemove(key, delta);
+        if(cache.skip()){
+            int newValue = tree.subtractOrRemove(key, delta);
+            //The deleted id may be cached
+            if(newValue == 0)
+                cache.remove(key);
+            return newValue;
+        }
+        RBNode node = cache.get(key);
+        boolean cached = node != null;
+        if(!cached){
+            node = tree.findNode(key);
+            if(node.isExternalNode())
+                return 0;
+        }
+        int newValue = node.getValue() - delta;
+        if(newValue <= 0){
+            tree.delete(node);
+            if(cached)
+                cache.remove(key);
+            return 0;
+        }
+        node.setValue(newValue);
+        if(!cached)
+            cache.offer(key, node);
+        return newValue;
+    }
+
+    @Override
+    public int get(int key){
+        if(cache == null || cache.skip()){
+            RBNode node = tree.findNode(key);
+            return node.isInternalNode() ? node.getValue() : 0;
+        }
+        RBNode node = cache.get(key);
+        if(node != null)
+            return node.getValue();
+        node = tree.findNode(key);
+        if(node.isExternalNode())
+            return 0;
+        cache.offer(key, node);
+        return node.getValue();
+    }
+
+    @Override
+    public Event next(int key){
+        return event(tree.next(key));
+    }
+
+    @Override
+    public Event previous(int key){
+        return event(tree.previous(key));
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        return tree.inrange(key1, key2);
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        RBTree.Walk walk = tree.walk(key1);
+        for(RBNode node = walk.next(); node.isInternalNode() && node.getKey() <= key2; node = walk.next())
+            visitor.visit(node.getKey(), node.getValue());
+    }
+
+    /**
+     * Large ranges of reducers other than sum and count are aggregated in parallel, see RBTree.reduce
+     */
+    @Override
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        return tree.reduce(key1, key2, reducer);
+    }
+
+    /**
+     * The first pair is found with one descent and the rest by following the tree, a parallel stream splits the
+     * range by rank
+     */
+    @Override
+    public Stream<Event> events(int key1, int key2){
+        return tree.nodes(key1, key2, false).map(RBTreeEngine::event);
+    }
+
+    @Override
+    public IntStream keys(int key1, int key2){
+        return tree.keys(key1, key2);
+    }
+
+    @Override
+    public void collect(int[] keys, int[] values){
+        tree.collect(keys, values);
+    }
+
+    @Override
+    public int size(){
+        return tree.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return tree.maxDepth();
+    }
+
+    @Override
+    public boolean verify(){
+        return tree.verifyRBProperties();
+    }
+
+    @Override
+    public RBTree.Statistics statistics(){
+        return tree.statistics();
+    }
+
+    @Override
+    public HotKeyCache cache(){
+        return cache;
+    }
+
+    private void clearCache(){
+        if(cache != null)
+            cache.clear();
+    }
+
+    private static Event event(RBNode node){
+        return node.isInternalNode() ? new Event(node.getKey(), node.getValue()) : null;
+    }
+}
@@ -0,0 +1,84 @@
+package edu.ufl.ads.proj.event.engine;
+
+import edu.ufl.ads.proj.event.Event;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CounterEngine on java.util.TreeMap, the baseline the trees of the project are measured against.
+ * TreeMap keeps no subtree sums, inrange visits the keys of the range one by one, and it hides its depth.
+ */
+public class TreeMapEngine implements CounterEngine {
+    private final TreeMap<Integer, Integer> map = new TreeMap<>();
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        map.clear();
+        for(int i = 0; i < keys.length; i++)
+            map.put(keys[i], values[i]);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        return map.merge(key, delta, Integer::sum);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        Integer value = map.computeIfPresent(key, (k, count) -> count - delta > 0 ? count - delta : null);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public int get(int key){
+        return map.getOrDefault(key, 0);
+    }
+
+    @Override
+    public Event next(int key){
+        return event(map.higherEntry(key));
+    }
+
+    @Override
+    public Event previous(int key){
+        return event(map.lowerEntry(key));
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        long sum = 0;
+        for(int value : map.subMap(key1, true, key2, true).values())
+            sum += value;
+        return sum;
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        if(key1 > key2)
+            return;
+        for(Map.Entry<Integer, Integer> entry : map.subMap(key1, true, key2, true).entrySet())
+            visitor.visit(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public int size(){
+        return map.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        return 0;
+    }
+
+    @Override
+    public boolean verify(){
+        return true;
+    }
+
+    private static Event event(Map.Entry<Integer, Integer> entry){
+        return entry != null ? new Event(entry.getKey(), entry.getValue()) : null;
+    }
+}
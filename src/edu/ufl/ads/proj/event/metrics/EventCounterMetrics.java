@@ -0,0 +1,141 @@
+package edu.ufl.ads.proj.event.metrics;
+
+import edu.ufl.ads.proj.event.HotKeyCache;
+import edu.ufl.ads.proj.event.metrics.OperationMetrics.Operation;
+import edu.ufl.ads.proj.rbtree.RBTree;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the metrics of a MeteredCounterEngine as an MXBean.
+ * The tree counters are read from another thread than the one modifying the tree, so they may lag behind.
+ */
+public class EventCounterMetrics implements EventCounterMetricsMXBean {
+    /**
+     * Name under which bbst registers the metrics of its counter
+     */
+    public static final String DEFAULT_NAME = "edu.ufl.ads.proj:type=EventCounter";
+
+    private final MeteredCounterEngine engine;
+
+    public EventCounterMetrics(MeteredCounterEngine engine){
+        this.engine = engine;
+    }
+
+    /**
+     * Registers the metrics of the counter in the platform MBean server
+     * @param engine Engine whose metrics are exposed
+     * @param name Object name of the MXBean
+     * @return The registered MXBean
+     * @throws JMException when the name is malformed or already registered
+     */
+    public static EventCounterMetrics register(MeteredCounterEngine engine, String name) throws JMException {
+        EventCounterMetrics bean = new EventCounterMetrics(engine);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+        return bean;
+    }
+
+    @Override
+    public boolean isEnabled(){
+        return engine.getMetrics().isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled){
+        engine.getMetrics().setEnabled(enabled);
+    }
+
+    @Override
+    public int getSize(){
+        return engine.size();
+    }
+
+    @Override
+    public int getMaxDepth(){
+        return engine.lastMaxDepth();
+    }
+
+    @Override
+    public long getRotations(){
+        RBTree.Statistics statistics = engine.statistics();
+        return statistics != null ? statistics.getRotations() : -1;
+    }
+
+    @Override
+    public long getInsertFixups(){
+        RBTree.Statistics statistics = engine.statistics();
+        return statistics != null ? statistics.getInsertFixups() : -1;
+    }
+
+    @Override
+    public long getDeleteFixups(){
+        RBTree.Statistics statistics = engine.statistics();
+        return statistics != null ? statistics.getDeleteFixups() : -1;
+    }
+
+    @Override
+    public long getCacheHits(){
+        HotKeyCache cache = engine.cache();
+        return cache != null ? cache.hits() : -1;
+    }
+
+    @Override
+    public long getCacheMisses(){
+        HotKeyCache cache = engine.cache();
+        return cache != null ? cache.misses() : -1;
+    }
+
+    @Override
+    public long getCacheEvictions(){
+        HotKeyCache cache = engine.cache();
+        return cache != null ? cache.evictions() : -1;
+    }
+
+    @Override
+    public long getCacheBypasses(){
+        HotKeyCache cache = engine.cache();
+        return cache != null ? cache.bypasses() : -1;
+    }
+
+    @Override
+    public Map<String, Long> getCounts(){
+        return perOperation(LatencyHistogram::count);
+    }
+
+    @Override
+    public Map<String, Long> getMeanLatencies(){
+        return perOperation(LatencyHistogram::mean);
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencies(){
+        return perOperation(histogram -> histogram.percentile(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getP99Latencies(){
+        return perOperation(histogram -> histogram.percentile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencies(){
+        return perOperation(LatencyHistogram::max);
+    }
+
+    @Override
+    public void reset(){
+        engine.getMetrics().reset();
+    }
+
+    private Map<String, Long> perOperation(ToLongFunction<LatencyHistogram> value){
+        Map<String, Long> values = new LinkedHashMap<>();
+        for(Operation operation : Operation.values())
+            values.put(operation.command(), value.applyAsLong(engine.getMetrics().histogram(operation)));
+        return values;
+    }
+}
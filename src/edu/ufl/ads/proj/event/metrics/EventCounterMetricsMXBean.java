@@ -0,0 +1,55 @@
+package edu.ufl.ads.proj.event.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a MeteredCounterEngine, see EventCounterMetrics.register.
+ * The maps are keyed by the bbst command of the operation, the latencies are in nanoseconds.
+ */
+public interface EventCounterMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getSize();
+
+    /**
+     * @return Depth found by the last maxDepth call
+     */
+    int getMaxDepth();
+
+    /**
+     * @return Rotations of the red black tree, -1 if the counter does not keep its events in one
+     */
+    long getRotations();
+
+    long getInsertFixups();
+
+    long getDeleteFixups();
+
+    /**
+     * @return Hits of the HotKeyCache of the counter, -1 if it has none
+     */
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheEvictions();
+
+    long getCacheBypasses();
+
+    Map<String, Long> getCounts();
+
+    Map<String, Long> getMeanLatencies();
+
+    Map<String, Long> getMedianLatencies();
+
+    Map<String, Long> getP99Latencies();
+
+    Map<String, Long> getMaxLatencies();
+
+    /**
+     * Clears the recorded operations, the tree counters are kept
+     */
+    void reset();
+}
@@ -0,0 +1,131 @@
+package edu.ufl.ads.proj.event.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets, like HdrHistogram with 3 significant bits:
+ * the values below 8 have a bucket each, and every power of two range [2^e, 2^(e+1)) is split in 8 buckets of equal
+ * width, so a value is known within 12.5% over the whole range of non negative longs in 488 buckets.
+ * The buckets are LongAdders, so threads recording at the same time do not contend on one counter.
+ * Reads while values are recorded see some of them and not others.
+ */
+public class LatencyHistogram {
+    /**
+     * Significant bits of a value kept by its bucket
+     */
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(){
+        for(int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records one value
+     * Complexity = O(1)
+     * @param nanos Latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos){
+        if(nanos < 0)
+            nanos = 0;
+        buckets[bucket(nanos)].increment();
+        total.add(nanos);
+        //Reading the maximum is cheaper than updating it, which is rarely needed
+        if(nanos > max.get())
+            max.accumulate(nanos);
+    }
+
+    /**
+     * Returns the number of recorded values, the sum of the buckets
+     * Complexity = O(number of buckets)
+     * @return Number of recorded values
+     */
+    public long count(){
+        long n = 0;
+        for(LongAdder bucket : buckets)
+            n += bucket.sum();
+        return n;
+    }
+
+    /**
+     * @return Mean of the recorded values, 0 if there are none
+     */
+    public long mean(){
+        long n = count();
+        return n > 0 ? total.sum() / n : 0;
+    }
+
+    /**
+     * @return Greatest recorded value, 0 if there are none
+     */
+    public long max(){
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values are, rounded up to the greatest value
+     * of its bucket
+     * Complexity = O(number of buckets)
+     * @param quantile Fraction of the values in [0, 1], e.g. 0.99 for the 99th percentile
+     * @return The quantile, 0 if there are no values
+     */
+    public long percentile(double quantile){
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+        if(n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(highest(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * Clears the recorded values, values recorded during the reset may be partly kept
+     */
+    public void reset(){
+        for(LongAdder bucket : buckets)
+            bucket.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * @return Index of the bucket of a non negative value
+     */
+    static int bucket(long value){
+        if(value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return Greatest value of the bucket
+     */
+    static long highest(int bucket){
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        long lowest = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        return lowest + (width - 1);
+    }
+}
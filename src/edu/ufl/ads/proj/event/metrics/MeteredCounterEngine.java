@@ -0,0 +1,181 @@
+package edu.ufl.ads.proj.event.metrics;
+
+import edu.ufl.ads.proj.event.Event;
+import edu.ufl.ads.proj.event.HotKeyCache;
+import edu.ufl.ads.proj.event.engine.CounterEngine;
+import edu.ufl.ads.proj.event.metrics.OperationMetrics.Operation;
+import edu.ufl.ads.proj.rbtree.RBTree;
+import edu.ufl.ads.proj.rbtree.RangeReducer;
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * CounterEngine recording the count and the latency of the operations behind increase, reduce, inrange, count, next
+ * and previous of the engine it wraps, which holds the events. A counter whose engine is not wrapped pays nothing
+ * for the metrics, a wrapped one whose metrics are disabled pays one volatile read per operation.
+ * maxDepth walks the whole tree, so the depth gauge is the result of the last maxDepth call (bbst verify or stats)
+ * instead of a value computed when it is read.
+ */
+public class MeteredCounterEngine implements CounterEngine {
+    private final CounterEngine engine;
+    private final OperationMetrics metrics = new OperationMetrics();
+    private volatile int lastMaxDepth;
+
+    /**
+     * @param engine Engine holding the events
+     */
+    public MeteredCounterEngine(CounterEngine engine){
+        this.engine = engine;
+    }
+
+    /**
+     * @return The engine holding the events
+     */
+    public CounterEngine getEngine(){
+        return engine;
+    }
+
+    /**
+     * @return The recorded operations
+     */
+    public OperationMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * @return Result of the last maxDepth call, 0 before the first one
+     */
+    public int lastMaxDepth(){
+        return lastMaxDepth;
+    }
+
+    @Override
+    public void bulkLoad(int[] keys, int[] values){
+        engine.bulkLoad(keys, values);
+    }
+
+    @Override
+    public void load(KeyValueSource source, int size) throws IOException {
+        engine.load(source, size);
+    }
+
+    @Override
+    public int addTo(int key, int delta){
+        if(!metrics.isEnabled())
+            return engine.addTo(key, delta);
+        long start = System.nanoTime();
+        int result = engine.addTo(key, delta);
+        metrics.record(Operation.INCREASE, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public void addAll(int[] keys, int[] deltas){
+        engine.addAll(keys, deltas);
+    }
+
+    @Override
+    public int subtractOrRemove(int key, int delta){
+        if(!metrics.isEnabled())
+            return engine.subtractOrRemove(key, delta);
+        long start = System.nanoTime();
+        int result = engine.subtractOrRemove(key, delta);
+        metrics.record(Operation.REDUCE, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public int get(int key){
+        if(!metrics.isEnabled())
+            return engine.get(key);
+        long start = System.nanoTime();
+        int result = engine.get(key);
+        metrics.record(Operation.COUNT, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public Event next(int key){
+        if(!metrics.isEnabled())
+            return engine.next(key);
+        long start = System.nanoTime();
+        Event result = engine.next(key);
+        metrics.record(Operation.NEXT, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public Event previous(int key){
+        if(!metrics.isEnabled())
+            return engine.previous(key);
+        long start = System.nanoTime();
+        Event result = engine.previous(key);
+        metrics.record(Operation.PREVIOUS, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public long inrange(int key1, int key2){
+        if(!metrics.isEnabled())
+            return engine.inrange(key1, key2);
+        long start = System.nanoTime();
+        long result = engine.inrange(key1, key2);
+        metrics.record(Operation.INRANGE, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public void scan(int key1, int key2, Visitor visitor){
+        engine.scan(key1, key2, visitor);
+    }
+
+    @Override
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        return engine.reduce(key1, key2, reducer);
+    }
+
+    @Override
+    public Stream<Event> events(int key1, int key2){
+        return engine.events(key1, key2);
+    }
+
+    @Override
+    public IntStream keys(int key1, int key2){
+        return engine.keys(key1, key2);
+    }
+
+    @Override
+    public void collect(int[] keys, int[] values){
+        engine.collect(keys, values);
+    }
+
+    @Override
+    public int size(){
+        return engine.size();
+    }
+
+    @Override
+    public int maxDepth(){
+        int depth = engine.maxDepth();
+        lastMaxDepth = depth;
+        return depth;
+    }
+
+    @Override
+    public boolean verify(){
+        return engine.verify();
+    }
+
+    @Override
+    public RBTree.Statistics statistics(){
+        return engine.statistics();
+    }
+
+    @Override
+    public HotKeyCache cache(){
+        return engine.cache();
+    }
+}
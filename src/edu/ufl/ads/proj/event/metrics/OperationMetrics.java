@@ -0,0 +1,72 @@
+package edu.ufl.ads.proj.event.metrics;
+
+import java.util.Locale;
+
+/**
+ * Counts and latencies of the operations of a MeteredCounterEngine, one LatencyHistogram per operation.
+ * Recording can be switched off at run time, then the engine only reads the volatile enabled flag per operation.
+ */
+public class OperationMetrics {
+
+    /**
+     * The operations of the bbst commands
+     */
+    public enum Operation {
+        INCREASE, REDUCE, INRANGE, COUNT, NEXT, PREVIOUS;
+
+        /**
+         * @return Name of the bbst command of the operation
+         */
+        public String command(){
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private volatile boolean enabled = true;
+
+    public OperationMetrics(){
+        for(int i = 0; i < histograms.length; i++)
+            histograms[i] = new LatencyHistogram();
+    }
+
+    /**
+     * @return true if the operations are recorded
+     */
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Switches recording on or off, the recorded values are kept
+     * @param enabled true to record the operations
+     */
+    public void setEnabled(boolean enabled){
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records one operation
+     * @param operation Operation done
+     * @param nanos Latency of the operation in nanoseconds
+     */
+    public void record(Operation operation, long nanos){
+        histograms[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param operation Operation
+     * @return Histogram of the latencies of the operation
+     */
+    public LatencyHistogram histogram(Operation operation){
+        return histograms[operation.ordinal()];
+    }
+
+    /**
+     * Clears the recorded operations
+     */
+    public void reset(){
+        for(LatencyHistogram histogram : histograms)
+            histogram.reset();
+    }
+}
@@ -0,0 +1,201 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.Arrays;
+
+/**
+ * Class to represent RedBlack tree with integer key and value types, where the nodes are stored as fixed width
+ * records in pages of int arrays instead of one RBNode object per entry.
+ * Each entry costs 5 ints (key, left, right, value and parent with the color in its sign bit), i.e. 20 bytes against
+ * the 48 bytes of an RBNode object (header, key, value, three references, the Color reference, size and sum), so
+ * about 2.4x less heap, not 3x: the parent index which next, previous and the color fixing follow keeps an entry
+ * above 16 bytes. The fields of a node share one or two cache lines, a descent reads one record per level as it
+ * reads one RBNode. As the pages hold no references, the garbage collector never has to trace the entries, which
+ * is where most of the time went while initializing 10^8 nodes with RBTree.
+ * The tree grows by whole pages, so the records are never copied and growing takes no more heap than the new page.
+ * The tree algorithms are in IndexedRBTree.
+ */
+public class ArrayRBTree extends IndexedRBTree {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    //Offsets of the fields in the record of a node, the ones read by a descent come first
+    private static final int KEY = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int VALUE = 3;
+    private static final int PARENT = 4;
+    private static final int RECORD = 5;
+    /**
+     * A page holds the records of 2^PAGE_SHIFT slots (320KB)
+     */
+    private static final int PAGE_SHIFT = 14;
+    private static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SLOTS - 1;
+    /**
+     * Bit of the parent field set when the node is red, the external node is always black
+     */
+    private static final int RED = Integer.MIN_VALUE;
+
+    int[][] pages;
+    int root = NIL;
+    int size;
+    int nextSlot = 1;
+    int freeList = NIL;
+
+    public ArrayRBTree(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of entries the tree can hold before a page is added
+     */
+    public ArrayRBTree(int capacity){
+        reset(capacity + 1);
+    }
+
+    @Override
+    protected void reset(int slots){
+        pages = new int[0][];
+        ensureCapacity(slots);
+        root = NIL;
+        size = 0;
+        nextSlot = 1;
+        freeList = NIL;
+    }
+
+    /**
+     * Adds the pages holding the slots. A tree which fits in one page grows it by half of its length, like an array,
+     * a larger tree adds full pages.
+     */
+    @Override
+    protected void ensureCapacity(int slots){
+        int capacity = capacity();
+        if(slots <= capacity)
+            return;
+        if(slots <= PAGE_SLOTS){
+            int length = Math.min(PAGE_SLOTS, Math.max(slots, capacity + (capacity >> 1))) * RECORD;
+            pages = new int[][]{capacity == 0 ? new int[length] : Arrays.copyOf(pages[0], length)};
+            return;
+        }
+        int first = pages.length;
+        pages = Arrays.copyOf(pages, ((slots - 1) >>> PAGE_SHIFT) + 1);
+        if(first == 1)
+            pages[0] = Arrays.copyOf(pages[0], PAGE_SLOTS * RECORD);
+        for(int page = Math.max(first, 1); page < pages.length; page++)
+            pages[page] = new int[PAGE_SLOTS * RECORD];
+        if(first == 0)
+            pages[0] = new int[PAGE_SLOTS * RECORD];
+    }
+
+    /**
+     * @return Number of slots of the pages, all pages are full length when there are more than one
+     */
+    private int capacity(){
+        if(pages.length <= 1)
+            return pages.length == 0 ? 0 : pages[0].length / RECORD;
+        return pages.length << PAGE_SHIFT;
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    protected int key(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + KEY];
+    }
+
+    @Override
+    protected int value(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + VALUE];
+    }
+
+    @Override
+    protected int left(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + LEFT];
+    }
+
+    @Override
+    protected int right(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + RIGHT];
+    }
+
+    @Override
+    protected int parent(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + PARENT] & ~RED;
+    }
+
+    @Override
+    protected boolean red(int slot){
+        return pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + PARENT] < 0;
+    }
+
+    @Override
+    protected void setKey(int slot, int key){
+        pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + KEY] = key;
+    }
+
+    @Override
+    protected void storeValue(int slot, int value){
+        pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + VALUE] = value;
+    }
+
+    @Override
+    protected void setLeft(int slot, int node){
+        pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + LEFT] = node;
+    }
+
+    @Override
+    protected void setRight(int slot, int node){
+        pages[slot >>> PAGE_SHIFT][(slot & PAGE_MASK) * RECORD + RIGHT] = node;
+    }
+
+    @Override
+    protected void setParent(int slot, int node){
+        int[] page = pages[slot >>> PAGE_SHIFT];
+        int field = (slot & PAGE_MASK) * RECORD + PARENT;
+        page[field] = (page[field] & RED) | node;
+    }
+
+    @Override
+    protected void setRed(int slot, boolean isRed){
+        int[] page = pages[slot >>> PAGE_SHIFT];
+        int field = (slot & PAGE_MASK) * RECORD + PARENT;
+        page[field] = isRed ? page[field] | RED : page[field] & ~RED;
+    }
+
+    @Override
+    protected int root(){
+        return root;
+    }
+
+    @Override
+    protected void setRoot(int root){
+        this.root = root;
+    }
+
+    @Override
+    protected void setSize(int size){
+        this.size = size;
+    }
+
+    @Override
+    protected int nextSlot(){
+        return nextSlot;
+    }
+
+    @Override
+    protected void setNextSlot(int slot){
+        nextSlot = slot;
+    }
+
+    @Override
+    protected int freeList(){
+        return freeList;
+    }
+
+    @Override
+    protected void setFreeList(int slot){
+        freeList = slot;
+    }
+}
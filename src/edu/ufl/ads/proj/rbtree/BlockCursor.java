@@ -0,0 +1,170 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Bidirectional cursor over the pairs of a BlockRBTree in sorted order.
+ * A seek positions the cursor with one descent of the tree of blocks, after which next() and prev() move within the
+ * arrays of the block and step to the successor or predecessor block at their ends, i.e. O(1) amortized per step.
+ * Once the cursor moves past either end it is no longer valid until the next seek.
+ * The tree must not be modified while the cursor is in use.
+ */
+public class BlockCursor {
+    private final BlockRBTree tree;
+    private BlockRBTree.Block block;
+    private int index;
+
+    BlockCursor(BlockRBTree tree){
+        this.tree = tree;
+        this.block = tree.nil;
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key greater than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekCeiling(int key){
+        BlockRBTree.Block found = tree.floor(key);
+        if(found == tree.nil)
+            return seekFirst();
+        return position(found, BlockRBTree.lowerBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekHigher(int key){
+        BlockRBTree.Block found = tree.floor(key);
+        if(found == tree.nil)
+            return seekFirst();
+        return position(found, upperBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key lesser than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekFloor(int key){
+        BlockRBTree.Block found = tree.floor(key);
+        if(found == tree.nil)
+            return position(found, 0);
+        return positionBefore(found, upperBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a pair
+     */
+    public boolean seekLower(int key){
+        BlockRBTree.Block found = tree.floor(key);
+        if(found == tree.nil)
+            return position(found, 0);
+        return positionBefore(found, BlockRBTree.lowerBound(found, key));
+    }
+
+    /**
+     * Positions the cursor at the pair with the least key
+     * @return true if the tree is not empty
+     */
+    public boolean seekFirst(){
+        return position(tree.first(), 0);
+    }
+
+    /**
+     * Positions the cursor at the pair with the greatest key
+     * @return true if the tree is not empty
+     */
+    public boolean seekLast(){
+        BlockRBTree.Block found = tree.last();
+        return positionBefore(found, found.count);
+    }
+
+    private static int upperBound(BlockRBTree.Block block, int key){
+        int i = BlockRBTree.lowerBound(block, key);
+        return i < block.count && block.keys[i] == key ? i + 1 : i;
+    }
+
+    /**
+     * Positions the cursor at index i of the block, moving to the next block when i is past its end
+     */
+    private boolean position(BlockRBTree.Block found, int i){
+        if(found != tree.nil && i == found.count){
+            found = tree.successor(found);
+            i = 0;
+        }
+        block = found;
+        index = i;
+        return isValid();
+    }
+
+    /**
+     * Positions the cursor before index i of the block, moving to the previous block when i is at its start
+     */
+    private boolean positionBefore(BlockRBTree.Block found, int i){
+        if(found != tree.nil && i == 0){
+            found = tree.predecessor(found);
+            i = found.count;
+        }
+        block = found;
+        index = i - 1;
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the next pair in sorted order
+     * Complexity = O(1) amortized
+     * @return true if the cursor is at a pair after the move
+     */
+    public boolean next(){
+        if(isValid())
+            position(block, index + 1);
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the previous pair in sorted order
+     * Complexity = O(1) amortized
+     * @return true if the cursor is at a pair after the move
+     */
+    public boolean prev(){
+        if(isValid())
+            positionBefore(block, index);
+        return isValid();
+    }
+
+    /**
+     * @return true if the cursor is positioned at a pair
+     */
+    public boolean isValid(){
+        return block != tree.nil && index >= 0 && index < block.count;
+    }
+
+    /**
+     * @return Key of the pair at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int key(){
+        if(!isValid())
+            throw new NoSuchElementException();
+        return block.keys[index];
+    }
+
+    /**
+     * @return Value of the pair at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int value(){
+        if(!isValid())
+            throw new NoSuchElementException();
+        return block.values[index];
+    }
+}
@@ -0,0 +1,731 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.Arrays;
+
+/**
+ * RedBlack tree with integer key and value types whose nodes are blocks of up to BLOCK_CAPACITY pairs, sorted in two
+ * int arrays, instead of one RBNode per pair. The blocks partition the keys: all keys of a block are lesser than the
+ * keys of the blocks after it, and the tree orders the blocks by their least key, so 10^7 keys are indexed by
+ * about 2 * 10^5 blocks and a descent visits about 18 of them instead of following about 24 RBNode pointers.
+ * Every block keeps the sum of its values and the sum of its subtree, so that inrange costs one descent per end of
+ * the range: the blocks and subtrees before the end are added from their sums and only the block holding the end is
+ * summed, in a loop over its values array which the JIT unrolls. Scans visit the pairs of a block in array order and
+ * move to the next block with one successor step.
+ * A full block is split in two when a key is added to it, a block left with less than BLOCK_MIN pairs is merged with
+ * a neighbour when they fit in one block, an empty block is deleted.
+ */
+public class BlockRBTree {
+    /**
+     * Number of pairs of a full block, two 256 byte arrays
+     */
+    static final int BLOCK_CAPACITY = 64;
+    /**
+     * Number of pairs put in a block by initialize, leaving room for inserts before the block is split
+     */
+    private static final int BLOCK_FILL = BLOCK_CAPACITY * 3 / 4;
+    private static final int BLOCK_MIN = BLOCK_CAPACITY / 4;
+
+    static final class Block {
+        final int[] keys;
+        final int[] values;
+        int count;
+        /**
+         * Sum of the values of this block and sum of the values of the blocks of its subtree
+         */
+        long blockSum;
+        long sum;
+        Block left;
+        Block right;
+        Block parent;
+        boolean red;
+
+        Block(int capacity){
+            keys = new int[capacity];
+            values = new int[capacity];
+        }
+
+        int least(){
+            return keys[0];
+        }
+
+        int greatest(){
+            return keys[count - 1];
+        }
+    }
+
+    /**
+     * External node of the tree, black with an empty subtree
+     */
+    final Block nil = new Block(0);
+    Block root = nil;
+    private int size;
+    private int blocks;
+
+    /**
+     * Returns the number of key-value pairs in the tree
+     * @return Number of key-value pairs
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return Number of blocks holding the pairs
+     */
+    public int blocks(){
+        return blocks;
+    }
+
+    /**
+     * Builds the tree from sorted arrays of keys and values, replacing its content. The pairs are spread evenly over
+     * blocks of at most BLOCK_FILL pairs, and the blocks form a complete binary search tree whose deepest level is red.
+     * Complexity = O(n)
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param values values[i] is the value of keys[i]
+     */
+    public void initialize(int[] keys, int[] values){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        int n = keys.length;
+        size = n;
+        root = nil;
+        blocks = (n + BLOCK_FILL - 1) / BLOCK_FILL;
+        if(n == 0)
+            return;
+        Block[] sorted = new Block[blocks];
+        for(int i = 0, from = 0; i < blocks; i++){
+            Block block = new Block(BLOCK_CAPACITY);
+            block.count = n / blocks + (i < n % blocks ? 1 : 0);
+            System.arraycopy(keys, from, block.keys, 0, block.count);
+            System.arraycopy(values, from, block.values, 0, block.count);
+            block.blockSum = sum(block.values, 0, block.count);
+            sorted[i] = block;
+            from += block.count;
+        }
+        int maxDepth = 32 - Integer.numberOfLeadingZeros(blocks);
+        root = build(sorted, 0, blocks - 1, 1, maxDepth > 1 ? maxDepth : -1);
+        root.parent = nil;
+    }
+
+    /**
+     * Builds the complete binary search tree of sorted[from..to], coloring the nodes at redDepth red
+     */
+    private Block build(Block[] sorted, int from, int to, int depth, int redDepth){
+        if(from > to)
+            return nil;
+        int mid = (from + to) >>> 1;
+        Block block = sorted[mid];
+        block.left = build(sorted, from, mid - 1, depth + 1, redDepth);
+        block.right = build(sorted, mid + 1, to, depth + 1, redDepth);
+        if(block.left != nil)
+            block.left.parent = block;
+        if(block.right != nil)
+            block.right.parent = block;
+        block.red = depth == redDepth;
+        block.sum = block.blockSum + block.left.sum + block.right.sum;
+        return block;
+    }
+
+    /**
+     * Returns the value of the key
+     * Complexity = O(lg (n))
+     * @param key Key to be searched
+     * @param absent Value returned when the key is not present
+     * @return Value of the key, absent if it is not present
+     */
+    public int get(int key, int absent){
+        Block block = floor(key);
+        if(block == nil)
+            return absent;
+        int i = Arrays.binarySearch(block.keys, 0, block.count, key);
+        return i >= 0 ? block.values[i] : absent;
+    }
+
+    /**
+     * Adds delta to the value of the key, inserting the key with value delta if it is not present
+     * Complexity = O(lg (n))
+     * @param key Key to be updated
+     * @param delta Amount added to the value
+     * @return The value of the key after the update
+     */
+    public int addTo(int key, int delta){
+        if(root == nil){
+            Block block = new Block(BLOCK_CAPACITY);
+            block.keys[0] = key;
+            block.values[0] = delta;
+            block.count = 1;
+            block.blockSum = block.sum = delta;
+            block.left = block.right = block.parent = nil;
+            root = block;
+            blocks = 1;
+            size = 1;
+            return delta;
+        }
+        Block block = floor(key);
+        if(block == nil)
+            block = first();
+        int i = Arrays.binarySearch(block.keys, 0, block.count, key);
+        if(i >= 0){
+            block.values[i] += delta;
+            addToSums(block, delta);
+            return block.values[i];
+        }
+        i = -i - 1;
+        if(block.count == BLOCK_CAPACITY){
+            Block upper = split(block);
+            if(i > block.count){
+                i -= block.count;
+                block = upper;
+            }
+        }
+        System.arraycopy(block.keys, i, block.keys, i + 1, block.count - i);
+        System.arraycopy(block.values, i, block.values, i + 1, block.count - i);
+        block.keys[i] = key;
+        block.values[i] = delta;
+        block.count++;
+        size++;
+        addToSums(block, delta);
+        return delta;
+    }
+
+    /**
+     * Subtracts delta from the value of the key, removing the key when the value drops to zero or below
+     * Complexity = O(lg (n))
+     * @param key Key to be updated
+     * @param delta Amount subtracted from the value
+     * @return The value of the key after the update, 0 if it was removed or not present
+     */
+    public int subtractOrRemove(int key, int delta){
+        Block block = floor(key);
+        if(block == nil)
+            return 0;
+        int i = Arrays.binarySearch(block.keys, 0, block.count, key);
+        if(i < 0)
+            return 0;
+        int value = block.values[i] - delta;
+        if(value > 0){
+            block.values[i] = value;
+            addToSums(block, -delta);
+            return value;
+        }
+        int removed = block.values[i];
+        System.arraycopy(block.keys, i + 1, block.keys, i, block.count - i - 1);
+        System.arraycopy(block.values, i + 1, block.values, i, block.count - i - 1);
+        block.count--;
+        size--;
+        addToSums(block, -removed);
+        if(block.count == 0)
+            deleteBlock(block);
+        else if(block.count < BLOCK_MIN)
+            merge(block);
+        return 0;
+    }
+
+    /**
+     * Returns the sum of values of all the keys which are in range [key1, key2] (inclusive) using the sums of the
+     * blocks
+     * Complexity = O(lg (n))
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2]
+     */
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        return sumAtMost(key2) - (key1 == Integer.MIN_VALUE ? 0 : sumAtMost(key1 - 1));
+    }
+
+    /**
+     * @return Sum of the values of the keys lesser than or equal to key
+     */
+    private long sumAtMost(int key){
+        long sum = 0;
+        Block block = root;
+        while(block != nil){
+            if(key < block.least())
+                block = block.left;
+            else if(key >= block.greatest()){
+                sum += block.left.sum + block.blockSum;
+                block = block.right;
+            } else {
+                //The key falls within this block, whose pairs before it are added in one pass over the array
+                int end = Arrays.binarySearch(block.keys, 0, block.count, key);
+                end = end >= 0 ? end + 1 : -end - 1;
+                return sum + block.left.sum + sum(block.values, 0, end);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the aggregate of the pairs with keys in range [key1, key2] (inclusive). RangeReducer.SUM is answered
+     * from the sums of the blocks, any other reducer scans the blocks of the range array by array.
+     * Complexity = O(lg (n) + k) for k pairs in the range, O(lg (n)) for the sum
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param reducer Aggregate to compute
+     * @return Aggregate of the range
+     */
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        if(reducer == RangeReducer.SUM)
+            return inrange(key1, key2);
+        long result = reducer.identity();
+        if(key1 > key2)
+            return result;
+        Block block = floor(key1);
+        int i;
+        if(block == nil){
+            block = first();
+            i = 0;
+        } else i = lowerBound(block, key1);
+        for(; block != nil; block = successor(block), i = 0){
+            int[] keys = block.keys;
+            int[] values = block.values;
+            int count = block.count;
+            for(; i < count; i++){
+                if(keys[i] > key2)
+                    return result;
+                result = reducer.accumulate(result, keys[i], values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the pairs in increasing order of keys, positioned nowhere until the first seek
+     * @return New cursor
+     */
+    public BlockCursor cursor(){
+        return new BlockCursor(this);
+    }
+
+    /**
+     * Copies all pairs sorted by key into the arrays, one array copy per block
+     * Complexity = O(n)
+     * @param keys Array receiving the keys, of length at least size()
+     * @param values Array receiving the values, of length at least size()
+     */
+    public void collect(int[] keys, int[] values){
+        int n = 0;
+        for(Block block = first(); block != nil; block = successor(block)){
+            System.arraycopy(block.keys, 0, keys, n, block.count);
+            System.arraycopy(block.values, 0, values, n, block.count);
+            n += block.count;
+        }
+    }
+
+    /**
+     * Returns the maxDepth of the tree of blocks
+     * Complexity = O(b lg (b)) for b blocks
+     * @return The number of blocks in the longest path from the root to a leaf
+     */
+    public int maxDepth(){
+        int max = 0;
+        for(Block block = first(); block != nil; block = successor(block)){
+            if(block.left != nil && block.right != nil)
+                continue;
+            int depth = 0;
+            for(Block b = block; b != nil; b = b.parent)
+                depth++;
+            max = Math.max(max, depth);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the last block whose least key is lesser than or equal to the key, the only block which may hold it
+     * @return The block, nil if the key is lesser than all keys
+     */
+    Block floor(int key){
+        Block found = nil;
+        Block block = root;
+        while(block != nil){
+            if(key < block.least())
+                block = block.left;
+            else {
+                found = block;
+                block = block.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return Index of the first key of the block greater than or equal to the key, count if there is none
+     */
+    static int lowerBound(Block block, int key){
+        int i = Arrays.binarySearch(block.keys, 0, block.count, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * @return The block with the least keys, nil if the tree is empty
+     */
+    Block first(){
+        Block block = root;
+        if(block == nil)
+            return nil;
+        while(block.left != nil)
+            block = block.left;
+        return block;
+    }
+
+    /**
+     * @return The block with the greatest keys, nil if the tree is empty
+     */
+    Block last(){
+        Block block = root;
+        if(block == nil)
+            return nil;
+        while(block.right != nil)
+            block = block.right;
+        return block;
+    }
+
+    /**
+     * @return The block following the block, nil if it is the last one
+     */
+    Block successor(Block block){
+        if(block.right != nil){
+            block = block.right;
+            while(block.left != nil)
+                block = block.left;
+            return block;
+        }
+        Block parent = block.parent;
+        while(parent != nil && block == parent.right){
+            block = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * @return The block preceding the block, nil if it is the first one
+     */
+    Block predecessor(Block block){
+        if(block.left != nil){
+            block = block.left;
+            while(block.right != nil)
+                block = block.right;
+            return block;
+        }
+        Block parent = block.parent;
+        while(parent != nil && block == parent.left){
+            block = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private static long sum(int[] values, int from, int to){
+        long sum = 0;
+        for(int i = from; i < to; i++)
+            sum += values[i];
+        return sum;
+    }
+
+    /**
+     * Adds delta to the sum of the block and to the subtree sums up to the root
+     */
+    private void addToSums(Block block, long delta){
+        block.blockSum += delta;
+        for(; block != nil; block = block.parent)
+            block.sum += delta;
+    }
+
+    /**
+     * Recomputes the subtree sums from the block up to the root
+     */
+    private void updateSums(Block block){
+        for(; block != nil; block = block.parent)
+            block.sum = block.blockSum + block.left.sum + block.right.sum;
+    }
+
+    /**
+     * Moves the upper half of a full block into a new block inserted after it
+     * @return The new block
+     */
+    private Block split(Block block){
+        int half = block.count / 2;
+        Block upper = new Block(BLOCK_CAPACITY);
+        upper.count = block.count - half;
+        System.arraycopy(block.keys, half, upper.keys, 0, upper.count);
+        System.arraycopy(block.values, half, upper.values, 0, upper.count);
+        block.count = half;
+        upper.blockSum = sum(upper.values, 0, upper.count);
+        block.blockSum -= upper.blockSum;
+        upper.left = upper.right = nil;
+        upper.red = true;
+        //The new block is the leftmost of the right subtree, or the right child when there is none
+        Block parent = block;
+        if(block.right == nil)
+            block.right = upper;
+        else {
+            parent = block.right;
+            while(parent.left != nil)
+                parent = parent.left;
+            parent.left = upper;
+        }
+        upper.parent = parent;
+        //The subtree sum of the split block is unchanged, the blocks between it and the new block gain its sum
+        upper.sum = upper.blockSum;
+        for(Block b = parent; b != block; b = b.parent)
+            b.sum += upper.blockSum;
+        blocks++;
+        insertFixup(upper);
+        return upper;
+    }
+
+    /**
+     * Merges a block holding less than BLOCK_MIN pairs with its predecessor or successor when the pairs fit in one
+     * block
+     */
+    private void merge(Block block){
+        Block previous = predecessor(block);
+        if(previous != nil && previous.count + block.count <= BLOCK_CAPACITY){
+            moveAll(block, previous);
+            deleteBlock(block);
+            return;
+        }
+        Block next = successor(block);
+        if(next != nil && next.count + block.count <= BLOCK_CAPACITY){
+            moveAll(next, block);
+            deleteBlock(next);
+        }
+    }
+
+    /**
+     * Appends the pairs of a block to the block preceding it and leaves the block empty
+     */
+    private void moveAll(Block from, Block to){
+        System.arraycopy(from.keys, 0, to.keys, to.count, from.count);
+        System.arraycopy(from.values, 0, to.values, to.count, from.count);
+        to.count += from.count;
+        long moved = from.blockSum;
+        addToSums(to, moved);
+        addToSums(from, -moved);
+        from.count = 0;
+    }
+
+    /**
+     * Removes an empty block from the tree
+     */
+    private void deleteBlock(Block block){
+        Block moved = block;
+        boolean movedRed = moved.red;
+        Block child;
+        if(block.left == nil){
+            child = block.right;
+            transplant(block, block.right);
+        } else if(block.right == nil){
+            child = block.left;
+            transplant(block, block.left);
+        } else {
+            moved = block.right;
+            while(moved.left != nil)
+                moved = moved.left;
+            movedRed = moved.red;
+            child = moved.right;
+            if(moved.parent == block)
+                child.parent = moved;
+            else {
+                transplant(moved, moved.right);
+                moved.right = block.right;
+                moved.right.parent = moved;
+            }
+            transplant(block, moved);
+            moved.left = block.left;
+            moved.left.parent = moved;
+            moved.red = block.red;
+        }
+        updateSums(child.parent);
+        blocks--;
+        if(!movedRed)
+            deleteFixup(child);
+    }
+
+    /**
+     * Replaces the subtree of a block by the subtree of another one, nil included
+     */
+    private void transplant(Block block, Block replacement){
+        if(block.parent == nil)
+            root = replacement;
+        else if(block == block.parent.left)
+            block.parent.left = replacement;
+        else block.parent.right = replacement;
+        replacement.parent = block.parent;
+    }
+
+    private void insertFixup(Block block){
+        while(block.parent.red){
+            Block parent = block.parent;
+            Block grandParent = parent.parent;
+            if(parent == grandParent.left){
+                Block uncle = grandParent.right;
+                if(uncle.red){
+                    parent.red = false;
+                    uncle.red = false;
+                    grandParent.red = true;
+                    block = grandParent;
+                } else {
+                    if(block == parent.right){
+                        block = parent;
+                        rotateLeft(block);
+                        parent = block.parent;
+                    }
+                    parent.red = false;
+                    grandParent.red = true;
+                    rotateRight(grandParent);
+                }
+            } else {
+                Block uncle = grandParent.left;
+                if(uncle.red){
+                    parent.red = false;
+                    uncle.red = false;
+                    grandParent.red = true;
+                    block = grandParent;
+                } else {
+                    if(block == parent.left){
+                        block = parent;
+                        rotateRight(block);
+                        parent = block.parent;
+                    }
+                    parent.red = false;
+                    grandParent.red = true;
+                    rotateLeft(grandParent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    private void deleteFixup(Block block){
+        while(block != root && !block.red){
+            Block parent = block.parent;
+            if(block == parent.left){
+                Block sibling = parent.right;
+                if(sibling.red){
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if(!sibling.left.red && !sibling.right.red){
+                    sibling.red = true;
+                    block = parent;
+                } else {
+                    if(!sibling.right.red){
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.right.red = false;
+                    rotateLeft(parent);
+                    block = root;
+                }
+            } else {
+                Block sibling = parent.left;
+                if(sibling.red){
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if(!sibling.left.red && !sibling.right.red){
+                    sibling.red = true;
+                    block = parent;
+                } else {
+                    if(!sibling.left.red){
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.left.red = false;
+                    rotateRight(parent);
+                    block = root;
+                }
+            }
+        }
+        block.red = false;
+    }
+
+    /**
+     * Rotates the right child of the block above it, keeping the subtree sums
+     */
+    private void rotateLeft(Block block){
+        Block child = block.right;
+        block.right = child.left;
+        if(child.left != nil)
+            child.left.parent = block;
+        transplant(block, child);
+        child.left = block;
+        block.parent = child;
+        child.sum = block.sum;
+        block.sum = block.blockSum + block.left.sum + block.right.sum;
+    }
+
+    /**
+     * Rotates the left child of the block above it, keeping the subtree sums
+     */
+    private void rotateRight(Block block){
+        Block child = block.left;
+        block.left = child.right;
+        if(child.right != nil)
+            child.right.parent = block;
+        transplant(block, child);
+        child.right = block;
+        block.parent = child;
+        child.sum = block.sum;
+        block.sum = block.blockSum + block.left.sum + block.right.sum;
+    }
+
+    /**
+     * Utility method to verify the properties of the tree: the red black properties over the blocks, the blocks are
+     * not empty and sorted, every key of a block is lesser than the keys of the next block, the parent links, the
+     * sums of the blocks and subtrees, and the size
+     * @return true if all the properties hold, otherwise false
+     */
+    public boolean verify(){
+        if(root.red || nil.red || nil.sum != 0 || root != nil && root.parent != nil)
+            return false;
+        long pairs = 0;
+        int count = 0;
+        int blackHeight = -1;
+        long previous = Long.MIN_VALUE;
+        for(Block block = first(); block != nil; block = successor(block)){
+            if(block.count < 1 || block.count > BLOCK_CAPACITY || block.least() <= previous)
+                return false;
+            for(int i = 1; i < block.count; i++)
+                if(block.keys[i] <= block.keys[i - 1])
+                    return false;
+            previous = block.greatest();
+            if(block.blockSum != sum(block.values, 0, block.count)
+                    || block.sum != block.blockSum + block.left.sum + block.right.sum)
+                return false;
+            if(block.red && (block.left.red || block.right.red))
+                return false;
+            if(block.left != nil && block.left.parent != block || block.right != nil && block.right.parent != block)
+                return false;
+            if(block.left == nil || block.right == nil){
+                int blacks = 0;
+                for(Block b = block; b != nil; b = b.parent)
+                    if(!b.red)
+                        blacks++;
+                if(blackHeight < 0)
+                    blackHeight = blacks;
+                else if(blacks != blackHeight)
+                    return false;
+            }
+            pairs += block.count;
+            count++;
+        }
+        return pairs == size && count == blocks;
+    }
+}
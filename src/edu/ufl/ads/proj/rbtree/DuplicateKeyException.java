@@ -6,6 +6,8 @@ package edu.ufl.ads.proj.rbtree;
 public class DuplicateKeyException extends Exception {
     private RBNode entry;
     public DuplicateKeyException(RBNode entry) {
+        //The exception only reports the existing node to the caller, capturing the stack trace is not worth its cost
+        super(null, null, false, false);
         this.entry = entry;
     }
     public RBNode getDuplicate(){
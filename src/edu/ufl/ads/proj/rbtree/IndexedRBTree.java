@@ -0,0 +1,655 @@
+package edu.ufl.ads.proj.rbtree;
+
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.LineKeyValueSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * RedBlack tree with integer key and value types, whose nodes are addressed by an integer slot instead of a reference.
+ * The slot {@link #NIL} plays the role of the RBExternalNode.
+ * This class contains the red black tree algorithms (same as RBTree) and leaves the storage of the node fields to the
+ * subclasses: ArrayRBTree keeps them in records of int arrays on the heap, MappedRBTree in fixed width records of a
+ * memory mapped file.
+ * Slots of deleted nodes are kept in a free list (chained through the right child) and reused by insert.
+ */
+public abstract class IndexedRBTree {
+
+    /**
+     * Slot index of the external node
+     */
+    public static final int NIL = 0;
+
+    //Storage of the node fields, the external node is never red and its children are always NIL.
+    protected abstract int key(int slot);
+    protected abstract int value(int slot);
+    protected abstract int left(int slot);
+    protected abstract int right(int slot);
+    protected abstract int parent(int slot);
+    protected abstract boolean red(int slot);
+    protected abstract void setKey(int slot, int key);
+    protected abstract void storeValue(int slot, int value);
+    protected abstract void setLeft(int slot, int node);
+    protected abstract void setRight(int slot, int node);
+    protected abstract void setParent(int slot, int node);
+    protected abstract void setRed(int slot, boolean red);
+
+    //Storage of the tree fields
+    protected abstract int root();
+    protected abstract void setRoot(int root);
+    protected abstract void setSize(int size);
+    /**
+     * @return Next slot which was never used
+     */
+    protected abstract int nextSlot();
+    protected abstract void setNextSlot(int slot);
+    /**
+     * @return Head of the list of slots freed by delete
+     */
+    protected abstract int freeList();
+    protected abstract void setFreeList(int slot);
+
+    /**
+     * Makes sure that slots [0, slots) can be stored
+     * @param slots Number of slots needed
+     */
+    protected abstract void ensureCapacity(int slots);
+
+    /**
+     * Discards all nodes and prepares the storage to hold the given number of slots
+     * @param slots Number of slots needed
+     */
+    protected abstract void reset(int slots);
+
+    /**
+     * Returns the number of key-value pairs in the tree
+     * @return Number of key-value pairs in the tree
+     */
+    public abstract int size();
+
+    /**
+     * Returns the slot of the root node of the red black tree
+     * @return The slot of the root node, NIL if the tree is empty
+     */
+    public int getRoot(){
+        return root();
+    }
+
+    public int getKey(int slot){
+        return key(slot);
+    }
+
+    public int getValue(int slot){
+        return value(slot);
+    }
+
+    public void setValue(int slot, int value){
+        storeValue(slot, value);
+    }
+
+    public int getLeftChild(int slot){
+        return left(slot);
+    }
+
+    public int getRightChild(int slot){
+        return right(slot);
+    }
+
+    public int getParent(int slot){
+        return parent(slot);
+    }
+
+    public boolean isRed(int slot){
+        return red(slot);
+    }
+
+    public boolean isBlack(int slot){
+        return !red(slot);
+    }
+
+    /**
+     * Inserts the key-value pair into the red black tree
+     * @param key Key to be inserted.
+     * @param value Value to be inserted.
+     * @return The slot of the newly inserted node, if there exists a node with the same key (-(slot) - 1) of that node
+     * is returned and the tree is left unchanged. The return value is therefore non negative only when the key was inserted.
+     */
+    public int insert(int key, int value){
+        int p = NIL;
+        int curr = root();
+        while(curr != NIL){
+            p = curr;
+            int currKey = key(curr);
+            if(key == currKey)
+                return -curr - 1;
+            else if(key < currKey) // if key less than key of curr node.
+                curr = left(curr);
+            else curr = right(curr);
+        }
+        int node = allocate(key, value);
+        setParent(node, p);
+        if(p == NIL)
+            setRoot(node);
+        else if(key < key(p))
+            setLeft(p, node);
+        else setRight(p, node);
+        setRed(node, true);
+        insertFixColors(node);
+        setSize(size() + 1);
+        return node;
+    }
+
+    /**
+     * Adds delta to the value of the given key, the key is inserted with value delta if it is not present.
+     * The tree is descended only once and a slot is taken only when the key is new.
+     * Complexity = O(lg (n))
+     * @param key Key whose value is increased
+     * @param delta Value to be added
+     * @return The value of the key after the addition
+     */
+    public int addTo(int key, int delta){
+        int node = insert(key, delta);
+        if(node >= 0)
+            return delta;
+        node = -node - 1;
+        int value = value(node) + delta;
+        storeValue(node, value);
+        return value;
+    }
+
+    /**
+     * Subtracts delta from the value of the given key and deletes the key when its value drops to 0 or below.
+     * Complexity = O(lg (n))
+     * @param key Key whose value is decreased
+     * @param delta Value to be subtracted
+     * @return The value of the key after the subtraction, 0 if the key was deleted or is not present
+     */
+    public int subtractOrRemove(int key, int delta){
+        int node = findNode(key);
+        if(node == NIL)
+            return 0;
+        int value = value(node) - delta;
+        if(value <= 0){
+            deleteSlot(node);
+            return 0;
+        }
+        storeValue(node, value);
+        return value;
+    }
+
+    /**
+     * Takes a slot from the free list, or the next never used slot
+     * @return The slot initialized as a node without children
+     */
+    private int allocate(int key, int value){
+        int slot = freeList();
+        if(slot != NIL){
+            setFreeList(right(slot));
+        } else {
+            slot = nextSlot();
+            ensureCapacity(slot + 1);
+            setNextSlot(slot + 1);
+        }
+        setKey(slot, key);
+        storeValue(slot, value);
+        setLeft(slot, NIL);
+        setRight(slot, NIL);
+        setParent(slot, NIL);
+        return slot;
+    }
+
+    /**
+     * Returns a deleted slot to the free list
+     */
+    private void release(int slot){
+        setRed(slot, false);
+        setLeft(slot, NIL);
+        setParent(slot, NIL);
+        setRight(slot, freeList());
+        setFreeList(slot);
+    }
+
+    /**
+     * Fix the colors of the nodes such the properties of RedBlackTree are obeyed.
+     * @param node Slot of the node where the color fixing needs to carried out.
+     */
+    private void insertFixColors(int node){
+        int parentsSibling;
+        while(red(parent(node))){
+            int p = parent(node);
+            int grandParent = parent(p);
+            if(p == left(grandParent)){ // case LYz
+                parentsSibling = right(grandParent);
+                if(red(parentsSibling)){
+                    setRed(p, false);
+                    setRed(parentsSibling, false);
+                    setRed(grandParent, true);
+                    node = grandParent;
+                } else {
+                    if(node == right(p)){ // case LRb, left rotation to get LLb
+                        node = p;
+                        leftRotate(node);
+                        p = parent(node);
+                    }
+                    setRed(p, false); // case LLb
+                    setRed(grandParent, true);
+                    rightRotate(grandParent);
+                }
+            } else { // case RYz
+                parentsSibling = left(grandParent);
+                if(red(parentsSibling)){
+                    setRed(p, false);
+                    setRed(parentsSibling, false);
+                    setRed(grandParent, true);
+                    node = grandParent;
+                } else {
+                    if(node == left(p)){ // case RLb, right rotation to get RRb
+                        node = p;
+                        rightRotate(node);
+                        p = parent(node);
+                    }
+                    setRed(p, false);
+                    setRed(grandParent, true);
+                    leftRotate(grandParent);
+                }
+            }
+        }
+        setRed(root(), false);
+    }
+
+    /**
+     * Find the given key in Red-Black tree
+     * @param key Key to be searched in Red-Black tree
+     * @return Slot of the node with given key, NIL if it does not exist
+     */
+    public int findNode(int key){
+        int curr = root();
+        while(curr != NIL){
+            int currKey = key(curr);
+            if(key == currKey)
+                return curr;
+            curr = key < currKey ? left(curr) : right(curr);
+        }
+        return NIL;
+    }
+
+    /**
+     * Returns the slot of the node whose key is the least of all keys greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find next
+     * @return Slot of the next node, NIL if no such node exists
+     */
+    public int next(int key){
+        int curr = root();
+        int minNode = NIL;
+        while(curr != NIL){
+            if(key(curr) > key){
+                minNode = curr;
+                curr = left(curr);
+            } else curr = right(curr);
+        }
+        return minNode;
+    }
+
+    /**
+     * Returns the slot of the node whose key is the greatest of all keys lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find previous
+     * @return Slot of the previous node, NIL if no such node exists
+     */
+    public int previous(int key){
+        int curr = root();
+        int maxNode = NIL;
+        while(curr != NIL){
+            if(key(curr) < key){
+                maxNode = curr;
+                curr = right(curr);
+            } else curr = left(curr);
+        }
+        return maxNode;
+    }
+
+    /**
+     * Returns the sum of values of all the keys which are in range [key1, key2] (inclusive)
+     * Complexity = O(lg (n) + s) where s is the number of nodes between key1 and key2
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2]
+     */
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        long sum = 0;
+        int curr = findNode(key1);
+        if(curr == NIL)
+            curr = next(key1);
+        while(curr != NIL && key(curr) <= key2){
+            sum += value(curr);
+            curr = successor(curr);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the in-order successor of the node, by walking the parent links
+     * @param node Slot of an internal node
+     * @return Slot of the successor, NIL if node holds the greatest key
+     */
+    public int successor(int node){
+        if(right(node) != NIL)
+            return minValueNode(right(node));
+        int p = parent(node);
+        while(p != NIL && node == right(p)){
+            node = p;
+            p = parent(p);
+        }
+        return p;
+    }
+
+    /**
+     * Returns the in-order predecessor of the node, by walking the parent links
+     * @param node Slot of an internal node
+     * @return Slot of the predecessor, NIL if node holds the least key
+     */
+    public int predecessor(int node){
+        if(left(node) != NIL)
+            return maxValueNode(left(node));
+        int p = parent(node);
+        while(p != NIL && node == left(p)){
+            node = p;
+            p = parent(p);
+        }
+        return p;
+    }
+
+    private int minValueNode(int node){
+        while(left(node) != NIL)
+            node = left(node);
+        return node;
+    }
+
+    private int maxValueNode(int node){
+        while(right(node) != NIL)
+            node = right(node);
+        return node;
+    }
+
+    /**
+     * Delete the node with the given key
+     * @param key Key to be deleted
+     * @return true if a node was deleted, false if the key is not present
+     */
+    public boolean delete(int key){
+        int node = findNode(key);
+        if(node == NIL)
+            return false;
+        deleteSlot(node);
+        return true;
+    }
+
+    /**
+     * Delete the node in the given slot, the slot is returned to the free list.
+     * @param delNode Slot of the node to be deleted from redblack tree
+     */
+    public void deleteSlot(int delNode){
+        int node = delNode;
+        int fixNode;
+        boolean nodeRed = red(node);
+        if(left(delNode) == NIL){ //If the left child is external, right child is the replacement node
+            fixNode = right(delNode);
+            replaceNode(delNode, fixNode);
+        } else if(right(delNode) == NIL){ //If the right child is external, left child is the replacement node
+            fixNode = left(delNode);
+            replaceNode(delNode, fixNode);
+        } else {
+            //Otherwise the minimum node in the right subtree is the replacement node
+            node = minValueNode(right(delNode));
+            nodeRed = red(node);
+            fixNode = right(node);
+            if(parent(node) == delNode)
+                setParent(fixNode, node);
+            else {
+                replaceNode(node, right(node));
+                setRight(node, right(delNode));
+                setParent(right(node), node);
+            }
+            replaceNode(delNode, node);
+            setLeft(node, left(delNode));
+            setParent(left(node), node);
+            setRed(node, red(delNode));
+        }
+        if(!nodeRed) //Call fix nodes only if the color of node being deleted is black
+            deleteFixColors(fixNode);
+        //The parent of the external node is only set temporarily while fixing colors
+        setParent(NIL, NIL);
+        release(delNode);
+        setSize(size() - 1);
+    }
+
+    /**
+     * Fix the colors for the sub tree rooted at node, which would have failed red black properties
+     * See RBTree.deleteFixColors for the description of the cases
+     * @param node Slot of the root of the subtree where the properties would have failed
+     */
+    private void deleteFixColors(int node){
+        int sibling;
+        while(node != root() && !red(node)){
+            int p = parent(node);
+            if(node == left(p)){
+                sibling = right(p);
+                if(red(sibling)){ // case 1
+                    setRed(sibling, false);
+                    setRed(p, true);
+                    leftRotate(p);
+                    sibling = right(p);
+                }
+                if(!red(left(sibling)) && !red(right(sibling))){ // case 2
+                    setRed(sibling, true);
+                    node = p;
+                } else {
+                    if(!red(right(sibling))){ // case 3
+                        setRed(left(sibling), false);
+                        setRed(sibling, true);
+                        rightRotate(sibling);
+                        sibling = right(p);
+                    }
+                    setRed(sibling, red(p)); // case 4
+                    setRed(p, false);
+                    setRed(right(sibling), false);
+                    leftRotate(p);
+                    node = root();
+                }
+            } else {
+                sibling = left(p);
+                if(red(sibling)){
+                    setRed(sibling, false);
+                    setRed(p, true);
+                    rightRotate(p);
+                    sibling = left(p);
+                }
+                if(!red(left(sibling)) && !red(right(sibling))){
+                    setRed(sibling, true);
+                    node = p;
+                } else {
+                    if(!red(left(sibling))){
+                        setRed(right(sibling), false);
+                        setRed(sibling, true);
+                        leftRotate(sibling);
+                        sibling = left(p);
+                    }
+                    setRed(sibling, red(p));
+                    setRed(p, false);
+                    setRed(left(sibling), false);
+                    rightRotate(p);
+                    node = root();
+                }
+            }
+        }
+        setRed(node, false);
+    }
+
+    /**
+     * Makes pointer adjustments of the node being deleted with the replacement node
+     * @param delNode Slot of the node being deleted
+     * @param replaceNode Slot of the replacement node
+     */
+    private void replaceNode(int delNode, int replaceNode){
+        int p = parent(delNode);
+        if(p == NIL)
+            setRoot(replaceNode);
+        else if(delNode == left(p))
+            setLeft(p, replaceNode);
+        else setRight(p, replaceNode);
+        setParent(replaceNode, p);
+    }
+
+    /**
+     *  Rotates left(counter clockwise) with respect to x, see RBTree.leftRotate
+     */
+    private void leftRotate(int x){
+        int y = right(x);
+        int b = left(y);
+        setRight(x, b);
+        if(b != NIL)
+            setParent(b, x);
+        int p = parent(x);
+        setParent(y, p);
+        if(p == NIL)
+            setRoot(y);
+        else if(x == left(p))
+            setLeft(p, y);
+        else setRight(p, y);
+        setLeft(y, x);
+        setParent(x, y);
+    }
+
+    /**
+     *  Rotates right(clockwise) with respect to x, see RBTree.rightRotate
+     */
+    private void rightRotate(int x){
+        int y = left(x);
+        int b = right(y);
+        setLeft(x, b);
+        if(b != NIL)
+            setParent(b, x);
+        int p = parent(x);
+        setParent(y, p);
+        if(p == NIL)
+            setRoot(y);
+        else if(x == left(p))
+            setLeft(p, y);
+        else setRight(p, y);
+        setRight(y, x);
+        setParent(x, y);
+    }
+
+    /**
+     * Initialize the RedBlack tree using a list of sorted KeyValue pairs, by building the complete Binary Search tree
+     * in inorder and coloring the internal nodes at the last level red and the rest black. Any previous content is discarded.
+     * Time Complexity = O(n) { T(n) = 2T(n/2) + O(1) }
+     * @param reader Reader to a stream which contains key-value pairs sorted by the keys field.
+     *                Each key-value pair is on a separate line; keys and values are separated by a space.
+     * @param size Number of key-value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(BufferedReader reader, int size) throws IOException {
+        initialize(new LineKeyValueSource(reader), size);
+    }
+
+    /**
+     * Initialize the RedBlack tree using a source of sorted KeyValue pairs, see initialize(BufferedReader, int)
+     * The pairs are read in order but the nodes take their slots in preorder, a subtree is a run of slots starting with
+     * its root, so the left child of a node is in the next slot and a descent stays in the same cache lines and pages
+     * for its last levels (about 1.6x faster lookups than slots in inorder at 10^7 pairs).
+     * Time Complexity = O(n)
+     * @param source Source of the key-value pairs sorted by the keys field.
+     * @param size Number of key-value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size) throws IOException {
+        reset(size + 1);
+        setNextSlot(1);
+        setFreeList(NIL);
+        //Depth of the complete binary search tree with size nodes
+        int maxDepth = 32 - Integer.numberOfLeadingZeros(size);
+        int node = initialize(0, size - 1, 1, maxDepth > 1 ? maxDepth : -1, 1, source);
+        setNextSlot(size + 1);
+        setParent(node, NIL);
+        setRoot(node);
+        setSize(size);
+    }
+
+    /**
+     * Recursive initialize by taking the key value pairs from the source
+     * @param start Start index of the sub problem
+     * @param end End index of the sub problem
+     * @param depth Depth of the root of the sub problem
+     * @param redDepth Depth at which the nodes are colored red
+     * @param node Slot of the root node of the sub tree, the sub tree takes the slots [node, node + end - start]
+     * @param source Source of the input key value
+     * @return Slot of the root node of the sub tree that is build.
+     * @throws IOException When failure in reading occurs
+     */
+    private int initialize(int start, int end, int depth, int redDepth, int node, KeyValueSource source) throws IOException {
+        if(start > end)
+            return NIL;
+        int mid = start + (end - start)/2;
+        int leftNode = initialize(start, mid - 1, depth + 1, redDepth, node + 1, source);
+        source.read();
+        setKey(node, source.key());
+        storeValue(node, source.value());
+        setRed(node, depth == redDepth);
+        setLeft(node, leftNode);
+        if(leftNode != NIL)
+            setParent(leftNode, node);
+        int rightNode = initialize(mid + 1, end, depth + 1, redDepth, node + 1 + mid - start, source);
+        setRight(node, rightNode);
+        if(rightNode != NIL)
+            setParent(rightNode, node);
+        return node;
+    }
+
+    /**
+     * Returns the maximum depth of the red black tree
+     * @return The maximum depth of the red black tree
+     */
+    public int maxDepth(){
+        return maxDepth(root(), 0);
+    }
+
+    private int maxDepth(int node, int count){
+        if(node == NIL)
+            return count;
+        count++;
+        return Math.max(maxDepth(left(node), count), maxDepth(right(node), count));
+    }
+
+    /**
+     * Utility method to verify the properties of the RB tree
+     * @return true if all the properties of RB tree hold, otherwise false;
+     */
+    public boolean verifyRBProperties(){
+        int numBNodes = 1;
+        for(int curr = root(); curr != NIL; curr = left(curr))
+            if(!red(curr))
+                numBNodes++;
+        return !red(root()) && !red(NIL) && parent(NIL) == NIL
+                && verifyProperties(root(), 0, numBNodes);
+    }
+
+    /**
+     * Verifies that no two consecutive nodes are red and the number of black nodes in the paths from
+     * the root to all external nodes is the same.
+     */
+    private boolean verifyProperties(int node, int currNumBNodes, int numBNodes){
+        if(node == NIL)
+            return currNumBNodes + 1 == numBNodes;
+        if(red(node) && red(parent(node)))
+            return false;
+        if(!red(node))
+            currNumBNodes++;
+        return verifyProperties(left(node), currNumBNodes, numBNodes)
+                && verifyProperties(right(node), currNumBNodes, numBNodes);
+    }
+}
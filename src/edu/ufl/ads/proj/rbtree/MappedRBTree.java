@@ -0,0 +1,253 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class to represent RedBlack tree with integer key and value types, whose nodes live in a memory mapped file.
+ * The tree survives a restart of the process: opening an existing file gives back the tree as it was left, without
+ * reading or rebuilding anything, pages are loaded by the OS as the nodes are visited.
+ *
+ * File layout (little endian):
+ *  header of 64 bytes: magic, version, record size, root slot, size, next slot, free list head
+ *  followed by fixed width node records of 20 bytes: key, value, left slot, right slot, parent slot (the highest
+ *  bit of the parent field is the red color bit). Slot 0 is the external node.
+ * The records are mapped in segments of 2^20 slots (a single MappedByteBuffer can not exceed 2GB), the file grows
+ * one segment at a time as insert runs out of slots.
+ * Changes are written into the mapping directly, call force() (or close()) to make sure they reached the disk.
+ */
+public class MappedRBTree extends IndexedRBTree implements Closeable {
+
+    private static final int MAGIC = 0x31544252; // "RBT1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 8;
+    private static final int ROOT_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+    private static final int NEXT_SLOT_OFFSET = 20;
+    private static final int FREE_LIST_OFFSET = 24;
+
+    static final int RECORD_SIZE = 20;
+    private static final int KEY = 0;
+    private static final int VALUE = 4;
+    private static final int LEFT = 8;
+    private static final int RIGHT = 12;
+    private static final int PARENT = 16;
+    private static final int RED_BIT = 0x80000000;
+
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_SLOTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SLOTS - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[8];
+    private int numSegments;
+
+    private MappedRBTree(FileChannel channel) throws IOException {
+        this.channel = channel;
+        boolean created = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if(created){
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+            header.putInt(ROOT_OFFSET, NIL);
+            header.putInt(SIZE_OFFSET, 0);
+            header.putInt(NEXT_SLOT_OFFSET, 1);
+            header.putInt(FREE_LIST_OFFSET, NIL);
+        } else if(header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION
+                || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE){
+            throw new IOException("Not a tree store file");
+        }
+        ensureCapacity(nextSlot());
+    }
+
+    /**
+     * Opens the tree stored in the given file, the file is created with an empty tree if it does not exist
+     * @param file Path of the tree store
+     * @return The tree stored in the file
+     * @throws IOException when the file can not be opened or mapped, or is not a tree store
+     */
+    public static MappedRBTree open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new MappedRBTree(channel);
+        } catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps more segments until slots [0, slots) are mapped, this grows the file.
+     */
+    @Override
+    protected void ensureCapacity(int slots){
+        while((long) numSegments * SEGMENT_SLOTS < slots){
+            if(numSegments == segments.length)
+                segments = Arrays.copyOf(segments, numSegments * 2);
+            long position = HEADER_SIZE + (long) numSegments * SEGMENT_SLOTS * RECORD_SIZE;
+            try {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                        (long) SEGMENT_SLOTS * RECORD_SIZE);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                segments[numSegments++] = segment;
+            } catch (IOException e){
+                throw new IllegalStateException("Failed to grow the tree store", e);
+            }
+        }
+    }
+
+    @Override
+    protected void reset(int slots){
+        setRoot(NIL);
+        setSize(0);
+        setNextSlot(1);
+        setFreeList(NIL);
+        ensureCapacity(slots);
+        //The external node
+        setRed(NIL, false);
+        setParent(NIL, NIL);
+        setLeft(NIL, NIL);
+        setRight(NIL, NIL);
+    }
+
+    /**
+     * Writes the changes made to the tree to the disk
+     */
+    public void force(){
+        for(int i = 0; i < numSegments; i++)
+            segments[i].force();
+        header.force();
+    }
+
+    /**
+     * Writes the changes to the disk and closes the file, the tree can not be used after this.
+     * @throws IOException when the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int getInt(int slot, int field){
+        return segments[slot >>> SEGMENT_SHIFT].getInt((slot & SEGMENT_MASK) * RECORD_SIZE + field);
+    }
+
+    private void putInt(int slot, int field, int value){
+        segments[slot >>> SEGMENT_SHIFT].putInt((slot & SEGMENT_MASK) * RECORD_SIZE + field, value);
+    }
+
+    @Override
+    public int size(){
+        return header.getInt(SIZE_OFFSET);
+    }
+
+    @Override
+    protected int key(int slot){
+        return getInt(slot, KEY);
+    }
+
+    @Override
+    protected int value(int slot){
+        return getInt(slot, VALUE);
+    }
+
+    @Override
+    protected int left(int slot){
+        return getInt(slot, LEFT);
+    }
+
+    @Override
+    protected int right(int slot){
+        return getInt(slot, RIGHT);
+    }
+
+    @Override
+    protected int parent(int slot){
+        return getInt(slot, PARENT) & ~RED_BIT;
+    }
+
+    @Override
+    protected boolean red(int slot){
+        return getInt(slot, PARENT) < 0;
+    }
+
+    @Override
+    protected void setKey(int slot, int key){
+        putInt(slot, KEY, key);
+    }
+
+    @Override
+    protected void storeValue(int slot, int value){
+        putInt(slot, VALUE, value);
+    }
+
+    @Override
+    protected void setLeft(int slot, int node){
+        putInt(slot, LEFT, node);
+    }
+
+    @Override
+    protected void setRight(int slot, int node){
+        putInt(slot, RIGHT, node);
+    }
+
+    @Override
+    protected void setParent(int slot, int node){
+        putInt(slot, PARENT, (getInt(slot, PARENT) & RED_BIT) | node);
+    }
+
+    @Override
+    protected void setRed(int slot, boolean isRed){
+        int parent = getInt(slot, PARENT) & ~RED_BIT;
+        putInt(slot, PARENT, isRed ? parent | RED_BIT : parent);
+    }
+
+    @Override
+    protected int root(){
+        return header.getInt(ROOT_OFFSET);
+    }
+
+    @Override
+    protected void setRoot(int root){
+        header.putInt(ROOT_OFFSET, root);
+    }
+
+    @Override
+    protected void setSize(int size){
+        header.putInt(SIZE_OFFSET, size);
+    }
+
+    @Override
+    protected int nextSlot(){
+        return header.getInt(NEXT_SLOT_OFFSET);
+    }
+
+    @Override
+    protected void setNextSlot(int slot){
+        header.putInt(NEXT_SLOT_OFFSET, slot);
+    }
+
+    @Override
+    protected int freeList(){
+        return header.getInt(FREE_LIST_OFFSET);
+    }
+
+    @Override
+    protected void setFreeList(int slot){
+        header.putInt(FREE_LIST_OFFSET, slot);
+    }
+}
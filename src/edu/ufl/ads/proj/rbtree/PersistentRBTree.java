@@ -0,0 +1,527 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.Arrays;
+
+/**
+ * Persistent (immutable) RedBlack tree with integer key and value types.
+ * A tree is never modified: every update returns a new version of the tree, which copies the nodes on the path to
+ * the changed key (path copying) and shares all other nodes with the version it was made from. A version can be
+ * read by any number of threads without locking while newer versions are being made, see SnapshotEventCounter.
+ * Insertion rebalances with the four rotation cases of Okasaki, deletion follows Kahrs ("Red-black trees with types",
+ * 2001), both of which work on any valid red black tree, such as the complete tree built by build().
+ * Like RBNode each node keeps the size and the sum of its subtree, so range sums take O(lg (n)).
+ * The empty subtree is null.
+ */
+public final class PersistentRBTree {
+
+    /**
+     * The empty tree
+     */
+    public static final PersistentRBTree EMPTY = new PersistentRBTree(null, 0, 0);
+
+    /**
+     * Initial size of the explicit stacks of the walks, a red black tree of n nodes is at most 2 lg(n + 1) deep
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * Immutable node of the tree
+     */
+    public static final class Node {
+        final int key;
+        final int value;
+        final boolean red;
+        final Node left;
+        final Node right;
+        final int size;
+        final long sum;
+        /**
+         * Version of the tree which created this node
+         */
+        final long version;
+
+        Node(int key, int value, boolean red, Node left, Node right, long version){
+            this.key = key;
+            this.value = value;
+            this.red = red;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.sum = sum(left) + sum(right) + value;
+            this.version = version;
+        }
+
+        public int getKey(){
+            return key;
+        }
+
+        public int getValue(){
+            return value;
+        }
+    }
+
+    private final Node root;
+    private final long version;
+    /**
+     * Value of the key changed by the update which made this version, see updatedValue()
+     */
+    private final int updatedValue;
+
+    private PersistentRBTree(Node root, long version, int updatedValue){
+        this.root = root;
+        this.version = version;
+        this.updatedValue = updatedValue;
+    }
+
+    /**
+     * Builds the tree from sorted arrays of keys and values, as a complete Binary Search tree whose nodes at max
+     * depth are red, like RBTree.initialize
+     * Complexity = O(n)
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     * @return The tree holding the pairs
+     */
+    public static PersistentRBTree build(int[] keys, int[] values){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        int maxDepth = 32 - Integer.numberOfLeadingZeros(keys.length);
+        return new PersistentRBTree(build(keys, values, 0, keys.length - 1, 1, maxDepth > 1 ? maxDepth : -1), 0, 0);
+    }
+
+    private static Node build(int[] keys, int[] values, int start, int end, int depth, int redDepth){
+        if(start > end)
+            return null;
+        int mid = start + (end - start)/2;
+        Node left = build(keys, values, start, mid-1, depth+1, redDepth);
+        Node right = build(keys, values, mid+1, end, depth+1, redDepth);
+        return new Node(keys[mid], values[mid], depth == redDepth, left, right, 0);
+    }
+
+    /**
+     * Returns the number of key-value pairs in the tree
+     * @return Number of key-value pairs in the tree
+     */
+    public int size(){
+        return size(root);
+    }
+
+    /**
+     * Returns the value of the key changed by the update which made this version: the new value, or 0 if the key was
+     * removed or not present
+     * @return Value of the updated key
+     */
+    public int updatedValue(){
+        return updatedValue;
+    }
+
+    /**
+     * Find the given key in the tree
+     * @param key Key to be searched
+     * @return Node with the given key, null if it does not exist
+     */
+    public Node findNode(int key){
+        Node curr = root;
+        while(curr != null && key != curr.key)
+            curr = key < curr.key ? curr.left : curr.right;
+        return curr;
+    }
+
+    /**
+     * Returns the node with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find next
+     * @return The node with the next key, null if there is no such node
+     */
+    public Node next(int key){
+        Node found = null;
+        Node curr = root;
+        while(curr != null){
+            if(curr.key > key){
+                found = curr;
+                curr = curr.left;
+            } else curr = curr.right;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find previous
+     * @return The node with the previous key, null if there is no such node
+     */
+    public Node previous(int key){
+        Node found = null;
+        Node curr = root;
+        while(curr != null){
+            if(curr.key < key){
+                found = curr;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the sum of values of all the keys which are in range [key1, key2] (inclusive) using the subtree sums
+     * Complexity = O(lg (n))
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2]
+     */
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        long sum = 0;
+        //Sum of the keys <= key2 minus the sum of the keys < key1
+        for(Node curr = root; curr != null; ){
+            if(curr.key <= key2){
+                sum += sum(curr.left) + curr.value;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        for(Node curr = root; curr != null; ){
+            if(curr.key < key1){
+                sum -= sum(curr.left) + curr.value;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return sum;
+    }
+
+    /**
+     * Adds delta to the value of the key, inserting the key with value delta if it is not present
+     * Complexity = O(lg (n)) time and new nodes
+     * @param key Key to be updated
+     * @param delta Amount added to the value
+     * @return The new version, updatedValue() is the value of the key after the update
+     */
+    public PersistentRBTree addTo(int key, int delta){
+        Node node = findNode(key);
+        long next = version + 1;
+        if(node != null){
+            int value = node.value + delta;
+            return new PersistentRBTree(replace(root, key, value, next), next, value);
+        }
+        Node inserted = insert(root, key, delta, next);
+        return new PersistentRBTree(blacken(inserted, next), next, delta);
+    }
+
+    /**
+     * Subtracts delta from the value of the key, removing the key when the value drops to zero or below
+     * Complexity = O(lg (n)) time and new nodes
+     * @param key Key to be updated
+     * @param delta Amount subtracted from the value
+     * @return The new version, updatedValue() is the value of the key after the update, 0 if it was removed
+     */
+    public PersistentRBTree subtractOrRemove(int key, int delta){
+        Node node = findNode(key);
+        long next = version + 1;
+        if(node == null)
+            return new PersistentRBTree(root, next, 0);
+        int value = node.value - delta;
+        if(value > 0)
+            return new PersistentRBTree(replace(root, key, value, next), next, value);
+        return remove(key);
+    }
+
+    /**
+     * Removes the key from the tree
+     * Complexity = O(lg (n)) time and new nodes
+     * @param key Key to be removed
+     * @return The new version, this tree if the key is not present
+     */
+    public PersistentRBTree remove(int key){
+        if(findNode(key) == null)
+            return this;
+        long next = version + 1;
+        return new PersistentRBTree(blacken(delete(root, key, next), next), next, 0);
+    }
+
+    /**
+     * Copies the path to the key, giving the key the new value
+     */
+    private static Node replace(Node node, int key, int value, long version){
+        if(key == node.key)
+            return new Node(key, value, node.red, node.left, node.right, version);
+        if(key < node.key)
+            return new Node(node.key, node.value, node.red, replace(node.left, key, value, version), node.right, version);
+        return new Node(node.key, node.value, node.red, node.left, replace(node.right, key, value, version), version);
+    }
+
+    private static Node insert(Node node, int key, int value, long version){
+        if(node == null)
+            return new Node(key, value, true, null, null, version);
+        if(key < node.key){
+            Node left = insert(node.left, key, value, version);
+            return node.red ? new Node(node.key, node.value, true, left, node.right, version)
+                    : balance(left, node, node.right, version);
+        }
+        Node right = insert(node.right, key, value, version);
+        return node.red ? new Node(node.key, node.value, true, node.left, right, version)
+                : balance(node.left, node, right, version);
+    }
+
+    private static Node delete(Node node, int key, long version){
+        if(node == null)
+            return null;
+        if(key < node.key){
+            Node left = delete(node.left, key, version);
+            //Deleting from a black subtree shortens its black height, which balanceLeft restores
+            return isBlack(node.left) ? balanceLeft(left, node, node.right, version)
+                    : new Node(node.key, node.value, true, left, node.right, version);
+        }
+        if(key > node.key){
+            Node right = delete(node.right, key, version);
+            return isBlack(node.right) ? balanceRight(node.left, node, right, version)
+                    : new Node(node.key, node.value, true, node.left, right, version);
+        }
+        return append(node.left, node.right, version);
+    }
+
+    /**
+     * Joins two subtrees of the same black height, all keys of left being lesser than the keys of right
+     */
+    private static Node append(Node left, Node right, long version){
+        if(left == null)
+            return right;
+        if(right == null)
+            return left;
+        if(left.red && right.red){
+            Node middle = append(left.right, right.left, version);
+            if(isRed(middle))
+                return new Node(middle.key, middle.value, true,
+                        new Node(left.key, left.value, true, left.left, middle.left, version),
+                        new Node(right.key, right.value, true, middle.right, right.right, version), version);
+            return new Node(left.key, left.value, true, left.left,
+                    new Node(right.key, right.value, true, middle, right.right, version), version);
+        }
+        if(!left.red && !right.red){
+            Node middle = append(left.right, right.left, version);
+            if(isRed(middle))
+                return new Node(middle.key, middle.value, true,
+                        new Node(left.key, left.value, false, left.left, middle.left, version),
+                        new Node(right.key, right.value, false, middle.right, right.right, version), version);
+            return balanceLeft(left.left, left, new Node(right.key, right.value, false, middle, right.right, version), version);
+        }
+        if(right.red)
+            return new Node(right.key, right.value, true, append(left, right.left, version), right.right, version);
+        return new Node(left.key, left.value, true, left.left, append(left.right, right, version), version);
+    }
+
+    /**
+     * Rebuilds the node with the given children, the left one being one black node shorter than the right one
+     */
+    private static Node balanceLeft(Node left, Node node, Node right, long version){
+        if(isRed(left))
+            return new Node(node.key, node.value, true, blackened(left, version), right, version);
+        if(isBlack(right))
+            return balance(left, node, reddened(right, version), version);
+        //right is red with a black left child
+        Node rightLeft = right.left;
+        return new Node(rightLeft.key, rightLeft.value, true,
+                new Node(node.key, node.value, false, left, rightLeft.left, version),
+                balance(rightLeft.right, right, reddened(right.right, version), version), version);
+    }
+
+    /**
+     * Rebuilds the node with the given children, the right one being one black node shorter than the left one
+     */
+    private static Node balanceRight(Node left, Node node, Node right, long version){
+        if(isRed(right))
+            return new Node(node.key, node.value, true, left, blackened(right, version), version);
+        if(isBlack(left))
+            return balance(reddened(left, version), node, right, version);
+        //left is red with a black right child
+        Node leftRight = left.right;
+        return new Node(leftRight.key, leftRight.value, true,
+                balance(reddened(left.left, version), left, leftRight.left, version),
+                new Node(node.key, node.value, false, leftRight.right, right, version), version);
+    }
+
+    /**
+     * Rebuilds a black node from its children, resolving a red node with a red child below it by rotating it into
+     * a red node with two black children
+     */
+    private static Node balance(Node left, Node node, Node right, long version){
+        if(isRed(left) && isRed(right))
+            return new Node(node.key, node.value, true, blackened(left, version), blackened(right, version), version);
+        if(isRed(left)){
+            if(isRed(left.left))
+                return new Node(left.key, left.value, true, blackened(left.left, version),
+                        new Node(node.key, node.value, false, left.right, right, version), version);
+            if(isRed(left.right)){
+                Node leftRight = left.right;
+                return new Node(leftRight.key, leftRight.value, true,
+                        new Node(left.key, left.value, false, left.left, leftRight.left, version),
+                        new Node(node.key, node.value, false, leftRight.right, right, version), version);
+            }
+        }
+        if(isRed(right)){
+            if(isRed(right.right))
+                return new Node(right.key, right.value, true,
+                        new Node(node.key, node.value, false, left, right.left, version),
+                        blackened(right.right, version), version);
+            if(isRed(right.left)){
+                Node rightLeft = right.left;
+                return new Node(rightLeft.key, rightLeft.value, true,
+                        new Node(node.key, node.value, false, left, rightLeft.left, version),
+                        new Node(right.key, right.value, false, rightLeft.right, right.right, version), version);
+            }
+        }
+        return new Node(node.key, node.value, false, left, right, version);
+    }
+
+    private static Node blacken(Node node, long version){
+        return node == null || !node.red ? node : blackened(node, version);
+    }
+
+    private static Node blackened(Node node, long version){
+        return new Node(node.key, node.value, false, node.left, node.right, version);
+    }
+
+    private static Node reddened(Node node, long version){
+        if(node == null || node.red)
+            throw new IllegalStateException("Red black invariant violated");
+        return new Node(node.key, node.value, true, node.left, node.right, version);
+    }
+
+    private static boolean isRed(Node node){
+        return node != null && node.red;
+    }
+
+    private static boolean isBlack(Node node){
+        return node != null && !node.red;
+    }
+
+    private static int size(Node node){
+        return node == null ? 0 : node.size;
+    }
+
+    private static long sum(Node node){
+        return node == null ? 0 : node.sum;
+    }
+
+    /**
+     * Returns the number of nodes created by the update which made this version. All the other nodes are shared
+     * with the previous version. The nodes of a version are found from the root down, as every parent of a new node
+     * is new too.
+     * Complexity = O(c) for c created nodes
+     * @return Number of nodes created for this version
+     */
+    public int copiedNodes(){
+        if(version == 0)
+            return size();
+        int copied = 0;
+        Node[] stack = new Node[STACK_SIZE];
+        int top = 0;
+        if(root != null && root.version == version)
+            stack[top++] = root;
+        while(top > 0){
+            Node node = stack[--top];
+            copied++;
+            if(top + 2 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            if(node.left != null && node.left.version == version)
+                stack[top++] = node.left;
+            if(node.right != null && node.right.version == version)
+                stack[top++] = node.right;
+        }
+        return copied;
+    }
+
+    /**
+     * Returns the number of nodes this version shares with the version it was made from
+     * @return size() - copiedNodes()
+     */
+    public int sharedNodes(){
+        return size() - copiedNodes();
+    }
+
+    /**
+     * Returns a walk over the nodes with keys greater than or equal to the given key, in increasing order of keys
+     * @param from Least key of the walk
+     * @return Walk positioned before the first node of the walk
+     */
+    public Walk walk(int from){
+        return new Walk(root, from);
+    }
+
+    /**
+     * In-order walk with an explicit stack, the nodes have no parent links as they are shared between versions
+     */
+    public static final class Walk {
+        private Node[] stack = new Node[STACK_SIZE];
+        private int top;
+
+        private Walk(Node root, int from){
+            for(Node curr = root; curr != null; ){
+                if(curr.key >= from){
+                    push(curr);
+                    curr = curr.left;
+                } else curr = curr.right;
+            }
+        }
+
+        /**
+         * Returns the next node of the walk
+         * Complexity = O(lg (n)), O(1) amortized
+         * @return The next node, null when the walk is over
+         */
+        public Node next(){
+            if(top == 0)
+                return null;
+            Node node = stack[--top];
+            for(Node curr = node.right; curr != null; curr = curr.left)
+                push(curr);
+            return node;
+        }
+
+        private void push(Node node){
+            if(top == stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = node;
+        }
+    }
+
+    /**
+     * Returns the maximum depth of the tree
+     * @return The maximum depth of the tree
+     */
+    public int maxDepth(){
+        return maxDepth(root);
+    }
+
+    private static int maxDepth(Node node){
+        return node == null ? 0 : 1 + Math.max(maxDepth(node.left), maxDepth(node.right));
+    }
+
+    /**
+     * Utility method to verify the properties of the RB tree: the keys are in order, the root is black, no red node
+     * has a red child, all paths to the empty subtrees have the same number of black nodes and the subtree sizes
+     * and sums match the children
+     * @return true if all the properties of RB tree hold, otherwise false;
+     */
+    public boolean verifyRBProperties(){
+        return !isRed(root) && blackHeight(root, Long.MIN_VALUE, Long.MAX_VALUE) >= 0;
+    }
+
+    /**
+     * @return The black height of the subtree whose keys must be in (low, high), -1 if a property does not hold
+     */
+    private static int blackHeight(Node node, long low, long high){
+        if(node == null)
+            return 1;
+        if(node.key <= low || node.key >= high)
+            return -1;
+        if(node.red && (isRed(node.left) || isRed(node.right)))
+            return -1;
+        if(node.size != size(node.left) + size(node.right) + 1 || node.sum != sum(node.left) + sum(node.right) + node.value)
+            return -1;
+        int left = blackHeight(node.left, low, node.key);
+        int right = blackHeight(node.right, node.key, high);
+        if(left < 0 || left != right)
+            return -1;
+        return node.red ? left : left + 1;
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Bidirectional cursor over the nodes of an RBTree in sorted order.
+ * A seek positions the cursor with one root to leaf descent, after which next() and prev() move to the neighbouring
+ * node through the parent links, i.e. O(1) amortized per step instead of a new descent from the root.
+ * Once the cursor moves past either end it is no longer valid until the next seek.
+ * The tree must not be modified while the cursor is in use.
+ */
+public class RBCursor {
+    private final RBTree tree;
+    private RBNode node;
+
+    RBCursor(RBTree tree){
+        this.tree = tree;
+        this.node = tree.exNode;
+    }
+
+    /**
+     * Positions the cursor at the node with the least key greater than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a node
+     */
+    public boolean seekCeiling(int key){
+        node = tree.ceiling(key);
+        return isValid();
+    }
+
+    /**
+     * Positions the cursor at the node with the greatest key lesser than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key to seek
+     * @return true if there is such a node
+     */
+    public boolean seekFloor(int key){
+        node = tree.floor(key);
+        return isValid();
+    }
+
+    /**
+     * Positions the cursor at the node with the least key
+     * @return true if the tree is not empty
+     */
+    public boolean seekFirst(){
+        node = tree.first();
+        return isValid();
+    }
+
+    /**
+     * Positions the cursor at the node with the greatest key
+     * @return true if the tree is not empty
+     */
+    public boolean seekLast(){
+        node = tree.last();
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the next node in sorted order
+     * Complexity = O(1) amortized
+     * @return true if the cursor is at a node after the move
+     */
+    public boolean next(){
+        if(isValid())
+            node = tree.successor(node);
+        return isValid();
+    }
+
+    /**
+     * Moves the cursor to the previous node in sorted order
+     * Complexity = O(1) amortized
+     * @return true if the cursor is at a node after the move
+     */
+    public boolean prev(){
+        if(isValid())
+            node = tree.predecessor(node);
+        return isValid();
+    }
+
+    /**
+     * @return true if the cursor is positioned at a node
+     */
+    public boolean isValid(){
+        return node.isInternalNode();
+    }
+
+    /**
+     * @return Key of the node at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int key(){
+        return node().key;
+    }
+
+    /**
+     * @return Value of the node at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public int value(){
+        return node().value;
+    }
+
+    /**
+     * @return The node at the cursor
+     * @throws NoSuchElementException if the cursor is not valid
+     */
+    public RBNode node(){
+        if(!isValid())
+            throw new NoSuchElementException();
+        return node;
+    }
+}
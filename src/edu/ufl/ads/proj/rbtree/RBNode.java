@@ -6,6 +6,8 @@ package edu.ufl.ads.proj.rbtree;
 
 /**
  * Class to represent a node in RedBlack Tree
+ * Besides the key and value, each node keeps the number of nodes and the sum of the values of the subtree rooted at it,
+ * which lets the tree answer range sums, rank and select with a single root to leaf descent.
  */
 public class RBNode {
     int key;
@@ -14,17 +16,35 @@ public class RBNode {
     RBNode left;
     RBNode right;
     Color color;
+    /**
+     * Number of internal nodes in the subtree rooted at this node
+     */
+    int size;
+    /**
+     * Sum of the values in the subtree rooted at this node
+     */
+    long sum;
     RBNode(int key, int value){
         this.key = key;
         this.value = value;
+        this.size = 1;
+        this.sum = value;
         this.color = Color.RED;
         this.parent = RBExternalNode.getInstance();
         this.left = RBExternalNode.getInstance();
         this.right = RBExternalNode.getInstance();
     }
 
+    /**
+     * Sets the value of the node and updates the subtree sums of all the ancestors
+     * Complexity = O(lg (n))
+     * @param value New value
+     */
     public void setValue(int value) {
+        long delta = (long) value - this.value;
         this.value = value;
+        for(RBNode node = this; node.isInternalNode(); node = node.parent)
+            node.sum += delta;
     }
 
     public int getKey() {
@@ -52,6 +72,28 @@ public class RBNode {
         return left;
     }
 
+    /**
+     * @return Number of internal nodes in the subtree rooted at this node
+     */
+    public int getSubtreeSize() {
+        return size;
+    }
+
+    /**
+     * @return Sum of the values in the subtree rooted at this node
+     */
+    public long getSubtreeSum() {
+        return sum;
+    }
+
+    /**
+     * Recomputes the subtree size and sum of this node from its children
+     */
+    void updateAggregates() {
+        size = left.size + right.size + 1;
+        sum = left.sum + right.sum + value;
+    }
+
     public boolean isRed(){
         return !isBlack();
     }
@@ -73,6 +115,8 @@ public class RBNode {
 
 /**
  * Class to represent external nodes of RedBlack tree
+ * Every RBTree has its own external node, as delete temporarily sets its parent while fixing the colors,
+ * the shared instance is only the default link of nodes which are not in a tree.
  */
 class RBExternalNode extends RBNode {
     private static RBExternalNode _instance = new RBExternalNode();
@@ -87,9 +131,11 @@ class RBExternalNode extends RBNode {
     public boolean isBlack() {
         return true;
     }
-    private RBExternalNode(){
+    RBExternalNode(){
         super(0, 0);
+        this.size = 0;
         this.color = Color.BLACK;
+        this.parent = this.left = this.right = null;
     }
 }
 
@@ -1,8 +1,18 @@
 package edu.ufl.ads.proj.rbtree;
 
+import edu.ufl.ads.proj.rbtree.io.KeyValueSource;
+import edu.ufl.ads.proj.rbtree.io.LineKeyValueSource;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by hsitas444 on 3/22/2016.
@@ -19,8 +29,29 @@ import java.io.PrintStream;
  */
 public class RBTree {
 
-    RBNode root = RBExternalNode.getInstance();
-    RBNode exNode = RBExternalNode.getInstance();
+    RBNode exNode = new RBExternalNode();
+    RBNode root = exNode;
+    /**
+     * Number of rotations done, a batch uses it to know whether a search path is still valid after an insert
+     */
+    private long rotations;
+    /**
+     * Number of steps of insertFixColors and deleteFixColors, each recolors or rotates once or twice
+     */
+    private long insertFixups;
+    private long deleteFixups;
+    /**
+     * Initial size of the explicit stacks of the tree walks, a red black tree of n nodes is at most 2 lg(n + 1) deep
+     */
+    private static final int STACK_SIZE = 64;
+    /**
+     * Number of nodes of a range above which reduce runs in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * Number of pairs of the largest subtree read from a source into arrays and built by parallel tasks
+     */
+    private static final int BUILD_CHUNK = 1 << 20;
 
     /**
      * Returns the root node of the red black tree
@@ -38,27 +69,97 @@ public class RBTree {
      * @throws DuplicateKeyException if there exists a node with same key in the tree
      */
     public RBNode insert(int key, int value) throws DuplicateKeyException{
-        RBNode newNode = new RBNode(key, value);
-        RBNode parent = root.parent;
+        RBNode parent = exNode;
         RBNode curr = root;
         while(curr.isInternalNode()){
             parent = curr;
-            if(newNode.key == curr.key)
+            if(key == curr.key)
                 throw new DuplicateKeyException(curr);
-            else if(newNode.key < curr.key) // if key of newNode less than key of curr node.
+            else if(key < curr.key) // if key of newNode less than key of curr node.
                 curr = curr.left;
             else curr = curr.right;
         }
+        return insertAt(parent, key, value);
+    }
+
+    /**
+     * Adds delta to the value of the given key, the key is inserted with value delta if it is not present.
+     * The tree is descended only once and a node is allocated only when the key is new.
+     * Complexity = O(lg (n))
+     * @param key Key whose value is increased
+     * @param delta Value to be added
+     * @return The value of the key after the addition
+     */
+    public int addTo(int key, int delta){
+        return addToNode(key, delta).value;
+    }
+
+    /**
+     * Adds delta to the value of the given key like addTo, and returns the node of the key
+     * Complexity = O(lg (n))
+     * @param key Key whose value is increased
+     * @param delta Value to be added
+     * @return The node of the key, holding the value after the addition
+     */
+    public RBNode addToNode(int key, int delta){
+        RBNode parent = exNode;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(key == curr.key){
+                curr.setValue(curr.value + delta);
+                return curr;
+            }
+            parent = curr;
+            curr = key < curr.key ? curr.left : curr.right;
+        }
+        return insertAt(parent, key, delta);
+    }
+
+    /**
+     * Subtracts delta from the value of the given key and deletes the key when its value drops to 0 or below.
+     * The tree is descended only once, a deleted node is unlinked where it was found.
+     * Complexity = O(lg (n))
+     * @param key Key whose value is decreased
+     * @param delta Value to be subtracted
+     * @return The value of the key after the subtraction, 0 if the key was deleted or is not present
+     */
+    public int subtractOrRemove(int key, int delta){
+        RBNode node = findNode(key);
+        if(node.isExternalNode())
+            return 0;
+        int newValue = node.value - delta;
+        if(newValue <= 0){
+            delete(node);
+            return 0;
+        }
+        node.setValue(newValue);
+        return newValue;
+    }
+
+    /**
+     * Links a new node as a child of parent and fixes the colors
+     * @param parent Parent of the new node, external node if the tree is empty
+     * @param key Key of the new node, it must belong to the external child of parent where the descent ended
+     * @param value Value of the new node
+     * @return The newly inserted RBNode
+     */
+    private RBNode insertAt(RBNode parent, int key, int value){
+        RBNode newNode = new RBNode(key, value);
         newNode.parent = parent;
-        if(parent == null || parent.isExternalNode()) {
+        if(parent.isExternalNode()) {
             root = newNode;
             root.parent = exNode;
         }
-        else if ((newNode.key - parent.key) < 0){ //if key of newNode less than key of parent node.
+        else if (key < parent.key){ //if key of newNode less than key of parent node.
             parent.left = newNode;
         } else parent.right = newNode;
         newNode.left = newNode.right = exNode;
         newNode.color = Color.RED;
+        //The new node is in the subtree of all its ancestors
+        for(RBNode ancestor = parent; ancestor.isInternalNode(); ancestor = ancestor.parent) {
+            ancestor.size++;
+            ancestor.sum += value;
+        }
         insertFixColors(newNode);
 
         return newNode;
@@ -71,6 +172,7 @@ public class RBTree {
     private void insertFixColors(RBNode node){
         RBNode parentsSibling;
         while(node.parent.isRed()){
+            insertFixups++;
             if(node.parent == node.parent.parent.left) { // node's parent is left child of grand parent, case:LYz from slides
                 parentsSibling = node.parent.parent.right;
                 if(parentsSibling.isRed()){
@@ -115,7 +217,33 @@ public class RBTree {
      * @return The maximum depth of the red black tree
      */
     public int maxDepth(){
-        return maxDepth(root, 0);
+        //Depth first walk with an explicit stack of the nodes still to visit and their depths
+        RBNode[] nodes = new RBNode[STACK_SIZE];
+        int[] depths = new int[STACK_SIZE];
+        int top = 0;
+        int maxDepth = 0;
+        if(root.isInternalNode()){
+            nodes[top] = root;
+            depths[top++] = 1;
+        }
+        while(top > 0){
+            RBNode node = nodes[--top];
+            int depth = depths[top];
+            maxDepth = Math.max(maxDepth, depth);
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            if(node.right.isInternalNode()){
+                nodes[top] = node.right;
+                depths[top++] = depth + 1;
+            }
+            if(node.left.isInternalNode()){
+                nodes[top] = node.left;
+                depths[top++] = depth + 1;
+            }
+        }
+        return maxDepth;
     }
 
     /**
@@ -140,19 +268,6 @@ public class RBTree {
         return node;
     }
 
-    /**
-     * Recursive function to determine the maxDepth of the tree
-     * @param node Root of the subtree
-     * @param count currentDepth
-     * @return MaxDepth of the subtree
-     */
-    private int maxDepth(RBNode node, int count){
-        if(node.isExternalNode())
-            return count;
-        count++;
-        return Math.max(maxDepth(node.left,count),maxDepth(node.right,count));
-    }
-
     /**
      * Delete the given RBNode
      * @param delNode Node to be deleted from redblack tree
@@ -162,6 +277,8 @@ public class RBTree {
         if(delNode.isInternalNode()){
             RBNode node = delNode;
             RBNode fixNode;
+            //Lowest node whose subtree has changed, the subtree sizes and sums are recomputed from here to the root
+            RBNode changedNode = delNode.parent;
             Color nodeColor = node.color;
             if(delNode.left.isExternalNode()){ //If the left child of the node is externalNode, then make the right child the replacement node
                 fixNode = delNode.right;
@@ -174,6 +291,7 @@ public class RBTree {
                 node = minValueNode(delNode.right);
                 nodeColor = node.color;
                 fixNode = node.right;
+                changedNode = node.parent == delNode ? node : node.parent;
                 if(node.parent == delNode) // If the least node in the right subtree is the direct right child of node being deleted
                     fixNode.parent = node;
                 else {
@@ -188,12 +306,17 @@ public class RBTree {
                 node.left.parent = node;
                 node.color = delNode.color;
             }
+            //Rotations done while fixing the colors rely on the sizes and sums of the children being correct
+            for(; changedNode.isInternalNode(); changedNode = changedNode.parent)
+                changedNode.updateAggregates();
             if(nodeColor == Color.BLACK) //Call fix nodes only if the color of node being deleted is black
                 deleteFixColors(fixNode);
             exNode.parent = null;
             exNode.right = null;
             exNode.left = null;
-            exNode.color = Color.RED;
+            exNode.color = Color.BLACK;
+            //Detach the deleted node, so that a later setValue on it does not change the sums of the tree
+            delNode.parent = delNode.left = delNode.right = exNode;
         }
         return delNode;
     }
@@ -210,6 +333,7 @@ public class RBTree {
     private void deleteFixColors(RBNode node){
         RBNode sibling;
         while(node != root && node.isBlack()){
+            deleteFixups++;
             if(node == node.parent.left){ //If the node is left child, counter operations performed in the corresponding else block
                 sibling = node.parent.right;
                 if(sibling.isRed()){
@@ -281,24 +405,701 @@ public class RBTree {
      * @return RBNode with given key, RBExternalNode if it doesnot exist
      */
     public RBNode findNode(int key){
-        return findNode(root, key);
+        RBNode curr = root;
+        while(curr.isInternalNode() && key != curr.key)
+            curr = key < curr.key ? curr.left : curr.right;
+        return curr;
     }
 
     /**
-     * Recursive function to find a node with given key in the sub tree rooted by
-     * currNode
-     * @param currNode
-     * @param key
-     * @return
+     * Returns the node with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find next
+     * @return The node with the next key, RBExternalNode if there is no such node
      */
-    private RBNode findNode(RBNode currNode, int key){
-        if(currNode.isExternalNode())
-            return currNode;
-        if(key == currNode.key)
-            return currNode;
-        else if(key > currNode.key) //If the key is greater than the currNode
-            return findNode(currNode.right, key);
-        else return findNode(currNode.left, key); //If the key is lesser than the currNode
+    public RBNode next(int key){
+        RBNode found = exNode;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key > key){
+                //Only a key in the left subtree can be closer
+                found = curr;
+                curr = curr.left;
+            } else curr = curr.right;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find previous
+     * @return The node with the previous key, RBExternalNode if there is no such node
+     */
+    public RBNode previous(int key){
+        RBNode found = exNode;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key < key){
+                found = curr;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the least key greater than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find ceiling
+     * @return The node with the ceiling key, RBExternalNode if there is no such node
+     */
+    public RBNode ceiling(int key){
+        RBNode found = exNode;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key >= key){
+                found = curr;
+                curr = curr.left;
+            } else curr = curr.right;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the greatest key lesser than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find floor
+     * @return The node with the floor key, RBExternalNode if there is no such node
+     */
+    public RBNode floor(int key){
+        RBNode found = exNode;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key <= key){
+                found = curr;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the least key
+     * @return The first node in sorted order, RBExternalNode if the tree is empty
+     */
+    public RBNode first(){
+        return root.isInternalNode() ? minValueNode(root) : root;
+    }
+
+    /**
+     * Returns the node with the greatest key
+     * @return The last node in sorted order, RBExternalNode if the tree is empty
+     */
+    public RBNode last(){
+        return root.isInternalNode() ? maxValueNode(root) : root;
+    }
+
+    /**
+     * Returns the node following the given node in sorted order, by following the parent links instead of searching
+     * from the root. Walking the whole tree with successor visits every link twice, so it takes O(n).
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The next node in sorted order, RBExternalNode if node is the last one
+     */
+    public RBNode successor(RBNode node){
+        if(node.right.isInternalNode())
+            return minValueNode(node.right);
+        RBNode parent = node.parent;
+        while(parent.isInternalNode() && node == parent.right){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent.isInternalNode() ? parent : exNode;
+    }
+
+    /**
+     * Returns the node preceding the given node in sorted order, see successor
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The previous node in sorted order, RBExternalNode if node is the first one
+     */
+    public RBNode predecessor(RBNode node){
+        if(node.left.isInternalNode())
+            return maxValueNode(node.left);
+        RBNode parent = node.parent;
+        while(parent.isInternalNode() && node == parent.left){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent.isInternalNode() ? parent : exNode;
+    }
+
+    /**
+     * Returns the number of key-value pairs in the tree
+     * @return Number of key-value pairs in the tree
+     */
+    public int size(){
+        return root.size;
+    }
+
+    /**
+     * Returns the rotations and color fixing steps done by the tree since it was created. The counters are plain
+     * fields, so they are exact when read by the thread modifying the tree and approximate from other threads.
+     * @return The counters of the tree
+     */
+    public Statistics statistics(){
+        return new Statistics(rotations, insertFixups, deleteFixups);
+    }
+
+    /**
+     * Counters of the work done to keep the tree balanced
+     */
+    public static final class Statistics {
+        private final long rotations;
+        private final long insertFixups;
+        private final long deleteFixups;
+
+        public Statistics(long rotations, long insertFixups, long deleteFixups){
+            this.rotations = rotations;
+            this.insertFixups = insertFixups;
+            this.deleteFixups = deleteFixups;
+        }
+
+        /**
+         * @return Number of left and right rotations
+         */
+        public long getRotations(){
+            return rotations;
+        }
+
+        /**
+         * @return Number of steps of the color fixing after inserts
+         */
+        public long getInsertFixups(){
+            return insertFixups;
+        }
+
+        /**
+         * @return Number of steps of the color fixing after deletes
+         */
+        public long getDeleteFixups(){
+            return deleteFixups;
+        }
+    }
+
+    /**
+     * Returns the sum of values of all the keys which are in range [key1, key2] (inclusive)
+     * using the subtree sums, i.e. two root to leaf descents.
+     * Complexity = O(lg (n))
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Sum of values of keys in range [key1, key2]
+     */
+    public long inrange(int key1, int key2){
+        if(key1 > key2)
+            return 0;
+        return sumAtMost(key2) - sumLessThan(key1);
+    }
+
+    /**
+     * Returns the sum of values of all the keys lesser than or equal to the given key
+     * Complexity = O(lg (n))
+     * @param key Upper end of the range
+     * @return Sum of values of the keys <= key
+     */
+    public long sumAtMost(int key){
+        long sum = 0;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key <= key){
+                //The node and its whole left subtree are in the range
+                sum += curr.left.sum + curr.value;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of values of all the keys strictly lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Upper end (exclusive) of the range
+     * @return Sum of values of the keys < key
+     */
+    public long sumLessThan(int key){
+        long sum = 0;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key < key){
+                sum += curr.left.sum + curr.value;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the rank of the key, that is the number of keys in the tree strictly lesser than the key.
+     * If the key is present it is the (0 based) position of the key in sorted order.
+     * Complexity = O(lg (n))
+     * @param key Key whose rank is needed
+     * @return Number of keys < key
+     */
+    public int rank(int key){
+        int rank = 0;
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key < key){
+                rank += curr.left.size + 1;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the node with the i-th smallest key (0 based)
+     * Complexity = O(lg (n))
+     * @param i Position of the node in sorted order
+     * @return The node at position i, RBExternalNode if i is not in [0, size)
+     */
+    public RBNode select(int i){
+        RBNode curr = root;
+        while(curr.isInternalNode()){
+            int leftSize = curr.left.size;
+            if(i < leftSize)
+                curr = curr.left;
+            else if(i == leftSize)
+                return curr;
+            else {
+                i -= leftSize + 1;
+                curr = curr.right;
+            }
+        }
+        return curr;
+    }
+
+    /**
+     * Returns the aggregate of the key-value pairs with keys in range [key1, key2] (inclusive), see RangeReducer.
+     * Sum and count are read from the subtree aggregates in O(lg (n)). Other reducers visit every node of the range,
+     * which is done in parallel in the common ForkJoinPool once the range holds more than PARALLEL_THRESHOLD nodes.
+     * Complexity = O(lg (n) + k) for k nodes in the range, O(lg (n)) for sum and count
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param reducer Aggregate to compute
+     * @return Aggregate of the range, reducer.identity() if the range is empty
+     */
+    public long reduce(int key1, int key2, RangeReducer reducer){
+        if(key1 > key2)
+            return reducer.identity();
+        if(!(reducer instanceof SubtreeReducer)){
+            //Estimated size of the range from the ranks of its ends
+            int end = key2 == Integer.MAX_VALUE ? size() : rank(key2 + 1);
+            if(end - rank(key1) > PARALLEL_THRESHOLD)
+                return reduce(key1, key2, reducer, ForkJoinPool.commonPool());
+        }
+        return new ReduceTask(key1, key2, reducer, root, true, true, false).compute();
+    }
+
+    /**
+     * Returns the aggregate of the key-value pairs with keys in range [key1, key2] (inclusive), computed in the given
+     * pool. The range is covered by O(lg (n)) whole subtrees hanging off the search paths of key1 and key2, and every
+     * whole subtree larger than ReduceTask.THRESHOLD is split into its left and right subtrees by parallel tasks.
+     * The partial results are combined in key order.
+     * Complexity = O(lg (n) + k), O(lg (n) + k/p) with p workers
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param reducer Aggregate to compute
+     * @param pool Pool that runs the tasks
+     * @return Aggregate of the range, reducer.identity() if the range is empty
+     */
+    public long reduce(int key1, int key2, RangeReducer reducer, ForkJoinPool pool){
+        if(key1 > key2)
+            return reducer.identity();
+        return pool.invoke(new ReduceTask(key1, key2, reducer, root, true, true, true));
+    }
+
+    /**
+     * Reduces the nodes of the subtree within [key1, key2], the range is only checked at the ends which bound it
+     */
+    private static class ReduceTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 13;
+        private final int key1;
+        private final int key2;
+        private final RangeReducer reducer;
+        private final RBNode node;
+        private final boolean boundedBelow;
+        private final boolean boundedAbove;
+        private final boolean parallel;
+
+        ReduceTask(int key1, int key2, RangeReducer reducer, RBNode node, boolean boundedBelow, boolean boundedAbove, boolean parallel){
+            this.key1 = key1;
+            this.key2 = key2;
+            this.reducer = reducer;
+            this.node = node;
+            this.boundedBelow = boundedBelow;
+            this.boundedAbove = boundedAbove;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected Long compute(){
+            //Descend to the first node within the range, the subtrees left or right of the path are out of it
+            RBNode curr = node;
+            while(curr.isInternalNode()){
+                if(boundedBelow && curr.key < key1)
+                    curr = curr.right;
+                else if(boundedAbove && curr.key > key2)
+                    curr = curr.left;
+                else break;
+            }
+            if(curr.isExternalNode())
+                return reducer.identity();
+            if(!boundedBelow && !boundedAbove && reducer instanceof SubtreeReducer)
+                return ((SubtreeReducer) reducer).subtree(curr);
+            if(!boundedBelow && !boundedAbove && (!parallel || curr.size <= THRESHOLD))
+                return reduceSubtree(curr);
+            //curr is within the range, the range continues into both of its subtrees
+            ReduceTask left = new ReduceTask(key1, key2, reducer, curr.left, boundedBelow, false, parallel);
+            ReduceTask right = new ReduceTask(key1, key2, reducer, curr.right, false, boundedAbove, parallel);
+            long leftResult;
+            long rightResult;
+            if(parallel && curr.left.size > THRESHOLD){
+                left.fork();
+                rightResult = right.compute();
+                leftResult = left.join();
+            } else {
+                leftResult = left.compute();
+                rightResult = right.compute();
+            }
+            return reducer.combine(reducer.accumulate(leftResult, curr.key, curr.value), rightResult);
+        }
+
+        /**
+         * Reduces the whole subtree in key order with an explicit stack
+         */
+        private long reduceSubtree(RBNode subtree){
+            long result = reducer.identity();
+            RBNode[] stack = new RBNode[STACK_SIZE];
+            int top = 0;
+            RBNode curr = subtree;
+            while(true){
+                for(; curr.isInternalNode(); curr = curr.left){
+                    if(top == stack.length)
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[top++] = curr;
+                }
+                if(top == 0)
+                    return result;
+                curr = stack[--top];
+                result = reducer.accumulate(result, curr.key, curr.value);
+                curr = curr.right;
+            }
+        }
+    }
+
+    /**
+     * Returns a cursor over the nodes of the tree, which is not positioned until one of its seek methods is called
+     * @return New cursor
+     */
+    public RBCursor cursor(){
+        return new RBCursor(this);
+    }
+
+    /**
+     * Returns a spliterator over the nodes with keys in range [key1, key2] (inclusive) in sorted order.
+     * Its size is known from the ranks of the ends and it splits at the middle position with select, so the range
+     * can be consumed by a parallel stream.
+     * Complexity = O(lg (n)) to create, O(1) amortized per node
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Spliterator over the nodes in the range
+     */
+    public Spliterator<RBNode> spliterator(int key1, int key2){
+        if(key1 > key2)
+            return new RangeSpliterator(this, exNode, 0, 0);
+        int start = rank(key1);
+        int end = key2 == Integer.MAX_VALUE ? size() : rank(key2 + 1);
+        return new RangeSpliterator(this, start < end ? select(start) : exNode, start, end);
+    }
+
+    /**
+     * Returns the nodes with keys in range [key1, key2] (inclusive) in sorted order, see spliterator(int, int)
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @param parallel true for a parallel stream
+     * @return Stream of the nodes in the range
+     */
+    public Stream<RBNode> nodes(int key1, int key2, boolean parallel){
+        return StreamSupport.stream(spliterator(key1, key2), parallel);
+    }
+
+    /**
+     * Returns the keys in range [key1, key2] (inclusive) in increasing order, see spliterator(int, int)
+     * @param key1 Lower end of the range
+     * @param key2 Upper end of the range
+     * @return Stream of the keys in the range
+     */
+    public IntStream keys(int key1, int key2){
+        return nodes(key1, key2, false).mapToInt(RBNode::getKey);
+    }
+
+    /**
+     * Inserts the sorted key-value pairs into the red black tree, see mergeAll(int[], int[], int, int) for how the
+     * batch is applied.
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param values values[i] is the value of keys[i]
+     * @throws DuplicateKeyException if a key is already present, the keys before it are inserted
+     */
+    public void insertAll(int[] keys, int[] values) throws DuplicateKeyException{
+        checkBatch(keys, 0, keys.length, values.length);
+        if(keys.length > size() / 4)
+            rebuild(BATCH_INSERT, keys, values, 0, keys.length);
+        else applyBatch(BATCH_INSERT, keys, values, 0, keys.length);
+    }
+
+    /**
+     * Adds the sorted deltas to the values of their keys, like addTo for every key, see mergeAll(int[], int[], int, int)
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param deltas deltas[i] is added to the value of keys[i]
+     */
+    public void mergeAll(int[] keys, int[] deltas){
+        mergeAll(keys, deltas, 0, keys.length);
+    }
+
+    /**
+     * Adds the sorted deltas to the values of their keys, the keys that are not present are inserted with their delta
+     * as value, like addTo for every key.
+     * The keys are searched from the path of the key before them (finger search): the search only climbs back to
+     * the lowest node of the path whose subtree holds the next key, and the sums of the subtrees are only fixed when
+     * the search leaves them, once for all the keys found below them. A new key is linked where its search ended.
+     * When the batch is more than a quarter of the tree, the tree is instead rebuilt from the merge of its keys
+     * with the batch.
+     * Complexity = O(m lg (n/m)) searches for m keys plus O(lg n) per new key, or O(n + m) to rebuild
+     * @param keys Keys sorted in increasing order without duplicates
+     * @param deltas deltas[i] is added to the value of keys[i]
+     * @param from Index of the first key of the batch
+     * @param to Index after the last key of the batch
+     */
+    public void mergeAll(int[] keys, int[] deltas, int from, int to){
+        checkBatch(keys, from, to, deltas.length);
+        try {
+            if(to - from > size() / 4)
+                rebuild(BATCH_MERGE, keys, deltas, from, to);
+            else applyBatch(BATCH_MERGE, keys, deltas, from, to);
+        } catch (DuplicateKeyException e) {
+            //Only thrown by BATCH_INSERT
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Deletes the sorted keys from the red black tree, the keys that are not present are ignored.
+     * The keys are searched as in mergeAll, when more than a quarter of the tree is deleted the tree is rebuilt from
+     * the remaining keys instead.
+     * Complexity = O(m lg n), or O(n + m) to rebuild
+     * @param keys Keys sorted in increasing order without duplicates
+     * @return Number of keys deleted
+     */
+    public int deleteAll(int[] keys){
+        checkBatch(keys, 0, keys.length, keys.length);
+        try {
+            if(keys.length > size() / 4)
+                return rebuild(BATCH_DELETE, keys, null, 0, keys.length);
+            return applyBatch(BATCH_DELETE, keys, null, 0, keys.length);
+        } catch (DuplicateKeyException e) {
+            //Only thrown by BATCH_INSERT
+            throw new AssertionError(e);
+        }
+    }
+
+    private static final int BATCH_MERGE = 0;
+    private static final int BATCH_INSERT = 1;
+    private static final int BATCH_DELETE = 2;
+
+    /**
+     * Applies the batch keys[from..to) with finger search, see mergeAll(int[], int[], int, int)
+     * @param mode BATCH_MERGE, BATCH_INSERT or BATCH_DELETE
+     * @return Number of keys inserted or deleted
+     */
+    private int applyBatch(int mode, int[] keys, int[] values, int from, int to) throws DuplicateKeyException{
+        //path[0..depth) is the search path of the last key, upper[d] is the bound (exclusive) of the keys in the
+        //subtree of path[d] and pending[d] the change of its sum not yet added. A red black tree is at most
+        //2 lg(n + 1) deep.
+        RBNode[] path = new RBNode[64];
+        long[] upper = new long[64];
+        long[] pending = new long[64];
+        int depth = 0;
+        int changed = 0;
+        for(int i = from; i < to; i++){
+            int key = keys[i];
+            //The keys are increasing, so the subtree of path[d] holds the key as long as the key is below its bound
+            while(depth > 0 && key >= upper[depth - 1])
+                depth = pop(path, pending, depth);
+            if(depth == 0){
+                if(root.isExternalNode()){
+                    if(mode != BATCH_DELETE){
+                        insertAt(exNode, key, values[i]);
+                        changed++;
+                    }
+                    continue;
+                }
+                path[0] = root;
+                upper[0] = Long.MAX_VALUE;
+                pending[0] = 0;
+                depth = 1;
+            }
+            RBNode node = path[depth - 1];
+            while(true){
+                if(key == node.key){
+                    if(mode == BATCH_MERGE){
+                        node.value += values[i];
+                        pending[depth - 1] += values[i];
+                    } else {
+                        //Fix the sums before the tree is changed, the search starts from the root again
+                        while(depth > 0)
+                            depth = pop(path, pending, depth);
+                        if(mode == BATCH_INSERT)
+                            throw new DuplicateKeyException(node);
+                        delete(node);
+                        changed++;
+                    }
+                    break;
+                }
+                RBNode child = key < node.key ? node.left : node.right;
+                if(child.isExternalNode()){
+                    if(mode != BATCH_DELETE){
+                        settle(path, pending, depth);
+                        long before = rotations;
+                        insertAt(node, key, values[i]);
+                        changed++;
+                        //The path stays valid unless fixing the colors rotated nodes
+                        if(rotations != before)
+                            depth = 0;
+                    }
+                    break;
+                }
+                upper[depth] = key < node.key ? node.key : upper[depth - 1];
+                pending[depth] = 0;
+                path[depth++] = child;
+                node = child;
+            }
+        }
+        while(depth > 0)
+            depth = pop(path, pending, depth);
+        return changed;
+    }
+
+    /**
+     * Adds the pending changes of the sums to the nodes of the path, keeping the path
+     */
+    private static void settle(RBNode[] path, long[] pending, int depth){
+        for(int d = depth - 1; d >= 0; d--){
+            long delta = pending[d];
+            if(delta != 0){
+                path[d].sum += delta;
+                if(d > 0)
+                    pending[d - 1] += delta;
+                pending[d] = 0;
+            }
+        }
+    }
+
+    /**
+     * Leaves the last node of the path, adding the change of its sum to it and to its parent on the path
+     * @return The new depth of the path
+     */
+    private static int pop(RBNode[] path, long[] pending, int depth){
+        depth--;
+        long delta = pending[depth];
+        if(delta != 0){
+            path[depth].sum += delta;
+            if(depth > 0)
+                pending[depth - 1] += delta;
+        }
+        return depth;
+    }
+
+    /**
+     * Applies the batch keys[from..to) by merging it with the keys of the tree and building the tree again
+     * @param mode BATCH_MERGE, BATCH_INSERT or BATCH_DELETE
+     * @return Number of keys inserted or deleted
+     */
+    private int rebuild(int mode, int[] keys, int[] values, int from, int to) throws DuplicateKeyException{
+        int size = size();
+        int[] treeKeys = new int[size];
+        int[] treeValues = new int[size];
+        collect(treeKeys, treeValues);
+        int[] allKeys = new int[mode == BATCH_DELETE ? size : size + to - from];
+        int[] allValues = new int[allKeys.length];
+        int n = 0;
+        int t = 0;
+        int i = from;
+        boolean duplicate = false;
+        int duplicateKey = 0;
+        while(t < size || i < to){
+            if(i == to || (t < size && treeKeys[t] < keys[i])){
+                allKeys[n] = treeKeys[t];
+                allValues[n++] = treeValues[t++];
+            } else if(t == size || keys[i] < treeKeys[t]){
+                if(mode != BATCH_DELETE){
+                    allKeys[n] = keys[i];
+                    allValues[n++] = values[i];
+                }
+                i++;
+            } else {
+                if(mode == BATCH_MERGE){
+                    allKeys[n] = treeKeys[t];
+                    allValues[n++] = treeValues[t] + values[i];
+                } else if(mode == BATCH_INSERT){
+                    //Stop at the duplicate, the keys before it are inserted
+                    duplicate = true;
+                    duplicateKey = keys[i];
+                    i = to;
+                    continue;
+                }
+                t++;
+                i++;
+            }
+        }
+        if(mode == BATCH_DELETE && n == size)
+            return 0;
+        initialize(n < allKeys.length ? Arrays.copyOf(allKeys, n) : allKeys,
+                n < allValues.length ? Arrays.copyOf(allValues, n) : allValues);
+        if(duplicate)
+            throw new DuplicateKeyException(findNode(duplicateKey));
+        return Math.abs(n - size);
+    }
+
+    /**
+     * Copies the key-value pairs of the tree in sorted order into the arrays
+     * Complexity = O(n)
+     * @param keys Array receiving the keys, of length size() or more
+     * @param values Array receiving the values, of length size() or more
+     */
+    public void collect(int[] keys, int[] values){
+        int index = 0;
+        Walk walk = walk(Integer.MIN_VALUE);
+        for(RBNode node = walk.next(); node.isInternalNode(); node = walk.next()){
+            keys[index] = node.key;
+            values[index++] = node.value;
+        }
+    }
+
+    /**
+     * Checks that keys[from..to) is sorted without duplicates and that the values of the batch are given
+     * @throws IllegalArgumentException when the batch is not valid
+     */
+    private static void checkBatch(int[] keys, int from, int to, int valuesLength){
+        if(from < 0 || to > keys.length || from > to)
+            throw new IllegalArgumentException("Invalid batch range: [" + from + ", " + to + ")");
+        if(valuesLength < to)
+            throw new IllegalArgumentException("Values missing for the batch: " + valuesLength + " < " + to);
+        for(int i = from + 1; i < to; i++)
+            if(keys[i] <= keys[i - 1])
+                throw new IllegalArgumentException("Keys must be sorted without duplicates, at index " + i);
     }
 
     /**
@@ -310,92 +1111,232 @@ public class RBTree {
      * @param size Number of key-value pairs
      */
     public void initialize(BufferedReader reader, int size) throws IOException {
-        int start = 0;
-        int end = size-1;
-        int mid = start + (end - start)/2;
-		if(start > end)
-			return;
-        RBNode left;
-        left = initialize(0, mid-1, reader);
-        String tokens[] = reader.readLine().split(" ");
-        root = new RBNode(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]));
-        root.color = Color.BLACK;
-        root.left = left;
-        if(root.left.isInternalNode())
-            left.parent = root;
-        root.right = initialize(mid+1, end, reader);
-        if(root.right.isInternalNode())
-            root.right.parent = root;
-        int maxDepth;
-        if(size == 1)
-            maxDepth = 1;
-        else maxDepth= (int)Math.ceil(Math.log(size)/Math.log(2));
-        //Note that we can use the lg(size) formula to find the maxDepth as we build complete BST using algorithm above.
+        initialize(new LineKeyValueSource(reader), size);
+    }
 
-        //We color all the nodes at maxDepth as red. This results in all the nodes obeying red black properties.
-        if(maxDepth > 1)
-            recolorMaxDepth(maxDepth);
+    /**
+     * Initialize the RedBlack tree using a source of sorted KeyValue pairs, see initialize(KeyValueSource, int, ForkJoinPool)
+     * Time Complexity = O(n)
+     * @param source Source of the key-value pairs sorted by the keys field.
+     * @param size Number of key-value pairs
+     * @throws IOException when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size) throws IOException {
+        initialize(source, size, ForkJoinPool.commonPool());
+    }
 
+    /**
+     * Initialize the RedBlack tree using a source of sorted KeyValue pairs, building the same complete Binary Search
+     * tree as initialize(BufferedReader, int). The pairs are read in order; the top of the tree is built node by node
+     * and every subtree of at most BUILD_CHUNK pairs is read into two arrays of BUILD_CHUNK pairs, reused from one
+     * subtree to the next, and built from them by parallel tasks as in initialize(int[], int[], ForkJoinPool).
+     * So the input is never held in memory as a whole, only the nodes of the tree are.
+     * Time Complexity = O(n)
+     * @param source Source of the key-value pairs sorted by the keys field.
+     * @param size Number of key-value pairs
+     * @param pool Pool that runs the build of the subtrees
+     * @throws IOException when read error occurs
+     */
+    public void initialize(KeyValueSource source, int size, ForkJoinPool pool) throws IOException {
+        root = exNode;
+        if(size <= 0)
+            return;
+        //Note that we can use the lg(size) formula to find the maxDepth as we build complete BST using algorithm above.
+        //We color all the nodes at maxDepth as red. This results in all the nodes obeying red black properties.
+        int maxDepth = completeDepth(size);
+        int chunk = Math.min(size, BUILD_CHUNK);
+        RBNode node = initialize(0, size - 1, 1, maxDepth > 1 ? maxDepth : -1, source, new int[chunk], new int[chunk], pool);
+        node.parent = exNode;
+        root = node;
     }
 
     /**
-     * Recursive initialize by taking the key value pairs from the reader
+     * Recursive initialize by taking the key value pairs from the source
      * @param start Start index of the sub problem
      * @param end End index of the sub problem
-     * @param reader Reader to read the input key value
+     * @param depth Depth of the root of the sub tree
+     * @param redDepth Depth whose nodes are colored red
+     * @param source Source of the input key value
+     * @param keys Array receiving the keys of a subtree small enough to be built by BuildTask
+     * @param values Array receiving the values of that subtree
+     * @param pool Pool that runs the BuildTask
      * @return Root node of the sub tree that is build.
      * @throws IOException When failure in reading occurs
      */
-    private RBNode initialize(int start, int end, BufferedReader reader) throws IOException{
+    private RBNode initialize(int start, int end, int depth, int redDepth, KeyValueSource source,
+                              int[] keys, int[] values, ForkJoinPool pool) throws IOException{
         //While initializing we build a complete binary search tree from the sorted keys and
-        //assign black color to all nodes and later make all nodes at max depth red
+        //assign black color to all nodes except the nodes at max depth, which are red
         if(start>end)
-            return RBExternalNode.getInstance();
+            return exNode;
+        if(end - start < keys.length){
+            //Index i of the arrays is index start + i of the input, so the subtree has the same shape
+            for(int i = 0; i <= end - start; i++){
+                source.read();
+                keys[i] = source.key();
+                values[i] = source.value();
+            }
+            return pool.invoke(new BuildTask(keys, values, 0, end - start, depth, redDepth));
+        }
         int mid = start + (end - start)/2;
-        RBNode left;
-        left = initialize(start, mid-1, reader);
-        String tokens[] = reader.readLine().split(" ");
-        RBNode node = new RBNode(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]));
-        node.color = Color.BLACK;
+        RBNode left = initialize(start, mid-1, depth+1, redDepth, source, keys, values, pool);
+        source.read();
+        RBNode node = new RBNode(source.key(), source.value());
+        node.color = depth == redDepth ? Color.RED : Color.BLACK;
         node.left = left;
         if(node.left.isInternalNode())
             node.left.parent = node;
-        node.right = initialize(mid+1, end, reader);
+        node.right = initialize(mid+1, end, depth+1, redDepth, source, keys, values, pool);
         if(node.right.isInternalNode())
             node.right.parent = node;
+        node.updateAggregates();
         return node;
+    }
 
+    /**
+     * Initialize the RedBlack tree from sorted arrays of keys and values, building the left and right subtrees in
+     * parallel in the common ForkJoinPool, see initialize(int[], int[], ForkJoinPool)
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     */
+    public void initialize(int[] keys, int[] values){
+        initialize(keys, values, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize the RedBlack tree from sorted arrays of keys and values. The complete Binary Search tree is built
+     * as in initialize(BufferedReader, int), but as every node is taken by index from the arrays the left and right
+     * subtrees are built by parallel tasks.
+     * Time Complexity = O(n), O(n/p + lg(n)) with p workers
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     * @param pool Pool that runs the build
+     */
+    public void initialize(int[] keys, int[] values, ForkJoinPool pool){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        root = exNode;
+        if(keys.length == 0)
+            return;
+        int maxDepth = completeDepth(keys.length);
+        RBNode node = pool.invoke(new BuildTask(keys, values, 0, keys.length - 1, 1, maxDepth > 1 ? maxDepth : -1));
+        node.parent = exNode;
+        root = node;
+    }
 
+    /**
+     * Returns the depth of the complete Binary Search tree built by initialize
+     * @param size Number of nodes
+     * @return floor(lg(size)) + 1, 0 when the tree is empty
+     */
+    private static int completeDepth(int size){
+        return 32 - Integer.numberOfLeadingZeros(size);
     }
 
     /**
-     * Recolor all nodes at a given depth to red
-     * @param depth The depth at which nodes should be colored to red
+     * Returns a walk over the nodes with keys greater than or equal to the given key, in increasing order of keys
+     * @param from Least key of the walk
+     * @return Walk positioned before the first node of the walk
      */
-    private void recolorMaxDepth(int depth) {
-        recolorMaxDepth(root, 0, depth);
+    public Walk walk(int from){
+        return new Walk(from);
     }
 
     /**
-     * Recolor all nodes at a given depth to red
-     * @param node Current node
-     * @param currDepth Current Depth
-     * @param depth The depth at which nodes should be colored to red
+     * In-order walk of the tree with an explicit stack of the nodes whose left subtree is being walked.
+     * Every node is pushed and popped once, so scanning k consecutive nodes takes O(k + lg(n)) without the parent
+     * links that successor follows. The tree must not be modified during the walk.
      */
-    private void recolorMaxDepth(RBNode node, int currDepth, int depth) {
-        currDepth++;
-        if(currDepth == depth) {
-            if(node.isInternalNode())
-                node.color = Color.RED;
+    public class Walk {
+        private RBNode[] stack = new RBNode[STACK_SIZE];
+        private int top;
+
+        private Walk(int from){
+            //Push the nodes on the search path of from whose keys are not less than from
+            RBNode curr = root;
+            while(curr.isInternalNode()){
+                if(curr.key >= from){
+                    push(curr);
+                    curr = curr.left;
+                } else curr = curr.right;
+            }
         }
-        else{
-            recolorMaxDepth(node.left, currDepth, depth);
-            recolorMaxDepth(node.right, currDepth, depth);
+
+        /**
+         * Returns the next node of the walk
+         * Complexity = O(lg (n)), O(1) amortized
+         * @return The next node, RBExternalNode when the walk is over
+         */
+        public RBNode next(){
+            if(top == 0)
+                return exNode;
+            RBNode node = stack[--top];
+            for(RBNode curr = node.right; curr.isInternalNode(); curr = curr.left)
+                push(curr);
+            return node;
+        }
+
+        private void push(RBNode node){
+            if(top == stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = node;
         }
     }
 
+    /**
+     * Builds the sub tree of keys[start..end], forking the left subtree while the range is larger than THRESHOLD
+     */
+    private class BuildTask extends RecursiveTask<RBNode> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 13;
+        private final int[] keys;
+        private final int[] values;
+        private final int start;
+        private final int end;
+        private final int depth;
+        private final int redDepth;
 
+        BuildTask(int[] keys, int[] values, int start, int end, int depth, int redDepth){
+            this.keys = keys;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+            this.redDepth = redDepth;
+        }
+
+        @Override
+        protected RBNode compute() {
+            if(end - start < THRESHOLD)
+                return build(start, end, depth);
+            int mid = start + (end - start)/2;
+            BuildTask leftTask = new BuildTask(keys, values, start, mid-1, depth+1, redDepth);
+            leftTask.fork();
+            RBNode right = new BuildTask(keys, values, mid+1, end, depth+1, redDepth).compute();
+            return link(mid, depth, leftTask.join(), right);
+        }
+
+        private RBNode build(int start, int end, int depth){
+            if(start>end)
+                return exNode;
+            int mid = start + (end - start)/2;
+            RBNode left = build(start, mid-1, depth+1);
+            return link(mid, depth, left, build(mid+1, end, depth+1));
+        }
 
+        private RBNode link(int mid, int depth, RBNode left, RBNode right){
+            RBNode node = new RBNode(keys[mid], values[mid]);
+            node.color = depth == redDepth ? Color.RED : Color.BLACK;
+            node.left = left;
+            if(left.isInternalNode())
+                left.parent = node;
+            node.right = right;
+            if(right.isInternalNode())
+                right.parent = node;
+            node.updateAggregates();
+            return node;
+        }
+    }
 
     /**
      *  Rotates left(counter clockwise) with respect to x
@@ -408,6 +1349,7 @@ public class RBTree {
      */
     private void leftRotate(RBNode x){
         RBNode y = x.right; //y is the right child of x
+        rotations++;
         x.right = y.left; //left child y becomes the right child of x.
         if(y.left.isInternalNode()) //update the parent of y.left only if it an internal node
             y.left.parent = x;
@@ -419,6 +1361,8 @@ public class RBTree {
         else x.parent.right = y;//If x was the right child, update the right child of x's parent to y
         y.left = x;
         x.parent = y;
+        x.updateAggregates();
+        y.updateAggregates();
     }
 
     /**
@@ -432,6 +1376,7 @@ public class RBTree {
      */
     private void rightRotate(RBNode x){
         RBNode y = x.left; //y is the left child of x
+        rotations++;
         x.left = y.right; //right child y becomes the left child of x.
         if(y.right.isInternalNode()) //update the parent of y.right only if it an internal node
             y.right.parent = x;
@@ -443,6 +1388,8 @@ public class RBTree {
         else x.parent.right = y;//If x was the right child, update the right child of x's parent to y
         y.right = x;
         x.parent = y;
+        x.updateAggregates();
+        y.updateAggregates();
     }
 
     /**
@@ -465,55 +1412,50 @@ public class RBTree {
 
     /**
      * Utility method to verify the properties of the RB tree
+     * The nodes are visited depth first with an explicit stack, checking at every node that a red node has no red
+     * child, that every path to an external node has the same number of black nodes, that the children link back
+     * to the node and that the subtree size and sum match the children.
      * @return true if all the properties of RB tree hold, otherwise false;
      */
     public boolean verifyRBProperties(){
+        boolean exNodeProperty = exNode.color == Color.BLACK && exNode.parent == null && exNode.left == null && exNode.right == null
+                && exNode.size == 0 && exNode.sum == 0;
+        boolean rootNodeProperty = root.isBlack() && (root.isExternalNode() || root.parent == exNode);
+        if(!exNodeProperty || !rootNodeProperty)
+            return false;
         int numBNodes = countBNodesToExNode();
-        boolean bNodeProperty = verifyBNodeProperty(root,0,numBNodes);
-        boolean rNodeProperty = verifyRedNodeProperty(root);
-        boolean exNodeProperty = exNode.color == Color.BLACK && exNode.parent == null && exNode.left == null && exNode.right == null;
-        boolean rootNodeProperty = root.isBlack();
-        return rNodeProperty && bNodeProperty && exNodeProperty && rootNodeProperty;
-
-    }
-
-    /**
-     * Recursive function to verify no consecutive red node property
-     * @param node Current node whose no consecutive red node property needs to be verified.
-     * @return true if the property holds, otherwise false;
-     */
-    private boolean verifyRedNodeProperty(RBNode node){
-        if(node.isInternalNode()){
-            if(node.isRed() && node.parent.isRed())
+        //nodes[i] is a node still to visit, blacks[i] is the number of black nodes above it
+        RBNode[] nodes = new RBNode[STACK_SIZE];
+        int[] blacks = new int[STACK_SIZE];
+        int top = 0;
+        nodes[top] = root;
+        blacks[top++] = 0;
+        while(top > 0){
+            RBNode node = nodes[--top];
+            int numBlack = blacks[top];
+            if(node.isExternalNode()){
+                if(numBlack + 1 != numBNodes)
+                    return false;
+                continue;
+            }
+            if(node.isBlack())
+                numBlack++;
+            if(node.isRed() && (node.left.isRed() || node.right.isRed()))
                 return false;
-            else return verifyRedNodeProperty(node.left) && verifyRedNodeProperty(node.right);
-        } else return true;
-
-    }
-
-    /**
-     * Verifies the property that number of black nodes in the paths from root to all external nodes is same.
-     * @param node Current node
-     * @param currNumBNodes Number of black nodes in the path from root to current node
-     * @param numBNodes Number of black nodes from root till external nodes
-     * @return
-     */
-    private boolean verifyBNodeProperty(RBNode node, int currNumBNodes, int numBNodes) {
-        if(currNumBNodes >= numBNodes) {
-            return false;
-        }
-        if(node.isExternalNode()){
-            if(currNumBNodes+1 == numBNodes)
-                return true;
-            else {
+            if(node.size != node.left.size + node.right.size + 1 || node.sum != node.left.sum + node.right.sum + node.value)
                 return false;
+            if((node.left.isInternalNode() && node.left.parent != node) || (node.right.isInternalNode() && node.right.parent != node))
+                return false;
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                blacks = Arrays.copyOf(blacks, blacks.length * 2);
             }
+            nodes[top] = node.right;
+            blacks[top++] = numBlack;
+            nodes[top] = node.left;
+            blacks[top++] = numBlack;
         }
-        else {
-            currNumBNodes = node.isBlack()? currNumBNodes+1 : currNumBNodes;
-            return verifyBNodeProperty(node.left, currNumBNodes, numBNodes)
-                    && verifyBNodeProperty(node.right, currNumBNodes, numBNodes);
-        }
+        return true;
     }
 
     private int countBNodesToExNode(){
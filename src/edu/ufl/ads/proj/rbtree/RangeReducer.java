@@ -0,0 +1,122 @@
+package edu.ufl.ads.proj.rbtree;
+
+/**
+ * Aggregate of the key-value pairs of a key range, computed by RBTree.reduce.
+ * accumulate folds one pair into a partial result and combine joins the partial results of two consecutive parts of
+ * the range, so combine must be associative and identity() must be its neutral element. The parts are always
+ * combined in key order, so combine does not need to be commutative.
+ * A reducer whose result over a whole subtree can be read from the subtree size and sum kept in the nodes
+ * (sum and count) implements SubtreeReducer and answers a range in O(lg (n)) without visiting the nodes.
+ */
+public interface RangeReducer {
+
+    /**
+     * @return Result of an empty range
+     */
+    long identity();
+
+    /**
+     * @param result Partial result of the pairs before this one
+     * @param key Key of the pair
+     * @param value Value of the pair
+     * @return Partial result including the pair
+     */
+    long accumulate(long result, int key, int value);
+
+    /**
+     * @param left Partial result of a part of the range
+     * @param right Partial result of the part following it
+     * @return Result of both parts
+     */
+    long combine(long left, long right);
+
+    /**
+     * Sum of the values
+     */
+    SubtreeReducer SUM = new SubtreeReducer(){
+        @Override
+        public long identity(){
+            return 0;
+        }
+
+        @Override
+        public long accumulate(long result, int key, int value){
+            return result + value;
+        }
+
+        @Override
+        public long combine(long left, long right){
+            return left + right;
+        }
+
+        @Override
+        public long subtree(RBNode node){
+            return node.sum;
+        }
+    };
+
+    /**
+     * Number of pairs
+     */
+    SubtreeReducer COUNT = new SubtreeReducer(){
+        @Override
+        public long identity(){
+            return 0;
+        }
+
+        @Override
+        public long accumulate(long result, int key, int value){
+            return result + 1;
+        }
+
+        @Override
+        public long combine(long left, long right){
+            return left + right;
+        }
+
+        @Override
+        public long subtree(RBNode node){
+            return node.size;
+        }
+    };
+
+    /**
+     * Least value, Long.MAX_VALUE for an empty range
+     */
+    RangeReducer MIN = new RangeReducer(){
+        @Override
+        public long identity(){
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long accumulate(long result, int key, int value){
+            return Math.min(result, value);
+        }
+
+        @Override
+        public long combine(long left, long right){
+            return Math.min(left, right);
+        }
+    };
+
+    /**
+     * Greatest value, Long.MIN_VALUE for an empty range
+     */
+    RangeReducer MAX = new RangeReducer(){
+        @Override
+        public long identity(){
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        public long accumulate(long result, int key, int value){
+            return Math.max(result, value);
+        }
+
+        @Override
+        public long combine(long left, long right){
+            return Math.max(left, right);
+        }
+    };
+}
@@ -0,0 +1,86 @@
+package edu.ufl.ads.proj.rbtree;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the nodes at positions [index, end) of an RBTree in sorted order.
+ * The nodes are visited with successor, O(1) amortized per node. As the position of every node is known from the
+ * subtree sizes, a split hands out the first half of the positions and moves this spliterator to the middle node
+ * with select, so a range is split in O(lg (n)) into parts of exactly known size.
+ * The tree must not be modified while the spliterator is in use.
+ */
+class RangeSpliterator implements Spliterator<RBNode> {
+    /**
+     * Ranges smaller than this are not split
+     */
+    private static final int THRESHOLD = 1 << 13;
+    private static final Comparator<RBNode> BY_KEY = Comparator.comparingInt(RBNode::getKey);
+
+    private final RBTree tree;
+    /**
+     * Node at position index, only valid while index < end
+     */
+    private RBNode node;
+    private int index;
+    private final int end;
+
+    RangeSpliterator(RBTree tree, RBNode node, int index, int end){
+        this.tree = tree;
+        this.node = node;
+        this.index = index;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super RBNode> action){
+        if(index >= end)
+            return false;
+        RBNode current = node;
+        index++;
+        if(index < end)
+            node = tree.successor(current);
+        action.accept(current);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super RBNode> action){
+        RBNode current = node;
+        int remaining = end - index;
+        index = end;
+        for(int i = 0; i < remaining; i++){
+            action.accept(current);
+            if(i + 1 < remaining)
+                current = tree.successor(current);
+        }
+    }
+
+    @Override
+    public Spliterator<RBNode> trySplit(){
+        int remaining = end - index;
+        if(remaining < THRESHOLD)
+            return null;
+        int mid = index + remaining / 2;
+        Spliterator<RBNode> prefix = new RangeSpliterator(tree, node, index, mid);
+        node = tree.select(mid);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize(){
+        return end - index;
+    }
+
+    @Override
+    public int characteristics(){
+        return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+    }
+
+    @Override
+    public Comparator<? super RBNode> getComparator(){
+        return BY_KEY;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.ufl.ads.proj.rbtree;
+
+/**
+ * RangeReducer whose result over a whole subtree can be read from the subtree size and sum kept in the nodes, such as
+ * RangeReducer.SUM and RangeReducer.COUNT. RBTree.reduce answers a range with it in O(lg (n)) without visiting the
+ * nodes.
+ */
+public interface SubtreeReducer extends RangeReducer {
+
+    /**
+     * Returns the result of the whole subtree from the aggregates of its root
+     * @param node Root of the subtree
+     * @return Result of all the pairs of the subtree
+     */
+    long subtree(RBNode node);
+}
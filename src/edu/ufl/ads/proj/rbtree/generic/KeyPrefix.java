@@ -0,0 +1,25 @@
+package edu.ufl.ads.proj.rbtree.generic;
+
+/**
+ * Maps a key to a long that the RBTree caches in the node of the key, so that most comparisons of a search are a
+ * single compare of two longs.
+ * The prefixes must agree with the comparator of the tree: if a key is less than another, its prefix is less than or
+ * equal to the prefix of the other. Keys with equal prefixes are compared with the comparator.
+ * @param <K> Type of key
+ */
+public interface KeyPrefix<K> {
+    long prefix(K key);
+
+    /**
+     * Prefix of Strings in their natural order: the first 4 chars, 8 bytes, packed from the most significant bits,
+     * with 0 for the chars past the end of shorter Strings. The sign bit is flipped so that the signed order of the
+     * prefixes is the unsigned order of the chars.
+     */
+    KeyPrefix<String> STRING = key -> {
+        long prefix = 0;
+        int length = Math.min(key.length(), 4);
+        for(int i = 0; i < length; i++)
+            prefix |= (long) key.charAt(i) << (48 - 16 * i);
+        return prefix ^ Long.MIN_VALUE;
+    };
+}
@@ -8,12 +8,16 @@ import edu.ufl.ads.proj.rbtree.Color;
 
 /**
  * Class to represent a node in redblack tree
- * @param <K> Type of key class which extends Comparable<K>
+ * @param <K> Type of key class
  * @param <V> Type of value class
  */
-public class RBNode<K extends Comparable<K>, V> {
+public class RBNode<K, V> {
     K key;
     V value;
+    /**
+     * Prefix of the key cached by a tree with a KeyPrefix, 0 otherwise
+     */
+    long prefix;
     RBNode<K,V> parent;
     RBNode<K,V> left;
     RBNode<K,V> right;
@@ -78,7 +82,7 @@ public class RBNode<K extends Comparable<K>, V> {
 /**
  * Class to represent external nodes of RedBlack tree
  */
-class RBExternalNode<K extends Comparable<K>,V> extends RBNode<K,V>{
+class RBExternalNode<K,V> extends RBNode<K,V>{
     private static RBExternalNode _instance = new RBExternalNode<>();
     public static RBExternalNode getInstance(){
         return _instance;
@@ -3,6 +3,11 @@ package edu.ufl.ads.proj.rbtree.generic;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
 import edu.ufl.ads.proj.rbtree.Color;
 
 /**
@@ -11,22 +16,104 @@ import edu.ufl.ads.proj.rbtree.Color;
 
 /**
  * Implementation of RedBlack Tree
+ * The keys are ordered by their natural ordering or by the Comparator given at construction. With a KeyPrefix every
+ * node caches the prefix of its key, and a search compares the prefixes first and calls the comparator only when
+ * they are equal.
  * @param <K> Generic type of key
  * @param <V> Generic type of Value
  */
-public class RBTree<K extends Comparable<K>, V>{
+public class RBTree<K, V>{
 
     RBNode<K, V> root = RBExternalNode.getInstance();
     RBNode<K, V> exNode = RBExternalNode.getInstance();
 
+    /**
+     * Initial size of the explicit stacks of the tree walks, a red black tree of n nodes is at most 2 lg(n + 1) deep
+     */
+    private static final int STACK_SIZE = 64;
+
     Deserializer<K> keyDeserializer;
     Deserializer<V> valueDeserializer;
+    private final Comparator<? super K> comparator;
+    private final KeyPrefix<? super K> keyPrefix;
+
+    /**
+     * Creates a tree ordered by the natural ordering of the keys
+     * @param <K> Comparable type of key
+     * @param <V> Type of value
+     * @return The empty tree
+     */
+    public static <K extends Comparable<? super K>, V> RBTree<K, V> natural(Deserializer<K> keyDeserializer,
+                                                                          Deserializer<V> valueDeserializer){
+        return new RBTree<>(Comparator.naturalOrder(), keyDeserializer, valueDeserializer);
+    }
 
+    /**
+     * Creates a tree ordered by the natural ordering of the keys, which must be Comparable
+     * @deprecated The keys are not checked to be Comparable and a key which is not fails with a ClassCastException
+     * on its first comparison, use natural(keyDeserializer, valueDeserializer)
+     */
+    @Deprecated
+    //K is unbounded here, so naturalOrder() can only be cast, natural() gives the same order with a checked bound
+    @SuppressWarnings("unchecked")
     public RBTree(Deserializer<K> keyDeserializer, Deserializer<V> valueDeserializer){
+        this((Comparator<? super K>) Comparator.naturalOrder(), keyDeserializer, valueDeserializer);
+    }
+
+    /**
+     * Creates a tree ordered by the comparator, the keys need not be Comparable
+     */
+    public RBTree(Comparator<? super K> comparator, Deserializer<K> keyDeserializer, Deserializer<V> valueDeserializer){
+        this(comparator, null, keyDeserializer, valueDeserializer);
+    }
+
+    /**
+     * Creates a tree ordered by the comparator, which caches the prefix of the key in every node
+     * @param comparator Order of the keys
+     * @param keyPrefix Prefix agreeing with the comparator, see KeyPrefix, or null to always call the comparator
+     */
+    public RBTree(Comparator<? super K> comparator, KeyPrefix<? super K> keyPrefix, Deserializer<K> keyDeserializer,
+                  Deserializer<V> valueDeserializer){
+        this.comparator = comparator;
+        this.keyPrefix = keyPrefix;
         this.keyDeserializer = keyDeserializer;
         this.valueDeserializer = valueDeserializer;
     }
 
+    /**
+     * @return The order of the keys
+     */
+    public Comparator<? super K> comparator(){
+        return comparator;
+    }
+
+    /**
+     * Returns the prefix cached for the key, 0 for every key without a KeyPrefix
+     */
+    private long prefix(K key){
+        return keyPrefix != null ? keyPrefix.prefix(key) : 0;
+    }
+
+    /**
+     * Compares the key with the key of the node, by their prefixes unless they are equal
+     * @param key Key searched for
+     * @param prefix Prefix of key
+     * @param node Internal node
+     * @return A negative number, zero, or a positive number as the key is less than, equal to, or greater than the
+     * key of the node
+     */
+    private int compare(K key, long prefix, RBNode<K,V> node){
+        if(prefix != node.prefix)
+            return prefix < node.prefix ? -1 : 1;
+        return comparator.compare(key, node.key);
+    }
+
+    private RBNode<K,V> newNode(K key, V value){
+        RBNode<K,V> node = new RBNode<>(key, value);
+        node.prefix = prefix(key);
+        return node;
+    }
+
     /**
      * Returns the root node of the red black tree
      * @return The root node of red black tree
@@ -43,24 +130,64 @@ public class RBTree<K extends Comparable<K>, V>{
      * @throws DuplicateKeyException if there exists a node with same key in the tree
      */
     public RBNode<K,V> insert(K key, V value) throws DuplicateKeyException{
-        RBNode<K, V> newNode = new RBNode<>(key, value);
-        RBNode<K, V> parent = root.parent;
+        long prefix = prefix(key);
+        RBNode<K, V> parent = exNode;
         RBNode<K, V> curr = root;
+        int compare = 0;
         while(curr.isInternalNode()){
             parent = curr;
-            int compare = newNode.key.compareTo(curr.key);
+            compare = compare(key, prefix, curr);
             if(compare == 0)
                 throw new DuplicateKeyException(curr);
             else if(compare < 0) // if key of newNode less than key of curr node.
                 curr = curr.left;
             else curr = curr.right;
         }
+        return insertAt(parent, compare, key, value);
+    }
+
+    /**
+     * Merges the value into the value of the given key, the key is inserted with the value if it is not present,
+     * like Map.merge. The tree is descended only once and a node is allocated only when the key is new.
+     * Complexity = O(lg (n))
+     * @param key Key whose value is merged
+     * @param value Value of a new key, merged into the present value otherwise
+     * @param remapping Computes the new value from the present value and value
+     * @return The node of the key, holding the value after the merge
+     */
+    public RBNode<K,V> merge(K key, V value, BinaryOperator<V> remapping){
+        long prefix = prefix(key);
+        RBNode<K, V> parent = exNode;
+        RBNode<K, V> curr = root;
+        int compare = 0;
+        while(curr.isInternalNode()){
+            compare = compare(key, prefix, curr);
+            if(compare == 0){
+                curr.setValue(remapping.apply(curr.getValue(), value));
+                return curr;
+            }
+            parent = curr;
+            curr = compare < 0 ? curr.left : curr.right;
+        }
+        return insertAt(parent, compare, key, value);
+    }
+
+    /**
+     * Links a new node as a child of parent and fixes the colors
+     * @param parent Parent of the new node, external node if the tree is empty
+     * @param compare Comparison of the key with the key of parent, where the descent ended
+     * @param key Key of the new node
+     * @param value Value of the new node
+     * @return The newly inserted RBNode
+     */
+    private RBNode<K,V> insertAt(RBNode<K,V> parent, int compare, K key, V value){
+        RBNode<K, V> newNode = newNode(key, value);
         newNode.parent = parent;
-        if(parent == null || parent.isExternalNode()) {
+        if(parent.isExternalNode()) {
             root = newNode;
             root.parent = exNode;
         }
-        else if (newNode.key.compareTo(parent.key) < 0){ //if key of newNode less than key of parent node.
+        else if (compare < 0){ //if key of newNode less than key of parent node.
             parent.left = newNode;
         } else parent.right = newNode;
         newNode.left = newNode.right = exNode;
@@ -120,8 +247,35 @@ public class RBTree<K extends Comparable<K>, V>{
      * Returns the maximum depth of the red black tree
      * @return The maximum depth of the red black tree
      */
+    @SuppressWarnings("unchecked")
     public int maxDepth(){
-        return maxDepth(root, 0);
+        //Depth first walk with an explicit stack of the nodes still to visit and their depths
+        RBNode<K,V>[] nodes = (RBNode<K,V>[]) new RBNode<?,?>[STACK_SIZE];
+        int[] depths = new int[STACK_SIZE];
+        int top = 0;
+        int maxDepth = 0;
+        if(root.isInternalNode()){
+            nodes[top] = root;
+            depths[top++] = 1;
+        }
+        while(top > 0){
+            RBNode<K,V> node = nodes[--top];
+            int depth = depths[top];
+            maxDepth = Math.max(maxDepth, depth);
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            if(node.right.isInternalNode()){
+                nodes[top] = node.right;
+                depths[top++] = depth + 1;
+            }
+            if(node.left.isInternalNode()){
+                nodes[top] = node.left;
+                depths[top++] = depth + 1;
+            }
+        }
+        return maxDepth;
     }
 
     /**
@@ -146,19 +300,6 @@ public class RBTree<K extends Comparable<K>, V>{
         return node;
     }
 
-    /**
-     * Recursive function to determine the maxDepth of the tree
-     * @param node Root of the subtree
-     * @param count currentDepth
-     * @return MaxDepth of the subtree
-     */
-    private int maxDepth(RBNode<K,V> node, int count){
-        if(node.isExternalNode())
-            return count;
-        count++;
-        return Math.max(maxDepth(node.left,count),maxDepth(node.right,count));
-    }
-
     /**
      * Delete the given RBNode
      * @param delNode Node to be deleted from redblack tree
@@ -199,7 +340,7 @@ public class RBTree<K extends Comparable<K>, V>{
             exNode.parent = null;
             exNode.right = null;
             exNode.left = null;
-            exNode.color = Color.RED;
+            exNode.color = Color.BLACK;
         }
         return delNode;
     }
@@ -282,25 +423,106 @@ public class RBTree<K extends Comparable<K>, V>{
     }
 
     public RBNode<K,V> findNode(K key){
-        return findNode(root, key);
+        RBNode<K,V> curr = root;
+        long prefix = prefix(key);
+        while(curr.isInternalNode()){
+            int compare = compare(key, prefix, curr);
+            if(compare == 0)
+                return curr;
+            curr = compare < 0 ? curr.left : curr.right;
+        }
+        return curr;
+    }
+
+    /**
+     * Returns the node with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find next
+     * @return The node with the next key, RBExternalNode if there is no such node
+     */
+    public RBNode<K,V> next(K key){
+        RBNode<K,V> found = exNode;
+        RBNode<K,V> curr = root;
+        long prefix = prefix(key);
+        while(curr.isInternalNode()){
+            if(compare(key, prefix, curr) < 0){
+                //Only a key in the left subtree can be closer
+                found = curr;
+                curr = curr.left;
+            } else curr = curr.right;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find previous
+     * @return The node with the previous key, RBExternalNode if there is no such node
+     */
+    public RBNode<K,V> previous(K key){
+        RBNode<K,V> found = exNode;
+        RBNode<K,V> curr = root;
+        long prefix = prefix(key);
+        while(curr.isInternalNode()){
+            if(compare(key, prefix, curr) > 0){
+                found = curr;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the least key
+     * @return The first node in sorted order, RBExternalNode if the tree is empty
+     */
+    public RBNode<K,V> first(){
+        return root.isInternalNode() ? minValueNode(root) : exNode;
     }
 
     /**
-     * Recursive function to find a node with given key in the sub tree rooted by
-     * currNode
-     * @param currNode
-     * @param key
-     * @return
+     * Returns the node with the greatest key
+     * @return The last node in sorted order, RBExternalNode if the tree is empty
      */
-    private RBNode<K,V> findNode(RBNode<K,V> currNode, K key){
-        if(currNode.isExternalNode())
-            return currNode;
-        int compare = key.compareTo(currNode.key);
-        if(compare == 0)
-            return currNode;
-        else if(compare>0) //If the key is greater than the currNode
-            return findNode(currNode.right, key);
-        else return findNode(currNode.left, key); //If the key is lesser than the currNode
+    public RBNode<K,V> last(){
+        return root.isInternalNode() ? maxValueNode(root) : exNode;
+    }
+
+    /**
+     * Returns the node following the given node in sorted order, by following the parent links instead of searching
+     * from the root. Walking the whole tree with successor visits every link twice, so it takes O(n).
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The next node in sorted order, RBExternalNode if node is the last one
+     */
+    public RBNode<K,V> successor(RBNode<K,V> node){
+        if(node.right.isInternalNode())
+            return minValueNode(node.right);
+        //The parent of the root is null or the shared external node
+        RBNode<K,V> parent = node.parent;
+        while(parent != null && parent.isInternalNode() && node == parent.right){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent != null && parent.isInternalNode() ? parent : exNode;
+    }
+
+    /**
+     * Returns the node preceding the given node in sorted order, see successor
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The previous node in sorted order, RBExternalNode if node is the first one
+     */
+    public RBNode<K,V> predecessor(RBNode<K,V> node){
+        if(node.left.isInternalNode())
+            return maxValueNode(node.left);
+        RBNode<K,V> parent = node.parent;
+        while(parent != null && parent.isInternalNode() && node == parent.left){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent != null && parent.isInternalNode() ? parent : exNode;
     }
 
     /**
@@ -315,52 +537,48 @@ public class RBTree<K extends Comparable<K>, V>{
         int start = 0;
         int end = size-1;
         int mid = start + (end - start)/2;
+        int maxDepth = completeDepth(size);
+        //Note that we can use the lg(size) formula to find the maxDepth as we build complete BST using algorithm above.
+        //We color all the nodes at maxDepth as red. This results in all the nodes obeying red black properties.
+        int redDepth = maxDepth > 1 ? maxDepth : -1;
         RBNode<K,V> left;
-        left = initialize(0, mid-1, reader);
+        left = initialize(0, mid-1, 2, redDepth, reader);
         String tokens[] = reader.readLine().split(" ");
-        root = new RBNode<>(keyDeserializer.parse(tokens[0]), valueDeserializer.parse(tokens[1]));
+        root = newNode(keyDeserializer.parse(tokens[0]), valueDeserializer.parse(tokens[1]));
         root.color = Color.BLACK;
         root.left = left;
         if(root.left.isInternalNode())
             left.parent = root;
-        root.right = initialize(mid+1, end, reader);
+        root.right = initialize(mid+1, end, 2, redDepth, reader);
         if(root.right.isInternalNode())
             root.right.parent = root;
-        int maxDepth;
-        if(size == 1)
-            maxDepth = 1;
-        else maxDepth= (int)Math.ceil(Math.log(size)/Math.log(2));
-        //Note that we can use the lg(size) formula to find the maxDepth as we build complete BST using algorithm above.
-
-        //We color all the nodes at maxDepth as red. This results in all the nodes obeying red black properties.
-        if(maxDepth > 1)
-            recolorMaxDepth(maxDepth);
-
     }
 
     /**
      * Recursive initialize by taking the key value pairs from the reader
      * @param start Start index of the sub problem
      * @param end End index of the sub problem
+     * @param depth Depth of the root of the sub tree
+     * @param redDepth Depth whose nodes are colored red
      * @param reader Reader to read the input key value
      * @return Root node of the sub tree that is build.
      * @throws IOException When failure in reading occurs
      */
-    private RBNode<K,V> initialize(int start, int end, BufferedReader reader) throws IOException{
+    private RBNode<K,V> initialize(int start, int end, int depth, int redDepth, BufferedReader reader) throws IOException{
         //While initializing we build a complete binary search tree from the sorted keys and
-        //assign black color to all nodes and later make all nodes at max depth red
+        //assign black color to all nodes except the nodes at max depth, which are red
         if(start>end)
             return RBExternalNode.getInstance();
         int mid = start + (end - start)/2;
         RBNode<K,V> left;
-        left = initialize(start, mid-1, reader);
+        left = initialize(start, mid-1, depth+1, redDepth, reader);
         String tokens[] = reader.readLine().split(" ");
-        RBNode<K,V> node = new RBNode<>(keyDeserializer.parse(tokens[0]), valueDeserializer.parse(tokens[1]));
-        node.color = Color.BLACK;
+        RBNode<K,V> node = newNode(keyDeserializer.parse(tokens[0]), valueDeserializer.parse(tokens[1]));
+        node.color = depth == redDepth ? Color.RED : Color.BLACK;
         node.left = left;
         if(node.left.isInternalNode())
             node.left.parent = node;
-        node.right = initialize(mid+1, end, reader);
+        node.right = initialize(mid+1, end, depth+1, redDepth, reader);
         if(node.right.isInternalNode())
             node.right.parent = node;
         return node;
@@ -369,33 +587,98 @@ public class RBTree<K extends Comparable<K>, V>{
     }
 
     /**
-     * Recolor all nodes at a given depth to red
-     * @param depth The depth at which nodes should be colored to red
+     * Initialize the RedBlack tree from sorted arrays of keys and values, building the left and right subtrees in
+     * parallel in the common ForkJoinPool, see initialize(K[], V[], ForkJoinPool)
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
      */
-    private void recolorMaxDepth(int depth) {
-        recolorMaxDepth(root, 0, depth);
+    public void initialize(K[] keys, V[] values){
+        initialize(keys, values, ForkJoinPool.commonPool());
     }
 
     /**
-     * Recolor all nodes at a given depth to red
-     * @param node Current node
-     * @param currDepth Current Depth
-     * @param depth The depth at which nodes should be colored to red
+     * Initialize the RedBlack tree from sorted arrays of keys and values. The complete Binary Search tree is built
+     * as in initialize(BufferedReader, int), but as every node is taken by index from the arrays the left and right
+     * subtrees are built by parallel tasks.
+     * Time Complexity = O(n), O(n/p + lg(n)) with p workers
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     * @param pool Pool that runs the build
      */
-    private void recolorMaxDepth(RBNode<K,V> node, int currDepth, int depth) {
-        currDepth++;
-        if(currDepth == depth) {
-            if(node.isInternalNode())
-                node.color = Color.RED;
-        }
-        else{
-            recolorMaxDepth(node.left, currDepth, depth);
-            recolorMaxDepth(node.right, currDepth, depth);
-        }
+    public void initialize(K[] keys, V[] values, ForkJoinPool pool){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        root = exNode;
+        if(keys.length == 0)
+            return;
+        int maxDepth = completeDepth(keys.length);
+        RBNode<K,V> node = pool.invoke(new BuildTask(keys, values, 0, keys.length - 1, 1, maxDepth > 1 ? maxDepth : -1));
+        node.parent = exNode;
+        root = node;
+    }
+
+    /**
+     * Returns the depth of the complete Binary Search tree built by initialize
+     * @param size Number of nodes
+     * @return floor(lg(size)) + 1, 0 when the tree is empty
+     */
+    private static int completeDepth(int size){
+        return 32 - Integer.numberOfLeadingZeros(size);
     }
 
+    /**
+     * Builds the sub tree of keys[start..end], forking the left subtree while the range is larger than THRESHOLD
+     */
+    private class BuildTask extends RecursiveTask<RBNode<K,V>> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 13;
+        private final K[] keys;
+        private final V[] values;
+        private final int start;
+        private final int end;
+        private final int depth;
+        private final int redDepth;
+
+        BuildTask(K[] keys, V[] values, int start, int end, int depth, int redDepth){
+            this.keys = keys;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+            this.redDepth = redDepth;
+        }
+
+        @Override
+        protected RBNode<K,V> compute() {
+            if(end - start < THRESHOLD)
+                return build(start, end, depth);
+            int mid = start + (end - start)/2;
+            BuildTask leftTask = new BuildTask(keys, values, start, mid-1, depth+1, redDepth);
+            leftTask.fork();
+            RBNode<K,V> right = new BuildTask(keys, values, mid+1, end, depth+1, redDepth).compute();
+            return link(mid, depth, leftTask.join(), right);
+        }
 
+        private RBNode<K,V> build(int start, int end, int depth){
+            if(start>end)
+                return exNode;
+            int mid = start + (end - start)/2;
+            RBNode<K,V> left = build(start, mid-1, depth+1);
+            return link(mid, depth, left, build(mid+1, end, depth+1));
+        }
 
+        private RBNode<K,V> link(int mid, int depth, RBNode<K,V> left, RBNode<K,V> right){
+            RBNode<K,V> node = newNode(keys[mid], values[mid]);
+            node.color = depth == redDepth ? Color.RED : Color.BLACK;
+            node.left = left;
+            if(left.isInternalNode())
+                left.parent = node;
+            node.right = right;
+            if(right.isInternalNode())
+                right.parent = node;
+            return node;
+        }
+    }
 
     /**
      *  Rotates left(counter clockwise) with respect to x
@@ -465,59 +748,49 @@ public class RBTree<K extends Comparable<K>, V>{
 
     /**
      * Utility method to verify the properties of the RB tree
+     * The nodes are visited depth first with an explicit stack, checking at every node that a red node has no red
+     * child and that every path to an external node has the same number of black nodes.
      * @return true if all the properties of RB tree hold, otherwise false;
      */
+    @SuppressWarnings("unchecked")
     public boolean verifyRBProperties(){
-        int numBNodes = countBNodesToExNode();
-        boolean bNodeProperty = verifyBNodeProperty(root,0,numBNodes);
-        boolean rNodeProperty = verifyRedNodeProperty(root);
         boolean exNodeProperty = exNode.color == Color.BLACK && exNode.parent == null && exNode.left == null && exNode.right == null;
         boolean rootNodeProperty = root.isBlack();
-        return rNodeProperty && bNodeProperty && exNodeProperty && rootNodeProperty;
-
-    }
-
-    /**
-     * Recursive function to verify no consecutive red node property
-     * @param node Current node whose no consecutive red node property needs to be verified.
-     * @return true if the property holds, otherwise false;
-     */
-    private boolean verifyRedNodeProperty(RBNode<K, V> node){
-        if(node.isInternalNode()){
-            if(node.isRed() && node.parent.isRed())
-                return false;
-            else return verifyRedNodeProperty(node.left) && verifyRedNodeProperty(node.right);
-        } else return true;
-
-    }
-
-    /**
-     * Verifies the property that number of black nodes in the paths from root to all external nodes is same.
-     * @param node Current node
-     * @param currNumBNodes Number of black nodes in the path from root to current node
-     * @param numBNodes Number of black nodes from root till external nodes
-     * @return
-     */
-    private boolean verifyBNodeProperty(RBNode<K, V> node, int currNumBNodes, int numBNodes) {
-        if(currNumBNodes >= numBNodes) {
+        if(!exNodeProperty || !rootNodeProperty)
             return false;
-        }
-        if(node.isExternalNode()){
-            if(currNumBNodes+1 == numBNodes)
-                return true;
-            else {
+        int numBNodes = countBNodesToExNode();
+        //nodes[i] is a node still to visit, blacks[i] is the number of black nodes above it
+        RBNode<K,V>[] nodes = (RBNode<K,V>[]) new RBNode<?,?>[STACK_SIZE];
+        int[] blacks = new int[STACK_SIZE];
+        int top = 0;
+        nodes[top] = root;
+        blacks[top++] = 0;
+        while(top > 0){
+            RBNode<K,V> node = nodes[--top];
+            int numBlack = blacks[top];
+            if(node.isExternalNode()){
+                if(numBlack + 1 != numBNodes)
+                    return false;
+                continue;
+            }
+            if(node.isBlack())
+                numBlack++;
+            if(node.isRed() && (node.left.isRed() || node.right.isRed()))
                 return false;
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                blacks = Arrays.copyOf(blacks, blacks.length * 2);
             }
+            nodes[top] = node.right;
+            blacks[top++] = numBlack;
+            nodes[top] = node.left;
+            blacks[top++] = numBlack;
         }
-        else {
-            currNumBNodes = node.isBlack()? currNumBNodes+1 : currNumBNodes;
-            return verifyBNodeProperty(node.left, currNumBNodes, numBNodes)
-               && verifyBNodeProperty(node.right, currNumBNodes, numBNodes);
-        }
+        return true;
     }
 
     private int countBNodesToExNode(){
-        RBNode curr = root;
+        RBNode<K,V> curr = root;
         int nBNodes = 0;
         while(curr.isInternalNode()){
             if(curr.isBlack())
@@ -0,0 +1,40 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.EOFException;
+
+/**
+ * KeyValueSource over arrays of keys and values that are already in memory
+ */
+public class ArrayKeyValueSource implements KeyValueSource {
+    private final int[] keys;
+    private final int[] values;
+    private int index = -1;
+
+    public ArrayKeyValueSource(int[] keys, int[] values){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public void read() throws EOFException {
+        if(index + 1 >= keys.length)
+            throw new EOFException();
+        index++;
+    }
+
+    @Override
+    public int key() {
+        return keys[index];
+    }
+
+    @Override
+    public int value() {
+        return values[index];
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,128 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * KeyValueSource parsing the ASCII input format ("n" on the first line, then one "key value" pair per line)
+ * directly from the bytes of a channel. The channel is read into a large direct buffer and the numbers are parsed
+ * digit by digit, no String or other object is created per pair, so reading 10^8 pairs is bound by the disk
+ * rather than by parsing and garbage collection.
+ * Numbers are separated by any number of spaces, tabs or line ends.
+ */
+public class AsciiKeyValueSource implements KeyValueSource {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private int key;
+    private int value;
+
+    /**
+     * @param channel Channel to read from
+     * @param bufferSize Size of the direct read buffer in bytes
+     */
+    public AsciiKeyValueSource(ReadableByteChannel channel, int bufferSize){
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip();
+    }
+
+    /**
+     * Opens the file for reading
+     * @param file Path of the input file
+     * @return The source of the pairs in the file
+     * @throws IOException when the file can not be opened
+     */
+    public static AsciiKeyValueSource open(Path file) throws IOException {
+        return new AsciiKeyValueSource(FileChannel.open(file, StandardOpenOption.READ), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the number of pairs, which is the first number of the input
+     * @return Number of key-value pairs which follow
+     * @throws IOException when read error occurs
+     */
+    public int readCount() throws IOException {
+        return readInt();
+    }
+
+    @Override
+    public void read() throws IOException {
+        key = readInt();
+        value = readInt();
+    }
+
+    @Override
+    public int key() {
+        return key;
+    }
+
+    @Override
+    public int value() {
+        return value;
+    }
+
+    /**
+     * Parses the next number, skipping the separators before it and consuming the one after it
+     */
+    private int readInt() throws IOException {
+        int b = nextByte();
+        while(isSeparator(b))
+            b = nextByte();
+        if(b < 0)
+            throw new EOFException();
+        boolean negative = b == '-';
+        if(negative)
+            b = nextByte();
+        if(b < '0' || b > '9')
+            throw new NumberFormatException("Unexpected character in input: " + (char) b);
+        //Accumulate as a negative number, which can hold Integer.MIN_VALUE
+        int result = 0;
+        do {
+            int digit = b - '0';
+            if(result < (Integer.MIN_VALUE + digit) / 10)
+                throw new NumberFormatException("Number out of range in input");
+            result = result * 10 - digit;
+            b = nextByte();
+        } while(b >= '0' && b <= '9');
+        if(b >= 0 && !isSeparator(b))
+            throw new NumberFormatException("Unexpected character in input: " + (char) b);
+        if(negative)
+            return result;
+        if(result == Integer.MIN_VALUE)
+            throw new NumberFormatException("Number out of range in input");
+        return -result;
+    }
+
+    private static boolean isSeparator(int b){
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * @return The next byte of the input, -1 at the end of the input
+     */
+    private int nextByte() throws IOException {
+        if(!buffer.hasRemaining()){
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while(read == 0);
+            buffer.flip();
+            if(read < 0)
+                return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,82 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * KeyValueSource reading the compact binary input format: the pairs sorted by key, each stored as two little endian
+ * ints (key then value) without any header, so the number of pairs is the file length / 8. The trailer which a
+ * snapshot may end with is not part of the pairs (see SnapshotMark).
+ * The file is memory mapped in windows of 1GB (a single mapping can not exceed 2GB) and read sequentially.
+ */
+public class BinaryKeyValueSource implements KeyValueSource {
+    /**
+     * Size of a pair in the file
+     */
+    public static final int PAIR_SIZE = 8;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long length;
+    private long windowEnd;
+    private MappedByteBuffer window;
+    private int key;
+    private int value;
+
+    private BinaryKeyValueSource(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size() - SnapshotMark.binaryTrailer(channel);
+        this.length = size - size % PAIR_SIZE;
+    }
+
+    /**
+     * Opens the file for reading
+     * @param file Path of the binary input file
+     * @return The source of the pairs in the file
+     * @throws IOException when the file can not be opened
+     */
+    public static BinaryKeyValueSource open(Path file) throws IOException {
+        return new BinaryKeyValueSource(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * @return Number of key-value pairs in the file
+     */
+    public int size(){
+        return (int) Math.min(Integer.MAX_VALUE, length / PAIR_SIZE);
+    }
+
+    @Override
+    public void read() throws IOException {
+        if(window == null || !window.hasRemaining()){
+            if(windowEnd == length)
+                throw new EOFException();
+            long size = Math.min(WINDOW_SIZE, length - windowEnd);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowEnd += size;
+        }
+        key = window.getInt();
+        value = window.getInt();
+    }
+
+    @Override
+    public int key() {
+        return key;
+    }
+
+    @Override
+    public int value() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
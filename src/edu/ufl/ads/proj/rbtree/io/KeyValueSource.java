@@ -0,0 +1,43 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sequential source of the sorted key-value pairs used to initialize a red black tree.
+ * read() advances to the next pair, whose key and value are then available through key() and value().
+ */
+public interface KeyValueSource extends Closeable {
+
+    /**
+     * Reads the next key-value pair
+     * @throws java.io.EOFException when there are no more pairs
+     * @throws IOException when read error occurs
+     * @throws NumberFormatException when the pair is malformed
+     */
+    void read() throws IOException;
+
+    /**
+     * @return Key of the pair last read
+     */
+    int key();
+
+    /**
+     * @return Value of the pair last read
+     */
+    int value();
+
+    /**
+     * Reads the next keys.length pairs into the given arrays, as expected by the bulk builds of the trees
+     * @param keys Array receiving the keys
+     * @param values Array receiving the values, of the same length as keys
+     * @throws IOException when read error occurs
+     */
+    default void read(int[] keys, int[] values) throws IOException {
+        for(int i = 0; i < keys.length; i++){
+            read();
+            keys[i] = key();
+            values[i] = value();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * KeyValueSource reading one "key value" pair per line from a BufferedReader
+ */
+public class LineKeyValueSource implements KeyValueSource {
+    private final BufferedReader reader;
+    private int key;
+    private int value;
+
+    public LineKeyValueSource(BufferedReader reader){
+        this.reader = reader;
+    }
+
+    @Override
+    public void read() throws IOException {
+        String line = reader.readLine();
+        if(line == null)
+            throw new EOFException();
+        String tokens[] = line.split(" ");
+        key = Integer.parseInt(tokens[0]);
+        value = Integer.parseInt(tokens[1]);
+    }
+
+    @Override
+    public int key() {
+        return key;
+    }
+
+    @Override
+    public int value() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
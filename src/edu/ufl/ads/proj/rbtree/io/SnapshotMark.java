@@ -0,0 +1,87 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Mark of the operation log stored at the end of a snapshot: the number of logged operations the snapshot already
+ * holds, so that recovering from the snapshot skips them (see OperationLog.replay).
+ * The text format ends with a "log mark" line after the pairs, which the loaders never read since they stop after
+ * the n pairs. The binary format ends with a 12 byte trailer, the mark as a little endian long and a magic number,
+ * so a file with a trailer is 4 bytes longer than a multiple of the pair size and is never mistaken for pairs only.
+ * A file without a mark (any input which is not a snapshot of a logged counter) has mark 0.
+ */
+public final class SnapshotMark {
+    static final int MAGIC = 0x534E4D4B;
+    static final int TRAILER_SIZE = 12;
+    static final String TEXT_PREFIX = "log ";
+    /**
+     * Longest text line of a mark: the prefix, a long of 20 characters and the line end
+     */
+    private static final int MAX_TEXT = 32;
+
+    private SnapshotMark(){
+    }
+
+    /**
+     * Reads the mark of a snapshot, a .bin file is read in the binary format and any other file in the text format
+     * @param file Path of the snapshot or input file
+     * @return The mark stored in the file, 0 if it has none
+     * @throws IOException when read error occurs
+     */
+    public static long read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(file.toString().endsWith(".bin")){
+                if(binaryTrailer(channel) == 0)
+                    return 0;
+                return tail(channel, TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN).getLong();
+            }
+            ByteBuffer tail = tail(channel, (int) Math.min(channel.size(), MAX_TEXT));
+            int end = tail.limit();
+            while(end > 0 && (tail.get(end - 1) == '\n' || tail.get(end - 1) == '\r'))
+                end--;
+            int start = end;
+            while(start > 0 && tail.get(start - 1) != '\n')
+                start--;
+            byte[] line = new byte[end - start];
+            tail.get(start, line);
+            String text = new String(line, StandardCharsets.US_ASCII);
+            if(!text.startsWith(TEXT_PREFIX))
+                return 0;
+            try {
+                return Long.parseLong(text.substring(TEXT_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the trailer of a binary file
+     * @param channel Channel of the binary file
+     * @return TRAILER_SIZE when the file ends with a mark, 0 otherwise
+     * @throws IOException when read error occurs
+     */
+    static int binaryTrailer(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if(size < TRAILER_SIZE || size % BinaryKeyValueSource.PAIR_SIZE != TRAILER_SIZE % BinaryKeyValueSource.PAIR_SIZE)
+            return 0;
+        return tail(channel, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC ? TRAILER_SIZE : 0;
+    }
+
+    /**
+     * Reads the last bytes of the file
+     */
+    private static ByteBuffer tail(FileChannel channel, int length) throws IOException {
+        ByteBuffer tail = ByteBuffer.allocate(length);
+        long position = channel.size() - length;
+        while(tail.hasRemaining() && channel.read(tail, position + tail.position()) >= 0);
+        tail.flip();
+        return tail;
+    }
+}
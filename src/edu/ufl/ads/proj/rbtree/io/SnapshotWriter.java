@@ -0,0 +1,197 @@
+package edu.ufl.ads.proj.rbtree.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes sorted key-value pairs in one of the input formats of the tree, so that a snapshot can be loaded again by
+ * initialize in O(n): the text format read by AsciiKeyValueSource ("n" on the first line, then one "key value" pair
+ * per line) or the binary format read by BinaryKeyValueSource (two little endian ints per pair).
+ * The numbers are formatted digit by digit into a large byte array which is written to the channel when full,
+ * no object is created per pair.
+ * A snapshot created with create(Path, int) is written to a temporary file next to it, which replaces the snapshot
+ * only when close() has forced it to the disk, so a crash never leaves a partial snapshot behind.
+ * A snapshot of a logged counter ends with the mark of the log it covers, see SnapshotMark.
+ */
+public class SnapshotWriter implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+    /**
+     * Longest text of a pair: two ints of 11 characters, the space and the line end
+     */
+    private static final int MAX_PAIR_TEXT = 24;
+
+    private final FileChannel channel;
+    private final boolean binary;
+    private final int count;
+    private final byte[] buffer;
+    private int length;
+    private final Path temporary;
+    private final Path target;
+    private final long mark;
+    private int written;
+
+    private SnapshotWriter(FileChannel channel, boolean binary, int count, long mark, Path temporary, Path target){
+        this.channel = channel;
+        this.binary = binary;
+        this.count = count;
+        this.mark = mark;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.temporary = temporary;
+        this.target = target;
+        if(!binary)
+            putNumber(count, '\n');
+    }
+
+    /**
+     * Creates a snapshot file, a .bin file is written in the binary format and any other file in the text format
+     * @param file Path of the snapshot
+     * @param count Number of pairs which will be written
+     * @return The writer of the snapshot
+     * @throws IOException when the file can not be created
+     */
+    public static SnapshotWriter create(Path file, int count) throws IOException {
+        return create(file, count, 0);
+    }
+
+    /**
+     * Creates a snapshot file like create(Path, int), which ends with the mark of the operation log it covers
+     * @param file Path of the snapshot
+     * @param count Number of pairs which will be written
+     * @param mark Number of logged operations the pairs hold, 0 for no mark
+     * @return The writer of the snapshot
+     * @throws IOException when the file can not be created
+     */
+    public static SnapshotWriter create(Path file, int count, long mark) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new SnapshotWriter(channel, file.toString().endsWith(".bin"), count, mark, temporary, file);
+    }
+
+    /**
+     * Writes the next pair, the pairs must be written in increasing order of keys
+     * @param key Key of the pair
+     * @param value Value of the pair
+     * @throws IOException when write error occurs
+     */
+    public void write(int key, int value) throws IOException {
+        if(buffer.length - length < MAX_PAIR_TEXT)
+            drain();
+        if(binary){
+            putLittleEndian(key);
+            putLittleEndian(value);
+        } else {
+            putNumber(key, ' ');
+            putNumber(value, '\n');
+        }
+        written++;
+    }
+
+    /**
+     * Writes the pairs keys[from..to) with values[from..to)
+     * @throws IOException when write error occurs
+     */
+    public void write(int[] keys, int[] values, int from, int to) throws IOException {
+        for(int i = from; i < to; i++)
+            write(keys[i], values[i]);
+    }
+
+    private void putLittleEndian(int number){
+        buffer[length] = (byte) number;
+        buffer[length + 1] = (byte) (number >>> 8);
+        buffer[length + 2] = (byte) (number >>> 16);
+        buffer[length + 3] = (byte) (number >>> 24);
+        length += 4;
+    }
+
+    private void putNumber(int number, char separator){
+        //Digits of the negated number, which can hold Integer.MIN_VALUE
+        int n = number;
+        if(n < 0)
+            buffer[length++] = '-';
+        else n = -n;
+        int digits = 1;
+        for(int rest = n / 10; rest != 0; rest /= 10)
+            digits++;
+        //The digits are put from the least significant one, at the end of the number
+        int end = length + digits;
+        for(int i = end - 1; i >= length; i--){
+            buffer[i] = (byte) ('0' - n % 10);
+            n /= 10;
+        }
+        buffer[end] = (byte) separator;
+        length = end + 1;
+    }
+
+    /**
+     * Puts the mark after the pairs, see SnapshotMark
+     */
+    private void putMark() throws IOException {
+        if(buffer.length - length < MAX_PAIR_TEXT + SnapshotMark.TEXT_PREFIX.length())
+            drain();
+        if(binary){
+            putLittleEndian((int) mark);
+            putLittleEndian((int) (mark >>> 32));
+            putLittleEndian(SnapshotMark.MAGIC);
+        } else {
+            for(int i = 0; i < SnapshotMark.TEXT_PREFIX.length(); i++)
+                buffer[length++] = (byte) SnapshotMark.TEXT_PREFIX.charAt(i);
+            byte[] digits = Long.toString(mark).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(digits, 0, buffer, length, digits.length);
+            length += digits.length;
+            buffer[length++] = '\n';
+        }
+    }
+
+    private void drain() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+        while(bytes.hasRemaining())
+            channel.write(bytes);
+        length = 0;
+    }
+
+    /**
+     * Writes out the buffer, forces the file to the disk and moves it in place of the snapshot, then forces the
+     * directory so that the new snapshot survives a crash of the system
+     * @throws IOException when write error occurs
+     * @throws IllegalStateException when the number of pairs written differs from the count given to create
+     */
+    @Override
+    public void close() throws IOException {
+        boolean complete = false;
+        try {
+            if(written != count)
+                throw new IllegalStateException("Snapshot of " + count + " pairs has " + written + " pairs");
+            if(mark != 0)
+                putMark();
+            drain();
+            channel.force(true);
+            complete = true;
+        } finally {
+            channel.close();
+            if(complete)
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            else Files.deleteIfExists(temporary);
+        }
+        forceDirectory(target);
+    }
+
+    /**
+     * Forces the directory holding the file to the disk, which makes a rename into it durable
+     * @param file File whose directory is forced
+     * @throws IOException when the directory can not be forced
+     */
+    private static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,768 @@
+package edu.ufl.ads.proj.rbtree.primitive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import edu.ufl.ads.proj.rbtree.Color;
+
+/*
+ * Generated from RBTree.template by make generate (run from src), do not edit.
+ */
+
+/**
+ * Implementation of RedBlack Tree with long keys and int values, a specialization of the generic
+ * edu.ufl.ads.proj.rbtree.generic.RBTree with the same API: the keys and values are held unboxed in the nodes and the
+ * keys are compared with the primitive operators instead of compareTo.
+ * Each tree has its own external node, so trees can be used by different threads.
+ */
+public class LongIntRBTree {
+
+    /**
+     * Class to represent a node in redblack tree
+     */
+    public static class Node {
+        long key;
+        int value;
+        Node parent;
+        Node left;
+        Node right;
+        Color color;
+        private final boolean external;
+
+        Node(long key, int value, Node exNode){
+            this.key = key;
+            this.value = value;
+            this.color = Color.RED;
+            this.parent = exNode;
+            this.left = exNode;
+            this.right = exNode;
+            this.external = false;
+        }
+
+        /**
+         * Creates the external node of a tree
+         */
+        private Node(){
+            this.color = Color.BLACK;
+            this.external = true;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+
+        public Node getRightChild() {
+            return right;
+        }
+
+        public Node getLeftChild() {
+            return left;
+        }
+
+        public boolean isRed(){
+            return !isBlack();
+        }
+
+        public boolean isBlack(){
+            return external || color == Color.BLACK;
+        }
+
+        public boolean isExternalNode(){
+            return external;
+        }
+
+        public boolean isInternalNode(){
+            return !external;
+        }
+    }
+
+    /**
+     * Thrown by insert when the key is already in the tree
+     */
+    public static class DuplicateKeyException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final Node entry;
+        public DuplicateKeyException(Node entry) {
+            super(null, null, false, false);
+            this.entry = entry;
+        }
+        public Node getDuplicate(){
+            return entry;
+        }
+    }
+
+    final Node exNode = new Node();
+    Node root = exNode;
+
+    /**
+     * Initial size of the explicit stacks of the tree walks, a red black tree of n nodes is at most 2 lg(n + 1) deep
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * Returns the root node of the red black tree
+     * @return The root node of red black tree
+     */
+    public Node getRoot(){
+        return root;
+    }
+
+    /**
+     * Inserts the key-value pair into the red black tree
+     * @param key Key to be inserted.
+     * @param value Value to be inserted.
+     * @return The the newly inserted node
+     * @throws DuplicateKeyException if there exists a node with same key in the tree
+     */
+    public Node insert(long key, int value) throws DuplicateKeyException{
+        Node parent = exNode;
+        Node curr = root;
+        while(curr.isInternalNode()){
+            parent = curr;
+            if(key == curr.key)
+                throw new DuplicateKeyException(curr);
+            else if(key < curr.key)
+                curr = curr.left;
+            else curr = curr.right;
+        }
+        Node newNode = new Node(key, value, exNode);
+        newNode.parent = parent;
+        if(parent.isExternalNode())
+            root = newNode;
+        else if(key < parent.key)
+            parent.left = newNode;
+        else parent.right = newNode;
+        insertFixColors(newNode);
+        return newNode;
+    }
+
+    /**
+     * Fix the colors of the nodes such the properties of RedBlackTree are obeyed.
+     * @param node RedBlack node where the color fixing needs to carried out.
+     */
+    private void insertFixColors(Node node){
+        Node parentsSibling;
+        while(node.parent.isRed()){
+            if(node.parent == node.parent.parent.left) { // node's parent is left child of grand parent
+                parentsSibling = node.parent.parent.right;
+                if(parentsSibling.isRed()){
+                    node.parent.color = Color.BLACK;
+                    parentsSibling.color = Color.BLACK;
+                    node.parent.parent.color = Color.RED;
+                    node = node.parent.parent;
+                } else{
+                    if(node == node.parent.right){ // case LRb : left rotation with respect to parent to get LLb
+                        node = node.parent;
+                        leftRotate(node);
+                    }
+                    node.parent.color = Color.BLACK; //case LLb
+                    node.parent.parent.color = Color.RED;
+                    rightRotate(node.parent.parent);
+                }
+            }else {// node's parent is right child of grand parent
+                parentsSibling = node.parent.parent.left;
+                if(parentsSibling.isRed()){
+                    node.parent.color = Color.BLACK;
+                    parentsSibling.color = Color.BLACK;
+                    node.parent.parent.color = Color.RED;
+                    node = node.parent.parent;
+                } else {
+                    if(node == node.parent.left){ // case RLb : right rotation with respect to parent to get RRb
+                        node = node.parent;
+                        rightRotate(node);
+                    }
+                    node.parent.color = Color.BLACK;
+                    node.parent.parent.color = Color.RED;
+                    leftRotate(node.parent.parent);
+                }
+            }
+        }
+        root.color = Color.BLACK;
+    }
+
+    /**
+     * Returns the maximum depth of the red black tree
+     * @return The maximum depth of the red black tree
+     */
+    public int maxDepth(){
+        //Depth first walk with an explicit stack of the nodes still to visit and their depths
+        Node[] nodes = new Node[STACK_SIZE];
+        int[] depths = new int[STACK_SIZE];
+        int top = 0;
+        int maxDepth = 0;
+        if(root.isInternalNode()){
+            nodes[top] = root;
+            depths[top++] = 1;
+        }
+        while(top > 0){
+            Node node = nodes[--top];
+            int depth = depths[top];
+            maxDepth = Math.max(maxDepth, depth);
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            if(node.right.isInternalNode()){
+                nodes[top] = node.right;
+                depths[top++] = depth + 1;
+            }
+            if(node.left.isInternalNode()){
+                nodes[top] = node.left;
+                depths[top++] = depth + 1;
+            }
+        }
+        return maxDepth;
+    }
+
+    /**
+     * Returns the minimum value node in the subtree rooted at node
+     * @param node Root of the subtree
+     * @return The minimum value node in the subtree rooted at node
+     */
+    private Node minValueNode(Node node){
+        while(node.left.isInternalNode())
+            node = node.left;
+        return node;
+    }
+
+    /**
+     * Returns the maximum value node in the subtree rooted at node
+     * @param node Root of the subtree
+     * @return The maximum value node in the subtree rooted at node
+     */
+    private Node maxValueNode(Node node){
+        while(node.right.isInternalNode())
+            node = node.right;
+        return node;
+    }
+
+    /**
+     * Delete the given node
+     * @param delNode Node to be deleted from redblack tree
+     * @return Node deleted from reb black tree
+     */
+    public Node delete(Node delNode){
+        if(delNode.isInternalNode()){
+            Node node = delNode;
+            Node fixNode;
+            Color nodeColor = node.color;
+            if(delNode.left.isExternalNode()){ //If the left child is the external node, the right child replaces the node
+                fixNode = delNode.right;
+                replaceNode(delNode, fixNode);
+            } else if (delNode.right.isExternalNode()){//If the right child is the external node, the left child replaces the node
+                fixNode = delNode.left;
+                replaceNode(delNode, fixNode);
+            } else {
+                //Otherwise the minimum node in the right subtree replaces the node
+                node = minValueNode(delNode.right);
+                nodeColor = node.color;
+                fixNode = node.right;
+                if(node.parent == delNode) // If the least node in the right subtree is the direct right child of node being deleted
+                    fixNode.parent = node;
+                else {
+                    //Otherwise the least node is first replaced by its right child and takes the right subtree
+                    replaceNode(node, node.right);
+                    node.right = delNode.right;
+                    node.right.parent = node;
+                }
+                replaceNode(delNode, node);
+                node.left = delNode.left;
+                node.left.parent = node;
+                node.color = delNode.color;
+            }
+            if(nodeColor == Color.BLACK) //Call fix nodes only if the color of node being deleted is black
+                deleteFixColors(fixNode);
+            exNode.parent = null;
+            exNode.right = null;
+            exNode.left = null;
+            exNode.color = Color.BLACK;
+        }
+        return delNode;
+    }
+
+    public Node delete(long key){
+        Node delNode = findNode(key);
+        return delete(delNode);
+    }
+
+    /**
+     * Fix the colors for the sub tree rooted at node, which would have failed red black properties
+     * @param node Root of the subtree where the properties would have failed red black properties
+     */
+    private void deleteFixColors(Node node){
+        Node sibling;
+        while(node != root && node.isBlack()){
+            if(node == node.parent.left){ //If the node is left child, counter operations performed in the corresponding else block
+                sibling = node.parent.right;
+                if(sibling.isRed()){
+                    //Case 1: Sibling is Red, color sibling black and the parent red and rotate to reach case 2, 3 or 4
+                    sibling.color = Color.BLACK;
+                    sibling.parent.color = Color.RED;
+                    leftRotate(node.parent);
+                    sibling = node.parent.right;
+                }
+                if(sibling.left.isBlack() && sibling.right.isBlack()){
+                    //case 2: Both the siblings children are black, color sibling red and move the problem to the parent
+                    sibling.color = Color.RED;
+                    node = node.parent;
+                } else {
+                    //case 3: sibling's right child is black and left child is red, rotate right w.r.t sibling to reach case 4
+                    if(sibling.right.isBlack()){
+                        sibling.left.color = Color.BLACK;
+                        sibling.color = Color.RED;
+                        rightRotate(sibling);
+                        sibling = node.parent.right;
+                    }
+                    //case 4: sibling's right child is red, recolor and rotate left w.r.t parent
+                    sibling.color = node.parent.color;
+                    node.parent.color = Color.BLACK;
+                    sibling.right.color = Color.BLACK;
+                    leftRotate(node.parent);
+                    node = root; // done fixing colors
+                }
+            } else{//If the node is right child, exact opposite operations when compared to corresponding "if" block above
+                sibling = node.parent.left;
+                if(sibling.isRed()){
+                    sibling.color = Color.BLACK;
+                    sibling.parent.color = Color.RED;
+                    rightRotate(node.parent);
+                    sibling = node.parent.left;
+                }
+                if(sibling.left.isBlack() && sibling.right.isBlack()){
+                    sibling.color = Color.RED;
+                    node = node.parent;
+                } else {
+                    if(sibling.left.isBlack()){
+                        sibling.right.color = Color.BLACK;
+                        sibling.color = Color.RED;
+                        leftRotate(sibling);
+                        sibling = node.parent.left;
+                    }
+                    sibling.color = node.parent.color;
+                    node.parent.color = Color.BLACK;
+                    sibling.left.color = Color.BLACK;
+                    rightRotate(node.parent);
+                    node = root; // done fixing colors
+                }
+            }
+        }
+        node.color = Color.BLACK;
+    }
+
+    public Node findNode(long key){
+        Node curr = root;
+        while(curr.isInternalNode()){
+            if(key == curr.key)
+                return curr;
+            curr = key < curr.key ? curr.left : curr.right;
+        }
+        return curr;
+    }
+
+    /**
+     * Returns the node with the least key greater than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find next
+     * @return The node with the next key, the external node if there is no such node
+     */
+    public Node next(long key){
+        Node found = exNode;
+        Node curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key > key){
+                //Only a key in the left subtree can be closer
+                found = curr;
+                curr = curr.left;
+            } else curr = curr.right;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the greatest key lesser than the given key
+     * Complexity = O(lg (n))
+     * @param key Key for which we need to find previous
+     * @return The node with the previous key, the external node if there is no such node
+     */
+    public Node previous(long key){
+        Node found = exNode;
+        Node curr = root;
+        while(curr.isInternalNode()){
+            if(curr.key < key){
+                found = curr;
+                curr = curr.right;
+            } else curr = curr.left;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the least key
+     * @return The first node in sorted order, the external node if the tree is empty
+     */
+    public Node first(){
+        return root.isInternalNode() ? minValueNode(root) : exNode;
+    }
+
+    /**
+     * Returns the node with the greatest key
+     * @return The last node in sorted order, the external node if the tree is empty
+     */
+    public Node last(){
+        return root.isInternalNode() ? maxValueNode(root) : exNode;
+    }
+
+    /**
+     * Returns the node following the given node in sorted order, by following the parent links instead of searching
+     * from the root. Walking the whole tree with successor visits every link twice, so it takes O(n).
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The next node in sorted order, the external node if node is the last one
+     */
+    public Node successor(Node node){
+        if(node.right.isInternalNode())
+            return minValueNode(node.right);
+        Node parent = node.parent;
+        while(parent != null && parent.isInternalNode() && node == parent.right){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent != null && parent.isInternalNode() ? parent : exNode;
+    }
+
+    /**
+     * Returns the node preceding the given node in sorted order, see successor
+     * Complexity = O(lg (n)), O(1) amortized
+     * @param node A node of the tree
+     * @return The previous node in sorted order, the external node if node is the first one
+     */
+    public Node predecessor(Node node){
+        if(node.left.isInternalNode())
+            return maxValueNode(node.left);
+        Node parent = node.parent;
+        while(parent != null && parent.isInternalNode() && node == parent.left){
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent != null && parent.isInternalNode() ? parent : exNode;
+    }
+
+    /**
+     * Initialize the RedBlack tree using a list of sorted KeyValue pairs, by building the complete Binary Search tree in inorder
+     * and coloring nodes such that only last level internal nodes are red and the rest are black.
+     * Time Complexity = O(n) { T(n) = 2T(n/2) + O(1) }
+     * @param reader Reader to a stream which contains key-value pairs sorted by the keys field.
+     *                Each key-value pair is on a separate line; keys and values are separated by a space.
+     * @param size Number of key-value pairs
+     */
+    public void initialize(BufferedReader reader, int size) throws IOException{
+        root = exNode;
+        if(size == 0)
+            return;
+        int maxDepth = completeDepth(size);
+        //All the nodes at maxDepth are colored red, which makes the complete tree obey the red black properties
+        root = initialize(0, size - 1, 1, maxDepth > 1 ? maxDepth : -1, reader);
+        root.parent = exNode;
+    }
+
+    /**
+     * Recursive initialize by taking the key value pairs from the reader
+     * @param start Start index of the sub problem
+     * @param end End index of the sub problem
+     * @param depth Depth of the root of the sub tree
+     * @param redDepth Depth whose nodes are colored red
+     * @param reader Reader to read the input key value
+     * @return Root node of the sub tree that is build.
+     * @throws IOException When failure in reading occurs
+     */
+    private Node initialize(int start, int end, int depth, int redDepth, BufferedReader reader) throws IOException{
+        if(start>end)
+            return exNode;
+        int mid = start + (end - start)/2;
+        Node left = initialize(start, mid-1, depth+1, redDepth, reader);
+        String tokens[] = reader.readLine().split(" ");
+        Node node = new Node(Long.parseLong(tokens[0]), Integer.parseInt(tokens[1]), exNode);
+        node.color = depth == redDepth ? Color.RED : Color.BLACK;
+        node.left = left;
+        if(node.left.isInternalNode())
+            node.left.parent = node;
+        node.right = initialize(mid+1, end, depth+1, redDepth, reader);
+        if(node.right.isInternalNode())
+            node.right.parent = node;
+        return node;
+    }
+
+    /**
+     * Initialize the RedBlack tree from sorted arrays of keys and values, building the left and right subtrees in
+     * parallel in the common ForkJoinPool, see initialize(long[], int[], ForkJoinPool)
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     */
+    public void initialize(long[] keys, int[] values){
+        initialize(keys, values, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize the RedBlack tree from sorted arrays of keys and values. The complete Binary Search tree is built
+     * as in initialize(BufferedReader, int), but as every node is taken by index from the arrays the left and right
+     * subtrees are built by parallel tasks.
+     * Time Complexity = O(n), O(n/p + lg(n)) with p workers
+     * @param keys Keys sorted in increasing order
+     * @param values values[i] is the value of keys[i]
+     * @param pool Pool that runs the build
+     */
+    public void initialize(long[] keys, int[] values, ForkJoinPool pool){
+        if(keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " " + values.length);
+        root = exNode;
+        if(keys.length == 0)
+            return;
+        int maxDepth = completeDepth(keys.length);
+        Node node = pool.invoke(new BuildTask(keys, values, 0, keys.length - 1, 1, maxDepth > 1 ? maxDepth : -1));
+        node.parent = exNode;
+        root = node;
+    }
+
+    /**
+     * Returns the depth of the complete Binary Search tree built by initialize
+     * @param size Number of nodes
+     * @return floor(lg(size)) + 1, 0 when the tree is empty
+     */
+    private static int completeDepth(int size){
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * Builds the sub tree of keys[start..end], forking the left subtree while the range is larger than THRESHOLD
+     */
+    private class BuildTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 13;
+        private final long[] keys;
+        private final int[] values;
+        private final int start;
+        private final int end;
+        private final int depth;
+        private final int redDepth;
+
+        BuildTask(long[] keys, int[] values, int start, int end, int depth, int redDepth){
+            this.keys = keys;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+            this.redDepth = redDepth;
+        }
+
+        @Override
+        protected Node compute() {
+            if(end - start < THRESHOLD)
+                return build(start, end, depth);
+            int mid = start + (end - start)/2;
+            BuildTask leftTask = new BuildTask(keys, values, start, mid-1, depth+1, redDepth);
+            leftTask.fork();
+            Node right = new BuildTask(keys, values, mid+1, end, depth+1, redDepth).compute();
+            return link(mid, depth, leftTask.join(), right);
+        }
+
+        private Node build(int start, int end, int depth){
+            if(start>end)
+                return exNode;
+            int mid = start + (end - start)/2;
+            Node left = build(start, mid-1, depth+1);
+            return link(mid, depth, left, build(mid+1, end, depth+1));
+        }
+
+        private Node link(int mid, int depth, Node left, Node right){
+            Node node = new Node(keys[mid], values[mid], exNode);
+            node.color = depth == redDepth ? Color.RED : Color.BLACK;
+            node.left = left;
+            if(left.isInternalNode())
+                left.parent = node;
+            node.right = right;
+            if(right.isInternalNode())
+                right.parent = node;
+            return node;
+        }
+    }
+
+    /**
+     *  Rotates left(counter clockwise) with respect to x
+     *      |                      |
+     *      x                      y
+     *     / \                    / \
+     *    a  y      to           x  c
+     *      / \                 / \
+     *     b   c               a   b
+     */
+    private void leftRotate(Node x){
+        Node y = x.right; //y is the right child of x
+        x.right = y.left; //left child y becomes the right child of x.
+        if(y.left.isInternalNode()) //update the parent of y.left only if it an internal node
+            y.left.parent = x;
+        y.parent = x.parent; //update the parent of y with parent of x
+        if(x.parent.isExternalNode()) // If x was the root, then y becomes the root
+            root = y;
+        else if(x == x.parent.left)//If x was the left child, update the left child of x's parent to y
+            x.parent.left = y;
+        else x.parent.right = y;//If x was the right child, update the right child of x's parent to y
+        y.left = x;
+        x.parent = y;
+    }
+
+    /**
+     *  Rotates right(clockwise) with respect to x
+     *      |                      |
+     *      x                      y
+     *     / \                    / \
+     *    y  c      to           a  x
+     *   / \                       / \
+     *  a  b                      b   c
+     */
+    private void rightRotate(Node x){
+        Node y = x.left; //y is the left child of x
+        x.left = y.right; //right child y becomes the left child of x.
+        if(y.right.isInternalNode()) //update the parent of y.right only if it an internal node
+            y.right.parent = x;
+        y.parent = x.parent; //update the parent of y with parent of x
+        if(x == root) // If was the root, then y becomes the root
+            root = y;
+        else if(x == x.parent.left)//If x was the left child, update the left child of x's parent to y
+            x.parent.left = y;
+        else x.parent.right = y;//If x was the right child, update the right child of x's parent to y
+        y.right = x;
+        x.parent = y;
+    }
+
+    /**
+     * Makes pointer adjustments of the node being deleted with the replacement node
+     * @param delNode Node being deleted
+     * @param replaceNode Replacement node
+     */
+    private void replaceNode(Node delNode, Node replaceNode){
+        if(delNode == root)
+            root = replaceNode;
+        else if(delNode == delNode.parent.left)
+            delNode.parent.left = replaceNode;
+        else delNode.parent.right = replaceNode;
+        replaceNode.parent = delNode.parent;
+        //If replaceNode is external node, parent of the external node is temporarily set.
+        //The parent node of external node is reset after deleteFixColors
+    }
+
+    /**
+     * Utility method to verify the properties of the RB tree
+     * The nodes are visited depth first with an explicit stack, checking at every node that a red node has no red
+     * child and that every path to an external node has the same number of black nodes.
+     * @return true if all the properties of RB tree hold, otherwise false;
+     */
+    public boolean verifyRBProperties(){
+        boolean exNodeProperty = exNode.color == Color.BLACK && exNode.parent == null && exNode.left == null && exNode.right == null;
+        boolean rootNodeProperty = root.isBlack();
+        if(!exNodeProperty || !rootNodeProperty)
+            return false;
+        int numBNodes = countBNodesToExNode();
+        //nodes[i] is a node still to visit, blacks[i] is the number of black nodes above it
+        Node[] nodes = new Node[STACK_SIZE];
+        int[] blacks = new int[STACK_SIZE];
+        int top = 0;
+        nodes[top] = root;
+        blacks[top++] = 0;
+        while(top > 0){
+            Node node = nodes[--top];
+            int numBlack = blacks[top];
+            if(node.isExternalNode()){
+                if(numBlack + 1 != numBNodes)
+                    return false;
+                continue;
+            }
+            if(node.isBlack())
+                numBlack++;
+            if(node.isRed() && (node.left.isRed() || node.right.isRed()))
+                return false;
+            if(top + 2 > nodes.length){
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                blacks = Arrays.copyOf(blacks, blacks.length * 2);
+            }
+            nodes[top] = node.right;
+            blacks[top++] = numBlack;
+            nodes[top] = node.left;
+            blacks[top++] = numBlack;
+        }
+        return true;
+    }
+
+    private int countBNodesToExNode(){
+        Node curr = root;
+        int nBNodes = 0;
+        while(curr.isInternalNode()){
+            if(curr.isBlack())
+                nBNodes++;
+            curr = curr.left;
+        }
+        //Count the color of external node as well.
+        nBNodes++;
+        return nBNodes;
+    }
+
+    private void printTree(Node node, PrintStream out) throws IOException {
+        if (node.right != null) {
+            printTree(node.right, out, true, "");
+        }
+        printNodeValue(node, out);
+        if (node.left != null) {
+            printTree(node.left, out, false, "");
+        }
+    }
+    private void printNodeValue(Node node, PrintStream out) throws IOException {
+        if(node.isExternalNode())
+            out.print("extNode//B");
+        else out.print(node.key + "" + node.color);
+        out.println();
+    }
+
+    public void printTree(){
+        try {
+            printTree(root, System.out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // use string and not stringbuffer on purpose as we need to change the indent at each recursion
+    private void printTree(Node node, PrintStream out, boolean isRight, String indent) throws IOException {
+        if (node.right != null) {
+            printTree(node.right, out, true, indent + (isRight ? "        " : " |      "));
+        }
+        out.print(indent);
+        if (isRight) {
+            out.print(" /");
+        } else {
+            out.print(" \\");
+        }
+        out.print("----- ");
+        printNodeValue(node,out);
+        if (node.left != null) {
+            printTree(node.left, out, false, indent + (isRight ? " |      " : "        "));
+        }
+    }
+}